@@ -3,13 +3,25 @@ package org.firstinspires.ftc.teamcode;
 import com.qualcomm.robotcore.eventloop.opmode.Autonomous;
 import com.qualcomm.robotcore.eventloop.opmode.LinearOpMode;
 import com.qualcomm.robotcore.hardware.DcMotor;
-import com.qualcomm.robotcore.hardware.DcMotorEx;
 import com.qualcomm.robotcore.hardware.DcMotorSimple;
 
+import static org.firstinspires.ftc.teamcode.MecanumDrive.BL;
+import static org.firstinspires.ftc.teamcode.MecanumDrive.BR;
+import static org.firstinspires.ftc.teamcode.MecanumDrive.FL;
+import static org.firstinspires.ftc.teamcode.MecanumDrive.FR;
+
 @Autonomous(name="Encoder_Auto_Tuner", group="Test")
 public class Encoder_Auto_Tuner extends LinearOpMode {
 
-    private DcMotor front_left, front_right, back_left, back_right;
+    private MotorCache motors; // coalesces repeated setPower/setMode/setTargetPosition writes
+    private CachedMotor front_left, front_right, back_left, back_right;
+    private EncoderSnapshot encoders; // one bulk read per loop, shared by checks + telemetry
+
+    // telemetry lines (declared once after start, then only numbers change)
+    private TelemetryPublisher tele;
+    private int lineMove, lineProfile, lineTargets, lineNow, lineReads, lineWrites;
+
+    private ProfiledDrive legs; // trapezoid profile + feedforward/PID per wheel
 
     // === Robot constants (tune these) ===
     private static final double TICKS_PER_REV         = 560.0;  // e.g., NeveRest 20 or REV HD Hex 20:1 (~560)
@@ -20,17 +32,21 @@ public class Encoder_Auto_Tuner extends LinearOpMode {
 
     private static final double MAX_POWER           = 0.6;
     private static final double TIMEOUT_S_PER_FOOT  = 2.5;
+    private static final double TELEMETRY_HZ        = 4.0;  // loop runs much faster; DS doesn't need it
 
-    // stop when we’re “close enough” to target (ticks)
-    private static final int POS_TOL_TICKS = 10;
+    // Motion profile + tolerance: the same ProfiledDrive as the match auto
+    // (Encoder_Route_Auto.newLegs), so what we tune here is what runs there.
 
     @Override
     public void runOpMode() {
         // map hardware
-        front_left  = hardwareMap.get(DcMotor.class, "front_left");
-        front_right = hardwareMap.get(DcMotor.class, "front_right");
-        back_left   = hardwareMap.get(DcMotor.class, "back_left");
-        back_right  = hardwareMap.get(DcMotor.class, "back_right");
+        motors = new MotorCache(hardwareMap);
+        front_left  = motors.get("front_left");
+        front_right = motors.get("front_right");
+        back_left   = motors.get("back_left");
+        back_right  = motors.get("back_right");
+        encoders    = new EncoderSnapshot(hardwareMap, front_left, front_right, back_left, back_right);
+        legs        = Encoder_Route_Auto.newLegs(front_left, front_right, back_left, back_right, encoders);
 
         // directions (so positive = forward)
         front_left.setDirection(DcMotorSimple.Direction.FORWARD);
@@ -38,15 +54,12 @@ public class Encoder_Auto_Tuner extends LinearOpMode {
         front_right.setDirection(DcMotorSimple.Direction.REVERSE);
         back_right.setDirection(DcMotorSimple.Direction.REVERSE);
 
-        for (DcMotor m : new DcMotor[]{front_left, front_right, back_left, back_right}) {
+        for (CachedMotor m : new CachedMotor[]{front_left, front_right, back_left, back_right}) {
             m.setZeroPowerBehavior(DcMotor.ZeroPowerBehavior.BRAKE);
             m.setMode(DcMotor.RunMode.STOP_AND_RESET_ENCODER);
             m.setMode(DcMotor.RunMode.RUN_USING_ENCODER);
         }
 
-        // Optional: set built-in target tolerance if DcMotorEx is available
-        setBuiltInToleranceIfSupported(POS_TOL_TICKS);
-
         telemetry.addLine("Encoder_Auto_Tuner READY");
         telemetry.addData("Ticks per inch", "%.1f", ticksPerInch());
         telemetry.update();
@@ -54,6 +67,8 @@ public class Encoder_Auto_Tuner extends LinearOpMode {
         waitForStart();
         if (isStopRequested()) return;
 
+        setupTelemetry();
+
         // === Test sequence ===
         double p = MAX_POWER;
 
@@ -67,6 +82,7 @@ public class Encoder_Auto_Tuner extends LinearOpMode {
         sleep(250);
 
         driveInches(-24, p, getTimeout(24));    // back 24"
+        tele.stop();                            // the lines below go out on this thread
 
         telemetry.addLine("Sequence complete ✅");
         telemetry.update();
@@ -77,49 +93,12 @@ public class Encoder_Auto_Tuner extends LinearOpMode {
 
     private void driveInches(double inches, double power, double timeoutS) {
         int dt = ticksFromInches(inches);
-        int flT = front_left.getCurrentPosition()  + dt;
-        int frT = front_right.getCurrentPosition() + dt;
-        int blT = back_left.getCurrentPosition()   + dt;
-        int brT = back_right.getCurrentPosition()  + dt;
-
-        setRunToPosition(flT, frT, blT, brT);
-        // tiny settle (optional)
-        // sleep(10);
-
-        long start = now();
-        final double requested = clipAbs(power, 1.0);
-
-        while (opModeIsActive()
-                && !allWithin(flT, frT, blT, brT, POS_TOL_TICKS)
-                && elapsedS(start) < timeoutS) {
-            setAllPower(requested);
-            showTelemetry("Drive", flT, frT, blT, brT, requested);
-        }
-        stopAll();
-        setRunUsingEncoder();
+        runLeg("Drive", dt, dt, dt, dt, power, timeoutS);
     }
 
     private void strafeInches(double inches, double power, double timeoutS) {
         int dt  = (int)Math.round(ticksFromInches(inches) * STRAFE_CORRECTION);
-        int flT = front_left.getCurrentPosition()  + dt;
-        int frT = front_right.getCurrentPosition() - dt;
-        int blT = back_left.getCurrentPosition()   - dt;
-        int brT = back_right.getCurrentPosition()  + dt;
-
-        setRunToPosition(flT, frT, blT, brT);
-        // sleep(10);
-
-        long start = now();
-        final double requested = clipAbs(power, 1.0);
-
-        while (opModeIsActive()
-                && !allWithin(flT, frT, blT, brT, POS_TOL_TICKS)
-                && elapsedS(start) < timeoutS) {
-            setAllPower(requested);
-            showTelemetry("Strafe", flT, frT, blT, brT, requested);
-        }
-        stopAll();
-        setRunUsingEncoder();
+        runLeg("Strafe", dt, -dt, -dt, dt, power, timeoutS);
     }
 
     private void turnByEncoders(double deltaDeg, double power, double timeoutS) {
@@ -128,40 +107,20 @@ public class Encoder_Auto_Tuner extends LinearOpMode {
         int dt = ticksFromInches(arcLen);
 
         // Right turn: left wheels backward, right wheels forward
-        int flT = front_left.getCurrentPosition()  - dt;
-        int frT = front_right.getCurrentPosition() + dt;
-        int blT = back_left.getCurrentPosition()   - dt;
-        int brT = back_right.getCurrentPosition()  + dt;
-
-        setRunToPosition(flT, frT, blT, brT);
-        // sleep(10);
-
-        long start = now();
-        final double requested = clipAbs(power, 1.0);
-
-        while (opModeIsActive()
-                && !allWithin(flT, frT, blT, brT, POS_TOL_TICKS)
-                && elapsedS(start) < timeoutS) {
-            setAllPower(requested);
-            showTelemetry("Turn", flT, frT, blT, brT, requested);
-        }
-        stopAll();
-        setRunUsingEncoder();
+        runLeg("Turn", -dt, dt, -dt, dt, power, timeoutS);
     }
 
-    // === Utilities ===
-
-    private void setBuiltInToleranceIfSupported(int tolTicks) {
-        try {
-            if (front_left  instanceof DcMotorEx) ((DcMotorEx) front_left ).setTargetPositionTolerance(tolTicks);
-            if (front_right instanceof DcMotorEx) ((DcMotorEx) front_right).setTargetPositionTolerance(tolTicks);
-            if (back_left   instanceof DcMotorEx) ((DcMotorEx) back_left  ).setTargetPositionTolerance(tolTicks);
-            if (back_right  instanceof DcMotorEx) ((DcMotorEx) back_right ).setTargetPositionTolerance(tolTicks);
-        } catch (Exception ignored) {
-            // Safe to ignore if the hardware class doesn’t support it
+    // Profiled leg, then stop: the tuner measures one move at a time.
+    private void runLeg(String label, int dFL, int dFR, int dBL, int dBR, double power, double timeoutS) {
+        legs.startLeg(dFL, dFR, dBL, dBR, Math.min(Math.abs(power), MAX_POWER), timeoutS);
+        while (opModeIsActive() && legs.update()) {
+            showTelemetry(label);
         }
+        legs.stop();
     }
 
+    // === Utilities ===
+
     private double ticksPerInch() {
         return (TICKS_PER_REV * EXTERNAL_GEAR_RATIO) / (Math.PI * WHEEL_DIAMETER_IN);
     }
@@ -170,46 +129,6 @@ public class Encoder_Auto_Tuner extends LinearOpMode {
         return (int)Math.round(inches * ticksPerInch());
     }
 
-    private void setRunToPosition(int flT, int frT, int blT, int brT) {
-        front_left.setTargetPosition(flT);
-        front_right.setTargetPosition(frT);
-        back_left.setTargetPosition(blT);
-        back_right.setTargetPosition(brT);
-
-        front_left.setMode(DcMotor.RunMode.RUN_TO_POSITION);
-        front_right.setMode(DcMotor.RunMode.RUN_TO_POSITION);
-        back_left.setMode(DcMotor.RunMode.RUN_TO_POSITION);
-        back_right.setMode(DcMotor.RunMode.RUN_TO_POSITION);
-    }
-
-    private void setRunUsingEncoder() {
-        front_left.setMode(DcMotor.RunMode.RUN_USING_ENCODER);
-        front_right.setMode(DcMotor.RunMode.RUN_USING_ENCODER);
-        back_left.setMode(DcMotor.RunMode.RUN_USING_ENCODER);
-        back_right.setMode(DcMotor.RunMode.RUN_USING_ENCODER);
-    }
-
-    private void setAllPower(double requested) {
-        double p = Math.min(Math.abs(requested), MAX_POWER);
-        front_left.setPower(p);
-        front_right.setPower(p);
-        back_left.setPower(p);
-        back_right.setPower(p);
-    }
-
-    private void stopAll() { setAllPower(0); }
-
-    private boolean allWithin(int flT, int frT, int blT, int brT, int tol) {
-        return withinTolerance(flT, front_left.getCurrentPosition(), tol)
-            && withinTolerance(frT, front_right.getCurrentPosition(), tol)
-            && withinTolerance(blT, back_left.getCurrentPosition(), tol)
-            && withinTolerance(brT, back_right.getCurrentPosition(), tol);
-    }
-
-    private boolean withinTolerance(int target, int current, int tolTicks) {
-        return Math.abs(target - current) <= tolTicks;
-    }
-
     // distance-based timeout helper
     private double getTimeout(double inches) {
         return Math.max(1.0, (Math.abs(inches) / 12.0) * TIMEOUT_S_PER_FOOT);
@@ -221,21 +140,32 @@ public class Encoder_Auto_Tuner extends LinearOpMode {
         return Math.max(1.0, (arcLen / 12.0) * TIMEOUT_S_PER_FOOT);
     }
 
-    private long now() { return System.currentTimeMillis(); }
-    private double elapsedS(long startMs) { return (now() - startMs) / 1000.0; }
-
-    private void showTelemetry(String label, int flT, int frT, int blT, int brT, double requestedPower) {
-        telemetry.addData(label, "Requested=%.2f  (Capped at %.2f)", requestedPower, MAX_POWER);
-        telemetry.addData("Targets", "FL:%d  FR:%d  BL:%d  BR:%d", flT, frT, blT, brT);
-        telemetry.addData("Now    ", "FL:%d  FR:%d  BL:%d  BR:%d",
-                front_left.getCurrentPosition(),
-                front_right.getCurrentPosition(),
-                back_left.getCurrentPosition(),
-                back_right.getCurrentPosition());
-        telemetry.update();
-    }
-
-    private static double clipAbs(double v, double max) {
-        return Math.copySign(Math.min(Math.abs(v), max), v);
+    private void setupTelemetry() {
+        tele        = new TelemetryPublisher(telemetry, TELEMETRY_HZ);
+        lineMove    = tele.addText("Move   ");
+        lineProfile = tele.addLine("Profile", 2, "t=", "of ");
+        lineTargets = tele.addLine("Targets", 0, "FL:", "FR:", "BL:", "BR:");
+        lineNow     = tele.addLine("Now    ", 0, "FL:", "FR:", "BL:", "BR:");
+        lineReads   = tele.addLine("Reads  ", 1, "encoder reads/loop ");
+        lineWrites  = tele.addLine("Writes ", 0, "sent:", "skipped:");
+    }
+
+    // cheap to call every spin: only stores numbers, publishes at TELEMETRY_HZ
+    private void showTelemetry(String label) {
+        tele.setText(lineMove, label);
+        tele.set(lineProfile, 0, legs.legTimeS());
+        tele.set(lineProfile, 1, legs.legPlannedS());
+        tele.set(lineTargets, 0, legs.target(FL));
+        tele.set(lineTargets, 1, legs.target(FR));
+        tele.set(lineTargets, 2, legs.target(BL));
+        tele.set(lineTargets, 3, legs.target(BR));
+        tele.set(lineNow, 0, encoders.position(FL));
+        tele.set(lineNow, 1, encoders.position(FR));
+        tele.set(lineNow, 2, encoders.position(BL));
+        tele.set(lineNow, 3, encoders.position(BR));
+        tele.set(lineReads, 0, encoders.readsPerCycle());
+        tele.set(lineWrites, 0, motors.sentCount());
+        tele.set(lineWrites, 1, motors.suppressedCount());
+        tele.publish();
     }
 }
@@ -1,193 +1,253 @@
 package org.firstinspires.ftc.teamcode;
 
 import com.pedropathing.follower.Follower;
-import com.pedropathing.geometry.BezierCurve;
 import com.qualcomm.robotcore.eventloop.opmode.Autonomous;
 import com.qualcomm.robotcore.eventloop.opmode.OpMode;
-import com.pedropathing.geometry.BezierLine;
-import com.pedropathing.geometry.Pose;
 import com.pedropathing.paths.PathChain;
-import com.pedropathing.util.Timer;
+import com.qualcomm.robotcore.hardware.IMU;
 
 import org.firstinspires.ftc.teamcode.pedroPathing.Constants;
 
 @Autonomous(name = "PedroAutoExample", group = "Pedro")
 public class PedroPathingAutoTest extends OpMode {
     private Follower follower;
-    private Timer pathTimer, opModeTimer;
-
-
-    /* ------ init Poses --------
-    Pedro is based on a 0-144 grid, the same size as the FTC field in inches.
-    0,0 is bottom left corner. each coordinate is 1 inch over.
-    remember, pedro assumes you start at 0,0 CENTRE of your ROBOT
-    initial heading (0) is facing towards goals
-    */
-    /*
-    Think of Poses like a set position on the field. we have several "important" positions to keep track of here
-    so we write them down here.
-     */
-    private final Pose startPose = new Pose(0, 0, Math.toRadians(-135));
-    private final Pose scorePose = new Pose((80/2.54), (110/2.54), Math.toRadians(-135));
-    private final Pose pickup1Pose = new Pose((90/2.54), 0, Math.toRadians(-90));
-    private final Pose pickup1IntermediaryPose = new Pose((90/2.54), (60/2.54), Math.toRadians(-90));
-    private final Pose pickup2Pose = new Pose((150/2.54), 0, Math.toRadians(-90));
-    private final Pose pickup2IntermediaryPose = new Pose((150/2.54), (60/2.54), Math.toRadians(-90));
+    private MotorCache motors;
+    private Launcher launcher;
+    private Indexer indexer;
+    private MatchRecorder recorder;        // every loop, see Sim/MatchLogReader
+    private EncoderSnapshot encoders;      // for the log; Pedro localizes on its own
+    private ImuService imuService;
+
+    // ====== SCORING ======
+    private static final double AUTO_LAUNCHER_RPM = 4200;
+    private static final int    PRELOAD           = 3;
+    private static final int    LAUNCHER_ENC      = 4;     // in the snapshot, after FL, FR, BL, BR
+
+    // ====== ALONG THE PATHS (see PathTriggers) ======
+    private static final double SPIN_UP_AT        = 0.6;   // launcher on at 60% of each drive to the goal
+    // (pickup slow-down: PedroAutoRoute.PICKUP_SLOW_IN / PICKUP_POWER)
+    private static final double INTAKE_OFF_AT     = 0.5;   // keep pulling balls in for the first half of the way back
+    // Safety nets only: each state normally ends on its event (path done,
+    // indexer empty), these just stop a stuck state from eating the auto.
+    private static final double DRIVE_TIMEOUT_S   = 6.0;
+    private static final double SCORE_TIMEOUT_S   = 4.0;
 
 
     // ---------- Paths--------
-    // these are individual names for each of our paths that we will eventually follow/create
-    private PathChain scorePreload, pickup1, score1, pickup2, score2, startPoint;
+    // poses and path shapes live in PedroAutoRoute (the laptop tools read them
+    // too); buildPaths() makes Pedro's chain and our lookup table (progress
+    // along the path, distance to go) from each, the table mapped from the
+    // hub when the poses haven't changed since the last init.
+    private final AutoPath startPoint = PedroAutoRoute.startPoint();
+    private final AutoPath scorePreload = PedroAutoRoute.scorePreload();
+    private final AutoPath pickup1 = PedroAutoRoute.pickup1();
+    private final AutoPath score1 = PedroAutoRoute.score1();
+    private final AutoPath pickup2 = PedroAutoRoute.pickup2();
+    private final AutoPath score2 = PedroAutoRoute.score2();
+
+    private final PathCache pathCache = new PathCache(PathCache.DEFAULT_DIR);
+    private PathTable activeT;    // table of the chain being followed
+
+    // What happens along each path, keyed to distance on its table.
+    private PathTriggers scorePreloadP, pickup1P, score1P, pickup2P, score2P, startPointP;
+    private PathTriggers activeP;
 
     public enum PathState {
-        // These are the various states inside of our auto machine.
+        // These are the various states inside of our auto machine, in the order they run.
         DRIVE_START_SCORE,
         SCORE_PRELOAD,
-        SCORE1,
-        SCORE2,
         DRIVE_SCORE_PICKUP1,
         DRIVE_PICKUP1_SCORE,
+        SCORE1,
         DRIVE_SCORE_PICKUP2,
         DRIVE_PICKUP2_SCORE,
+        SCORE2,
         END
-
-
-    };
-    PathState pathState;
+    }
+    private final AutoMachine<PathState> machine = new AutoMachine<>(PathState.class);
 
     public void buildPaths() {
-        startPoint = follower.pathBuilder() // returns the robot to start
-                .addPath(new BezierLine(scorePose, startPose))
-                .setLinearHeadingInterpolation(scorePose.getHeading(), startPose.getHeading())
-                .build();
-        scorePreload = follower.pathBuilder() // moves from from start > scoring position
-                .addPath(new BezierLine(startPose, scorePose))
-                .setLinearHeadingInterpolation(startPose.getHeading(), scorePose.getHeading())
-                .build();
-        pickup1 = follower.pathBuilder() // moves from scoring position  > pickup 1 point, 1/2 speed
-                .addPath(new BezierCurve(scorePose, pickup1IntermediaryPose, pickup1Pose))
-                .setLinearHeadingInterpolation(scorePose.getHeading(), pickup1Pose.getHeading(), 0.4) // get angle sooner
-                .setGlobalDeceleration(0.5)
-                .setBrakingStart(0.4)
-                .build();
-        score1 = follower.pathBuilder() // moves from pickup 1 > scoring position
-                .addPath(new BezierLine(pickup1Pose, scorePose))
-                .setLinearHeadingInterpolation(pickup1Pose.getHeading(), scorePose.getHeading(),0.8) //0.8 is suggested
-                .build();
-        pickup2 = follower.pathBuilder() // moves from scoring position > pickup 2
-                // use a curve to we can line up better for the balls
-                .addPath(new BezierCurve(scorePose, pickup2IntermediaryPose, pickup2Pose))
-                .setLinearHeadingInterpolation(scorePose.getHeading(), pickup2Pose.getHeading(),0.4) // get angle sooner
-                .build();
-        score2 = follower.pathBuilder() // moves from pickup 2 > scoring position
-                .addPath(new BezierLine(pickup2Pose, scorePose))
-                .setLinearHeadingInterpolation(pickup2Pose.getHeading(), scorePose.getHeading(), 0.8)
-                .build();
+        for (AutoPath path : new AutoPath[] {startPoint, scorePreload, pickup1, score1, pickup2, score2}) {
+            path.build(follower, pathCache);
         }
+    }
 
-    public void autonomousPathUpdate() {
-        switch(pathState) {
-            case SCORE_PRELOAD:
-                //TODO: run standard scoring state machine here
-                if(pathTimer.getElapsedTimeSeconds() > 4 && !follower.isBusy()){
-                    // just scored preload, drive to pickup point 1
-                    follower.followPath(pickup1);
-                    follower.setMaxPower(0.5); // slows down permanently
-                    setPathState(PathState.DRIVE_SCORE_PICKUP1);
-                }
-                break;
-            case SCORE1:
-                //TODO: run standard scoring state machine here
-                if(pathTimer.getElapsedTimeSeconds() > 5 && !follower.isBusy()){
-                    // scored pickup 1, drive to pickup 2
-                    follower.followPath(pickup2);
-                    follower.setMaxPower(0.5);
-                    setPathState(PathState.DRIVE_SCORE_PICKUP2);
-                }
-                break;
-            case SCORE2:
-                //TODO: run standard scoring state machine here
-                if(pathTimer.getElapsedTimeSeconds() > 6 && !follower.isBusy()) {
-                    // end state machine
-                    follower.followPath(startPoint);
-                    follower.setMaxPower(1);
-                    setPathState(PathState.END);
-                }
-                break;
-            case DRIVE_START_SCORE:
-                // drive from start to scoring position
-                follower.followPath(scorePreload, true);
-                setPathState(PathState.SCORE_PRELOAD);
-                break;
-            case DRIVE_PICKUP1_SCORE:
-                if(!follower.isBusy()) {
-                    // picked up at spike 1. drive from pickup1 to score
-                    follower.followPath(score1, true);
-                    pathState = PathState.SCORE1;
-                }
-                break;
-            case DRIVE_PICKUP2_SCORE:
-                if(!follower.isBusy()) {
-                    // picked up at spike 2. drive from pickup 2 to score
-                    follower.followPath(score2, true);
-                    pathState = PathState.SCORE2;
-                }
-                break;
-            case DRIVE_SCORE_PICKUP1:
-                // scored. drive to pickup point 1
-                if(!follower.isBusy()) {
-                    follower.followPath(pickup1);
-                    follower.setMaxPower(1);
-                    pathState = PathState.DRIVE_PICKUP1_SCORE;
-                }
-                break;
-            case DRIVE_SCORE_PICKUP2:
-                // scored, drive to pickup point 2
-                if(!follower.isBusy()) {
-                    follower.followPath(pickup2);
-                    follower.setMaxPower(1);
-                    pathState = PathState.DRIVE_PICKUP2_SCORE;
-                }
-                break;
-
-            default:
-                break;
-        }
+    // ========= TRIGGERS ALONG THE PATHS =========
+    // Launcher spin-up and intake overlap the drives instead of waiting for
+    // them: the launcher is at speed about when the robot arrives, and pickups
+    // run at full power until the spike.
+    public void buildTriggers() {
+        scorePreloadP = toGoal(scorePreload.table(), false);
+        pickup1P      = toSpike(pickup1.table());
+        score1P       = toGoal(score1.table(), true);
+        pickup2P      = toSpike(pickup2.table());
+        score2P       = toGoal(score2.table(), true);
+        startPointP   = new PathTriggers(startPoint.table());
+    }
+
+    private PathTriggers toGoal(PathTable table, boolean fromPickup) {
+        PathTriggers p = new PathTriggers(table)
+                .atFraction(SPIN_UP_AT, () -> launcher.setTargetRpm(AUTO_LAUNCHER_RPM));
+        if (fromPickup) p.atFraction(INTAKE_OFF_AT, () -> indexer.intake(false));
+        return p;
+    }
+
+    private PathTriggers toSpike(PathTable table) {
+        return new PathTriggers(table)
+                .fromEnd(PedroAutoRoute.PICKUP_SLOW_IN, () -> {
+                    follower.setMaxPower(PedroAutoRoute.PICKUP_POWER);
+                    indexer.intake(true);
+                });
+    }
+
+    // followPath + remember which table / triggers go with it. Anything the
+    // last path didn't get to (ended early, or short of t = 1) runs now.
+    private void follow(PathChain chain, PathTriggers triggers, boolean holdEnd, double maxPower) {
+        if (activeP != null) activeP.finish();
+        follower.setMaxPower(maxPower);
+        follower.followPath(chain, holdEnd);
+        activeP = triggers;
+        activeP.reset();
+        activeT = triggers.table();
     }
 
-    public void setPathState(PathState newState){
-        pathState = newState;
-        pathTimer.resetTimer();
+    // ========= STATES =========
+    // Each drive ends when the follower does (its triggers do the rest);
+    // scoring starts the burst on entry and ends when the indexer is empty,
+    // so nothing waits on a fixed timer.
+    private final AutoMachine.Condition arrived = () -> !follower.isBusy();
+    private final AutoMachine.Condition scored = () -> !indexer.firing() && indexer.state() != Indexer.State.STAGE;
+
+    public void buildStates() {
+        driveToScore(PathState.DRIVE_START_SCORE, scorePreload.chain(), scorePreloadP, PathState.SCORE_PRELOAD);
+        score(PathState.SCORE_PRELOAD, PathState.DRIVE_SCORE_PICKUP1);
+        driveToPickup(PathState.DRIVE_SCORE_PICKUP1, pickup1.chain(), pickup1P, PathState.DRIVE_PICKUP1_SCORE);
+        driveToScore(PathState.DRIVE_PICKUP1_SCORE, score1.chain(), score1P, PathState.SCORE1);
+        score(PathState.SCORE1, PathState.DRIVE_SCORE_PICKUP2);
+        driveToPickup(PathState.DRIVE_SCORE_PICKUP2, pickup2.chain(), pickup2P, PathState.DRIVE_PICKUP2_SCORE);
+        driveToScore(PathState.DRIVE_PICKUP2_SCORE, score2.chain(), score2P, PathState.SCORE2);
+        score(PathState.SCORE2, PathState.END);
+
+        machine.state(PathState.END)          // back to the start, launcher off; last state
+                .onEnter(() -> follow(startPoint.chain(), startPointP, false, 1.0))
+                .onEnter(() -> launcher.setTargetRpm(0))
+                .onEnter(() -> indexer.stop())
+                .until(arrived)
+                .timeout(DRIVE_TIMEOUT_S);
     }
+
+    // Drive to the goal; the launcher spins up on the way (toGoal triggers).
+    private void driveToScore(PathState id, PathChain chain, PathTriggers triggers, PathState next) {
+        machine.state(id)
+                .onEnter(() -> follow(chain, triggers, true, 1.0))
+                .until(arrived)
+                .timeout(DRIVE_TIMEOUT_S)
+                .onExit(triggers::finish)          // cut short: still spin up before firing
+                .then(next);
+    }
+
+    // Fire everything on board (the burst waits for the launcher to be at speed).
+    private void score(PathState id, PathState next) {
+        machine.state(id)
+                .onEnter(() -> indexer.fireBurst())
+                .until(scored)
+                .timeout(SCORE_TIMEOUT_S)
+                .onExit(() -> indexer.stop())
+                .then(next);
+    }
+
+    // Drive to a spike, launcher off; slows down and intakes near the end (toSpike triggers).
+    private void driveToPickup(PathState id, PathChain chain, PathTriggers triggers, PathState next) {
+        machine.state(id)
+                .onEnter(() -> follow(chain, triggers, false, 1.0))
+                .onEnter(() -> launcher.setTargetRpm(0))
+                .until(arrived)
+                .timeout(DRIVE_TIMEOUT_S)
+                .then(next);
+    }
+
     @Override
     public void init() {
-        // set initial state
-        pathState = PathState.DRIVE_START_SCORE;
-        pathTimer = new Timer();
-        opModeTimer = new Timer();
-        opModeTimer.resetTimer();
         follower = Constants.createFollower(hardwareMap);
-        //TODO: add in any other Init statements here for other hardware, shooters, etc.
+
+        motors = new MotorCache(hardwareMap);
+        CachedMotor intakeHarvester = motors.get("intakeHarvester");
+        CachedMotor conveyor = motors.get("conveyor");
+        launcher = Launcher.newLauncher(motors.get("launcher"), hardwareMap);
+        indexer = Indexer.newIndexer(intakeHarvester, conveyor, launcher);   // same feed as the TeleOps
+        indexer.setCount(PRELOAD);
+
+        // drive + launcher encoders out of one bulk read per loop (Pedro's own
+        // reads then come from it too), IMU on its own thread
+        encoders = new EncoderSnapshot(hardwareMap, motors.get("front_left"), motors.get("front_right"),
+                motors.get("back_left"), motors.get("back_right"), motors.get("launcher"));
+        launcher.velocityFrom(encoders, LAUNCHER_ENC);
+        IMU imu = hardwareMap.get(IMU.class, "imu");
+        imu.initialize(new IMU.Parameters());
+        imuService = new ImuService(imu, 100);
+        imuService.start();
+
+        recorder = new MatchRecorder(MatchRecorder.DEFAULT_DIR, "auto")
+                .encoders(encoders, "fl", "fr", "bl", "br", "launcher")
+                .powers(intakeHarvester, conveyor, motors.get("launcher"))
+                .heading(imuService)
+                .states(PathState.values())
+                .aux(Indexer.State.values())
+                .values("rpm", "target rpm", "path to go")
+                .open();
+
         buildPaths();
-        follower.setStartingPose(startPose);
+        buildTriggers();
+        buildStates();
+        follower.setStartingPose(PedroAutoRoute.START);
     }
 
     public void start() {
-        opModeTimer.resetTimer();
-        setPathState(pathState); // update state machine with starting state
+        machine.start(PathState.DRIVE_START_SCORE);
     }
 
     @Override
     public void loop() {
-        // update state machine + odometry
+        // subsystems first, then the state machine acts on what they read
+        imuService.poll();                       // no-op unless simulated
+        encoders.capture();                      // before anything reads an encoder
         follower.update();
-        autonomousPathUpdate();
+        if (activeP != null) activeP.update(follower.getChainIndex(), follower.getCurrentTValue());
+        launcher.update();
+        indexer.update();
+        machine.update();
+        record();
+
         // give data back to drivers
-        telemetry.addData("path state", pathState.toString());
+        telemetry.addData("path state", machine.finished() ? "DONE" : String.valueOf(machine.current()));
         telemetry.addData("x", follower.getPose().getX());
         telemetry.addData("y", follower.getPose().getY());
         telemetry.addData("heading", follower.getPose().getHeading());
-        telemetry.addData("Path time", pathTimer.getElapsedTimeSeconds());
+        telemetry.addData("State time", "%.2f s (auto %.1f s)", machine.timeInStateS(), machine.elapsedS());
+        telemetry.addData("Launcher", "%.0f / %.0f rpm%s", launcher.rpm(), launcher.targetRpm(),
+                launcher.atSpeed() ? " READY" : "");
+        telemetry.addData("Indexer", "%s  %d on board", indexer.state(), indexer.count());
+        if (activeP != null) telemetry.addData("Path to go", "%.1f in", activeT.length() - activeP.along());
+        telemetry.addData("Path tables", pathCache.summary());
+        telemetry.addData("States", machine.history());
+    }
+
+    private void record() {
+        recorder.state(machine.current().ordinal());
+        recorder.aux(indexer.state().ordinal());
+        recorder.pose(follower.getPose().getX(), follower.getPose().getY(),
+                Math.toDegrees(follower.getPose().getHeading()));
+        recorder.value(0, launcher.rpm());
+        recorder.value(1, launcher.targetRpm());
+        recorder.value(2, activeP == null ? 0 : activeT.length() - activeP.along());
+        recorder.commit();                       // + encoders, motor powers, IMU
     }
-}
 
+    @Override
+    public void stop() {
+        launcher.stop();
+        indexer.stop();
+        recorder.close();
+        imuService.stop();
+    }
+}
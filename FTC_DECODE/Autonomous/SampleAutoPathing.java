@@ -1,20 +1,23 @@
 package org.firstinspires.ftc.teamcode;
 
 import com.pedropathing.follower.Follower;
-import com.pedropathing.geometry.BezierLine;
 import com.pedropathing.geometry.Pose;
-import com.pedropathing.paths.PathChain;
 import com.qualcomm.robotcore.eventloop.opmode.Autonomous;
 import com.qualcomm.robotcore.eventloop.opmode.OpMode;
-import com.qualcomm.robotcore.eventloop.opmode.TeleOp;
-import com.pedropathing.util.Timer;
 
 import org.firstinspires.ftc.teamcode.pedroPathing.Constants;
 
 @Autonomous
 public class SampleAutoPathing extends OpMode {
     private Follower follower;
-    private Timer pathTimer, opModeTimer;
+    private MotorCache motors;
+    private Launcher launcher;
+    private Indexer indexer;
+
+    private static final double AUTO_LAUNCHER_RPM = 4200;
+    private static final int    PRELOAD           = 3;
+    private static final double SHOOT_TIMEOUT_S   = 4.0;   // safety net; normally ends when the indexer is empty
+    private static final double DRIVE_TIMEOUT_S   = 5.0;
 
     public enum PathState {
         // START POSITON_END POSITION
@@ -26,85 +29,96 @@ public class SampleAutoPathing extends OpMode {
         DRIVE_SHOOTPOS_ENDPOS
     }
 
-    PathState pathState;
+    private final AutoMachine<PathState> machine = new AutoMachine<>(PathState.class);
 
     private final Pose startPose = new Pose(20.386209877877445, 122.39783853885227, Math.toRadians(138));
     private final Pose shootPose = new Pose(46.415043769588245, 96.90020533880903,Math.toRadians(138));
 
     private final Pose endPose = new Pose(63.76759969739543, 105.75355019993515, Math.toRadians(90));
 
-    private PathChain driveStartPosShootPos, driveShootPosEndPos;
+    // starting pose > ending pose; each gives Pedro's chain and the lookup
+    // table for "distance to go" (see AutoPath, PathCache)
+    private final AutoPath driveStartPosShootPos = AutoPath.line("sampleStartShoot", startPose, shootPose);
+    private final AutoPath driveShootPosEndPos = AutoPath.line("sampleShootEnd", shootPose, endPose);
+
+    private final PathCache pathCache = new PathCache(PathCache.DEFAULT_DIR);
+    private PathTable activeT;
 
     public void buildPaths() {
-        // put in coordinates for starting pose > ending pose
-        driveStartPosShootPos = follower.pathBuilder()
-                .addPath(new BezierLine(startPose, shootPose))
-                .setLinearHeadingInterpolation(startPose.getHeading(), shootPose.getHeading())
-                .build();
-        driveShootPosEndPos = follower.pathBuilder()
-                .addPath(new BezierLine(shootPose, endPose))
-                .setLinearHeadingInterpolation(shootPose.getHeading(), endPose.getHeading())
-                .build();
+        driveStartPosShootPos.build(follower, pathCache);
+        driveShootPosEndPos.build(follower, pathCache);
     }
 
-    public void statePathUpdate() {
-        switch(pathState) {
-            case DRIVE_STARTPOS_SHOOT_POS:
-                follower.followPath(driveStartPosShootPos, true);
-                setPathState(PathState.SHOOT_PRELOAD); // reset the timer & make new state
-                break;
-            case SHOOT_PRELOAD:
-                // check is follower done it's path?
-                // and check that 5 seconds has elapsed
-                if (!follower.isBusy() && pathTimer.getElapsedTimeSeconds() > 5) {
-                    follower.followPath(driveShootPosEndPos, true);
-                    setPathState(PathState.DRIVE_SHOOTPOS_ENDPOS);
-                }
-                break;
-            case DRIVE_SHOOTPOS_ENDPOS:
-                // all done!
-                if (!follower.isBusy()) {
-                    telemetry.addLine("Done all Paths");
-                }
-            default:
-                telemetry.addLine("No State Commanded");
-                break;
-        }
-
+    // The drive to the shoot pose is short, so the launcher spins up from the
+    // start; shooting ends when the preload is out instead of after 5 s.
+    public void buildStates() {
+        machine.state(PathState.DRIVE_STARTPOS_SHOOT_POS)
+                .onEnter(() -> follow(driveStartPosShootPos))
+                .onEnter(() -> launcher.setTargetRpm(AUTO_LAUNCHER_RPM))
+                .until(() -> !follower.isBusy())
+                .timeout(DRIVE_TIMEOUT_S)
+                .then(PathState.SHOOT_PRELOAD);
+        machine.state(PathState.SHOOT_PRELOAD)
+                .onEnter(() -> indexer.fireBurst())
+                .until(() -> !indexer.firing() && indexer.state() != Indexer.State.STAGE)
+                .timeout(SHOOT_TIMEOUT_S)
+                .onExit(() -> indexer.stop())
+                .onExit(() -> launcher.setTargetRpm(0))
+                .then(PathState.DRIVE_SHOOTPOS_ENDPOS);
+        machine.state(PathState.DRIVE_SHOOTPOS_ENDPOS)   // all done once parked
+                .onEnter(() -> follow(driveShootPosEndPos))
+                .until(() -> !follower.isBusy())
+                .timeout(DRIVE_TIMEOUT_S);
     }
 
-    public void setPathState(PathState newState) {
-        pathState = newState;
-        pathTimer.resetTimer();
+    private void follow(AutoPath path) {
+        follower.followPath(path.chain(), true);
+        activeT = path.table();
     }
 
-
     @Override
     public void init() {
-        pathState = PathState.DRIVE_STARTPOS_SHOOT_POS;
-        pathTimer = new Timer();
-        opModeTimer = new Timer();
         follower = Constants.createFollower(hardwareMap);
-        // TODO add in any other init mechanicms
+
+        motors = new MotorCache(hardwareMap);
+        CachedMotor intakeHarvester = motors.get("intakeHarvester");
+        CachedMotor conveyor = motors.get("conveyor");
+        launcher = Launcher.newLauncher(motors.get("launcher"), hardwareMap);
+        indexer = Indexer.newIndexer(intakeHarvester, conveyor, launcher);   // same feed as the TeleOps
+        indexer.setCount(PRELOAD);
 
         buildPaths();
+        buildStates();
         follower.setPose(startPose);
     }
 
     public void start() {
-        opModeTimer.resetTimer();
-        setPathState(pathState);
+        machine.start(PathState.DRIVE_STARTPOS_SHOOT_POS);
     }
 
     @Override
     public void loop() {
         follower.update();
-        statePathUpdate();
+        launcher.update();
+        indexer.update();
+        machine.update();
 
-        telemetry.addData("path state", pathState.toString());
+        telemetry.addData("path state", machine.finished() ? "Done all Paths" : String.valueOf(machine.current()));
         telemetry.addData("x", follower.getPose().getX());
         telemetry.addData("y", follower.getPose().getY());
         telemetry.addData("heading", follower.getPose().getHeading());
-        telemetry.addData("Path time", pathTimer.getElapsedTimeSeconds());
+        telemetry.addData("Path time", machine.timeInStateS());
+        if (activeT != null) {
+            double along = activeT.sAt(follower.getChainIndex(), follower.getCurrentTValue());
+            telemetry.addData("Path to go", "%.1f in", activeT.length() - along);
+        }
+        telemetry.addData("Path tables", pathCache.summary());
+        telemetry.addData("States", machine.history());
+    }
+
+    @Override
+    public void stop() {
+        launcher.stop();
+        indexer.stop();
     }
 }
@@ -0,0 +1,206 @@
+package org.firstinspires.ftc.teamcode.sim;
+
+import com.qualcomm.robotcore.hardware.DcMotor;
+
+import org.firstinspires.ftc.teamcode.EncoderSnapshot;
+import org.firstinspires.ftc.teamcode.Encoder_Route_Auto;
+import org.firstinspires.ftc.teamcode.HeadingController;
+import org.firstinspires.ftc.teamcode.ImuService;
+import org.firstinspires.ftc.teamcode.LoopClock;
+import org.firstinspires.ftc.teamcode.MecanumDrive;
+import org.firstinspires.ftc.teamcode.MotorCache;
+import org.firstinspires.ftc.teamcode.PoseEKF;
+import org.firstinspires.ftc.teamcode.PoseEstimator;
+import org.firstinspires.ftc.teamcode.TagTracker;
+
+import org.firstinspires.ftc.vision.apriltag.AprilTagDetection;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+// Aim while driving (the AprilTag TeleOp's A button) on the sim chassis with a
+// SimCamera and the real stack: ImuService, TagTracker, PoseEstimator,
+// PoseEKF, HeadingController.goalAim(). The loop does what the TeleOp's
+// updatePose() / aimAtGoal() do; the error is the true bearing from the robot
+// centre to the goal tag.
+//
+// The robot stands in front of the red goal for STILL_S, then the driver
+// strafes side to side and drives fore-aft for DRIVE_S while the aim holds
+// the goal. Each run aims either on the tag (as while it's in view) or on the
+// field pose alone (as when it isn't), with and without the line-of-sight
+// feedforward. The pose runs start the EKF the way the TeleOp does (alliance
+// heading squared up by hand, HAND_ERR_DEG off) and, for comparison, with no
+// heading at all (the TeleOp before that was seeded).
+//
+// main() exits 1 if a tag or pose run loses its bearing once it has one (the
+// tag stays in view the whole run), or if the feedforward doesn't beat PID
+// only, or its worst error while driving is over FF_MAX_DEG. The no-heading
+// rows are there for comparison and aren't checked.
+//
+//   java ... org.firstinspires.ftc.teamcode.sim.AimSim [seed]
+public class AimSim {
+
+    public static final double LOOP_S = 0.010;
+    public static final double TAG_Z_IN = 29.5;
+    public static final double STILL_S = 2.0, DRIVE_S = 10.0;
+    private static final int GOAL = 1;                          // tag 24, red
+    private static final double START_X = -12, START_Y = 12;
+    private static final double HAND_ERR_DEG = 3;
+    public static final double FF_MAX_DEG = 4.0;
+
+    public enum Source { TAG, POSE, POSE_NO_HEADING }
+
+    public static class Result {
+        public double stillDeg;                  // |error| at the end of standing still
+        public double rmsDeg, maxDeg;            // while driving
+        public long unaimedLoops;                // no bearing to aim with
+        public long lostLoops;                   // ... after the first bearing
+    }
+
+    public static Result run(Source source, boolean feedforward, long seed) {
+        SimRobot robot = new SimRobot(new SimRobot.Config(), seed);
+        double gx = PoseEKF.GOAL_TAG_X[GOAL], gy = PoseEKF.GOAL_TAG_Y[GOAL];
+        double startH = Math.toDegrees(Math.atan2(gy - START_Y, gx - START_X));
+        robot.setPose(START_X, START_Y, Math.toRadians(startH));
+        double[] tagZ = new double[PoseEKF.GOAL_TAG_IDS.length];
+        Arrays.fill(tagZ, TAG_Z_IN);
+        SimCamera camera = new SimCamera(robot, new SimCamera.Config(), seed + 1,
+                PoseEKF.GOAL_TAG_IDS, PoseEKF.GOAL_TAG_X, PoseEKF.GOAL_TAG_Y, tagZ);
+
+        LoopClock.setSource(robot.clock());
+        try {
+            MecanumDrive drive = new MecanumDrive(new MotorCache(robot.hardwareMap()));
+            for (int i = 0; i < 4; i++) drive.motor(i).setMode(DcMotor.RunMode.RUN_USING_ENCODER);
+            EncoderSnapshot encoders = new EncoderSnapshot(robot.hardwareMap(),
+                    drive.motor(MecanumDrive.FL), drive.motor(MecanumDrive.FR),
+                    drive.motor(MecanumDrive.BL), drive.motor(MecanumDrive.BR));
+            ImuService imu = new ImuService(robot.imu(), 100);
+            imu.start();
+            PoseEstimator odometry = Encoder_Route_Auto.newPoseEstimator(encoders, imu);
+            TagTracker tags = new TagTracker(imu);
+            PoseEKF fieldPose = new PoseEKF();
+            if (source != Source.POSE_NO_HEADING) fieldPose.setHeading(startH + HAND_ERR_DEG, 5);
+
+            HeadingController aim = feedforward ? HeadingController.goalAim()
+                    : new HeadingController(HeadingController.AIM_KP, HeadingController.AIM_KI,
+                            HeadingController.AIM_KD, HeadingController.AIM_MAX)
+                            .tolerance(HeadingController.AIM_TOL_DEG, 20);
+            int tagId = PoseEKF.GOAL_TAG_IDS[GOAL];
+            double[] tagMeas = new double[2];
+
+            Result r = new Result();
+            double sum = 0;
+            int n = 0;
+            double start = robot.timeS();
+            boolean aimed = false;
+            while (robot.timeS() - start < STILL_S + DRIVE_S) {
+                double t = robot.timeS() - start;
+
+                // ---- updatePose() ----
+                imu.poll();
+                List<AprilTagDetection> frame;
+                while ((frame = camera.poll()) != null) tags.offer(frame, LoopClock.nanoTime());
+                encoders.capture();
+                odometry.update();
+                fieldPose.predict(odometry);
+                fieldPose.addSightings(tags);
+
+                // ---- aimAtGoal(): bearing + range ----
+                boolean have = true;
+                double bearing, range;
+                if (source == Source.TAG && tags.fresh(tagId, 0.5)) {
+                    tags.measurement(tagId, tagMeas);
+                    double b = tags.bearingDeg(tagId);
+                    bearing = PoseEKF.robotBearingDeg(tagMeas[0], b);
+                    range = PoseEKF.robotRangeIn(tagMeas[0], b);
+                } else if (source != Source.TAG && fieldPose.isFixed()) {
+                    bearing = fieldPose.bearingToTagDeg(tagId);
+                    range = fieldPose.distanceToTagIn(tagId);
+                } else {
+                    have = false;
+                    bearing = 0;
+                    range = 0;
+                }
+
+                // ---- aimAtGoal() + the driver's sticks ----
+                double rx = 0;
+                if (have) {
+                    aimed = true;
+                    double heading = odometry.headingDeg();
+                    aim.setTarget(heading + bearing);
+                    rx = feedforward
+                            ? aim.update(heading, imu.yawRateDegPerS(), odometry.lineOfSightRateDegPerS(bearing, range))
+                            : aim.update(heading, imu.yawRateDegPerS());
+                } else {
+                    aim.reset();
+                    r.unaimedLoops++;
+                    if (aimed) r.lostLoops++;
+                }
+                double y = 0, x = 0;
+                if (t >= STILL_S) {
+                    double td = t - STILL_S;
+                    x = 0.6 * Math.sin(2 * Math.PI * td / 4.0);      // strafe across the goal
+                    y = 0.3 * Math.sin(2 * Math.PI * td / 5.0);      // and in / out
+                }
+                drive.drive(y, x, rx);
+
+                // ---- score, on truth ----
+                double err = Math.toDegrees(Math.atan2(Math.sin(Math.atan2(gy - robot.y(), gx - robot.x()) - robot.heading()),
+                        Math.cos(Math.atan2(gy - robot.y(), gx - robot.x()) - robot.heading())));
+                if (t < STILL_S) {
+                    r.stillDeg = Math.abs(err);
+                } else {
+                    sum += err * err;
+                    r.maxDeg = Math.max(r.maxDeg, Math.abs(err));
+                    n++;
+                }
+
+                camera.step();
+                robot.step(LOOP_S);
+            }
+            drive.stop();
+            imu.stop();
+            r.rmsDeg = Math.sqrt(sum / n);
+            return r;
+        } finally {
+            LoopClock.setSource(null);
+        }
+    }
+
+    public static void main(String[] args) {
+        long seed = args.length > 0 ? Long.parseLong(args[0]) : 1;
+        System.out.println(String.format(Locale.US,
+                "aim at tag %d: %.0f s still, then %.0f s strafing / driving (seed %d)",
+                PoseEKF.GOAL_TAG_IDS[GOAL], STILL_S, DRIVE_S, seed));
+        System.out.println("                              still    rms    max   (deg)  loops with no bearing (after the first)");
+        boolean ok = true;
+        for (Source source : Source.values()) {
+            String name = source.name().toLowerCase(Locale.US);
+            double pidRms = 0;
+            for (boolean ff : new boolean[] {false, true}) {
+                Result r = run(source, ff, seed);
+                System.out.println(String.format(Locale.US, "%-16s %-12s %6.2f %6.2f %6.2f   %d (%d)",
+                        name, ff ? "feedforward" : "PID only",
+                        r.stillDeg, r.rmsDeg, r.maxDeg, r.unaimedLoops, r.lostLoops));
+                if (source == Source.POSE_NO_HEADING) continue;
+                ok &= check(r.lostLoops == 0, name + (ff ? " feedforward" : " PID only")
+                        + " lost its bearing for " + r.lostLoops + " loops");
+                if (!ff) pidRms = r.rmsDeg;
+                else {
+                    ok &= check(r.rmsDeg < pidRms,
+                            String.format(Locale.US, "%s feedforward rms %.2f deg, PID only %.2f", name, r.rmsDeg, pidRms));
+                    ok &= check(r.maxDeg <= FF_MAX_DEG,
+                            String.format(Locale.US, "%s feedforward max %.2f deg (want <= %.1f)", name, r.maxDeg, FF_MAX_DEG));
+                }
+            }
+        }
+        System.out.println(ok ? "OK" : "FAILED");
+        if (!ok) System.exit(1);
+    }
+
+    private static boolean check(boolean pass, String what) {
+        if (!pass) System.out.println("FAIL: " + what);
+        return pass;
+    }
+}
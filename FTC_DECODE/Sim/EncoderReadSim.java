@@ -0,0 +1,165 @@
+package org.firstinspires.ftc.teamcode.sim;
+
+import com.qualcomm.robotcore.hardware.DcMotor;
+
+import org.firstinspires.ftc.teamcode.CachedMotor;
+import org.firstinspires.ftc.teamcode.EncoderRoute;
+import org.firstinspires.ftc.teamcode.EncoderSnapshot;
+import org.firstinspires.ftc.teamcode.Encoder_Route_Auto;
+import org.firstinspires.ftc.teamcode.ImuService;
+import org.firstinspires.ftc.teamcode.LoopClock;
+import org.firstinspires.ftc.teamcode.MecanumDrive;
+import org.firstinspires.ftc.teamcode.MotorCache;
+import org.firstinspires.ftc.teamcode.PoseEstimator;
+import org.firstinspires.ftc.teamcode.ProfiledDrive;
+
+import java.util.Locale;
+
+// Encoder reads per loop in the encoder auto, counted on the sim motors
+// (SimMotor.positionReadCount), the old way and through EncoderSnapshot:
+//
+//   per consumer: the auto before EncoderSnapshot. Every leg reads all four
+//                 for its targets, every spin allWithin() reads until the
+//                 first wheel out of tolerance, and the telemetry reads all
+//                 four again.
+//   snapshot:     the auto now. ProfiledDrive captures once per spin; the
+//                 leg check, PoseEstimator and telemetry all use that.
+//
+// The sim has no hubs, so this counts motor reads, not bulk transactions: on
+// the robot the snapshot's reads all come out of one bulk read per hub, the
+// old ones were each a transaction of their own.
+//
+//   java ... org.firstinspires.ftc.teamcode.sim.EncoderReadSim
+public class EncoderReadSim {
+
+    public static final double LOOP_S = 0.010;
+
+    private static volatile double sink;      // where the "telemetry" reads go
+
+    public static class Result {
+        public long loops, reads;
+        public double snapshotReadsPerCycle = Double.NaN;   // what the auto's telemetry shows
+
+        public double perLoop() { return loops == 0 ? 0 : (double) reads / loops; }
+    }
+
+    private static EncoderRoute route() {
+        return Encoder_Route_Auto.buildRoute(Encoder_Route_Auto.STRAFE_CORRECTION,
+                Encoder_Route_Auto.WHEELBASE_DIAMETER_IN);
+    }
+
+    private static long reads(SimRobot robot) {
+        long n = 0;
+        for (int i = 0; i < 4; i++) n += robot.driveMotor(i).positionReadCount();
+        return n;
+    }
+
+    // ========= BEFORE: every consumer reads for itself =========
+
+    public static Result perConsumer() {
+        SimRobot robot = new SimRobot(new SimRobot.Config(), 1);
+        EncoderRoute route = route();
+        LoopClock.setSource(robot.clock());
+        try {
+            MecanumDrive drive = new MecanumDrive(new MotorCache(robot.hardwareMap()));
+            CachedMotor[] m = new CachedMotor[4];
+            for (int i = 0; i < 4; i++) {
+                m[i] = drive.motor(i);
+                m[i].setMode(DcMotor.RunMode.STOP_AND_RESET_ENCODER);
+                m[i].setMode(DcMotor.RunMode.RUN_USING_ENCODER);
+            }
+            int[] targets = route.targets();
+            int tol = Encoder_Route_Auto.POS_TOL_TICKS;
+            double shown = 0;
+
+            Result r = new Result();
+            long reads0 = reads(robot);
+            for (int leg = 0; leg < route.legCount(); leg++) {
+                int[] t = new int[4];
+                for (int i = 0; i < 4; i++) {
+                    int delta = targets[4 * leg + i] - (leg == 0 ? 0 : targets[4 * (leg - 1) + i]);
+                    t[i] = m[i].getCurrentPosition() + delta;              // targets from the encoders
+                    m[i].setTargetPosition(t[i]);
+                    m[i].setMode(DcMotor.RunMode.RUN_TO_POSITION);
+                }
+                double start = robot.timeS();
+                while (robot.timeS() - start < route.timeoutS(leg)) {
+                    boolean within = true;                                  // allWithin(), short-circuit
+                    for (int i = 0; i < 4 && within; i++) {
+                        within = Math.abs(t[i] - m[i].getCurrentPosition()) <= tol;
+                    }
+                    if (within) break;
+                    for (int i = 0; i < 4; i++) m[i].setPower(route.power(leg));
+                    for (int i = 0; i < 4; i++) shown += m[i].getCurrentPosition();   // telemetry "Now"
+                    r.loops++;
+                    robot.step(LOOP_S);
+                }
+                for (int i = 0; i < 4; i++) {
+                    m[i].setPower(0);
+                    m[i].setMode(DcMotor.RunMode.RUN_USING_ENCODER);
+                }
+            }
+            r.reads = reads(robot) - reads0;
+            sink = shown;
+            return r;
+        } finally {
+            LoopClock.setSource(null);
+        }
+    }
+
+    // ========= NOW: one capture per loop =========
+
+    public static Result snapshot() {
+        SimRobot robot = new SimRobot(new SimRobot.Config(), 1);
+        EncoderRoute route = route();
+        LoopClock.setSource(robot.clock());
+        try {
+            MecanumDrive drive = new MecanumDrive(new MotorCache(robot.hardwareMap()));
+            CachedMotor fl = drive.motor(MecanumDrive.FL), fr = drive.motor(MecanumDrive.FR);
+            CachedMotor bl = drive.motor(MecanumDrive.BL), br = drive.motor(MecanumDrive.BR);
+            for (int i = 0; i < 4; i++) {
+                drive.motor(i).setMode(DcMotor.RunMode.STOP_AND_RESET_ENCODER);
+                drive.motor(i).setMode(DcMotor.RunMode.RUN_USING_ENCODER);
+            }
+            EncoderSnapshot encoders = new EncoderSnapshot(robot.hardwareMap(), fl, fr, bl, br);
+            ProfiledDrive legs = Encoder_Route_Auto.newLegs(fl, fr, bl, br, encoders);
+            ImuService imu = new ImuService(robot.imu(), 100);
+            imu.start();
+            PoseEstimator pose = Encoder_Route_Auto.newPoseEstimator(encoders, imu);
+            double shown = 0;
+
+            Result r = new Result();
+            long reads0 = reads(robot);
+            encoders.capture();
+            pose.update();
+            for (int leg = 0; leg < route.legCount(); leg++) {
+                legs.startLegTo(route.targets(), 4 * leg, route.power(leg), route.timeoutS(leg));
+                while (legs.update()) {
+                    imu.poll();
+                    pose.update();
+                    for (int i = 0; i < 4; i++) shown += encoders.position(i);   // telemetry "Now"
+                    r.loops++;
+                    robot.step(LOOP_S);
+                }
+            }
+            legs.stop();
+            imu.stop();
+            r.reads = reads(robot) - reads0;
+            sink = shown;
+            r.snapshotReadsPerCycle = encoders.readsPerCycle();
+            return r;
+        } finally {
+            LoopClock.setSource(null);
+        }
+    }
+
+    public static void main(String[] args) {
+        Result before = perConsumer(), after = snapshot();
+        System.out.println("encoder auto, whole route, 4 drive encoders");
+        System.out.println("               loops   motor reads   reads/loop");
+        System.out.println(String.format(Locale.US, "per consumer  %6d  %12d  %11.2f",
+                before.loops, before.reads, before.perLoop()));
+        System.out.println(String.format(Locale.US, "snapshot      %6d  %12d  %11.2f   (auto's telemetry: %.2f)",
+                after.loops, after.reads, after.perLoop(), after.snapshotReadsPerCycle));
+    }
+}
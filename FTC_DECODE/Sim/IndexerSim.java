@@ -0,0 +1,336 @@
+package org.firstinspires.ftc.teamcode.sim;
+
+import com.qualcomm.robotcore.hardware.DcMotor;
+import com.qualcomm.robotcore.hardware.DcMotorEx;
+import com.qualcomm.robotcore.hardware.DcMotorSimple;
+
+import org.firstinspires.ftc.teamcode.CachedMotor;
+import org.firstinspires.ftc.teamcode.Indexer;
+import org.firstinspires.ftc.teamcode.Launcher;
+import org.firstinspires.ftc.teamcode.LoopClock;
+import org.firstinspires.ftc.teamcode.MotorCache;
+
+import java.util.Locale;
+
+// Indexer vs. feeding by hand, on a model of the ball path:
+//
+//   field -> intake roller (-INTAKE_IN..0) -> conveyor (0..WHEEL_IN) -> flywheel
+//
+// Balls move at the surface speed of the roller they're on and can't overlap
+// (BALL_IN apart). A ball in the intake loads the intake motor (its current
+// goes up, which is what the Indexer counts); a ball reaching the wheel is a
+// shot: it knocks SHOT_KICK off the flywheel and the RPM at that moment is
+// the shot speed. With rampS the kick is spread over that long (a ball that
+// grips the wheel drags it down instead of knocking it), which is what the
+// Indexer's own dip check has to catch when the gate shuts mid-dip; "seen"
+// is the shots the Indexer counted.
+//
+// Runs:
+//   intake    3 balls picked up one after another: counted? held? staged
+//             without one going into the wheel? launcher switched off in
+//             the middle of FIRE_ONE: back to HOLD with the conveyor off?
+//             eject held for 1.5 ball pitches: one ball off the count?
+//   score     3 balls on board, launcher at speed (switched on SPIN_S
+//             earlier, on the way to the goal), fire pressed at t = 0:
+//               by hand   hold Y, conveyor gated on atSpeed() (the TeleOps)
+//               FIRE_ONE  x3, pressed as soon as the last one finished
+//               BURST     across a sweep of the burst gate (readyRpm)
+//             time until the 3rd ball is out, and how far each shot was off
+//             the target RPM.
+//
+// Staging the next ball while the wheel recovers is most of the burst's gain;
+// the looser ready gate (150 vs 50 rpm) is worth another ~0.06 s. Past that
+// (400) it only trades shot speed for time once the dip is ramped.
+//
+// main() exits 1 if a step of the intake run goes wrong, any Indexer run
+// doesn't see 3 / 3 shots, or the robot's burst gate (BURST_READY_RPM) isn't
+// both faster and no further off the target than feeding by hand.
+//
+//   java ... org.firstinspires.ftc.teamcode.sim.IndexerSim
+public class IndexerSim {
+
+    // ====== BALL PATH (inches) ======
+    static final double INTAKE_IN = 3.0;       // intake roller contact length
+    static final double WHEEL_IN = 18.0;       // conveyor length up to the flywheel
+    static final double BALL_IN = 5.0;         // ball diameter = closest spacing
+    static final double ROLLER_DIA_IN = 2.0;
+    static final double INTAKE_LOAD = 0.35;    // fraction of intake drive a ball takes
+
+    static final double LOOP_S = 0.010;
+    static final double TARGET_RPM = LauncherSim.TARGET_RPM;
+
+    // The robot's feed tune (Indexer.newIndexer) fits this geometry: RESTAGE_S
+    // stops the next ball ~1 in under the wheel.
+    static final double BURST_READY_RPM = Indexer.BURST_READY_RPM, BURST_GAP_S = Indexer.BURST_GAP_S;
+
+    // ========= MODEL =========
+
+    static class Path {
+        final SimRobot robot;
+        final SimMotor intake, conveyor, wheel;
+        final double[] s = new double[8];      // ball positions, highest first
+        int n = 0;
+        int waiting = 0;                       // balls at the intake mouth
+        final double[] shotRpm = new double[8];
+        final double[] shotT = new double[8];
+        int shots = 0;
+        long seen = -1;                        // shots the Indexer counted
+        double firedAtS = 0;
+        double rampS = 0;
+        int rampLeft = 0;
+        Launcher launcher;
+
+        Path(double batteryVolts) {
+            SimRobot.Config cfg = new SimRobot.Config();
+            cfg.batteryVolts = batteryVolts;
+            robot = new SimRobot(cfg, 1);
+            intake = (SimMotor) robot.hardwareMap().get(DcMotorEx.class, "intakeHarvester");
+            conveyor = (SimMotor) robot.hardwareMap().get(DcMotorEx.class, "conveyor");
+            wheel = (SimMotor) robot.hardwareMap().get(DcMotorEx.class, "launcher");
+            wheel.setTimeConstant(LauncherSim.FLYWHEEL_TAU_S);
+        }
+
+        // n balls already on board, packed under the wheel (after an intake)
+        void preload(int balls) {
+            for (int i = 0; i < balls; i++) s[n++] = WHEEL_IN - 3 - i * BALL_IN;
+        }
+
+        double surfaceInPerS(SimMotor m) {
+            return m.shaftVelocity() / 560.0 * Math.PI * ROLLER_DIA_IN * (m.getDirection() == DcMotorSimple.Direction.REVERSE ? -1 : 1);
+        }
+
+        void step(double dt) {
+            // a waiting ball gets pulled in once the intake turns and there's room
+            if (waiting > 0 && intake.getPower() > 0 && (n == 0 || s[n - 1] >= -INTAKE_IN + BALL_IN)) {
+                s[n++] = -INTAKE_IN;
+                waiting--;
+            }
+            double vIntake = Math.abs(surfaceInPerS(intake));
+            double vConveyor = surfaceInPerS(conveyor);
+            boolean loaded = false;
+            for (int i = 0; i < n; i++) {
+                double v = s[i] < 0 ? Math.max(vIntake, vConveyor) : vConveyor;
+                double next = s[i] + v * dt;
+                if (i > 0) next = Math.min(next, s[i - 1] - BALL_IN);
+                s[i] = Math.max(s[i], next);
+                if (s[i] < 0) loaded = true;
+            }
+            intake.setLoad(loaded && intake.getPower() > 0 ? INTAKE_LOAD : 0);
+
+            // top ball into the wheel
+            if (n > 0 && s[0] >= WHEEL_IN) {
+                shotRpm[shots] = wheel.getVelocity() * 60 / LauncherSim.TICKS_PER_REV;
+                shotT[shots++] = robot.timeS() - firedAtS;
+                rampLeft = Math.max(1, (int) Math.round(rampS / dt));
+                System.arraycopy(s, 1, s, 0, --n);
+            }
+            if (rampLeft > 0) {
+                int loops = Math.max(1, (int) Math.round(rampS / dt));
+                wheel.kick(1 - Math.pow(1 - LauncherSim.SHOT_KICK, 1.0 / loops));   // same total drop
+                rampLeft--;
+            }
+            robot.step(dt);
+        }
+
+        double maxShotErr() {
+            double e = 0;
+            for (int i = 0; i < shots; i++) e = Math.max(e, Math.abs(shotRpm[i] - TARGET_RPM));
+            return e;
+        }
+    }
+
+    static Indexer newIndexer(MotorCache motors, Launcher launcher, double burstRpm, double gapS) {
+        return Indexer.newIndexer(motors.get("intakeHarvester"), motors.get("conveyor"), launcher)
+                .burst(burstRpm, gapS);
+    }
+
+    static Launcher newLauncher(MotorCache motors, Path p) {
+        return Launcher.newLauncher(motors.get("launcher"), p.robot.hardwareMap());
+    }
+
+    // ========= RUNS =========
+
+    // 3 balls reach the intake 0.8 s apart while Y is held; then fire is not pressed.
+    // false if any step went wrong.
+    static boolean intakeRun() {
+        boolean ok = true;
+        Path p = new Path(12.6);
+        LoopClock.setSource(p.robot.clock());
+        try {
+            MotorCache motors = new MotorCache(p.robot.hardwareMap());
+            p.launcher = newLauncher(motors, p);
+            Indexer idx = newIndexer(motors, p.launcher, BURST_READY_RPM, BURST_GAP_S);
+            double nextBall = 0.6;
+            int given = 0;
+            Indexer.State stateAt3 = null;
+            while (p.robot.timeS() < 4.0) {
+                double t = p.robot.timeS();
+                if (given < 3 && t >= nextBall) {
+                    p.waiting++;
+                    given++;
+                    nextBall += 0.8;
+                }
+                idx.intake(t < 3.0);
+                p.launcher.update();
+                idx.update();
+                if (stateAt3 == null && idx.count() == 3) stateAt3 = idx.state();
+                p.step(LOOP_S);
+            }
+            System.out.println(String.format(Locale.US,
+                    "intake: 3 balls in -> counted %d (state then %s), now %s, on board %d, shots %d, top ball %.1f in below the wheel",
+                    idx.count(), stateAt3, idx.state(), p.n, p.shots, p.n > 0 ? WHEEL_IN - p.s[0] : 0));
+            ok &= check(idx.count() == 3 && p.n == 3, "intake: 3 balls not counted");
+            ok &= check(idx.state() == Indexer.State.HOLD && p.shots == 0, "intake: not holding, or a ball went into the wheel");
+
+            // stage while the launcher spins up (nothing should reach the wheel)
+            p.launcher.setTargetRpm(TARGET_RPM);
+            idx.fireOne();
+            for (int i = 0; i < 100; i++) {
+                p.launcher.update();
+                idx.update();
+                if (idx.staged()) idx.stop();
+                p.step(LOOP_S);
+            }
+            System.out.println(String.format(Locale.US,
+                    "stage:  staged %b, shots %d, top ball %.1f in below the wheel",
+                    idx.staged(), p.shots, p.n > 0 ? WHEEL_IN - p.s[0] : 0));
+            ok &= check(idx.staged() && p.shots == 0, "stage: not staged, or staged into the wheel");
+
+            // at speed, fire, then switched off before the ball gets there
+            for (int i = 0; i < 100; i++) {
+                p.launcher.update();
+                idx.update();
+                p.step(LOOP_S);
+            }
+            idx.fireOne();
+            for (int i = 0; i < 3; i++) {
+                p.launcher.update();
+                idx.update();
+                p.step(LOOP_S);
+            }
+            p.launcher.setTargetRpm(0);
+            p.launcher.update();
+            idx.update();
+            System.out.println(String.format(Locale.US,
+                    "off:    launcher off mid FIRE_ONE -> %s, conveyor %.1f, on board %d",
+                    idx.state(), p.conveyor.getPower(), idx.count()));
+            ok &= check(idx.state() == Indexer.State.HOLD && p.conveyor.getPower() == 0,
+                    "off: launcher off mid FIRE_ONE didn't stop the feed");
+
+            // eject held for one ball pitch and a bit: one ball off the count
+            // (the model's balls don't run backward, so only the Indexer side is checked)
+            int before = idx.count();
+            String during = "";
+            for (double t = 0; t < Indexer.INDEX_S * 1.5; t += LOOP_S) {
+                idx.eject(true);
+                p.launcher.update();
+                idx.update();
+                during = String.format(Locale.US, "%s, intake %.1f, conveyor %.1f",
+                        idx.state(), p.intake.getPower(), p.conveyor.getPower());
+                p.step(LOOP_S);
+            }
+            idx.eject(false);
+            p.launcher.update();
+            idx.update();
+            System.out.println(String.format(Locale.US,
+                    "eject:  held %.2f s -> %s; on board %d -> %d; released -> %s, conveyor %.1f",
+                    Indexer.INDEX_S * 1.5, during, before, idx.count(), idx.state(), p.conveyor.getPower()));
+            ok &= check(idx.count() == before - 1 && idx.state() == Indexer.State.HOLD && p.conveyor.getPower() == 0,
+                    "eject: count or release wrong");
+            return ok;
+        } finally {
+            LoopClock.setSource(null);
+        }
+    }
+
+    static final int BY_HAND = 0, FIRE_ONE = 1, BURST = 2;
+
+    static final double SPIN_S = 2.0;
+
+    // 3 on board, launcher on SPIN_S before the fire press; shot times are from the press.
+    static Path scoreRun(int mode, double batteryVolts, double burstRpm, double gapS, double rampS) {
+        Path p = new Path(batteryVolts);
+        p.firedAtS = SPIN_S;
+        p.rampS = rampS;
+        p.preload(3);
+        LoopClock.setSource(p.robot.clock());
+        try {
+            MotorCache motors = new MotorCache(p.robot.hardwareMap());
+            p.launcher = newLauncher(motors, p);
+            Indexer idx = newIndexer(motors, p.launcher, burstRpm, gapS);
+            idx.setCount(3);
+            CachedMotor conveyor = motors.get("conveyor");
+            p.launcher.setTargetRpm(TARGET_RPM);
+            while (p.robot.timeS() < SPIN_S) {
+                p.launcher.update();
+                idx.update();
+                p.step(LOOP_S);
+            }
+            while (p.shots < 3 && p.robot.timeS() < SPIN_S + 6.0) {
+                p.launcher.update();
+                if (mode == BY_HAND) {
+                    conveyor.setMode(DcMotor.RunMode.RUN_WITHOUT_ENCODER);
+                    conveyor.setPower(p.launcher.atSpeed() ? 1.0 : 0);
+                } else {
+                    if (!idx.firing() && idx.state() != Indexer.State.STAGE) {
+                        if (mode == BURST) idx.fireBurst();
+                        else idx.fireOne();
+                    }
+                    idx.update();
+                }
+                p.step(LOOP_S);
+            }
+            for (int i = 0; i < 20 && mode != BY_HAND; i++) {      // let the last dip register
+                p.launcher.update();
+                idx.update();
+                p.step(LOOP_S);
+            }
+            p.seen = mode == BY_HAND ? -1 : idx.ballsOut();
+            return p;
+        } finally {
+            LoopClock.setSource(null);
+        }
+    }
+
+    public static void main(String[] args) {
+        boolean ok = intakeRun();
+        for (double rampS : new double[] {0, LauncherSim.SHOT_RAMP_S}) {
+            System.out.println();
+            System.out.println(String.format(Locale.US, "score 3 balls, launcher at speed, fire at t=0 (target %.0f rpm), %s",
+                    TARGET_RPM, rampS == 0 ? "sudden dip"
+                            : String.format(Locale.US, "dip ramped over %.0f ms", rampS * 1000)));
+            System.out.println("battery  mode                       3rd ball s  shot rpm 1 / 2 / 3       worst err   seen");
+            for (double v : new double[] {13.4, 12.6, 11.8}) {
+                Path hand = scoreRun(BY_HAND, v, 0, 0, rampS);
+                print(v, "by hand (Y, atSpeed gate)", hand);
+                Path one = scoreRun(FIRE_ONE, v, 0, 0, rampS);
+                print(v, "FIRE_ONE x3", one);
+                ok &= check(one.shots == 3 && one.seen == 3, "FIRE_ONE: not 3 / 3 shots seen");
+                for (double rpm : new double[] {50, 150, 400}) {
+                    Path burst = scoreRun(BURST, v, rpm, BURST_GAP_S, rampS);
+                    print(v, String.format(Locale.US, "BURST ready %3.0f gap %.2f", rpm, BURST_GAP_S), burst);
+                    ok &= check(burst.shots == 3 && burst.seen == 3, "BURST: not 3 / 3 shots seen");
+                    if (rpm != BURST_READY_RPM) continue;
+                    // the tune the robot runs: faster than by hand, and no worse a shot
+                    ok &= check(burst.shots == 3 && burst.shotT[2] < hand.shotT[2], "BURST: no faster than by hand");
+                    ok &= check(burst.maxShotErr() <= hand.maxShotErr(), "BURST: worse shot speed than by hand");
+                }
+            }
+        }
+        System.out.println(ok ? "OK" : "FAILED");
+        if (!ok) System.exit(1);
+    }
+
+    private static boolean check(boolean pass, String what) {
+        if (!pass) System.out.println("FAIL: " + what);
+        return pass;
+    }
+
+    static void print(double v, String name, Path p) {
+        System.out.println(String.format(Locale.US, "%5.1f V  %-26s %7.2f     %s   %6.0f   %s",
+                v, name, p.shots == 3 ? p.shotT[2] : Double.NaN,
+                p.shots == 3 ? String.format(Locale.US, "%4.0f / %4.0f / %4.0f", p.shotRpm[0], p.shotRpm[1], p.shotRpm[2])
+                             : "only " + p.shots + " shots       ",
+                p.maxShotErr(), p.seen < 0 ? "-" : p.seen + " / " + p.shots));
+    }
+}
@@ -0,0 +1,206 @@
+package org.firstinspires.ftc.teamcode.sim;
+
+import com.qualcomm.robotcore.hardware.DcMotor;
+import com.qualcomm.robotcore.hardware.DcMotorEx;
+
+import org.firstinspires.ftc.teamcode.CachedMotor;
+import org.firstinspires.ftc.teamcode.Launcher;
+import org.firstinspires.ftc.teamcode.LauncherTable;
+import org.firstinspires.ftc.teamcode.LoopClock;
+import org.firstinspires.ftc.teamcode.MotorCache;
+
+import java.util.Locale;
+import java.util.Random;
+
+// Open-loop launcher power vs. the Launcher subsystem, over a fresh, a normal
+// and a tired battery. Each run spins up, then fires a burst of three balls
+// (each one knocks SHOT_KICK of the flywheel speed off) every few seconds.
+//
+//   open loop: setPower(target / free rpm) on a toggle, driver feeds on a
+//              fixed rhythm (what the TeleOps did)
+//   Launcher:  kV/kS + PID + battery compensation, feeds only on atSpeed()
+//
+// Scores the flywheel RPM at the moment each ball goes through (that is the
+// shot speed) and the Launcher's own recovery-time numbers.
+//
+// A ball that grips the wheel for a while drags it down over SHOT_RAMP_S
+// instead of all at once; the second table runs that, and checks the
+// Launcher still counts every ball as a shot (shots seen / balls).
+//
+// The last table is the AprilTag TeleOp's case: the target comes from the
+// default LauncherTable every loop, at a range read with RANGE_NOISE_IN of
+// noise, so it jitters by a few rpm each loop. The wheel still has to reach
+// atSpeed() and fire every burst.
+//
+// main() exits 1 unless every Launcher run fires all 12 balls, counts each
+// one as a shot, and keeps every shot within SHOT_TOL_RPM of the target and
+// closer than open loop does.
+//
+//   java ... org.firstinspires.ftc.teamcode.sim.LauncherSim
+public class LauncherSim {
+
+    // Sim launcher: a bare 6000 rpm motor (28 ticks/rev) with a flywheel on it,
+    // run with the robot's gains (Launcher.newLauncher).
+    public static final double TICKS_PER_REV = Launcher.TICKS_PER_REV;
+    public static final double FREE_RPM_12V  = 2800 * 60.0 / TICKS_PER_REV;
+    public static final double FLYWHEEL_TAU_S = 0.45;
+    public static final double SHOT_KICK = 0.12;
+    public static final double SHOT_RAMP_S = 0.08;      // ramped dip: the same kick, spread over this
+
+    public static final double TARGET_RPM = 4200;
+    public static final double TABLE_RANGE_IN = 84;     // LauncherTable.defaults() gives TARGET_RPM here
+    public static final double RANGE_NOISE_IN = 1.0;    // 1 sigma, per loop
+    public static final double SHOT_TOL_RPM = 100;
+
+    private static final double LOOP_S = 0.010;
+    private static final double RUN_S = 12;
+    private static final double BURST_EVERY_S = 3.0, OPEN_LOOP_GAP_S = 0.35;
+
+    public static class Result {
+        public double meanShotRpm, minShotRpm, maxShotRpm;
+        public int balls;
+        public double spinUpS;
+        public double meanRecoveryS, maxRecoveryS;
+        public long shotsSeen;
+    }
+
+    public static Result run(double batteryVolts, boolean closedLoop) {
+        return run(batteryVolts, closedLoop, 0, 0);
+    }
+
+    // rampS = 0: each ball knocks SHOT_KICK off in one go. rangeNoiseIn > 0
+    // (Launcher only): target from the table at a noisy range, every loop.
+    public static Result run(double batteryVolts, boolean closedLoop, double rampS, double rangeNoiseIn) {
+        SimRobot.Config cfg = new SimRobot.Config();
+        cfg.batteryVolts = batteryVolts;
+        SimRobot robot = new SimRobot(cfg, 1);
+        SimMotor wheel = (SimMotor) robot.hardwareMap().get(DcMotorEx.class, "launcher");
+        wheel.setTimeConstant(FLYWHEEL_TAU_S);
+
+        LoopClock.setSource(robot.clock());
+        try {
+            CachedMotor motor = new MotorCache(robot.hardwareMap()).get("launcher");
+            Launcher launcher = closedLoop
+                    ? Launcher.newLauncher(motor, robot.hardwareMap())
+                    : null;
+            LauncherTable table = LauncherTable.defaults();
+            Random noise = new Random(1);
+            if (launcher != null) launcher.setTargetRpm(TARGET_RPM);
+            else {
+                motor.setMode(DcMotor.RunMode.RUN_WITHOUT_ENCODER);
+                motor.setPower(TARGET_RPM / FREE_RPM_12V);
+            }
+
+            Result r = new Result();
+            r.minShotRpm = Double.MAX_VALUE;
+            r.spinUpS = Double.NaN;
+            double sum = 0, lastShot = -1, burstStart = 1.5;
+            int inBurst = 0;
+            int rampLoops = Math.max(1, (int) Math.round(rampS / LOOP_S)), rampLeft = 0;
+            double rampKick = 1 - Math.pow(1 - SHOT_KICK, 1.0 / rampLoops);   // same total drop
+
+            while (robot.timeS() < RUN_S) {
+                double t = robot.timeS();
+                double rpm;
+                boolean ready;
+                if (launcher != null) {
+                    if (rangeNoiseIn > 0) {
+                        launcher.setTargetRpm(table.rpmAt(TABLE_RANGE_IN + rangeNoiseIn * noise.nextGaussian()));
+                    }
+                    launcher.update();
+                    rpm = launcher.rpm();
+                    ready = launcher.atSpeed();
+                } else {
+                    rpm = wheel.getVelocity() * 60 / TICKS_PER_REV;
+                    ready = t - lastShot >= OPEN_LOOP_GAP_S;
+                }
+                if (Double.isNaN(r.spinUpS) && Math.abs(rpm - TARGET_RPM) < 50) r.spinUpS = t;
+
+                // three balls per burst, each as soon as the shooter allows
+                if (t >= burstStart && ready && t - lastShot >= 0.1) {
+                    sum += rpm;
+                    r.minShotRpm = Math.min(r.minShotRpm, rpm);
+                    r.maxShotRpm = Math.max(r.maxShotRpm, rpm);
+                    r.balls++;
+                    rampLeft = rampLoops;
+                    lastShot = t;
+                    if (++inBurst == 3) {
+                        inBurst = 0;
+                        burstStart += BURST_EVERY_S;
+                    }
+                }
+                if (rampLeft > 0) {
+                    wheel.kick(rampKick);
+                    rampLeft--;
+                }
+                robot.step(LOOP_S);
+            }
+            r.meanShotRpm = sum / r.balls;
+            if (r.balls == 0) r.minShotRpm = Double.NaN;
+            if (launcher != null) {
+                r.meanRecoveryS = launcher.meanRecoveryS();
+                r.maxRecoveryS = launcher.maxRecoveryS();
+                r.shotsSeen = launcher.shots();
+            }
+            return r;
+        } finally {
+            LoopClock.setSource(null);
+        }
+    }
+
+    public static void main(String[] args) {
+        double[] batteries = {13.4, 12.6, 11.8};
+        boolean ok = true;
+        for (double rampS : new double[] {0, SHOT_RAMP_S}) {
+            System.out.println(String.format(Locale.US, "target %.0f rpm, bursts of 3 every %.0f s, %s",
+                    TARGET_RPM, BURST_EVERY_S, rampS == 0 ? "sudden dip"
+                            : String.format(Locale.US, "dip ramped over %.0f ms", rampS * 1000)));
+            System.out.println("battery  mode        spin-up s  balls  shot rpm mean  min   max    recovery mean / max s   shots seen");
+            for (double v : batteries) {
+                double openErr = 0;
+                for (int closed = 0; closed < 2; closed++) {
+                    Result r = run(v, closed == 1, rampS, 0);
+                    double err = worstErr(r);
+                    if (closed == 0) openErr = err;
+                    else {
+                        ok &= check(r.balls == 12 && r.shotsSeen == r.balls,
+                                String.format(Locale.US, "%.1f V: %d / %d shots seen", v, r.shotsSeen, r.balls));
+                        ok &= check(err <= SHOT_TOL_RPM && err < openErr,
+                                String.format(Locale.US, "%.1f V: shot %.0f rpm off (open loop %.0f)", v, err, openErr));
+                    }
+                    System.out.println(String.format(Locale.US, "%5.1f V  %-10s  %7.2f  %5d  %8.0f  %5.0f  %5.0f   %-22s  %s",
+                            v, closed == 1 ? "Launcher" : "open loop", r.spinUpS, r.balls,
+                            r.meanShotRpm, r.minShotRpm, r.maxShotRpm,
+                            closed == 1 ? String.format(Locale.US, "%.2f / %.2f", r.meanRecoveryS, r.maxRecoveryS) : "-",
+                            closed == 1 ? r.shotsSeen + " / " + r.balls : "-"));
+                }
+            }
+            System.out.println();
+        }
+
+        System.out.println(String.format(Locale.US, "target from the table at %.0f in, range noise %.1f in (1 sigma) every loop",
+                TABLE_RANGE_IN, RANGE_NOISE_IN));
+        System.out.println("battery  spin-up s  balls  shot rpm mean  min   max    shots seen");
+        for (double v : batteries) {
+            Result r = run(v, true, 0, RANGE_NOISE_IN);
+            Result still = run(v, true, 0, 0);
+            boolean pass = r.balls == still.balls && r.shotsSeen == r.balls;
+            ok &= pass;
+            System.out.println(String.format(Locale.US, "%5.1f V  %7.2f  %5d  %8.0f  %5.0f  %5.0f   %d / %d  %s",
+                    v, r.spinUpS, r.balls, r.meanShotRpm, r.minShotRpm, r.maxShotRpm,
+                    r.shotsSeen, r.balls, pass ? "ok" : "FAIL (steady target: " + still.balls + " balls)"));
+        }
+        System.out.println(ok ? "OK" : "FAILED");
+        if (!ok) System.exit(1);
+    }
+
+    private static double worstErr(Result r) {
+        if (r.balls == 0) return Double.POSITIVE_INFINITY;
+        return Math.max(Math.abs(r.minShotRpm - TARGET_RPM), Math.abs(r.maxShotRpm - TARGET_RPM));
+    }
+
+    private static boolean check(boolean pass, String what) {
+        if (!pass) System.out.println("FAIL: " + what);
+        return pass;
+    }
+}
@@ -0,0 +1,222 @@
+package org.firstinspires.ftc.teamcode.sim;
+
+import com.qualcomm.robotcore.hardware.DcMotor;
+
+import org.firstinspires.ftc.teamcode.EncoderSnapshot;
+import org.firstinspires.ftc.teamcode.Encoder_Route_Auto;
+import org.firstinspires.ftc.teamcode.ImuService;
+import org.firstinspires.ftc.teamcode.LoopClock;
+import org.firstinspires.ftc.teamcode.MecanumDrive;
+import org.firstinspires.ftc.teamcode.MotorCache;
+import org.firstinspires.ftc.teamcode.PoseEKF;
+import org.firstinspires.ftc.teamcode.PoseEstimator;
+import org.firstinspires.ftc.teamcode.TagTracker;
+
+import org.firstinspires.ftc.vision.apriltag.AprilTagDetection;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+// A whole match (2:30) of cycling between the intake side and shooting spots
+// in front of the goals, on the sim chassis with a SimCamera. Runs the robot
+// stack unchanged (encoders -> PoseEstimator, ImuService, TagTracker, PoseEKF)
+// and scores odometry alone vs. the EKF against the sim's true pose.
+//
+//   java ... org.firstinspires.ftc.teamcode.sim.LocalizerSim [seconds] [seed]
+//
+// The driver steers on the true pose, so both estimators see the same drive.
+//
+// The EKF starts three ways:
+//   known     the auto's start pose (setPose, 2 in / 2 deg)
+//   teleop    what the TeleOp knows: the alliance start heading, squared up
+//             by hand (HAND_ERR_DEG off, setHeading with 5 deg), position
+//             unknown until the first goal tag
+//   unknown   nothing, not even the heading (new PoseEKF()); it never places
+//             itself, every sighting is counted as unplaced
+// The EKF is scored only once it has placed the robot.
+//
+// main() exits 1 unless the known and teleop starts place the robot within
+// PLACE_BY_S and beat odometry's rms, and the unknown start uses no tag.
+public class LocalizerSim {
+
+    public static final double LOOP_S = 0.010;
+    public static final double TAG_Z_IN = 29.5;
+
+    // field waypoints: x, y, heading (deg); 999 = face the nearer goal tag
+    private static final double FACE_GOAL = 999;
+    private static final double[][] ROUTE = {
+            {-24,   0, FACE_GOAL},   // shoot
+            { 40, -48, 0},           // intake (tags behind us)
+            { 12,  12, FACE_GOAL},   // shoot
+            { 40,  48, 0},           // intake
+    };
+    private static final double START_X = 60, START_Y = -12, START_H = 180;
+    private static final double HAND_ERR_DEG = 3;
+    public static final double PLACE_BY_S = 5;
+
+    public enum Start { KNOWN, TELEOP, UNKNOWN }
+
+    public static class Result {
+        public double rmsOdo, rmsEkf, maxOdo, maxEkf, endOdo, endEkf;
+        public double placedS = Double.NaN;      // when the EKF had a position
+        public long frames, outOfOrder, accepted, gated, tooOld, unplaced;
+    }
+
+    public static Result run(double seconds, long seed) {
+        return run(seconds, seed, Start.KNOWN);
+    }
+
+    public static Result run(double seconds, long seed, Start from) {
+        SimRobot robot = new SimRobot(new SimRobot.Config(), seed);
+        robot.setPose(START_X, START_Y, Math.toRadians(START_H));
+        double[] tagZ = new double[PoseEKF.GOAL_TAG_IDS.length];
+        Arrays.fill(tagZ, TAG_Z_IN);
+        SimCamera camera = new SimCamera(robot, new SimCamera.Config(), seed + 1,
+                PoseEKF.GOAL_TAG_IDS, PoseEKF.GOAL_TAG_X, PoseEKF.GOAL_TAG_Y, tagZ);
+
+        LoopClock.setSource(robot.clock());
+        try {
+            MotorCache motors = new MotorCache(robot.hardwareMap());
+            MecanumDrive drive = new MecanumDrive(motors);
+            for (int i = 0; i < 4; i++) drive.motor(i).setMode(DcMotor.RunMode.RUN_USING_ENCODER);
+            EncoderSnapshot encoders = new EncoderSnapshot(robot.hardwareMap(),
+                    drive.motor(MecanumDrive.FL), drive.motor(MecanumDrive.FR),
+                    drive.motor(MecanumDrive.BL), drive.motor(MecanumDrive.BR));
+
+            ImuService imu = new ImuService(robot.imu(), 100);
+            imu.start();
+            PoseEstimator odo = Encoder_Route_Auto.newPoseEstimator(encoders, imu);
+            odo.setPose(START_X, START_Y, START_H);
+            TagTracker tags = new TagTracker(imu);
+            PoseEKF ekf = new PoseEKF();
+            if (from == Start.KNOWN)  ekf.setPose(START_X, START_Y, START_H, 2, 2);
+            if (from == Start.TELEOP) ekf.setHeading(START_H + HAND_ERR_DEG, 5);
+
+            Result r = new Result();
+            double sumOdo = 0, sumEkf = 0;
+            int n = 0, nEkf = 0, wp = 0;
+            double dwellUntil = -1, nextScore = 0;
+            double start = robot.timeS();
+
+            while (robot.timeS() - start < seconds) {
+                double t = robot.timeS() - start;
+
+                // ---- robot loop ----
+                imu.poll();
+                encoders.capture();
+                odo.update();
+                ekf.predict(odo);
+                List<AprilTagDetection> frame;
+                while ((frame = camera.poll()) != null) tags.offer(frame, LoopClock.nanoTime());
+                ekf.addSightings(tags);
+
+                // ---- scripted driver, on truth ----
+                double[] w = ROUTE[wp];
+                double wantH = w[2] == FACE_GOAL ? faceGoal(robot) : Math.toRadians(w[2]);
+                if (steer(drive, robot, w[0], w[1], wantH)) {
+                    if (dwellUntil < 0) dwellUntil = t + 1.0;
+                    if (t > dwellUntil) {
+                        wp = (wp + 1) % ROUTE.length;
+                        dwellUntil = -1;
+                    }
+                }
+
+                // ---- score ----
+                if (t >= nextScore) {
+                    nextScore += 0.5;
+                    double eo = Math.hypot(odo.x() - robot.x(), odo.y() - robot.y());
+                    sumOdo += eo * eo;
+                    r.maxOdo = Math.max(r.maxOdo, eo);
+                    r.endOdo = eo;
+                    n++;
+                    if (ekf.isFixed()) {
+                        if (Double.isNaN(r.placedS)) r.placedS = t;
+                        double ee = Math.hypot(ekf.x() - robot.x(), ekf.y() - robot.y());
+                        sumEkf += ee * ee;
+                        r.maxEkf = Math.max(r.maxEkf, ee);
+                        r.endEkf = ee;
+                        nEkf++;
+                    }
+                }
+
+                camera.step();
+                robot.step(LOOP_S);
+            }
+            drive.stop();
+            imu.stop();
+
+            r.rmsOdo = Math.sqrt(sumOdo / n);
+            r.rmsEkf = nEkf == 0 ? Double.NaN : Math.sqrt(sumEkf / nEkf);
+            r.frames = camera.frames();
+            r.outOfOrder = camera.outOfOrder();
+            r.accepted = ekf.accepted();
+            r.gated = ekf.gated();
+            r.tooOld = ekf.tooOld();
+            r.unplaced = ekf.unplaced();
+            return r;
+        } finally {
+            LoopClock.setSource(null);
+        }
+    }
+
+    private static double faceGoal(SimRobot robot) {
+        int g = robot.y() >= 0 ? 1 : 0;
+        return Math.atan2(PoseEKF.GOAL_TAG_Y[g] - robot.y(), PoseEKF.GOAL_TAG_X[g] - robot.x());
+    }
+
+    // P controller to a field pose; true when there.
+    private static boolean steer(MecanumDrive drive, SimRobot robot, double x, double y, double h) {
+        double ex = x - robot.x(), ey = y - robot.y();
+        double eh = Math.atan2(Math.sin(h - robot.heading()), Math.cos(h - robot.heading()));
+        double c = Math.cos(robot.heading()), s = Math.sin(robot.heading());
+        double fwd = clip(0.04 * (ex * c + ey * s), 0.7);
+        double left = clip(0.04 * (-ex * s + ey * c), 0.7);
+        double ccw = clip(1.2 * eh, 0.5);
+        // this chassis: + y power drives backward, + x strafes right, + rx turns CW
+        drive.drive(-fwd, -left, -ccw);
+        return Math.hypot(ex, ey) < 3 && Math.abs(eh) < Math.toRadians(5);
+    }
+
+    private static double clip(double v, double max) {
+        return Math.max(-max, Math.min(max, v));
+    }
+
+    public static void main(String[] args) {
+        double seconds = args.length > 0 ? Double.parseDouble(args[0]) : 150;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 1;
+
+        long wall = System.nanoTime();
+        Result r = run(seconds, seed);
+        double wallS = (System.nanoTime() - wall) / 1e9;
+
+        System.out.println(String.format(Locale.US, "%.0f s match in %.1f s; %d camera frames, %d out of order",
+                seconds, wallS, r.frames, r.outOfOrder));
+        System.out.println(String.format(Locale.US, "odometry only: rms %.1f in, max %.1f in, end %.1f in",
+                r.rmsOdo, r.maxOdo, r.endOdo));
+        boolean ok = true;
+        for (Start from : Start.values()) {
+            Result e = from == Start.KNOWN ? r : run(seconds, seed, from);
+            String name = from.name().toLowerCase(Locale.US);
+            System.out.println(String.format(Locale.US,
+                    "EKF + tags, %-7s start: rms %.1f in, max %.1f in, end %.1f in, placed at %.1f s  (%d used, %d gated, %d too old, %d unplaced)",
+                    name, e.rmsEkf, e.maxEkf, e.endEkf, e.placedS,
+                    e.accepted, e.gated, e.tooOld, e.unplaced));
+            if (from == Start.UNKNOWN) {
+                ok &= check(e.accepted == 0, name + " start used " + e.accepted + " tags without a heading");
+            } else {
+                ok &= check(e.placedS <= PLACE_BY_S,
+                        String.format(Locale.US, "%s start placed at %.1f s (want <= %.0f s)", name, e.placedS, PLACE_BY_S));
+                ok &= check(e.rmsEkf < r.rmsOdo,
+                        String.format(Locale.US, "%s start rms %.1f in, odometry %.1f in", name, e.rmsEkf, r.rmsOdo));
+            }
+        }
+        System.out.println(ok ? "OK" : "FAILED");
+        if (!ok) System.exit(1);
+    }
+
+    private static boolean check(boolean pass, String what) {
+        if (!pass) System.out.println("FAIL: " + what);
+        return pass;
+    }
+}
@@ -0,0 +1,226 @@
+package org.firstinspires.ftc.teamcode.sim;
+
+import org.firstinspires.ftc.robotcore.external.navigation.AngleUnit;
+import org.firstinspires.ftc.robotcore.external.navigation.YawPitchRollAngles;
+import org.firstinspires.ftc.teamcode.HeadingHold;
+import org.firstinspires.ftc.teamcode.ImuService;
+import org.firstinspires.ftc.teamcode.MecanumDrive;
+import org.firstinspires.ftc.teamcode.MotorCache;
+import org.firstinspires.ftc.teamcode.TagFinder;
+import org.firstinspires.ftc.teamcode.TagTracker;
+import org.firstinspires.ftc.teamcode.TelemetryPublisher;
+import org.firstinspires.ftc.vision.apriltag.AprilTagDetection;
+import org.firstinspires.ftc.vision.apriltag.AprilTagPoseFtc;
+
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+
+// Micro-benchmarks for the code that runs every loop(), against the sim's
+// stand-in hardware. Reports ns/op and bytes allocated per op (the HotSpot
+// per-thread allocation counter, same number JMH's gc profiler shows).
+//
+//   java ... org.firstinspires.ftc.teamcode.sim.LoopBench                    print
+//   java ... LoopBench --save bench.properties                                 record a baseline
+//   java ... LoopBench --baseline bench.properties                             exit 1 on regression
+//
+// A regression is > REGRESSION_X slower than the baseline, or allocating when
+// the baseline didn't. Desktop ns are not Control Hub ns (the hub is ~5-10x
+// slower); compare runs on the same machine, and look at bytes/op first:
+// allocation is what turns into GC pauses on the robot.
+public class LoopBench {
+
+    private static final long WARMUP_NS  = 500_000_000L;
+    private static final long MEASURE_NS = 1_000_000_000L;
+    private static final int  BATCH      = 10_000;
+    private static final double REGRESSION_X = 1.5;
+
+    interface Op {
+        double run(int i);   // i varies the input; the result goes to the sink
+    }
+
+    private static volatile double sink;
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private final List<String> names = new ArrayList<>();
+    private final List<double[]> results = new ArrayList<>();   // {ns/op, bytes/op}
+
+    // ========= HARNESS =========
+
+    void bench(String name, Op op) {
+        long end = System.nanoTime() + WARMUP_NS;
+        double acc = 0;
+        int i = 0;
+        while (System.nanoTime() < end) {
+            for (int k = 0; k < BATCH; k++) acc += op.run(i++);
+        }
+
+        long tid = Thread.currentThread().getId();
+        long ops = 0;
+        long bytes0 = THREADS.getThreadAllocatedBytes(tid);
+        long t0 = System.nanoTime();
+        end = t0 + MEASURE_NS;
+        long now;
+        do {
+            for (int k = 0; k < BATCH; k++) acc += op.run(i++);
+            ops += BATCH;
+            now = System.nanoTime();
+        } while (now < end);
+        long bytes = THREADS.getThreadAllocatedBytes(tid) - bytes0;
+        sink = acc;
+
+        double nsOp = (double) (now - t0) / ops;
+        double bytesOp = (double) bytes / ops;
+        names.add(name);
+        results.add(new double[]{nsOp, bytesOp});
+        System.out.println(String.format(Locale.US, "%-40s %10.1f ns/op %10.1f B/op", name, nsOp, bytesOp));
+    }
+
+    // ========= BENCHMARKS =========
+
+    void runAll() {
+        SimRobot robot = new SimRobot();
+        MecanumDrive drive = new MecanumDrive(new MotorCache(robot.hardwareMap()));
+
+        bench("mecanum mix", i -> {
+            double[] p = drive.mix(stick(i), stick(i + 7), stick(i + 13));
+            return p[0];
+        });
+
+        // through CachedMotor into SimMotor; sticks change every call, so
+        // most writes go through (the worst case)
+        bench("mecanum drive (cached writes)", i -> {
+            drive.drive(stick(i), stick(i + 7), stick(i + 13));
+            return drive.power(MecanumDrive.FL);
+        });
+
+        bench("angleErrorDeg", i -> HeadingHold.angleErrorDeg((i % 720) - 360, (i * 7 % 720) - 360));
+
+        HeadingHold hold = new HeadingHold(0.02, 0.4, 0.05);
+        SimImu imu = robot.imu();
+        bench("heading hold (imu read + correct)", i -> {
+            YawPitchRollAngles ypr = imu.getRobotYawPitchRollAngles();
+            return hold.update(i % 3 == 0 ? 0.3 : 0.0, ypr.getYaw(AngleUnit.DEGREES));
+        });
+
+        // same, reading the sampling thread's latest value instead of the IMU
+        ImuService imuService = new ImuService(imu, 100);
+        imuService.start();
+        bench("heading hold (ImuService + correct)", i ->
+                hold.update(i % 3 == 0 ? 0.3 : 0.0, imuService.yawDeg()));
+
+        ImuService.Sample sample = new ImuService.Sample();
+        bench("ImuService consistent read", i -> imuService.read(sample).yawRateDegPerS);
+        imuService.stop();
+
+        for (int n : new int[]{0, 3, 8}) {
+            List<AprilTagDetection> tags = fakeDetections(n);
+            bench("findTag (" + n + " detections)", i -> {
+                AprilTagDetection d = TagFinder.find(tags, 24);
+                return d == null ? 0 : d.ftcPose.bearing;
+            });
+        }
+
+        // the tracker's read side: predicted bearing from the per-ID cache
+        TagTracker tracker = new TagTracker(imuService);
+        tracker.offer(fakeDetections(3), System.nanoTime());
+        bench("TagTracker bearingDeg (predicted)", i -> tracker.bearingDeg(24));
+
+        SimTelemetry raw = new SimTelemetry();
+        bench("telemetry addData(format) + update", i -> {
+            raw.addData("Drive", "FL %.2f  FR %.2f  BL %.2f  BR %.2f",
+                    stick(i), stick(i + 1), stick(i + 2), stick(i + 3));
+            raw.addData("Heading", "%.1f  target=%.1f", stick(i) * 180, 0.0);
+            raw.update();
+            return raw.updateCount();
+        });
+
+        // real clock, so these run with the publisher thread: they time what
+        // the loop thread pays (the hand-off), not the render and send
+        TelemetryPublisher tele = new TelemetryPublisher(new SimTelemetry(), 4);
+        int drv = tele.addLine("Drive", 2, "FL ", "FR ", "BL ", "BR ");
+        int hdg = tele.addLine("Heading", 1, "", "target=");
+        bench("TelemetryPublisher set + forcePublish", i -> {
+            tele.set(drv, 0, stick(i));
+            tele.set(drv, 1, stick(i + 1));
+            tele.set(drv, 2, stick(i + 2));
+            tele.set(drv, 3, stick(i + 3));
+            tele.set(hdg, 0, stick(i) * 180);
+            tele.forcePublish();
+            return tele.renderCount();
+        });
+
+        bench("TelemetryPublisher set + publish (4 Hz)", i -> {
+            tele.set(drv, 0, stick(i));
+            tele.set(hdg, 0, stick(i) * 180);
+            return tele.publish() ? 1 : 0;
+        });
+        tele.stop();
+    }
+
+    // deterministic stick values in [-1, 1]
+    private static double stick(int i) {
+        return ((i * 37) % 201 - 100) / 100.0;
+    }
+
+    private static List<AprilTagDetection> fakeDetections(int n) {
+        List<AprilTagDetection> list = new ArrayList<>();
+        for (int k = 0; k < n; k++) {
+            int id = k % 2 == 0 ? 24 : 20 + k;
+            AprilTagPoseFtc pose = new AprilTagPoseFtc(0, 40 + k, 0, 0, 0, 0, 40 + k, 10 - 3 * k, 0);
+            list.add(new AprilTagDetection(id, 0, 50f, null, null, null, pose, null, null, 0));
+        }
+        return list;
+    }
+
+    // ========= BASELINE =========
+
+    private void save(String file) throws IOException {
+        Properties p = new Properties();
+        for (int k = 0; k < names.size(); k++) {
+            p.setProperty(names.get(k) + ".ns", String.valueOf(results.get(k)[0]));
+            p.setProperty(names.get(k) + ".bytes", String.valueOf(results.get(k)[1]));
+        }
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            p.store(out, "LoopBench baseline");
+        }
+    }
+
+    private int compare(String file) throws IOException {
+        Properties p = new Properties();
+        try (FileInputStream in = new FileInputStream(file)) {
+            p.load(in);
+        }
+        int regressions = 0;
+        for (int k = 0; k < names.size(); k++) {
+            String ns = p.getProperty(names.get(k) + ".ns");
+            String bytes = p.getProperty(names.get(k) + ".bytes");
+            if (ns == null || bytes == null) continue;
+            double[] r = results.get(k);
+            boolean slower = r[0] > Double.parseDouble(ns) * REGRESSION_X;
+            boolean allocates = r[1] >= 1 && Double.parseDouble(bytes) < 1;
+            if (slower || allocates) {
+                regressions++;
+                System.out.println(String.format(Locale.US, "REGRESSION %s: %.1f ns/op (was %s), %.1f B/op (was %s)",
+                        names.get(k), r[0], ns, r[1], bytes));
+            }
+        }
+        return regressions;
+    }
+
+    public static void main(String[] args) throws IOException {
+        LoopBench b = new LoopBench();
+        b.runAll();
+        for (int k = 0; k + 1 < args.length; k += 2) {
+            if (args[k].equals("--save")) b.save(args[k + 1]);
+            if (args[k].equals("--baseline") && b.compare(args[k + 1]) > 0) System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,248 @@
+package org.firstinspires.ftc.teamcode.sim;
+
+import com.qualcomm.robotcore.hardware.Gamepad;
+
+import org.firstinspires.ftc.teamcode.LoopClock;
+import org.firstinspires.ftc.teamcode.MatchRecorder;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.RandomAccessFile;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+// Turns a MatchRecorder log (.mlog, pulled off the hub from
+// /sdcard/FIRST/matchlogs) into CSV, one row per loop in time order, with the
+// column names the OpMode gave it. Parts a record didn't have (no gamepad in
+// an auto, a tag slot not seen) are left blank.
+//
+// CSV because it needs nothing else here; for Parquet, pandas does it in one
+// line: pd.read_csv("match.csv").to_parquet("match.parquet").
+//
+//   java ... MatchLogReader teleop-20261018-141500.mlog [out.csv]
+//   java ... MatchLogReader --demo [out.csv]     record a synthetic log through
+//                                                MatchRecorder, print what a
+//                                                record costs, convert it
+public class MatchLogReader {
+
+    // ====== ONE LOG ======
+    public static class Log {
+        public int capacity;
+        public long count, wallMillis;
+        public final Map<String, String[]> labels = new LinkedHashMap<>();
+        ByteBuffer buf;
+
+        // Once round the ring, the slot after the newest is the one being
+        // filled (cleared), so a wrapped log holds capacity - 1 records.
+        public boolean wrapped()   { return count >= capacity; }
+        public int records()       { return wrapped() ? capacity - 1 : (int) count; }
+
+        // Byte offset of the i-th record in time order (oldest first).
+        int offset(int i) {
+            long first = wrapped() ? count - capacity + 1 : 0;
+            return MatchRecorder.HEADER_BYTES + (int) ((first + i) % capacity) * MatchRecorder.RECORD_BYTES;
+        }
+
+        String[] label(String key) {
+            String[] v = labels.get(key);
+            return v == null ? new String[0] : v;
+        }
+    }
+
+    public static Log read(File f) throws IOException {
+        Log log = new Log();
+        try (RandomAccessFile raf = new RandomAccessFile(f, "r");
+             FileChannel ch = raf.getChannel()) {
+            ByteBuffer b = ByteBuffer.allocate((int) ch.size()).order(ByteOrder.LITTLE_ENDIAN);
+            while (b.hasRemaining() && ch.read(b) >= 0) { }
+            b.flip();
+            if (b.limit() < MatchRecorder.HEADER_BYTES || b.getInt(MatchRecorder.H_MAGIC) != MatchRecorder.MAGIC) {
+                throw new IOException(f + ": not a match log");
+            }
+            if (b.getInt(MatchRecorder.H_VERSION) != MatchRecorder.VERSION
+                    || b.getInt(MatchRecorder.H_RECORD) != MatchRecorder.RECORD_BYTES) {
+                throw new IOException(f + ": log version " + b.getInt(MatchRecorder.H_VERSION) + ", reader "
+                        + MatchRecorder.VERSION);
+            }
+            log.capacity = b.getInt(MatchRecorder.H_CAPACITY);
+            log.count = b.getLong(MatchRecorder.H_COUNT);
+            log.wallMillis = b.getLong(MatchRecorder.H_WALL_MS);
+            // a log cut short (trimmed, or copied mid-match) has fewer records
+            long fit = (b.limit() - MatchRecorder.HEADER_BYTES) / MatchRecorder.RECORD_BYTES;
+            if (!log.wrapped()) log.count = Math.min(log.count, fit);
+
+            int n = b.getShort(MatchRecorder.H_LABELS);
+            byte[] text = new byte[n];
+            for (int i = 0; i < n; i++) text[i] = b.get(MatchRecorder.H_LABELS + 2 + i);
+            for (String part : new String(text, StandardCharsets.UTF_8).split(";")) {
+                int eq = part.indexOf('=');
+                if (eq > 0) log.labels.put(part.substring(0, eq), part.substring(eq + 1).split(",", -1));
+            }
+            log.buf = b;
+        }
+        return log;
+    }
+
+    // ========= CSV =========
+
+    static final String[] AXES = {"lx", "ly", "rx", "ry", "lt", "rt"};
+    static final String[] TAG_FIELDS = {"id", "range_in", "bearing_deg", "age_s"};
+
+    public static void toCsv(Log log, PrintWriter out) {
+        String[] enc = log.label("enc"), pow = log.label("pow"), val = log.label("val");
+        String[] states = log.label("state"), aux = log.label("aux");
+
+        StringBuilder h = new StringBuilder("t_s,state,aux");
+        for (int g = 0; g < MatchRecorder.GAMEPADS; g++) {
+            for (String a : AXES) h.append(",gp").append(g + 1).append('_').append(a);
+            h.append(",gp").append(g + 1).append("_buttons");
+        }
+        for (String e : enc) h.append(",enc_").append(e);
+        for (String p : pow) h.append(",pow_").append(p);
+        h.append(",yaw_deg,yaw_rate_dps,x_in,y_in,heading_deg");
+        for (int t = 0; t < MatchRecorder.TAGS; t++) {
+            for (String f : TAG_FIELDS) h.append(",tag").append(t).append('_').append(f);
+        }
+        for (String v : val) h.append(',').append(v.replace(' ', '_'));
+        out.println(h);
+
+        ByteBuffer b = log.buf;
+        StringBuilder row = new StringBuilder();
+        for (int i = 0; i < log.records(); i++) {
+            int o = log.offset(i);
+            int flags = b.getInt(o + MatchRecorder.R_FLAGS);
+            row.setLength(0);
+            row.append(String.format(Locale.US, "%.4f", b.getLong(o + MatchRecorder.R_T) / 1e9));
+            row.append(',').append(name(states, b.getInt(o + MatchRecorder.R_STATE)));
+            row.append(',').append(name(aux, b.getInt(o + MatchRecorder.R_AUX)));
+            for (int g = 0; g < MatchRecorder.GAMEPADS; g++) {
+                boolean has = (flags & (g == 0 ? MatchRecorder.F_GAMEPAD0 : MatchRecorder.F_GAMEPAD1)) != 0;
+                int go = o + MatchRecorder.R_GAMEPAD + g * MatchRecorder.GAMEPAD_BYTES;
+                for (int a = 0; a < AXES.length; a++) row.append(',').append(has ? num(b.getFloat(go + 4 * a)) : "");
+                row.append(',').append(has ? buttons(b.getInt(go + 24)) : "");
+            }
+            for (int e = 0; e < enc.length; e++) row.append(',').append(b.getInt(o + MatchRecorder.R_ENCODERS + 4 * e));
+            for (int p = 0; p < pow.length; p++) row.append(',').append(num(b.getFloat(o + MatchRecorder.R_POWERS + 4 * p)));
+            boolean hasHeading = (flags & MatchRecorder.F_HEADING) != 0, hasPose = (flags & MatchRecorder.F_POSE) != 0;
+            row.append(',').append(hasHeading ? num(b.getFloat(o + MatchRecorder.R_YAW)) : "");
+            row.append(',').append(hasHeading ? num(b.getFloat(o + MatchRecorder.R_YAW_RATE)) : "");
+            for (int k = 0; k < 3; k++) row.append(',').append(hasPose ? num(b.getFloat(o + MatchRecorder.R_POSE + 4 * k)) : "");
+            for (int t = 0; t < MatchRecorder.TAGS; t++) {
+                int to = o + MatchRecorder.R_TAGS + t * MatchRecorder.TAG_BYTES;
+                int id = b.getInt(to);
+                row.append(',').append(id != 0 ? Integer.toString(id) : "");
+                for (int k = 1; k < 4; k++) row.append(',').append(id != 0 ? num(b.getFloat(to + 4 * k)) : "");
+            }
+            for (int v = 0; v < val.length; v++) row.append(',').append(num(b.getFloat(o + MatchRecorder.R_VALUES + 4 * v)));
+            out.println(row);
+        }
+    }
+
+    static String name(String[] names, int i) {
+        return i >= 0 && i < names.length ? names[i] : Integer.toString(i);
+    }
+
+    static String num(float v) {
+        return String.format(Locale.US, "%.4g", v);
+    }
+
+    static String buttons(int bits) {
+        StringBuilder s = new StringBuilder();
+        for (int i = 0; i < MatchRecorder.BUTTONS.length; i++) {
+            if ((bits & (1 << i)) == 0) continue;
+            if (s.length() > 0) s.append('+');
+            s.append(MatchRecorder.BUTTONS[i]);
+        }
+        return s.toString();
+    }
+
+    // ========= DEMO =========
+
+    enum DemoState { DRIVE, SCORE, PARK }
+
+    // A fake 200 Hz loop into a small ring, so it wraps; cost per record
+    // counted after WARMUP loops (the JIT has compiled it by then).
+    static final int LOOPS = 200_000, WARMUP = 20_000;
+
+    static File demo(File dir) {
+        long[] now = {0};
+        LoopClock.setSource(() -> now[0]);
+        try {
+            MatchRecorder rec = new MatchRecorder(dir.getPath(), "demo", 3000)
+                    .values("rpm", "target rpm")
+                    .states(DemoState.values())
+                    .open();
+            Gamepad g = new Gamepad();
+            com.sun.management.ThreadMXBean mx = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+            long tid = Thread.currentThread().getId();
+            long spent = 0, allocBefore = 0;
+            for (int i = 0; i < LOOPS; i++) {
+                if (i == WARMUP) {
+                    allocBefore = mx.getThreadAllocatedBytes(tid);
+                    spent = 0;
+                }
+                now[0] = i * 5_000_000L;
+                double t = i * 0.005;
+                g.left_stick_y = (float) Math.sin(t);
+                g.a = (i / 100) % 2 == 0;
+                double y = Math.cos(t) * 10, bearing = Math.sin(t) * 5, rpm = 4200 - 300 * Math.exp(-t);
+                long t0 = System.nanoTime();
+                rec.state(t < 8 ? 0 : t < 14 ? 1 : 2);
+                rec.gamepad(0, g);
+                rec.pose(t * 2, y, t * 3);
+                rec.tag(0, 24, 60 - t, bearing, 0.02);
+                rec.value(0, rpm);
+                rec.value(1, 4200);
+                rec.commit();
+                spent += System.nanoTime() - t0;
+            }
+            long alloc = mx.getThreadAllocatedBytes(tid) - allocBefore;
+            System.out.println(String.format(Locale.US, "recorded %d loops (%s): %.0f ns per record, %d bytes allocated over the last %d",
+                    LOOPS, rec.summary(), spent / (double) (LOOPS - WARMUP), alloc, LOOPS - WARMUP));
+            String path = rec.path();
+            rec.close();
+            return new File(path);
+        } finally {
+            LoopClock.setSource(null);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        boolean isDemo = args.length > 0 && args[0].equals("--demo");
+        File in, tmp = null;
+        if (isDemo) {
+            tmp = Files.createTempDirectory("matchlogs").toFile();
+            in = demo(tmp);
+        } else if (args.length > 0) {
+            in = new File(args[0]);
+        } else {
+            System.out.println("usage: MatchLogReader <log.mlog> [out.csv]  |  MatchLogReader --demo [out.csv]");
+            return;
+        }
+        try {
+            Log log = read(in);
+            String outName = args.length > 1 ? args[1] : in.getName().replaceAll("\\.mlog$", "") + ".csv";
+            try (PrintWriter out = new PrintWriter(new FileWriter(outName))) {
+                toCsv(log, out);
+            }
+            System.out.println(String.format(Locale.US, "%s: %d records%s, started %s -> %s",
+                    in.getName(), log.records(), log.wrapped() ? " (wrapped, oldest dropped)" : "",
+                    new Date(log.wallMillis), outName));
+        } finally {
+            if (tmp != null) {
+                for (File f : tmp.listFiles()) f.delete();
+                tmp.delete();
+            }
+        }
+    }
+}
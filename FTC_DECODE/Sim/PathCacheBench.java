@@ -0,0 +1,154 @@
+package org.firstinspires.ftc.teamcode.sim;
+
+import com.pedropathing.geometry.Pose;
+
+import org.firstinspires.ftc.teamcode.AutoPath;
+import org.firstinspires.ftc.teamcode.PathCache;
+import org.firstinspires.ftc.teamcode.PathTable;
+import org.firstinspires.ftc.teamcode.PedroAutoRoute;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Random;
+
+// What PathCache buys at init, and what PathTable.sAt() costs per loop, on
+// the six paths of PedroPathingAutoTest (PedroAutoRoute).
+//
+//   init       build all six tables vs. map them from the cache files. Each
+//              init on the hub is a cold JVM, so the first run is the number
+//              that matters; the median of later runs is the warmed-up cost.
+//   along      inches along the path at Pedro's t: table lookup vs.
+//              integrating the curve (ARC_STEPS chords), and the largest
+//              disagreement between the two.
+//   stale      move a pose, get() again: only the new key's file is left.
+//
+// Desktop numbers; the Control Hub is ~5-10x slower on both sides.
+//
+//   java ... org.firstinspires.ftc.teamcode.sim.PathCacheBench
+public class PathCacheBench {
+
+    private static final int INIT_RUNS = 15;
+    private static final int QUERIES = 200_000;
+
+    // ========= INIT =========
+
+    static double initMs(String dir) {
+        PathCache cache = new PathCache(dir);
+        for (AutoPath path : PedroAutoRoute.all()) cache.get(path.name(), path.tableBuilder());
+        return cache.totalMs();
+    }
+
+    static String stats(double[] ms) {
+        double first = ms[0];
+        double[] rest = Arrays.copyOfRange(ms, 1, ms.length);
+        Arrays.sort(rest);
+        return String.format(Locale.US, "first %7.2f ms   median after %7.3f ms", first, rest[rest.length / 2]);
+    }
+
+    // ========= ARC LENGTH, WITHOUT TABLES =========
+
+    // Inches from t = 0 to t along one segment, summing ARC_STEPS chords.
+    static final int ARC_STEPS = 64;
+    static final double[] P = new double[2];
+
+    static double integrate(double[] c, double t) {
+        double s = 0;
+        point(c, 0, P);
+        double px = P[0], py = P[1];
+        for (int j = 1; j <= ARC_STEPS; j++) {
+            point(c, t * j / ARC_STEPS, P);
+            s += Math.hypot(P[0] - px, P[1] - py);
+            px = P[0];
+            py = P[1];
+        }
+        return s;
+    }
+
+    static void point(double[] c, double t, double[] out) {
+        // same de Casteljau as PathTable, without its clone
+        int n = c.length / 2;
+        double[] w = SCRATCH;
+        System.arraycopy(c, 0, w, 0, c.length);
+        for (int r = n - 1; r > 0; r--) {
+            for (int i = 0; i < r; i++) {
+                w[2 * i]     += t * (w[2 * i + 2] - w[2 * i]);
+                w[2 * i + 1] += t * (w[2 * i + 3] - w[2 * i + 1]);
+            }
+        }
+        out[0] = w[0];
+        out[1] = w[1];
+    }
+
+    static final double[] SCRATCH = new double[16];
+
+    static int files(File dir, String name) {
+        int n = 0;
+        for (File f : dir.listFiles()) if (f.getName().startsWith(name + "-")) n++;
+        return n;
+    }
+
+    public static void main(String[] args) throws IOException {
+        File dir = Files.createTempDirectory("paths").toFile();
+        try {
+            // ---- init ----
+            double[] build = new double[INIT_RUNS], mapped = new double[INIT_RUNS];
+            for (int i = 0; i < INIT_RUNS; i++) {
+                for (File f : dir.listFiles()) f.delete();
+                build[i] = initMs(dir.getPath());                 // miss: build + write
+                mapped[i] = initMs(dir.getPath());                // hit: map
+            }
+            long bytes = 0;
+            for (File f : dir.listFiles()) bytes += f.length();
+            System.out.println(String.format(Locale.US, "init, %d paths (%d KB of tables on disk)", PedroAutoRoute.all().length, bytes / 1024));
+            System.out.println("  build + save   " + stats(build));
+            System.out.println("  map from cache " + stats(mapped));
+
+            // ---- along ----
+            PathCache cache = new PathCache(dir.getPath());
+            AutoPath p1 = PedroAutoRoute.pickup1();
+            PathTable pickup1 = cache.get(p1.name(), p1.tableBuilder());
+            double[] seg = {PedroAutoRoute.SCORE.getX(), PedroAutoRoute.SCORE.getY(),
+                    PedroAutoRoute.PICKUP1_MID.getX(), PedroAutoRoute.PICKUP1_MID.getY(),
+                    PedroAutoRoute.PICKUP1.getX(), PedroAutoRoute.PICKUP1.getY()};
+
+            Random rnd = new Random(1);
+            double[] qt = new double[QUERIES];
+            for (int i = 0; i < QUERIES; i++) qt[i] = rnd.nextDouble();
+
+            double worst = 0, sink = 0;
+            for (int i = 0; i < QUERIES; i++) {
+                worst = Math.max(worst, Math.abs(pickup1.sAt(0, qt[i]) - integrate(seg, qt[i])));
+            }
+            for (int rep = 0; rep < 3; rep++) {                  // warm both, report the last
+                long t0 = System.nanoTime();
+                for (int i = 0; i < QUERIES; i++) sink += pickup1.sAt(0, qt[i]);
+                long t1 = System.nanoTime();
+                for (int i = 0; i < QUERIES; i++) sink += integrate(seg, qt[i]);
+                long t2 = System.nanoTime();
+                if (rep == 2) {
+                    System.out.println(String.format(Locale.US, "inches along at t, pickup1 (%.0f in), %d queries",
+                            pickup1.length(), QUERIES));
+                    System.out.println(String.format(Locale.US, "  table (mapped)  %7.1f ns/query", (t1 - t0) / (double) QUERIES));
+                    System.out.println(String.format(Locale.US, "  integrate       %7.1f ns/query   (%d chords)",
+                            (t2 - t1) / (double) QUERIES, ARC_STEPS));
+                    System.out.println(String.format(Locale.US, "  largest disagreement %.3f in   [%.0f]", worst, sink % 10));
+                }
+            }
+
+            // ---- stale ----
+            AutoPath moved = AutoPath.curve(p1.name(), PedroAutoRoute.SCORE, PedroAutoRoute.PICKUP1_MID,
+                    new Pose(PedroAutoRoute.PICKUP1.getX() + 1, PedroAutoRoute.PICKUP1.getY(), PedroAutoRoute.PICKUP1.getHeading()))
+                    .headingEndT(p1.headingEndT());
+            int before = files(dir, p1.name());
+            cache.get(moved.name(), moved.tableBuilder());
+            System.out.println(String.format(Locale.US, "pickup1 moved 1 in: %d file(s) before, %d after (%s)",
+                    before, files(dir, p1.name()), cache.summary()));
+        } finally {
+            for (File f : dir.listFiles()) f.delete();
+            dir.delete();
+        }
+    }
+}
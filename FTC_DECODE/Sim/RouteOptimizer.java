@@ -0,0 +1,369 @@
+package org.firstinspires.ftc.teamcode.sim;
+
+import com.pedropathing.geometry.Pose;
+
+import org.firstinspires.ftc.teamcode.PedroAutoRoute;
+
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+// Lane-alignment checker for PedroPathingAutoTest's route (PedroAutoRoute):
+// does each pickup curve arrive at its spike straight, so the intake lines
+// up? It reports how far today's approaches are off, then searches for the
+// quickest route shape that does line up, and prints it as the ROUTE SHAPE
+// block to paste over PedroAutoRoute's. It is not a speed-up: the time model
+// below is only good for ranking shapes against each other, and today's
+// shape is already within a few hundredths of a second of the best aligned
+// one. The poses the robot has to reach (score, spikes) are fixed; what
+// moves is how it gets there:
+//   PICKUP1_MID / PICKUP2_MID              where the pickup curves bend
+//   PICKUP_HEADING_END_T / SCORE_HEADING_END_T
+//                                          how soon the heading turn is done
+//
+// A route's time is a speed profile over each path's geometry, with the
+// chassis from SimRobot.Config (top speed from free speed, wheel and
+// efficiency; turning radius from track and wheelbase) and one acceleration
+// limit, A_MAX, for speeding up, braking and cornering:
+//   - corners: v^2 * curvature <= A_MAX
+//   - turning while driving shares the wheels: v * (1 + |dheading/ds| * r) <= top speed
+//   - the last PICKUP_SLOW_IN of a pickup at PICKUP_POWER (the auto's trigger)
+//   - braking at A_MAX, just in time, on every path. Pedro's deceleration /
+//     braking start (pickup1's PICKUP_DECELERATION / PICKUP_BRAKING_START)
+//     aren't modeled, so they're neither searched nor printed, and real
+//     drive times run longer than these: tune braking on the field.
+// and the route is only allowed if the robot arrives at each spike straight
+// (last PICKUP_SLOW_IN within LANE_IN of the spike's line, facing the spike
+// before it gets there), so the intake still lines up.
+//
+// Each candidate (the two heading end t's) searches both mid poses for
+// itself: the two pickups don't interact once those are fixed. Candidates
+// run on a ForkJoinPool, a coarse grid first and then a finer one around the
+// best. This is a model of the follower, not Pedro itself: drive the result
+// once on the field before trusting the numbers.
+//
+//   java ... org.firstinspires.ftc.teamcode.sim.RouteOptimizer [A_MAX in/s^2]
+public class RouteOptimizer {
+
+    // ====== FROM PedroAutoRoute (inches, radians) ======
+    static final double[] SCORE = xyh(PedroAutoRoute.SCORE);
+    static final double[] PICKUP1 = xyh(PedroAutoRoute.PICKUP1), PICKUP2 = xyh(PedroAutoRoute.PICKUP2);
+    static final double[] PICKUP1_MID = xyh(PedroAutoRoute.PICKUP1_MID), PICKUP2_MID = xyh(PedroAutoRoute.PICKUP2_MID);
+    static final double NOW_PICKUP_END_T = PedroAutoRoute.PICKUP_HEADING_END_T;
+    static final double NOW_SCORE_END_T = PedroAutoRoute.SCORE_HEADING_END_T;
+    static final double PICKUP_POWER = PedroAutoRoute.PICKUP_POWER, PICKUP_SLOW_IN = PedroAutoRoute.PICKUP_SLOW_IN;
+
+    static double[] xyh(Pose p) {
+        return new double[] {p.getX(), p.getY(), p.getHeading()};
+    }
+
+    // ====== CONSTRAINTS ======
+    static final double DEFAULT_A_MAX = 80;       // in/s^2, well under traction (mu * g ~ 350)
+    static final double LANE_IN = 1.0;            // spike approach: off the straight line by at most this
+    static final int SAMPLES = 200;
+
+    // ========= ROBOT =========
+
+    static class Robot {
+        final double vMax, aMax, turnRadius;
+
+        Robot(SimRobot.Config c, double aMax) {
+            vMax = c.freeTicksPerSec / c.ticksPerRev * Math.PI * c.wheelDiameterIn * c.forwardEfficiency;
+            turnRadius = (c.trackWidthIn + c.wheelBaseIn) / 2;
+            this.aMax = aMax;
+        }
+    }
+
+    // ========= ONE PATH =========
+
+    // Time to drive a quadratic Bezier (a line: mid halfway) from rest to rest,
+    // or +inf if strict and it breaks the spike-approach rule.
+    static double pathTime(Robot r, double[] a, double[] mid, double[] b, double headingEndT,
+                           boolean pickup, boolean strict) {
+        int n = SAMPLES;
+        double[] s = new double[n + 1], vLim = new double[n + 1];
+        double dh = angleDiff(b[2], a[2]);
+        for (int i = 0; i <= n; i++) {
+            double t = (double) i / n, u = 1 - t;
+            double dx = 2 * (u * (mid[0] - a[0]) + t * (b[0] - mid[0]));
+            double dy = 2 * (u * (mid[1] - a[1]) + t * (b[1] - mid[1]));
+            double ddx = 2 * (b[0] - 2 * mid[0] + a[0]), ddy = 2 * (b[1] - 2 * mid[1] + a[1]);
+            double speed = Math.max(1e-9, Math.hypot(dx, dy));
+            if (i > 0) {
+                double tm = (i - 0.5) / n, um = 1 - tm;       // midpoint speed for the arc length step
+                double mx = 2 * (um * (mid[0] - a[0]) + tm * (b[0] - mid[0]));
+                double my = 2 * (um * (mid[1] - a[1]) + tm * (b[1] - mid[1]));
+                s[i] = s[i - 1] + Math.hypot(mx, my) / n;
+            }
+            double curvature = Math.abs(dx * ddy - dy * ddx) / (speed * speed * speed);
+            double turn = t < headingEndT ? Math.abs(dh) / headingEndT / speed : 0;   // rad per inch
+            double v = r.vMax / (1 + turn * r.turnRadius);
+            if (curvature > 1e-9) v = Math.min(v, Math.sqrt(r.aMax / curvature));
+            vLim[i] = v;
+        }
+        double length = s[n];
+
+        if (pickup) {
+            // straight in over the last PICKUP_SLOW_IN, already facing the spike
+            if (strict && laneOffIn(a, mid, b, headingEndT, s) > LANE_IN) return Double.POSITIVE_INFINITY;
+            for (int i = n; i >= 0 && length - s[i] <= PICKUP_SLOW_IN; i--) {
+                vLim[i] = Math.min(vLim[i], PICKUP_POWER * r.vMax);
+            }
+        }
+
+        // forward: speeding up
+        double[] v = new double[n + 1];
+        for (int i = 1; i <= n; i++) {
+            v[i] = Math.min(vLim[i], Math.sqrt(v[i - 1] * v[i - 1] + 2 * r.aMax * (s[i] - s[i - 1])));
+        }
+
+        // braking: A_MAX, just in time
+        v[n] = 0;
+        for (int i = n - 1; i >= 0; i--) {
+            v[i] = Math.min(v[i], Math.sqrt(v[i + 1] * v[i + 1] + 2 * r.aMax * (s[i + 1] - s[i])));
+        }
+
+        double time = 0;
+        for (int i = 1; i <= n; i++) {
+            double avg = (v[i] + v[i - 1]) / 2;
+            if (avg > 1e-9) time += (s[i] - s[i - 1]) / avg;
+            else time += Math.sqrt(2 * (s[i] - s[i - 1]) / r.aMax);   // from rest
+        }
+        return time;
+    }
+
+    // Largest sideways offset from the spike's line over the last PICKUP_SLOW_IN
+    // (s: arc length per sample); +inf if the heading isn't done by then.
+    static double laneOffIn(double[] a, double[] mid, double[] b, double headingEndT, double[] s) {
+        int n = s.length - 1;
+        double hx = Math.cos(b[2]), hy = Math.sin(b[2]), worst = 0;
+        for (int i = n; i >= 0 && s[n] - s[i] <= PICKUP_SLOW_IN; i--) {
+            double t = (double) i / n, u = 1 - t;
+            if (t < headingEndT) return Double.POSITIVE_INFINITY;
+            double px = u * u * a[0] + 2 * u * t * mid[0] + t * t * b[0] - b[0];
+            double py = u * u * a[1] + 2 * u * t * mid[1] + t * t * b[1] - b[1];
+            worst = Math.max(worst, Math.abs(px * hy - py * hx));
+        }
+        return worst;
+    }
+
+    static double laneOffIn(double[] a, double[] mid, double[] b, double headingEndT) {
+        double[] s = new double[SAMPLES + 1];
+        for (int i = 1; i <= SAMPLES; i++) {
+            double tm = (i - 0.5) / SAMPLES, um = 1 - tm;
+            s[i] = s[i - 1] + Math.hypot(2 * (um * (mid[0] - a[0]) + tm * (b[0] - mid[0])),
+                    2 * (um * (mid[1] - a[1]) + tm * (b[1] - mid[1]))) / SAMPLES;
+        }
+        return laneOffIn(a, mid, b, headingEndT, s);
+    }
+
+    static double lineTime(Robot r, double[] a, double[] b, double headingEndT) {
+        double[] mid = {(a[0] + b[0]) / 2, (a[1] + b[1]) / 2};
+        return pathTime(r, a, mid, b, headingEndT, false, false);
+    }
+
+    static double angleDiff(double to, double from) {
+        double d = to - from;
+        while (d > Math.PI) d -= 2 * Math.PI;
+        while (d < -Math.PI) d += 2 * Math.PI;
+        return d;
+    }
+
+    // ========= A ROUTE =========
+
+    static class Route {
+        double pickupEndT, scoreEndT;
+        final double[] mid1 = new double[2], mid2 = new double[2];
+        double pickup1S, score1S, pickup2S, score2S, totalS = Double.POSITIVE_INFINITY;
+
+        // same time within 1 ms: keep the one nearer today's settings
+        boolean betterThan(Route o) {
+            if (o == null) return true;
+            if (Math.abs(totalS - o.totalS) > 1e-3) return totalS < o.totalS;
+            return change() < o.change();
+        }
+
+        double change() {
+            return Math.abs(pickupEndT - NOW_PICKUP_END_T) + Math.abs(scoreEndT - NOW_SCORE_END_T)
+                    + (Math.hypot(mid1[0] - PICKUP1_MID[0], mid1[1] - PICKUP1_MID[1])
+                    + Math.hypot(mid2[0] - PICKUP2_MID[0], mid2[1] - PICKUP2_MID[1])) / 24;
+        }
+    }
+
+    // Mid poses searched around a centre, relative to the spike: dx across,
+    // dy back along the approach.
+    static class MidGrid {
+        final double dx0, dxStep, dy0, dyStep;
+        final int nx, ny;
+
+        MidGrid(double dx0, double dxStep, int nx, double dy0, double dyStep, int ny) {
+            this.dx0 = dx0; this.dxStep = dxStep; this.nx = nx;
+            this.dy0 = dy0; this.dyStep = dyStep; this.ny = ny;
+        }
+    }
+
+    // Fixed settings -> best mid for one pickup; fills mid, returns pickup time.
+    static double bestPickup(Robot r, double[] spike, MidGrid g, double endT, boolean strict, double[] midOut) {
+        double best = Double.POSITIVE_INFINITY;
+        double[] mid = new double[2];
+        for (int i = 0; i < g.nx; i++) {
+            for (int j = 0; j < g.ny; j++) {
+                mid[0] = spike[0] + g.dx0 + i * g.dxStep;
+                mid[1] = spike[1] + g.dy0 + j * g.dyStep;
+                double t = pathTime(r, SCORE, mid, spike, endT, true, strict);
+                if (t < best - 1e-6) {
+                    best = t;
+                    midOut[0] = mid[0];
+                    midOut[1] = mid[1];
+                }
+            }
+        }
+        return best;
+    }
+
+    static Route evaluate(Robot r, double pickupEndT, double scoreEndT, MidGrid g1, MidGrid g2, boolean strict) {
+        Route c = new Route();
+        c.pickupEndT = pickupEndT;
+        c.scoreEndT = scoreEndT;
+        c.pickup1S = bestPickup(r, PICKUP1, g1, pickupEndT, strict, c.mid1);
+        c.pickup2S = bestPickup(r, PICKUP2, g2, pickupEndT, strict, c.mid2);
+        c.score1S = lineTime(r, PICKUP1, SCORE, scoreEndT);
+        c.score2S = lineTime(r, PICKUP2, SCORE, scoreEndT);
+        c.totalS = c.pickup1S + c.score1S + c.pickup2S + c.score2S;
+        return c;
+    }
+
+    static Route current(Robot r) {
+        MidGrid g1 = new MidGrid(PICKUP1_MID[0] - PICKUP1[0], 0, 1, PICKUP1_MID[1] - PICKUP1[1], 0, 1);
+        MidGrid g2 = new MidGrid(PICKUP2_MID[0] - PICKUP2[0], 0, 1, PICKUP2_MID[1] - PICKUP2[1], 0, 1);
+        return evaluate(r, NOW_PICKUP_END_T, NOW_SCORE_END_T, g1, g2, false);
+    }
+
+    // ========= SEARCH =========
+
+    // One axis of shared settings: from, step, count.
+    static double at(double[] axis, int i) { return axis[0] + i * axis[1]; }
+
+    @SuppressWarnings("serial")   // never serialized
+    static class Search extends RecursiveTask<Route> {
+        static final int SPLIT = 8;
+        final Robot r;
+        final double[][] axes;        // pickupEndT, scoreEndT
+        final MidGrid g1, g2;
+        final int lo, hi;
+
+        Search(Robot r, double[][] axes, MidGrid g1, MidGrid g2, int lo, int hi) {
+            this.r = r; this.axes = axes; this.g1 = g1; this.g2 = g2; this.lo = lo; this.hi = hi;
+        }
+
+        static int size(double[][] axes) {
+            int n = 1;
+            for (double[] a : axes) n *= (int) a[2];
+            return n;
+        }
+
+        @Override
+        protected Route compute() {
+            if (hi - lo > SPLIT) {
+                int m = (lo + hi) >>> 1;
+                Search left = new Search(r, axes, g1, g2, lo, m);
+                left.fork();
+                Route right = new Search(r, axes, g1, g2, m, hi).compute();
+                Route l = left.join();
+                return l.betterThan(right) ? l : right;
+            }
+            Route best = null;
+            for (int k = lo; k < hi; k++) {
+                int n0 = (int) axes[0][2];
+                Route c = evaluate(r, at(axes[0], k % n0), at(axes[1], k / n0), g1, g2, true);
+                if (c.betterThan(best)) best = c;
+            }
+            return best;
+        }
+    }
+
+    static Route search(ForkJoinPool pool, Robot r, double[][] axes, MidGrid g1, MidGrid g2) {
+        return pool.invoke(new Search(r, axes, g1, g2, 0, Search.size(axes)));
+    }
+
+    // finer axis around a value, kept inside [min, max]
+    static double[] around(double v, double step, int half, double min, double max) {
+        double from = Math.max(min, v - half * step);
+        int n = (int) Math.round((Math.min(max, v + half * step) - from) / step) + 1;
+        return new double[] {from, step, n};
+    }
+
+    static MidGrid around(double[] mid, double[] spike, double step, int half) {
+        return new MidGrid(mid[0] - spike[0] - half * step, step, 2 * half + 1,
+                Math.max(6, mid[1] - spike[1] - half * step), step, 2 * half + 1);
+    }
+
+    // ========= OUTPUT =========
+
+    static void print(String name, Route c, Route now) {
+        System.out.println(String.format(Locale.US,
+                "%-8s pickup1 %5.2f  score1 %5.2f  pickup2 %5.2f  score2 %5.2f  = %5.2f s%s   lane off %s / %s in",
+                name, c.pickup1S, c.score1S, c.pickup2S, c.score2S, c.totalS,
+                now == null ? "         " : String.format(Locale.US, "  (%+.2f s)", c.totalS - now.totalS),
+                lane(laneOffIn(SCORE, c.mid1, PICKUP1, c.pickupEndT)), lane(laneOffIn(SCORE, c.mid2, PICKUP2, c.pickupEndT))));
+    }
+
+    static String lane(double in) {
+        return Double.isInfinite(in) ? "(turning)" : String.format(Locale.US, "%.1f", in);
+    }
+
+    static void printConstants(Route c, Robot r) {
+        System.out.println(String.format(Locale.US, "    // ====== ROUTE SHAPE (sim/RouteOptimizer, lanes within %.1f in, A_MAX %.0f in/s^2) ======",
+                LANE_IN, r.aMax));
+        System.out.println(String.format(Locale.US,
+                "    public static final Pose PICKUP1_MID = new Pose(cm(%.1f), cm(%.1f), Math.toRadians(%.0f));",
+                c.mid1[0] * 2.54, c.mid1[1] * 2.54, Math.toDegrees(PICKUP1_MID[2])));
+        System.out.println(String.format(Locale.US,
+                "    public static final Pose PICKUP2_MID = new Pose(cm(%.1f), cm(%.1f), Math.toRadians(%.0f));",
+                c.mid2[0] * 2.54, c.mid2[1] * 2.54, Math.toDegrees(PICKUP2_MID[2])));
+        System.out.println(String.format(Locale.US, "    public static final double PICKUP_HEADING_END_T = %.3f;", c.pickupEndT));
+        System.out.println(String.format(Locale.US, "    public static final double SCORE_HEADING_END_T  = %.3f;", c.scoreEndT));
+    }
+
+    public static void main(String[] args) {
+        double aMax = args.length > 0 ? Double.parseDouble(args[0]) : DEFAULT_A_MAX;
+        Robot r = new Robot(new SimRobot.Config(), aMax);
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+
+        Route now = current(r);
+        System.out.println(String.format(Locale.US, "robot: top %.1f in/s, A_MAX %.0f in/s^2, turn radius %.1f in; %d threads",
+                r.vMax, r.aMax, r.turnRadius, pool.getParallelism()));
+        print("now", now, null);
+        double off1 = laneOffIn(SCORE, PICKUP1_MID, PICKUP1, NOW_PICKUP_END_T);
+        double off2 = laneOffIn(SCORE, PICKUP2_MID, PICKUP2, NOW_PICKUP_END_T);
+        System.out.println(String.format(Locale.US, "lanes now: pickup1 %s, pickup2 %s (limit %.1f in)%s",
+                lane(off1), lane(off2), LANE_IN,
+                off1 <= LANE_IN && off2 <= LANE_IN ? ": lined up" : ": paste the block below to line up"));
+
+        // ---- coarse: whole ranges ----
+        long t0 = System.nanoTime();
+        double[][] coarse = {
+                {0.2, 0.1, 8},          // pickup heading end t 0.2..0.9
+                {0.3, 0.1, 8},          // score heading end t 0.3..1.0
+        };
+        MidGrid wide = new MidGrid(-12, 2, 13, 8, 3, 15);        // 12 in either side, 8..50 in back
+        Route best = search(pool, r, coarse, wide, wide);
+        long t1 = System.nanoTime();
+        print("coarse", best, now);
+
+        // ---- fine: around the coarse winner ----
+        double[][] fine = {
+                around(best.pickupEndT, 0.025, 4, 0.05, 1.0),
+                around(best.scoreEndT, 0.025, 4, 0.05, 1.0),
+        };
+        best = search(pool, r, fine, around(best.mid1, PICKUP1, 0.5, 4), around(best.mid2, PICKUP2, 0.5, 4));
+        long t2 = System.nanoTime();
+        print("fine", best, now);
+
+        int paths = 2 * (Search.size(coarse) * (13 * 15 + 1) + Search.size(fine) * (81 + 1));
+        System.out.println(String.format(Locale.US, "%d + %d candidates, %d path profiles, %.2f + %.2f s",
+                Search.size(coarse), Search.size(fine), paths, (t1 - t0) / 1e9, (t2 - t1) / 1e9));
+        System.out.println();
+        printConstants(best, r);
+    }
+}
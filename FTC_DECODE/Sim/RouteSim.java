@@ -0,0 +1,262 @@
+package org.firstinspires.ftc.teamcode.sim;
+
+import com.qualcomm.robotcore.hardware.DcMotor;
+
+import org.firstinspires.ftc.teamcode.CachedMotor;
+import org.firstinspires.ftc.teamcode.EncoderRoute;
+import org.firstinspires.ftc.teamcode.EncoderSnapshot;
+import org.firstinspires.ftc.teamcode.Encoder_Route_Auto;
+import org.firstinspires.ftc.teamcode.ImuService;
+import org.firstinspires.ftc.teamcode.LoopClock;
+import org.firstinspires.ftc.teamcode.MecanumDrive;
+import org.firstinspires.ftc.teamcode.MotorCache;
+import org.firstinspires.ftc.teamcode.PoseEstimator;
+import org.firstinspires.ftc.teamcode.ProfiledDrive;
+
+import java.util.Locale;
+
+// Runs an EncoderRoute on a SimRobot with the same leg follower the encoder
+// autos use (Encoder_Route_Auto.newLegs), on virtual time, and reports where
+// the robot really ended up vs. where the route thinks it ends, and how far
+// the PoseEstimator (encoders + IMU) was from the truth.
+//
+// main() is the check on the auto's route time: the route through
+// ProfiledDrive has to finish inside the 30 s autonomous, with no leg timing
+// out, and faster than the same route driven the old way (runToPosition(),
+// RUN_TO_POSITION + sleep(200) after every leg). It also checks that a leg
+// that times out leaves the wheels at 0 and the next leg doesn't lunge, and
+// that the route ends within END_TOL_IN / END_TOL_DEG of where it should.
+// Exits 1 if anything fails.
+//
+// STRAFE_CORRECTION and WHEELBASE_DIAMETER_IN are the real robot's; the sim
+// chassis turns and strafes by its own Config. So main() first calibrates
+// them on the sim the way we do on the field (strafe 48 in, turn 360, see
+// SimTuner) and runs the route built with those, or the end error would be
+// the fudge mismatch and not the drive.
+//
+//   java ... org.firstinspires.ftc.teamcode.sim.RouteSim
+public class RouteSim {
+
+    public static final double LOOP_S = 0.010;
+    public static final double SETTLE_S = 0.3;
+    public static final double AUTO_S = 30.0;
+    public static final double OLD_PAUSE_S = 0.2;      // the sleep(200) after each RUN_TO_POSITION leg
+    public static final double END_TOL_IN = 1.0, END_TOL_DEG = 2.0;
+    private static final double CAL_IN = 48, CAL_DEG = 360;
+
+    public static class Result {
+        public double x, y, headingDeg;          // where the sim robot ended
+        public double errX, errY, errHeadingDeg;  // minus the route's nominal end
+        public double timeS;
+        public double plannedS;                  // the route's profiles alone
+        public int timedOutLegs;
+        public double poseErrInches, poseErrHeadingDeg;   // estimator minus truth, at the end
+        public double maxPoseErrInches;                  // worst along the way
+
+        public double errInches() { return Math.hypot(errX, errY); }
+    }
+
+    // The same route the way the autos drove it before ProfiledDrive: each leg
+    // RUN_TO_POSITION at the leg's power until every wheel is within
+    // tolerance (or the timeout), then stop and sleep(pauseS).
+    public static Result runToPosition(SimRobot robot, EncoderRoute route, int tolTicks, double pauseS) {
+        LoopClock.setSource(robot.clock());
+        try {
+            MecanumDrive drive = new MecanumDrive(new MotorCache(robot.hardwareMap()));
+            CachedMotor[] m = new CachedMotor[4];
+            for (int i = 0; i < 4; i++) {
+                m[i] = drive.motor(i);
+                m[i].setMode(DcMotor.RunMode.STOP_AND_RESET_ENCODER);
+                m[i].setMode(DcMotor.RunMode.RUN_USING_ENCODER);
+            }
+            int[] targets = route.targets();
+
+            Result r = new Result();
+            double start = robot.timeS();
+            for (int leg = 0; leg < route.legCount(); leg++) {
+                for (int i = 0; i < 4; i++) {
+                    m[i].setTargetPosition(targets[4 * leg + i]);
+                    m[i].setMode(DcMotor.RunMode.RUN_TO_POSITION);
+                }
+                double legStart = robot.timeS();
+                boolean within = false;
+                while (!within && robot.timeS() - legStart < route.timeoutS(leg)) {
+                    within = true;
+                    for (int i = 0; i < 4; i++) {
+                        within &= Math.abs(targets[4 * leg + i] - m[i].getCurrentPosition()) <= tolTicks;
+                    }
+                    if (!within) {
+                        for (int i = 0; i < 4; i++) m[i].setPower(route.power(leg));
+                        robot.step(LOOP_S);
+                    }
+                }
+                if (!within) r.timedOutLegs++;
+                for (int i = 0; i < 4; i++) {
+                    m[i].setPower(0);
+                    m[i].setMode(DcMotor.RunMode.RUN_USING_ENCODER);
+                }
+                if (leg < route.legCount() - 1) robot.step(pauseS);
+            }
+            r.timeS = robot.timeS() - start;
+            robot.step(SETTLE_S);
+            r.x = robot.x();
+            r.y = robot.y();
+            r.headingDeg = robot.headingDeg();
+            r.errX = r.x - route.endX();
+            r.errY = r.y - route.endY();
+            r.errHeadingDeg = r.headingDeg - route.endHeadingDeg();
+            return r;
+        } finally {
+            LoopClock.setSource(null);
+        }
+    }
+
+    public static Result run(SimRobot robot, EncoderRoute route) {
+        LoopClock.setSource(robot.clock());
+        try {
+            MotorCache motors = new MotorCache(robot.hardwareMap());
+            MecanumDrive drive = new MecanumDrive(motors);   // same Directions + BRAKE as the autos
+            CachedMotor fl = drive.motor(MecanumDrive.FL), fr = drive.motor(MecanumDrive.FR);
+            CachedMotor bl = drive.motor(MecanumDrive.BL), br = drive.motor(MecanumDrive.BR);
+            for (int i = 0; i < 4; i++) {
+                drive.motor(i).setMode(DcMotor.RunMode.STOP_AND_RESET_ENCODER);
+                drive.motor(i).setMode(DcMotor.RunMode.RUN_USING_ENCODER);
+            }
+            EncoderSnapshot encoders = new EncoderSnapshot(robot.hardwareMap(), fl, fr, bl, br);
+            ProfiledDrive legs = Encoder_Route_Auto.newLegs(fl, fr, bl, br, encoders);
+            ImuService imu = new ImuService(robot.imu(), 100);
+            imu.start();
+            PoseEstimator pose = Encoder_Route_Auto.newPoseEstimator(encoders, imu);
+            double x0 = robot.x(), y0 = robot.y();
+            encoders.capture();
+            pose.update();
+
+            Result r = new Result();
+            double start = robot.timeS();
+            for (int leg = 0; leg < route.legCount(); leg++) {
+                legs.startLegTo(route.targets(), 4 * leg, route.power(leg), route.timeoutS(leg));
+                while (legs.update()) {
+                    imu.poll();
+                    pose.update();
+                    r.maxPoseErrInches = Math.max(r.maxPoseErrInches,
+                            Math.hypot(pose.x() - (robot.x() - x0), pose.y() - (robot.y() - y0)));
+                    robot.step(LOOP_S);
+                }
+                if (legs.timedOut()) r.timedOutLegs++;
+            }
+            legs.stop();
+            r.timeS = robot.timeS() - start;
+            r.plannedS = legs.plannedRouteS();
+            robot.step(SETTLE_S);
+
+            r.x = robot.x();
+            r.y = robot.y();
+            r.headingDeg = robot.headingDeg();
+            r.errX = r.x - route.endX();
+            r.errY = r.y - route.endY();
+            r.errHeadingDeg = r.headingDeg - route.endHeadingDeg();
+
+            imu.poll();
+            encoders.capture();
+            pose.update();
+            imu.stop();
+            r.poseErrInches = Math.hypot(pose.x() - (r.x - x0), pose.y() - (r.y - y0));
+            r.poseErrHeadingDeg = pose.headingDeg() - r.headingDeg;
+            return r;
+        } finally {
+            LoopClock.setSource(null);
+        }
+    }
+
+    // ========= TIMEOUT =========
+
+    // First leg of the route with a timeout far shorter than its profile.
+    // Returns the largest wheel power seen: after the timeout (should be 0)
+    // and on the next leg's first update (should be about 0, not a lunge at
+    // the ticks the timed out leg never drove).
+    public static double[] timeoutPowers(EncoderRoute route) {
+        SimRobot robot = new SimRobot(new SimRobot.Config(), 1);
+        LoopClock.setSource(robot.clock());
+        try {
+            MecanumDrive drive = new MecanumDrive(new MotorCache(robot.hardwareMap()));
+            for (int i = 0; i < 4; i++) {
+                drive.motor(i).setMode(DcMotor.RunMode.STOP_AND_RESET_ENCODER);
+                drive.motor(i).setMode(DcMotor.RunMode.RUN_USING_ENCODER);
+            }
+            EncoderSnapshot encoders = new EncoderSnapshot(robot.hardwareMap(),
+                    drive.motor(MecanumDrive.FL), drive.motor(MecanumDrive.FR),
+                    drive.motor(MecanumDrive.BL), drive.motor(MecanumDrive.BR));
+            ProfiledDrive legs = Encoder_Route_Auto.newLegs(drive.motor(MecanumDrive.FL), drive.motor(MecanumDrive.FR),
+                    drive.motor(MecanumDrive.BL), drive.motor(MecanumDrive.BR), encoders);
+
+            legs.startLegTo(route.targets(), 0, route.power(0), 0.3);
+            while (legs.update()) robot.step(LOOP_S);
+            double after = legs.timedOut() ? maxPower(robot) : Double.NaN;
+
+            legs.startLegTo(route.targets(), 4, route.power(1), route.timeoutS(1));
+            legs.update();
+            double next = maxPower(robot);
+            legs.stop();
+            return new double[] {after, next};
+        } finally {
+            LoopClock.setSource(null);
+        }
+    }
+
+    private static double maxPower(SimRobot robot) {
+        double p = 0;
+        for (int i = 0; i < 4; i++) p = Math.max(p, Math.abs(robot.driveMotor(i).getPower()));
+        return p;
+    }
+
+    // ========= CALIBRATION =========
+
+    // The match route with STRAFE_CORRECTION and WHEELBASE_DIAMETER_IN measured
+    // on this sim chassis: one strafe and one turn, scaled like on the field.
+    public static EncoderRoute calibratedRoute(SimRobot.Config cfg, long seed) {
+        double strafeNow = Encoder_Route_Auto.STRAFE_CORRECTION;
+        double turnNow = Encoder_Route_Auto.WHEELBASE_DIAMETER_IN;
+        Result s = run(new SimRobot(cfg, seed),
+                Encoder_Route_Auto.newRouteBuilder(strafeNow, turnNow).strafeLeft(CAL_IN).build());
+        Result t = run(new SimRobot(cfg, seed),
+                Encoder_Route_Auto.newRouteBuilder(strafeNow, turnNow).turnLeft(CAL_DEG).build());
+        return Encoder_Route_Auto.buildRoute(strafeNow * CAL_IN / s.y, turnNow * CAL_DEG / t.headingDeg);
+    }
+
+    // ========= CHECK =========
+
+    public static void main(String[] args) {
+        EncoderRoute route = calibratedRoute(new SimRobot.Config(), 1);
+        Result now = run(new SimRobot(new SimRobot.Config(), 1), route);
+        Result old = runToPosition(new SimRobot(new SimRobot.Config(), 1), route,
+                Encoder_Route_Auto.POS_TOL_TICKS, OLD_PAUSE_S);
+        double[] timeout = timeoutPowers(route);
+
+        System.out.println(String.format(Locale.US, "encoder auto, %d legs", route.legCount()));
+        System.out.println(String.format(Locale.US,
+                "ProfiledDrive          %6.2f s  (profiles %.2f s)  timeouts %d  end off %.2f in %.2f deg",
+                now.timeS, now.plannedS, now.timedOutLegs, now.errInches(), now.errHeadingDeg));
+        System.out.println(String.format(Locale.US,
+                "RUN_TO_POSITION+sleep  %6.2f s                     timeouts %d  end off %.2f in %.2f deg",
+                old.timeS, old.timedOutLegs, old.errInches(), old.errHeadingDeg));
+        System.out.println(String.format(Locale.US,
+                "timed out leg: wheel power after %.3f, next leg's first update %.3f",
+                timeout[0], timeout[1]));
+
+        boolean ok = true;
+        ok &= check(now.timedOutLegs == 0, "a leg timed out");
+        ok &= check(now.timeS < AUTO_S, "route longer than the autonomous");
+        ok &= check(now.timeS < old.timeS, "no faster than RUN_TO_POSITION + sleep");
+        ok &= check(timeout[0] == 0, "wheels still driven after a timeout");
+        ok &= check(timeout[1] < 0.1, "next leg lunges after a timeout");
+        ok &= check(now.errInches() <= END_TOL_IN, "route ends more than END_TOL_IN off");
+        ok &= check(Math.abs(now.errHeadingDeg) <= END_TOL_DEG, "route ends more than END_TOL_DEG off in heading");
+        System.out.println(ok ? "OK" : "FAILED");
+        if (!ok) System.exit(1);
+    }
+
+    private static boolean check(boolean pass, String what) {
+        if (!pass) System.out.println("FAIL: " + what);
+        return pass;
+    }
+}
@@ -0,0 +1,115 @@
+package org.firstinspires.ftc.teamcode.sim;
+
+import org.firstinspires.ftc.vision.apriltag.AprilTagDetection;
+import org.firstinspires.ftc.vision.apriltag.AprilTagPoseFtc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// Fake webcam + AprilTag processor for a SimRobot on the field.
+//
+// Exposes a frame every 1/fps from the robot's true pose, sees each tag that
+// is inside the field of view and range, and hands the frame over after a
+// random processing latency. Latency varies frame to frame, so frames can
+// come out in a different order than they were taken, like a loaded Control
+// Hub. Detections carry frameAcquisitionNanoTime and an ftcPose (x right,
+// y forward, z up, range, bearing + = left) with gaussian noise.
+//
+// The robot's pose must be in the field frame (SimRobot.setPose) and the tag
+// table in field inches.
+public class SimCamera {
+
+    public static class Config {
+        public double fps             = 30;
+        public double minLatencyS     = 0.040;
+        public double maxLatencyS     = 0.120;
+        public double halfFovDeg      = 35;
+        public double maxRangeIn      = 130;
+        public double dropP           = 0.10;
+        public double rangeNoiseFrac  = 0.02;
+        public double bearingNoiseDeg = 0.7;
+        public double fwdIn = 6, leftIn = 0, yawDeg = 0, heightIn = 10;   // mount on the robot
+    }
+
+    private final SimRobot robot;
+    private final Config cfg;
+    private final Random rng;
+    private final int[] tagIds;
+    private final double[] tagX, tagY, tagZ;
+
+    private double nextExposureS = 0;
+    private final List<Long> dueNanos = new ArrayList<>();
+    private final List<List<AprilTagDetection>> pending = new ArrayList<>();
+    private long frames = 0, outOfOrder = 0, lastDeliveredExposure = Long.MIN_VALUE;
+
+    public SimCamera(SimRobot robot, Config cfg, long seed,
+                     int[] tagIds, double[] tagX, double[] tagY, double[] tagZ) {
+        this.robot = robot;
+        this.cfg = cfg;
+        this.rng = new Random(seed);
+        this.tagIds = tagIds;
+        this.tagX = tagX;
+        this.tagY = tagY;
+        this.tagZ = tagZ;
+    }
+
+    // Call every loop: takes a picture when one is due.
+    public void step() {
+        double t = robot.timeS();
+        if (t < nextExposureS) return;
+        nextExposureS = t + 1 / cfg.fps;
+        frames++;
+
+        long exposed = (long) (t * 1e9);
+        List<AprilTagDetection> frame = new ArrayList<>();
+        double h = robot.heading();
+        double camX = robot.x() + cfg.fwdIn * Math.cos(h) - cfg.leftIn * Math.sin(h);
+        double camY = robot.y() + cfg.fwdIn * Math.sin(h) + cfg.leftIn * Math.cos(h);
+        double camH = h + Math.toRadians(cfg.yawDeg);
+
+        for (int i = 0; i < tagIds.length; i++) {
+            double dx = tagX[i] - camX, dy = tagY[i] - camY;
+            double fwd = dx * Math.cos(camH) + dy * Math.sin(camH);
+            double left = -dx * Math.sin(camH) + dy * Math.cos(camH);
+            double floor = Math.hypot(fwd, left);
+            double bearing = Math.toDegrees(Math.atan2(left, fwd));
+            if (fwd <= 0 || Math.abs(bearing) > cfg.halfFovDeg || floor > cfg.maxRangeIn) continue;
+            if (rng.nextDouble() < cfg.dropP) continue;
+
+            floor *= 1 + cfg.rangeNoiseFrac * rng.nextGaussian();
+            bearing += cfg.bearingNoiseDeg * rng.nextGaussian();
+            double b = Math.toRadians(bearing);
+            double x = -floor * Math.sin(b), y = floor * Math.cos(b), z = tagZ[i] - cfg.heightIn;
+            double range = Math.sqrt(floor * floor + z * z);
+            AprilTagPoseFtc pose = new AprilTagPoseFtc(x, y, z, 0, 0, 0, range, bearing,
+                    Math.toDegrees(Math.atan2(z, floor)));
+            frame.add(new AprilTagDetection(tagIds[i], 0, 50f, null, null, null, pose, null, null, exposed));
+        }
+
+        double latency = cfg.minLatencyS + rng.nextDouble() * (cfg.maxLatencyS - cfg.minLatencyS);
+        dueNanos.add(exposed + (long) (latency * 1e9));
+        pending.add(frame);
+    }
+
+    // Next frame that has finished processing, or null (like getFreshDetections()).
+    public List<AprilTagDetection> poll() {
+        long now = robot.clock().nanoTime();
+        int best = -1;
+        for (int i = 0; i < dueNanos.size(); i++) {
+            if (dueNanos.get(i) <= now && (best < 0 || dueNanos.get(i) < dueNanos.get(best))) best = i;
+        }
+        if (best < 0) return null;
+        dueNanos.remove(best);
+        List<AprilTagDetection> frame = pending.remove(best);
+        if (!frame.isEmpty()) {
+            long exposed = frame.get(0).frameAcquisitionNanoTime;
+            if (exposed < lastDeliveredExposure) outOfOrder++;
+            lastDeliveredExposure = Math.max(lastDeliveredExposure, exposed);
+        }
+        return frame;
+    }
+
+    public long frames()      { return frames; }
+    public long outOfOrder()  { return outOfOrder; }
+}
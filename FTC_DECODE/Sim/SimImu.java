@@ -0,0 +1,68 @@
+package org.firstinspires.ftc.teamcode.sim;
+
+import com.qualcomm.robotcore.hardware.IMU;
+
+import org.firstinspires.ftc.robotcore.external.navigation.AngleUnit;
+import org.firstinspires.ftc.robotcore.external.navigation.AngularVelocity;
+import org.firstinspires.ftc.robotcore.external.navigation.AxesOrder;
+import org.firstinspires.ftc.robotcore.external.navigation.AxesReference;
+import org.firstinspires.ftc.robotcore.external.navigation.Orientation;
+import org.firstinspires.ftc.robotcore.external.navigation.Quaternion;
+import org.firstinspires.ftc.robotcore.external.navigation.YawPitchRollAngles;
+
+// Fake IMU: yaw is the simulated chassis heading plus a slow gyro drift
+// (Config.imuDriftDegPerS). Pitch and roll are always 0, the field is flat.
+public class SimImu implements IMU {
+
+    private final SimRobot robot;
+    private double yawOffsetRad = 0;
+
+    SimImu(SimRobot robot) {
+        this.robot = robot;
+    }
+
+    private double yawRad() {
+        return AngleUnit.normalizeRadians(robot.imuHeadingRad() - yawOffsetRad);
+    }
+
+    @Override public boolean initialize(Parameters parameters) { return true; }
+
+    @Override public void resetYaw() { yawOffsetRad = robot.imuHeadingRad(); }
+
+    @Override
+    public YawPitchRollAngles getRobotYawPitchRollAngles() {
+        return new YawPitchRollAngles(AngleUnit.RADIANS, yawRad(), 0, 0, robot.clock().nanoTime());
+    }
+
+    @Override
+    public Orientation getRobotOrientation(AxesReference reference, AxesOrder order, AngleUnit angleUnit) {
+        // yaw is about Z; put it wherever Z sits in the requested order
+        float yaw = (float) angleUnit.fromRadians(yawRad());
+        String axes = order.name();
+        float a = axes.charAt(0) == 'Z' ? yaw : 0;
+        float b = axes.charAt(1) == 'Z' ? yaw : 0;
+        float c = axes.charAt(2) == 'Z' ? yaw : 0;
+        return new Orientation(reference, order, angleUnit, a, b, c, robot.clock().nanoTime());
+    }
+
+    @Override
+    public Quaternion getRobotOrientationAsQuaternion() {
+        double h = yawRad() / 2;
+        return new Quaternion((float) Math.cos(h), 0, 0, (float) Math.sin(h), robot.clock().nanoTime());
+    }
+
+    @Override
+    public AngularVelocity getRobotAngularVelocity(AngleUnit unit) {
+        float z = (float) unit.fromRadians(robot.angularVelocityRad());
+        return new AngularVelocity(unit, 0, 0, z, robot.clock().nanoTime());
+    }
+
+    // ========= HardwareDevice =========
+
+    @Override public Manufacturer getManufacturer()     { return Manufacturer.Other; }
+    @Override public String getDeviceName()             { return "SimImu"; }
+    @Override public String getConnectionInfo()         { return "sim"; }
+    @Override public int getVersion()                   { return 1; }
+    @Override public void resetDeviceConfigurationForOpMode() { }
+    @Override public void close()                       { }
+}
@@ -0,0 +1,260 @@
+package org.firstinspires.ftc.teamcode.sim;
+
+import com.qualcomm.robotcore.hardware.DcMotorController;
+import com.qualcomm.robotcore.hardware.DcMotorEx;
+import com.qualcomm.robotcore.hardware.PIDCoefficients;
+import com.qualcomm.robotcore.hardware.PIDFCoefficients;
+import com.qualcomm.robotcore.hardware.configuration.typecontainers.MotorConfigurationType;
+
+import org.firstinspires.ftc.robotcore.external.navigation.AngleUnit;
+import org.firstinspires.ftc.robotcore.external.navigation.CurrentUnit;
+
+// Fake DcMotorEx for the simulator. Behaves like a motor on a REV hub as far
+// as our code can tell:
+//   - Direction REVERSE flips power AND the encoder count (like the SDK)
+//   - RUN_WITHOUT_ENCODER: power -> shaft speed (fraction of free speed)
+//   - RUN_USING_ENCODER:   power -> velocity target, hub loop holds it
+//   - RUN_TO_POSITION:     hub P loop on position, |power| caps the speed
+//   - STOP_AND_RESET_ENCODER zeroes the count
+// The shaft speed follows its target with a first-order lag (motorTauS).
+// Everything here is in "shaft" terms; SimRobot turns shaft speed into wheel
+// speed.
+public class SimMotor implements DcMotorEx {
+
+    private final String name;
+    private final int port;
+    private final SimRobot.Config cfg;
+
+    // ====== COMMANDED (code frame, i.e. after Direction) ======
+    private Direction direction = Direction.FORWARD;
+    private RunMode mode = RunMode.RUN_WITHOUT_ENCODER;
+    private ZeroPowerBehavior zeroPower = ZeroPowerBehavior.FLOAT;
+    private double power = 0;
+    private int targetPosition = 0;
+    private int targetTolerance = 5;
+    private boolean enabled = true;
+    private PIDFCoefficients velocityPidf = new PIDFCoefficients(10, 3, 0, 0);
+    private PIDFCoefficients positionPidf = new PIDFCoefficients(10, 0, 0, 0);
+    private double currentAlertAmps = 7.5;
+    private MotorConfigurationType motorType = null; // no config registry off-robot
+
+    // ====== STATE (shaft frame) ======
+    private double shaftTicks = 0;      // encoder count, before Direction
+    private double shaftVel = 0;        // ticks/s
+    private double amps = 0;
+    private double tauS = Double.NaN;   // NaN = cfg.motorTauS
+    private double load = 0;            // fraction of the drive taken by a load (setLoad)
+
+    // ====== COUNTERS ======
+    private long powerWrites = 0;
+    private long positionReads = 0;
+
+    SimMotor(String name, int port, SimRobot.Config cfg) {
+        this.name = name;
+        this.port = port;
+        this.cfg = cfg;
+    }
+
+    // ========= PHYSICS (called by SimRobot) =========
+
+    void advance(double dt, double voltageScale) {
+        double dir = dirSign();
+        double free = cfg.freeTicksPerSec * voltageScale;
+        double target;
+
+        if (!enabled || mode == RunMode.STOP_AND_RESET_ENCODER) {
+            target = 0;
+        } else if (mode == RunMode.RUN_TO_POSITION) {
+            double err = targetPosition - dir * shaftTicks;                       // code frame
+            double v = err * positionPidf.p;                                      // ticks/s
+            double cap = Math.abs(power) * Math.min(cfg.maxLoopTicksPerSec, free);
+            target = dir * Math.max(-cap, Math.min(cap, v));
+        } else if (mode == RunMode.RUN_USING_ENCODER) {
+            target = dir * power * Math.min(cfg.maxLoopTicksPerSec, free);
+        } else {
+            target = dir * power * free;
+        }
+
+        // BRAKE shorts the windings, FLOAT coasts down slowly
+        double tau = Double.isNaN(tauS) ? cfg.motorTauS : tauS;
+        if (target == 0 && zeroPower != ZeroPowerBehavior.BRAKE) tau = cfg.coastTauS;
+
+        double loaded = target * (1 - load);
+        double before = shaftVel;
+        shaftVel += (loaded - shaftVel) * (1 - Math.exp(-dt / tau));
+        shaftTicks += 0.5 * (before + shaftVel) * dt;
+
+        // current ~ how far the shaft is behind what the voltage asks for,
+        // plus whatever the load is holding it back by
+        double applied = free == 0 ? 0 : (Math.abs(loaded - shaftVel) + load * Math.abs(target)) / free;
+        amps = cfg.stallAmps * Math.min(1.0, applied) + (shaftVel == 0 ? 0 : cfg.freeAmps);
+    }
+
+    double shaftVelocity() { return shaftVel; }
+
+    // ========= MECHANISM HOOKS (for sims of one mechanism) =========
+
+    // Speed lag of this motor alone, e.g. ~0.5 s for a motor with a flywheel.
+    public SimMotor setTimeConstant(double seconds) {
+        tauS = seconds;
+        return this;
+    }
+
+    // Lose a fraction of the shaft speed at once (a ball going through a flywheel).
+    public void kick(double fraction) {
+        shaftVel *= 1 - fraction;
+    }
+
+    // Something squeezed through a roller: slows the shaft by this fraction of
+    // its target and draws the matching current, until set back to 0.
+    public void setLoad(double fraction) {
+        load = fraction;
+    }
+
+    public long powerWriteCount()   { return powerWrites; }
+    public long positionReadCount() { return positionReads; }
+
+    private double dirSign() { return direction == Direction.REVERSE ? -1 : 1; }
+
+    // ========= DcMotorSimple =========
+
+    @Override public void setDirection(Direction direction) { this.direction = direction; }
+    @Override public Direction getDirection()               { return direction; }
+
+    @Override
+    public void setPower(double power) {
+        this.power = Math.max(-1.0, Math.min(1.0, power));
+        powerWrites++;
+    }
+
+    @Override public double getPower() { return power; }
+
+    // ========= DcMotor =========
+
+    @Override public MotorConfigurationType getMotorType()        { return motorType; }
+    @Override public void setMotorType(MotorConfigurationType t)  { motorType = t; }
+    @Override public DcMotorController getController()            { return null; }
+    @Override public int getPortNumber()                          { return port; }
+
+    @Override public void setZeroPowerBehavior(ZeroPowerBehavior z) { zeroPower = z; }
+    @Override public ZeroPowerBehavior getZeroPowerBehavior()       { return zeroPower; }
+
+    @Deprecated
+    @Override public void setPowerFloat() { zeroPower = ZeroPowerBehavior.FLOAT; setPower(0); }
+    @Override public boolean getPowerFloat() { return zeroPower == ZeroPowerBehavior.FLOAT && power == 0; }
+
+    @Override public void setTargetPosition(int position) { targetPosition = position; }
+    @Override public int getTargetPosition()              { return targetPosition; }
+
+    @Override
+    public boolean isBusy() {
+        return mode == RunMode.RUN_TO_POSITION
+                && Math.abs(targetPosition - getCurrentPosition()) > targetTolerance;
+    }
+
+    @Override
+    public int getCurrentPosition() {
+        positionReads++;
+        return (int) Math.round(dirSign() * shaftTicks);
+    }
+
+    @Override
+    public void setMode(RunMode mode) {
+        if (mode == RunMode.STOP_AND_RESET_ENCODER) {
+            shaftTicks = 0;
+            power = 0;
+        }
+        this.mode = mode;
+    }
+
+    @Override public RunMode getMode() { return mode; }
+
+    // ========= DcMotorEx =========
+
+    @Override public void setMotorEnable()    { enabled = true; }
+    @Override public void setMotorDisable()   { enabled = false; }
+    @Override public boolean isMotorEnabled() { return enabled; }
+
+    // The hub takes a velocity target; we keep it as the matching power.
+    @Override
+    public void setVelocity(double ticksPerSec) {
+        setPower(ticksPerSec / cfg.maxLoopTicksPerSec);
+    }
+
+    @Override
+    public void setVelocity(double angularRate, AngleUnit unit) {
+        double revPerSec = unit.toRadians(angularRate) / (2 * Math.PI);
+        setVelocity(revPerSec * cfg.ticksPerRev);
+    }
+
+    @Override public double getVelocity() { return dirSign() * shaftVel; }
+
+    @Override
+    public double getVelocity(AngleUnit unit) {
+        double revPerSec = getVelocity() / cfg.ticksPerRev;
+        return unit.fromRadians(revPerSec * 2 * Math.PI);
+    }
+
+    @Deprecated
+    @Override
+    public void setPIDCoefficients(RunMode mode, PIDCoefficients c) {
+        setPIDFCoefficients(mode, new PIDFCoefficients(c.p, c.i, c.d, 0));
+    }
+
+    @Override
+    public void setPIDFCoefficients(RunMode mode, PIDFCoefficients c) {
+        if (mode == RunMode.RUN_TO_POSITION) positionPidf = c;
+        else velocityPidf = c;
+    }
+
+    @Override
+    public void setVelocityPIDFCoefficients(double p, double i, double d, double f) {
+        velocityPidf = new PIDFCoefficients(p, i, d, f);
+    }
+
+    @Override
+    public void setPositionPIDFCoefficients(double p) {
+        positionPidf = new PIDFCoefficients(p, 0, 0, 0);
+    }
+
+    @Deprecated
+    @Override
+    public PIDCoefficients getPIDCoefficients(RunMode mode) {
+        PIDFCoefficients c = getPIDFCoefficients(mode);
+        return new PIDCoefficients(c.p, c.i, c.d);
+    }
+
+    @Override
+    public PIDFCoefficients getPIDFCoefficients(RunMode mode) {
+        return mode == RunMode.RUN_TO_POSITION ? positionPidf : velocityPidf;
+    }
+
+    @Override public void setTargetPositionTolerance(int tolerance) { targetTolerance = tolerance; }
+    @Override public int getTargetPositionTolerance()               { return targetTolerance; }
+
+    @Override
+    public double getCurrent(CurrentUnit unit) {
+        return unit == CurrentUnit.MILLIAMPS ? amps * 1000 : amps;
+    }
+
+    @Override
+    public double getCurrentAlert(CurrentUnit unit) {
+        return unit == CurrentUnit.MILLIAMPS ? currentAlertAmps * 1000 : currentAlertAmps;
+    }
+
+    @Override
+    public void setCurrentAlert(double current, CurrentUnit unit) {
+        currentAlertAmps = unit == CurrentUnit.MILLIAMPS ? current / 1000 : current;
+    }
+
+    @Override public boolean isOverCurrent() { return amps > currentAlertAmps; }
+
+    // ========= HardwareDevice =========
+
+    @Override public Manufacturer getManufacturer()     { return Manufacturer.Other; }
+    @Override public String getDeviceName()             { return "SimMotor " + name; }
+    @Override public String getConnectionInfo()         { return "sim port " + port; }
+    @Override public int getVersion()                   { return 1; }
+    @Override public void resetDeviceConfigurationForOpMode() { }
+    @Override public void close()                       { }
+}
@@ -0,0 +1,96 @@
+package org.firstinspires.ftc.teamcode.sim;
+
+import com.qualcomm.robotcore.eventloop.opmode.OpMode;
+import com.qualcomm.robotcore.hardware.Gamepad;
+
+import org.firstinspires.ftc.teamcode.LoopClock;
+
+import java.util.Locale;
+
+// Steps an iterative OpMode (our TeleOps) against a SimRobot on virtual time:
+// init(), start(), then loop() + robot.step(loopPeriod) until the time is up.
+// Nothing sleeps, so 2 minutes of TeleOp takes well under a second.
+//
+// LinearOpModes can't be stepped like this: waitForStart(), sleep() and
+// opModeIsActive() are final in the SDK and run on wall-clock time. The
+// encoder autos keep their route and leg follower in static factories, and
+// RouteSim runs those directly instead.
+//
+//   java ... org.firstinspires.ftc.teamcode.sim.SimOpModeRunner [OpMode class] [seconds]
+public class SimOpModeRunner {
+
+    // Scripted driver: fill the gamepads for time t (seconds since start).
+    public interface Driver {
+        void update(double t, Gamepad gamepad1, Gamepad gamepad2);
+    }
+
+    private final SimRobot robot;
+    private final SimTelemetry telemetry = new SimTelemetry();
+    private double loopPeriodS = 0.010;   // a typical loop() on the Control Hub
+    private long loops = 0;
+
+    public SimOpModeRunner(SimRobot robot) {
+        this.robot = robot;
+    }
+
+    public SimOpModeRunner setLoopPeriod(double seconds) {
+        loopPeriodS = seconds;
+        return this;
+    }
+
+    public SimTelemetry telemetry() { return telemetry; }
+    public long loopCount()         { return loops; }
+
+    public void run(OpMode opMode, double seconds, Driver driver) {
+        LoopClock.setSource(robot.clock());
+        try {
+            opMode.hardwareMap = robot.hardwareMap();
+            opMode.telemetry = telemetry;
+            opMode.gamepad1 = new Gamepad();      // the SDK fills these in; here they start at rest
+            opMode.gamepad2 = new Gamepad();
+
+            opMode.init();
+            opMode.init_loop();
+            robot.step(loopPeriodS);
+
+            double start = robot.timeS();
+            opMode.start();
+            while (robot.timeS() - start < seconds) {
+                double t = robot.timeS() - start;
+                driver.update(t, opMode.gamepad1, opMode.gamepad2);
+                opMode.time = t;
+                opMode.loop();
+                robot.step(loopPeriodS);
+                loops++;
+            }
+            opMode.stop();
+        } finally {
+            LoopClock.setSource(null);
+        }
+    }
+
+    // ========= DEMO: drive a TeleOp through a square-ish script =========
+
+    public static void main(String[] args) throws Exception {
+        String name = args.length > 0 ? args[0] : "org.firstinspires.ftc.teamcode.teleop.MAIN_EXE";
+        double seconds = args.length > 1 ? Double.parseDouble(args[1]) : 8.0;
+
+        OpMode opMode = (OpMode) Class.forName(name).getDeclaredConstructor().newInstance();
+        SimRobot robot = new SimRobot();
+        SimOpModeRunner runner = new SimOpModeRunner(robot);
+
+        long wall = System.nanoTime();
+        runner.run(opMode, seconds, (t, g1, g2) -> {
+            g1.left_stick_y  = t < 2 ? -1f : 0f;               // forward (stick up is negative)
+            g1.left_stick_x  = t >= 2 && t < 4 ? 1f : 0f;       // strafe right
+            g1.right_stick_x = t >= 4 && t < 6 ? 0.5f : 0f;     // turn
+        });
+        double wallS = (System.nanoTime() - wall) / 1e9;
+
+        System.out.println(runner.telemetry().lastFrame());
+        System.out.println(String.format(Locale.US,
+                "%s: %.1f s simulated in %.3f s (%.0fx), %d loops, pose x=%.1f y=%.1f h=%.1f deg, slip %.1f in",
+                name, seconds, wallS, seconds / wallS, runner.loopCount(),
+                robot.x(), robot.y(), robot.headingDeg(), robot.slipInches()));
+    }
+}
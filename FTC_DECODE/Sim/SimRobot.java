@@ -0,0 +1,241 @@
+package org.firstinspires.ftc.teamcode.sim;
+
+import com.qualcomm.robotcore.hardware.HardwareMap;
+
+import org.firstinspires.ftc.robotcore.external.navigation.CurrentUnit;
+import org.firstinspires.ftc.teamcode.LoopClock;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// Headless model of our mecanum chassis. Owns a fake HardwareMap (the four
+// drive motors, the mechanism motors, "imu" and a voltage sensor) and a
+// virtual clock, so OpMode code runs unchanged and as fast as the laptop can
+// go: step(dt) advances the physics and the clock by dt, nothing sleeps.
+//
+// Model, per 1 ms substep:
+//   motor:    shaft speed lags its target (SimMotor), encoder integrates it
+//   wheels:   roll speed = mount * shaft speed / ticksPerRev * pi * wheelDiameter
+//   chassis:  mecanum forward kinematics, scaled by forward / strafe / turn
+//             efficiency (roller scrub), then limited by traction: the body can
+//             only change speed by mu * g. Anything the wheels do beyond that is
+//             slip, the encoders still count it.
+//   noise:    gaussian wobble on the body speed, seeded, so runs repeat.
+//
+// Pose is field-frame inches / radians with x forward, y left, heading + = CCW,
+// starting at 0,0,0 unless setPose() is called.
+public class SimRobot {
+
+    // ====== ROBOT TRUTH (measure these, they are not the code's constants) ======
+    public static class Config {
+        public double ticksPerRev         = 560;     // REV HD Hex 20:1
+        public double wheelDiameterIn     = 3.54;    // 90 mm mecanums; 2.95 for the 75 mm set
+        public double freeTicksPerSec     = 2800;    // 300 rpm at 12 V
+        public double maxLoopTicksPerSec  = 2800;    // RUN_USING_ENCODER speed at power 1
+        public double motorTauS           = 0.05;    // shaft speed lag
+        public double coastTauS           = 0.40;    // FLOAT spin-down
+        public double stallAmps           = 8.5;
+        public double freeAmps            = 0.4;
+
+        public double trackWidthIn        = 14.0;    // left-right wheel centres
+        public double wheelBaseIn         = 11.0;    // front-back wheel centres
+
+        // +1 if positive shaft rotation rolls that wheel forward (FL, FR, BL, BR).
+        // With the drive Directions we use (left FORWARD, right REVERSE) this
+        // gives "negative encoder = forward", the autos' field truth.
+        public double[] mount             = {-1, +1, -1, +1};
+
+        public double forwardEfficiency   = 0.98;
+        public double strafeEfficiency    = 0.88;    // why STRAFE_CORRECTION exists
+        public double turnEfficiency      = 0.92;    // scrub, why the turn diameter is "effective"
+        public double traction            = 0.9;     // mu; body accel limit = mu * g
+        public double speedNoise          = 0.03;    // relative sigma per substep
+
+        public double batteryVolts        = 12.8;
+        public double batteryResistanceOhm = 0.05;
+        public double imuDriftDegPerS     = 0.01;
+
+        public String[] mechanismMotors   = {"intakeHarvester", "conveyor", "launcher"};
+
+        public Config copy() {
+            Config c = new Config();
+            c.ticksPerRev = ticksPerRev;
+            c.wheelDiameterIn = wheelDiameterIn;
+            c.freeTicksPerSec = freeTicksPerSec;
+            c.maxLoopTicksPerSec = maxLoopTicksPerSec;
+            c.motorTauS = motorTauS;
+            c.coastTauS = coastTauS;
+            c.stallAmps = stallAmps;
+            c.freeAmps = freeAmps;
+            c.trackWidthIn = trackWidthIn;
+            c.wheelBaseIn = wheelBaseIn;
+            c.mount = mount.clone();
+            c.forwardEfficiency = forwardEfficiency;
+            c.strafeEfficiency = strafeEfficiency;
+            c.turnEfficiency = turnEfficiency;
+            c.traction = traction;
+            c.speedNoise = speedNoise;
+            c.batteryVolts = batteryVolts;
+            c.batteryResistanceOhm = batteryResistanceOhm;
+            c.imuDriftDegPerS = imuDriftDegPerS;
+            c.mechanismMotors = mechanismMotors.clone();
+            return c;
+        }
+
+        // Same robot on a different day: carpet, battery and wheel wear vary.
+        public Config jitter(Random rng, double spread) {
+            Config c = copy();
+            c.forwardEfficiency *= 1 + spread * rng.nextGaussian() * 0.5;
+            c.strafeEfficiency  *= 1 + spread * rng.nextGaussian();
+            c.turnEfficiency    *= 1 + spread * rng.nextGaussian();
+            c.traction          *= 1 + spread * rng.nextGaussian();
+            c.batteryVolts      += 0.4 * rng.nextGaussian();
+            return c;
+        }
+    }
+
+    public static final String[] DRIVE_NAMES = {"front_left", "front_right", "back_left", "back_right"};
+
+    private static final double SUBSTEP_S = 0.001;
+    private static final double G_IN_PER_S2 = 386.1;
+
+    private final Config cfg;
+    private final Random rng;
+    private final HardwareMap hardwareMap;
+    private final SimMotor[] drive = new SimMotor[4];
+    private final List<SimMotor> allMotors = new ArrayList<>();
+    private final SimImu imu;
+    private final SimVoltageSensor voltage;
+
+    // ====== VIRTUAL CLOCK ======
+    private long nanos = 0;
+    private final LoopClock.Source clock = () -> nanos;
+
+    // ====== STATE ======
+    private double x, y, heading;       // field frame
+    private double vx, vy, omega;       // robot frame body speed
+    private double imuDriftRad = 0;
+    private double volts;
+    private double slipIn = 0;          // total wheel travel the carpet didn't take
+
+    public SimRobot(Config cfg, long seed) {
+        this.cfg = cfg;
+        this.rng = new Random(seed);
+        this.volts = cfg.batteryVolts;
+
+        hardwareMap = new HardwareMap(null, null);
+        for (int i = 0; i < 4; i++) {
+            drive[i] = addMotor(DRIVE_NAMES[i]);
+        }
+        for (String name : cfg.mechanismMotors) addMotor(name);
+
+        imu = new SimImu(this);
+        hardwareMap.put("imu", imu);
+        voltage = new SimVoltageSensor(this);
+        hardwareMap.put("Control Hub", voltage);
+        hardwareMap.voltageSensor.put("Control Hub", voltage);
+    }
+
+    public SimRobot() {
+        this(new Config(), 0);
+    }
+
+    // A motor that only spins (intake, launcher...), not part of the chassis.
+    public SimMotor addMotor(String name) {
+        SimMotor m = new SimMotor(name, allMotors.size() % 4, cfg);
+        allMotors.add(m);
+        hardwareMap.put(name, m);
+        hardwareMap.dcMotor.put(name, m);
+        return m;
+    }
+
+    // ========= STEP =========
+
+    public void step(double dt) {
+        int n = Math.max(1, (int) Math.round(dt / SUBSTEP_S));
+        double h = dt / n;
+        for (int i = 0; i < n; i++) substep(h);
+    }
+
+    private void substep(double h) {
+        double amps = 0;
+        double vScale = volts / 12.0;
+        for (SimMotor m : allMotors) {
+            m.advance(h, vScale);
+            amps += m.getCurrent(CurrentUnit.AMPS);
+        }
+        volts = cfg.batteryVolts - amps * cfg.batteryResistanceOhm;
+
+        // wheel roll speeds, in/s, + = forward
+        double inPerTick = Math.PI * cfg.wheelDiameterIn / cfg.ticksPerRev;
+        double fl = cfg.mount[0] * drive[0].shaftVelocity() * inPerTick;
+        double fr = cfg.mount[1] * drive[1].shaftVelocity() * inPerTick;
+        double bl = cfg.mount[2] * drive[2].shaftVelocity() * inPerTick;
+        double br = cfg.mount[3] * drive[3].shaftVelocity() * inPerTick;
+
+        double turnRadius = (cfg.trackWidthIn + cfg.wheelBaseIn) / 2;
+        double wantVx = (fl + fr + bl + br) / 4 * cfg.forwardEfficiency;
+        double wantVy = (-fl + fr + bl - br) / 4 * cfg.strafeEfficiency;
+        double wantW  = (-fl + fr - bl + br) / 4 / turnRadius * cfg.turnEfficiency;
+
+        // traction limit on the change of body speed
+        double maxDv = cfg.traction * G_IN_PER_S2 * h;
+        double dvx = wantVx - vx, dvy = wantVy - vy;
+        double dv = Math.hypot(dvx, dvy);
+        if (dv > maxDv) {
+            slipIn += (dv - maxDv) * h;
+            dvx *= maxDv / dv;
+            dvy *= maxDv / dv;
+        }
+        double dw = wantW - omega;
+        double maxDw = maxDv / turnRadius;
+        if (Math.abs(dw) > maxDw) {
+            slipIn += (Math.abs(dw) - maxDw) * turnRadius * h;
+            dw = Math.signum(dw) * maxDw;
+        }
+        vx += dvx;
+        vy += dvy;
+        omega += dw;
+
+        double nvx = vx * (1 + cfg.speedNoise * rng.nextGaussian());
+        double nvy = vy * (1 + cfg.speedNoise * rng.nextGaussian());
+        double nw  = omega * (1 + cfg.speedNoise * rng.nextGaussian());
+
+        // integrate at the mid heading
+        double mid = heading + nw * h / 2;
+        x += (nvx * Math.cos(mid) - nvy * Math.sin(mid)) * h;
+        y += (nvx * Math.sin(mid) + nvy * Math.cos(mid)) * h;
+        heading += nw * h;
+        imuDriftRad += Math.toRadians(cfg.imuDriftDegPerS) * h;
+
+        nanos += (long) (h * 1e9);
+    }
+
+    // ========= HOOKS =========
+
+    public HardwareMap hardwareMap()  { return hardwareMap; }
+    public LoopClock.Source clock()   { return clock; }
+    public double timeS()             { return nanos / 1e9; }
+    public Config config()            { return cfg; }
+    public SimMotor driveMotor(int wheel) { return drive[wheel]; }
+    public SimImu imu()               { return imu; }
+
+    // ========= TRUTH (what a field camera would see) =========
+
+    public double x()           { return x; }
+    public double y()           { return y; }
+    public double heading()     { return heading; }
+    public double headingDeg()  { return Math.toDegrees(heading); }
+    public double slipInches()  { return slipIn; }
+
+    public void setPose(double x, double y, double heading) {
+        this.x = x;
+        this.y = y;
+        this.heading = heading;
+    }
+
+    double imuHeadingRad()       { return heading + imuDriftRad; }
+    double angularVelocityRad()  { return omega; }
+    double batteryVolts()        { return volts; }
+}
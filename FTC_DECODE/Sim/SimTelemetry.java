@@ -0,0 +1,162 @@
+package org.firstinspires.ftc.teamcode.sim;
+
+import org.firstinspires.ftc.robotcore.external.Func;
+import org.firstinspires.ftc.robotcore.external.Telemetry;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+// Telemetry for the simulator. Keeps the same item / retained / autoClear
+// rules as the Driver Station so TelemetryPublisher and plain addData() code
+// behave the same, but update() only renders into lastFrame() (and prints it
+// if echo is on). Printing every frame would be the slowest part of a sim run.
+public class SimTelemetry implements Telemetry {
+
+    private final List<SimItem> items = new ArrayList<>();
+    private final List<String> logLines = new ArrayList<>();
+    private final StringBuilder frame = new StringBuilder(512);
+
+    private boolean autoClear = true;
+    private boolean echo = false;
+    private int msTransmissionInterval = 250;
+    private String itemSeparator = " | ";
+    private String captionValueSeparator = " : ";
+    private long updates = 0;
+
+    public SimTelemetry setEcho(boolean echo) { this.echo = echo; return this; }
+
+    public String lastFrame()  { return frame.toString(); }
+    public long updateCount()  { return updates; }
+
+    // ========= ITEMS =========
+
+    private final class SimItem implements Item {
+        String caption;
+        String format;
+        Object[] args;
+        Object value;
+        Func<?> producer;
+        boolean retained;
+
+        SimItem(String caption) { this.caption = caption; }
+
+        String render() {
+            Object v = producer != null ? producer.value() : value;
+            if (format == null) return String.valueOf(v);
+            Object[] a = producer != null ? new Object[]{v} : args;
+            return String.format(Locale.US, format, a);
+        }
+
+        private Item set(String format, Object[] args, Object value, Func<?> producer) {
+            this.format = format;
+            this.args = args;
+            this.value = value;
+            this.producer = producer;
+            return this;
+        }
+
+        @Override public String getCaption()               { return caption; }
+        @Override public Item setCaption(String caption)   { this.caption = caption; return this; }
+        @Override public Item setValue(String format, Object... args) { return set(format, args, null, null); }
+        @Override public Item setValue(Object value)       { return set(null, null, value, null); }
+        @Override public <T> Item setValue(Func<T> valueProducer) { return set(null, null, null, valueProducer); }
+        @Override public <T> Item setValue(String format, Func<T> valueProducer) { return set(format, null, null, valueProducer); }
+        @Override public Item setRetained(Boolean retained) { this.retained = retained != null && retained; return this; }
+        @Override public boolean isRetained()              { return retained; }
+
+        @Override public Item addData(String caption, String format, Object... args) { return SimTelemetry.this.addData(caption, format, args); }
+        @Override public Item addData(String caption, Object value)                 { return SimTelemetry.this.addData(caption, value); }
+        @Override public <T> Item addData(String caption, Func<T> valueProducer)    { return SimTelemetry.this.addData(caption, valueProducer); }
+        @Override public <T> Item addData(String caption, String format, Func<T> valueProducer) { return SimTelemetry.this.addData(caption, format, valueProducer); }
+    }
+
+    private final class SimLine implements Line {
+        @Override public Item addData(String caption, String format, Object... args) { return SimTelemetry.this.addData(caption, format, args); }
+        @Override public Item addData(String caption, Object value)                 { return SimTelemetry.this.addData(caption, value); }
+        @Override public <T> Item addData(String caption, Func<T> valueProducer)    { return SimTelemetry.this.addData(caption, valueProducer); }
+        @Override public <T> Item addData(String caption, String format, Func<T> valueProducer) { return SimTelemetry.this.addData(caption, format, valueProducer); }
+    }
+
+    private SimItem add(String caption) {
+        SimItem item = new SimItem(caption);
+        items.add(item);
+        return item;
+    }
+
+    @Override public Item addData(String caption, String format, Object... args) { return add(caption).setValue(format, args); }
+    @Override public Item addData(String caption, Object value)                 { return add(caption).setValue(value); }
+    @Override public <T> Item addData(String caption, Func<T> valueProducer)    { return add(caption).setValue(valueProducer); }
+    @Override public <T> Item addData(String caption, String format, Func<T> valueProducer) { return add(caption).setValue(format, valueProducer); }
+
+    @Override public boolean removeItem(Item item) { return items.remove(item); }
+
+    @Override
+    public void clear() {
+        for (int i = items.size() - 1; i >= 0; i--) {
+            if (!items.get(i).retained) items.remove(i);
+        }
+    }
+
+    @Override public void clearAll() { items.clear(); }
+
+    @Override public Line addLine()                   { return new SimLine(); }
+    @Override public Line addLine(String lineCaption) { add(lineCaption).setValue(""); return new SimLine(); }
+    @Override public boolean removeLine(Line line)    { return false; }
+
+    // ========= FRAME =========
+
+    @Override
+    public boolean update() {
+        frame.setLength(0);
+        for (SimItem item : items) {
+            frame.append(item.caption);
+            String v = item.render();
+            if (!v.isEmpty()) frame.append(captionValueSeparator).append(v);
+            frame.append('\n');
+        }
+        for (String l : logLines) frame.append(l).append('\n');
+        if (echo) System.out.println(frame);
+        if (autoClear) clear();
+        updates++;
+        return true;
+    }
+
+    // ========= SETTINGS =========
+
+    @Override public Object addAction(Runnable action)  { return action; }
+    @Override public boolean removeAction(Object token) { return false; }
+    @Override public void speak(String text) { }
+    @Override public void speak(String text, String languageCode, String countryCode) { }
+
+    @Override public boolean isAutoClear()                { return autoClear; }
+    @Override public void setAutoClear(boolean autoClear) { this.autoClear = autoClear; }
+    @Override public int getMsTransmissionInterval()      { return msTransmissionInterval; }
+    @Override public void setMsTransmissionInterval(int ms) { msTransmissionInterval = ms; }
+    @Override public String getItemSeparator()            { return itemSeparator; }
+    @Override public void setItemSeparator(String s)      { itemSeparator = s; }
+    @Override public String getCaptionValueSeparator()    { return captionValueSeparator; }
+    @Override public void setCaptionValueSeparator(String s) { captionValueSeparator = s; }
+    @Override public void setDisplayFormat(DisplayFormat displayFormat) { }
+
+    @Override
+    public Log log() {
+        return new Log() {
+            private int capacity = 9;
+            private DisplayOrder order = DisplayOrder.OLDEST_FIRST;
+
+            @Override public int getCapacity()                    { return capacity; }
+            @Override public void setCapacity(int capacity)       { this.capacity = capacity; }
+            @Override public DisplayOrder getDisplayOrder()       { return order; }
+            @Override public void setDisplayOrder(DisplayOrder o) { order = o; }
+            @Override public void add(String format, Object... args) { add(String.format(Locale.US, format, args)); }
+            @Override public void clear()                         { logLines.clear(); }
+
+            @Override
+            public void add(String entry) {
+                logLines.add(entry);
+                while (logLines.size() > capacity) logLines.remove(0);
+            }
+        };
+    }
+}
@@ -0,0 +1,111 @@
+package org.firstinspires.ftc.teamcode.sim;
+
+import org.firstinspires.ftc.teamcode.EncoderRoute;
+import org.firstinspires.ftc.teamcode.Encoder_Route_Auto;
+
+import java.util.Locale;
+import java.util.Random;
+
+// Tunes the encoder autos' geometry fudges on the laptop instead of the field.
+//
+// Each run is the same robot on a "different day" (Config.jitter: carpet,
+// battery, roller wear) with its own seed. Per run we do what we'd do on the
+// field, with the constants currently in Encoder_Route_Auto:
+//   forward 48   -> WHEEL_DIAMETER_IN     = now * actual / 48
+//   strafe  48   -> STRAFE_CORRECTION     = now * 48 / actual
+//   turn    360  -> WHEELBASE_DIAMETER_IN = now * 360 / actual
+// then runs the real match route with the old and the suggested numbers and
+// compares the end-pose error.
+//
+// The answer is only as good as SimRobot.Config: measure the robot, then check
+// one field run against the sim before trusting a sweep.
+//
+//   java ... org.firstinspires.ftc.teamcode.sim.SimTuner [runs] [spread]
+public class SimTuner {
+
+    private static final double TEST_IN = 48;
+    private static final double TEST_DEG = 360;
+
+    public static void main(String[] args) {
+        int runs = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        double spread = args.length > 1 ? Double.parseDouble(args[1]) : 0.03;
+
+        double wheelNow = Encoder_Route_Auto.WHEEL_DIAMETER_IN;
+        double strafeNow = Encoder_Route_Auto.STRAFE_CORRECTION;
+        double turnNow = Encoder_Route_Auto.WHEELBASE_DIAMETER_IN;
+
+        SimRobot.Config base = new SimRobot.Config();
+        Random rng = new Random(1);
+        SimRobot.Config[] days = new SimRobot.Config[runs];
+        for (int i = 0; i < runs; i++) days[i] = base.jitter(rng, spread);
+
+        EncoderRoute fwd = Encoder_Route_Auto.newRouteBuilder(strafeNow, turnNow).forward(TEST_IN).build();
+        EncoderRoute strafe = Encoder_Route_Auto.newRouteBuilder(strafeNow, turnNow).strafeLeft(TEST_IN).build();
+        EncoderRoute turn = Encoder_Route_Auto.newRouteBuilder(strafeNow, turnNow).turnLeft(TEST_DEG).build();
+
+        long wall = System.nanoTime();
+        double simS = 0;
+        Stats wheel = new Stats(), strafeCorr = new Stats(), turnDia = new Stats();
+
+        for (int i = 0; i < runs; i++) {
+            RouteSim.Result f = RouteSim.run(new SimRobot(days[i], i), fwd);
+            RouteSim.Result s = RouteSim.run(new SimRobot(days[i], i), strafe);
+            RouteSim.Result t = RouteSim.run(new SimRobot(days[i], i), turn);
+            simS += f.timeS + s.timeS + t.timeS;
+
+            wheel.add(wheelNow * f.x / TEST_IN);
+            strafeCorr.add(strafeNow * TEST_IN / s.y);
+            turnDia.add(turnNow * TEST_DEG / t.headingDeg);
+        }
+
+        // the match route, before and after (both with the same wheel diameter;
+        // change WHEEL_DIAMETER_IN first if the forward test says so)
+        EncoderRoute before = Encoder_Route_Auto.buildRoute(strafeNow, turnNow);
+        EncoderRoute after = Encoder_Route_Auto.buildRoute(strafeCorr.mean(), turnDia.mean());
+        Stats errBefore = new Stats(), errAfter = new Stats();
+        Stats headBefore = new Stats(), headAfter = new Stats();
+        Stats poseErr = new Stats(), poseMaxErr = new Stats();
+        for (int i = 0; i < runs; i++) {
+            RouteSim.Result b = RouteSim.run(new SimRobot(days[i], i), before);
+            RouteSim.Result a = RouteSim.run(new SimRobot(days[i], i), after);
+            simS += b.timeS + a.timeS;
+            errBefore.add(b.errInches());
+            errAfter.add(a.errInches());
+            headBefore.add(Math.abs(b.errHeadingDeg));
+            headAfter.add(Math.abs(a.errHeadingDeg));
+            poseErr.add(b.poseErrInches);
+            poseMaxErr.add(b.maxPoseErrInches);
+        }
+        double wallS = (System.nanoTime() - wall) / 1e9;
+
+        System.out.println(String.format(Locale.US, "%d runs, spread %.0f%%, %.0f s simulated in %.1f s (%.0fx)",
+                runs, spread * 100, simS, wallS, simS / wallS));
+        System.out.println(String.format(Locale.US, "WHEEL_DIAMETER_IN     now %.3f  ->  %.3f  (sd %.3f)",
+                wheelNow, wheel.mean(), wheel.sd()));
+        System.out.println(String.format(Locale.US, "STRAFE_CORRECTION     now %.3f  ->  %.3f  (sd %.3f)",
+                strafeNow, strafeCorr.mean(), strafeCorr.sd()));
+        System.out.println(String.format(Locale.US, "WHEELBASE_DIAMETER_IN now %.2f   ->  %.2f   (sd %.2f)",
+                turnNow, turnDia.mean(), turnDia.sd()));
+        System.out.println(String.format(Locale.US, "route end error now:       %.1f in (sd %.1f), %.1f deg",
+                errBefore.mean(), errBefore.sd(), headBefore.mean()));
+        System.out.println(String.format(Locale.US, "route end error suggested: %.1f in (sd %.1f), %.1f deg",
+                errAfter.mean(), errAfter.sd(), headAfter.mean()));
+        System.out.println(String.format(Locale.US, "PoseEstimator vs truth:    %.1f in at the end (sd %.1f), %.1f in worst",
+                poseErr.mean(), poseErr.sd(), poseMaxErr.mean()));
+    }
+
+    private static class Stats {
+        private double sum, sumSq;
+        private int n;
+
+        void add(double v) { sum += v; sumSq += v * v; n++; }
+
+        double mean() { return n == 0 ? 0 : sum / n; }
+
+        double sd() {
+            if (n < 2) return 0;
+            double m = mean();
+            return Math.sqrt(Math.max(0, (sumSq - n * m * m) / (n - 1)));
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package org.firstinspires.ftc.teamcode.sim;
+
+import com.qualcomm.robotcore.hardware.VoltageSensor;
+
+// Battery voltage for OpModes that compensate for it. Sags a little with the
+// total drive current (Config.batteryResistanceOhm).
+public class SimVoltageSensor implements VoltageSensor {
+
+    private final SimRobot robot;
+
+    SimVoltageSensor(SimRobot robot) {
+        this.robot = robot;
+    }
+
+    @Override public double getVoltage() { return robot.batteryVolts(); }
+
+    @Override public Manufacturer getManufacturer()     { return Manufacturer.Other; }
+    @Override public String getDeviceName()             { return "SimVoltageSensor"; }
+    @Override public String getConnectionInfo()         { return "sim"; }
+    @Override public int getVersion()                   { return 1; }
+    @Override public void resetDeviceConfigurationForOpMode() { }
+    @Override public void close()                       { }
+}
@@ -0,0 +1,207 @@
+package org.firstinspires.ftc.teamcode.sim;
+
+import org.firstinspires.ftc.teamcode.HeadingSource;
+import org.firstinspires.ftc.teamcode.LoopClock;
+import org.firstinspires.ftc.teamcode.TagTracker;
+import org.firstinspires.ftc.vision.apriltag.AprilTagDetection;
+import org.firstinspires.ftc.vision.apriltag.AprilTagPoseFtc;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+// Plays recorded AprilTag frames back through a TagTracker and scores its
+// prediction: just before each frame that sees the tag, how far off was the
+// tracker's bearing (predicted with the IMU) versus just holding the last
+// bearing, compared to what the new frame says.
+//
+//   java ... TagReplay tags.csv [id]          a log from TagTracker.record()
+//   java ... TagReplay                        synthetic log: robot wiggling in
+//                                             front of tag 24, frames dropped
+//   java ... TagReplay --write synth.csv      save the synthetic log
+//
+// Exits 1 if no frame was scored or the prediction's rms is no better than
+// holding; on the synthetic log it must also be under SYNTH_TOL_DEG.
+public class TagReplay {
+
+    public static final double SYNTH_TOL_DEG = 1.0;
+
+    // One camera frame as it reached the tracker, with the IMU at that moment.
+    public static class Frame {
+        long nanos;
+        double yawDeg, yawRateDegPerS;
+        final List<AprilTagDetection> detections = new ArrayList<>();
+    }
+
+    public static class Result {
+        public int scored;
+        public double rmsPredictedDeg, rmsHeldDeg, maxPredictedDeg, maxHeldDeg;
+    }
+
+    // ========= REPLAY =========
+
+    public static Result replay(List<Frame> frames, int id) {
+        long[] now = {0};
+        double[] imu = {0, 0};
+        HeadingSource heading = new HeadingSource() {
+            @Override public double yawDeg()         { return imu[0]; }
+            @Override public double yawRateDegPerS() { return imu[1]; }
+        };
+        TagTracker tracker = new TagTracker(heading);
+
+        Result r = new Result();
+        double sumP = 0, sumH = 0;
+        LoopClock.setSource(() -> now[0]);
+        try {
+            for (Frame f : frames) {
+                now[0] = f.nanos;
+                imu[0] = f.yawDeg;
+                imu[1] = f.yawRateDegPerS;
+
+                boolean had = tracker.seen(id);
+                double predicted = tracker.bearingDeg(id);
+                double held = tracker.rawBearingDeg(id);
+
+                tracker.offer(f.detections, f.nanos);
+                if (!had || !contains(f, id)) continue;
+
+                double actual = tracker.bearingDeg(id);
+                double ep = predicted - actual, eh = held - actual;
+                sumP += ep * ep;
+                sumH += eh * eh;
+                r.maxPredictedDeg = Math.max(r.maxPredictedDeg, Math.abs(ep));
+                r.maxHeldDeg = Math.max(r.maxHeldDeg, Math.abs(eh));
+                r.scored++;
+            }
+        } finally {
+            LoopClock.setSource(null);
+        }
+        if (r.scored > 0) {
+            r.rmsPredictedDeg = Math.sqrt(sumP / r.scored);
+            r.rmsHeldDeg = Math.sqrt(sumH / r.scored);
+        }
+        return r;
+    }
+
+    private static boolean contains(Frame f, int id) {
+        for (AprilTagDetection d : f.detections) if (d.id == id) return true;
+        return false;
+    }
+
+    // ========= LOG I/O (TagTracker.record format) =========
+
+    public static List<Frame> load(String path) throws IOException {
+        List<Frame> frames = new ArrayList<>();
+        Frame cur = null;
+        try (BufferedReader in = new BufferedReader(new FileReader(path))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                String[] c = line.split(",");
+                if (c[0].equals("imu")) {
+                    cur = new Frame();
+                    cur.nanos = (long) (Double.parseDouble(c[1]) * 1e6);
+                    cur.yawDeg = Double.parseDouble(c[2]);
+                    cur.yawRateDegPerS = Double.parseDouble(c[3]);
+                    frames.add(cur);
+                } else if (c[0].equals("tag") && cur != null) {
+                    long frameNanos = (long) (Double.parseDouble(c[2]) * 1e6);
+                    cur.detections.add(detection(Integer.parseInt(c[3]),
+                            Double.parseDouble(c[4]), Double.parseDouble(c[5]), frameNanos));
+                }
+            }
+        }
+        return frames;
+    }
+
+    public static void write(List<Frame> frames, String path) throws IOException {
+        try (PrintWriter out = new PrintWriter(path)) {
+            for (Frame f : frames) {
+                out.println("imu," + f.nanos / 1e6 + "," + f.yawDeg + "," + f.yawRateDegPerS);
+                for (AprilTagDetection d : f.detections) {
+                    out.println("tag," + f.nanos / 1e6 + "," + d.frameAcquisitionNanoTime / 1e6 + ","
+                            + d.id + "," + d.ftcPose.range + "," + d.ftcPose.bearing);
+                }
+            }
+        }
+    }
+
+    static AprilTagDetection detection(int id, double rangeIn, double bearingDeg, long frameNanos) {
+        AprilTagPoseFtc pose = new AprilTagPoseFtc(0, rangeIn, 0, 0, 0, 0, rangeIn, bearingDeg, 0);
+        return new AprilTagDetection(id, 0, 50f, null, null, null, pose, null, null, frameNanos);
+    }
+
+    // ========= SYNTHETIC LOG =========
+
+    // Robot turning back and forth (an align that overshoots) in front of a
+    // tag, 30 fps camera with LATENCY_S from exposure to the tracker, and
+    // dropouts that come in bursts like motion blur does.
+    public static List<Frame> synthesize(int id, double seconds, long seed) {
+        final double FPS = 30, LATENCY_S = 0.045, DROP_P = 0.15, KEEP_DROPPING_P = 0.6;
+        final double WIGGLE_DEG = 25, WIGGLE_HZ = 0.4, TAG_WORLD_DEG = 8, RANGE_IN = 60;
+        final double BEARING_NOISE_DEG = 0.3, IMU_NOISE_DEG = 0.05;
+
+        Random rng = new Random(seed);
+        List<Frame> frames = new ArrayList<>();
+        boolean dropping = false;
+        for (double t = 0.1; t < seconds; t += 1 / FPS) {
+            dropping = rng.nextDouble() < (dropping ? KEEP_DROPPING_P : DROP_P);
+            double arrive = t + LATENCY_S;
+
+            Frame f = new Frame();
+            f.nanos = (long) (arrive * 1e9);
+            f.yawDeg = yaw(arrive, WIGGLE_DEG, WIGGLE_HZ) + rng.nextGaussian() * IMU_NOISE_DEG;
+            f.yawRateDegPerS = WIGGLE_DEG * 2 * Math.PI * WIGGLE_HZ * Math.cos(2 * Math.PI * WIGGLE_HZ * arrive);
+            if (!dropping) {
+                double bearing = TAG_WORLD_DEG - yaw(t, WIGGLE_DEG, WIGGLE_HZ) + rng.nextGaussian() * BEARING_NOISE_DEG;
+                f.detections.add(detection(id, RANGE_IN, bearing, (long) (t * 1e9)));
+            }
+            frames.add(f);
+        }
+        return frames;
+    }
+
+    private static double yaw(double t, double amp, double hz) {
+        return amp * Math.sin(2 * Math.PI * hz * t);
+    }
+
+    public static void main(String[] args) throws IOException {
+        int id = 24;
+        List<Frame> frames;
+        boolean synthetic = args.length == 0;
+        if (args.length >= 2 && args[0].equals("--write")) {
+            write(synthesize(id, 30, 1), args[1]);
+            System.out.println("wrote " + args[1]);
+            return;
+        }
+        if (args.length >= 1) {
+            frames = load(args[0]);
+            if (args.length >= 2) id = Integer.parseInt(args[1]);
+        } else {
+            frames = synthesize(id, 30, 1);
+        }
+
+        Result r = replay(frames, id);
+        System.out.println(String.format(Locale.US,
+                "tag %d, %d frames, %d scored: predicted rms %.2f max %.2f deg | held rms %.2f max %.2f deg",
+                id, frames.size(), r.scored, r.rmsPredictedDeg, r.maxPredictedDeg, r.rmsHeldDeg, r.maxHeldDeg));
+
+        boolean ok = check(r.scored > 0, "no frame with tag " + id + " after a previous sighting");
+        ok &= check(r.rmsPredictedDeg < r.rmsHeldDeg, "prediction no better than holding the last bearing");
+        if (synthetic) {
+            ok &= check(r.rmsPredictedDeg < SYNTH_TOL_DEG,
+                    String.format(Locale.US, "predicted rms %.2f deg (want < %.1f)", r.rmsPredictedDeg, SYNTH_TOL_DEG));
+        }
+        System.out.println(ok ? "OK" : "FAILED");
+        if (!ok) System.exit(1);
+    }
+
+    private static boolean check(boolean pass, String what) {
+        if (!pass) System.out.println("FAIL: " + what);
+        return pass;
+    }
+}
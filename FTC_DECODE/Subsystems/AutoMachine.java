@@ -0,0 +1,170 @@
+package org.firstinspires.ftc.teamcode;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+
+// Event-driven state machine for the autos. Each state declares what it does
+// instead of the loop polling timers in a big switch:
+//
+//   onEnter   actions run once when the state starts (start a path, spin the
+//             launcher up, fire...); several = they run in parallel from there
+//   during    actions run every update() while in the state
+//   until     completion conditions: the state ends once ALL of them hold
+//             (follower idle, launcher at speed, indexer empty...)
+//   timeout   safety net: end anyway after this long, noted in the history
+//   then      next state; none = the auto is done once this one completes
+//   onExit    actions run once on the way out (intake off...)
+//
+// Every transition goes through enter(), so the state clock is always reset
+// and every state's time is recorded: per state total / visits / timeouts,
+// plus the order they ran in (history()).
+//
+//   machine.state(S.DRIVE_TO_SCORE)
+//           .onEnter(() -> follower.followPath(toScore, true))
+//           .onEnter(() -> launcher.setTargetRpm(RPM))        // spin up while driving
+//           .until(() -> !follower.isBusy())
+//           .then(S.SCORE);
+//   start(): machine.start(S.DRIVE_TO_SCORE);
+//   loop():  follower.update(); launcher.update(); machine.update();
+public class AutoMachine<S extends Enum<S>> {
+
+    public interface Condition {
+        boolean met();
+    }
+
+    // ====== STATE DEFINITIONS ======
+    public class State {
+        final S id;
+        final List<Runnable> enter = new ArrayList<>(), during = new ArrayList<>(), exit = new ArrayList<>();
+        final List<Condition> until = new ArrayList<>();
+        double timeoutS = 0;          // 0 = none
+        S next = null;
+
+        State(S id) { this.id = id; }
+
+        public State onEnter(Runnable action)   { enter.add(action); return this; }
+        public State during(Runnable action)    { during.add(action); return this; }
+        public State onExit(Runnable action)    { exit.add(action); return this; }
+        public State until(Condition done)      { until.add(done); return this; }
+        public State timeout(double seconds)    { timeoutS = seconds; return this; }
+        public State then(S nextState)          { next = nextState; return this; }
+    }
+
+    private final EnumMap<S, State> states;
+
+    // ====== RUNTIME ======
+    private State current = null;
+    private long enteredNanos = 0, startNanos = 0;
+    private boolean finished = false;
+
+    // ====== DURATIONS ======
+    private final double[] totalS, lastS;
+    private final int[] visits, timeouts;
+    private final StringBuilder history = new StringBuilder();
+
+    public AutoMachine(Class<S> type) {
+        states = new EnumMap<>(type);
+        int n = type.getEnumConstants().length;
+        totalS = new double[n];
+        lastS = new double[n];
+        visits = new int[n];
+        timeouts = new int[n];
+    }
+
+    // Define (or add to) a state.
+    public State state(S id) {
+        State s = states.get(id);
+        if (s == null) {
+            s = new State(id);
+            states.put(id, s);
+        }
+        return s;
+    }
+
+    // Conditions that hold when every / any of the given ones do.
+    public static Condition all(final Condition... conditions) {
+        return () -> {
+            for (Condition c : conditions) if (!c.met()) return false;
+            return true;
+        };
+    }
+
+    public static Condition any(final Condition... conditions) {
+        return () -> {
+            for (Condition c : conditions) if (c.met()) return true;
+            return false;
+        };
+    }
+
+    // ========= RUN =========
+
+    public void start(S first) {
+        startNanos = LoopClock.nanoTime();
+        finished = false;
+        enter(first);
+    }
+
+    // Every loop, after the subsystems have updated.
+    public void update() {
+        if (current == null || finished) return;
+        for (Runnable r : current.during) r.run();
+
+        boolean done = true;
+        for (Condition c : current.until) {
+            if (!c.met()) {
+                done = false;
+                break;
+            }
+        }
+        boolean timedOut = !done && current.timeoutS > 0 && timeInStateS() >= current.timeoutS;
+        if (!done && !timedOut) return;
+
+        if (timedOut) timeouts[current.id.ordinal()]++;
+        leave(timedOut);
+        if (current.next == null) finished = true;
+        else enter(current.next);
+    }
+
+    // Jump straight to a state (driver abort, a sensor that changes the plan...).
+    public void jump(S to) {
+        if (current != null && !finished) leave(false);
+        finished = false;
+        enter(to);
+    }
+
+    private void enter(S id) {
+        State s = states.get(id);
+        if (s == null) throw new IllegalStateException("AutoMachine: no state " + id);
+        current = s;
+        enteredNanos = LoopClock.nanoTime();
+        visits[id.ordinal()]++;
+        for (Runnable r : s.enter) r.run();
+    }
+
+    private void leave(boolean timedOut) {
+        for (Runnable r : current.exit) r.run();
+        double took = timeInStateS();
+        int i = current.id.ordinal();
+        lastS[i] = took;
+        totalS[i] += took;
+        if (history.length() > 0) history.append(", ");
+        history.append(String.format(Locale.US, "%s %.2fs%s", current.id, took, timedOut ? " (timeout)" : ""));
+    }
+
+    // ========= READ =========
+
+    public S current()            { return current == null ? null : current.id; }
+    public boolean finished()     { return finished; }
+    public double timeInStateS()  { return (LoopClock.nanoTime() - enteredNanos) / 1e9; }
+    public double elapsedS()      { return (LoopClock.nanoTime() - startNanos) / 1e9; }
+
+    public double totalS(S id)    { return totalS[id.ordinal()]; }
+    public double lastS(S id)     { return lastS[id.ordinal()]; }
+    public int visits(S id)       { return visits[id.ordinal()]; }
+    public int timeouts(S id)     { return timeouts[id.ordinal()]; }
+
+    // "STATE 1.23s, STATE 0.40s (timeout), ..." in the order they ran.
+    public String history()       { return history.toString(); }
+}
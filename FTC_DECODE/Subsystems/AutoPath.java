@@ -0,0 +1,100 @@
+package org.firstinspires.ftc.teamcode;
+
+import com.pedropathing.follower.Follower;
+import com.pedropathing.geometry.BezierCurve;
+import com.pedropathing.geometry.BezierLine;
+import com.pedropathing.geometry.Pose;
+import com.pedropathing.paths.PathBuilder;
+import com.pedropathing.paths.PathChain;
+
+// One auto path, written down once: the poses, how the heading turns (linear,
+// done at headingEndT) and how Pedro should drive it. build() hands exactly
+// that to Pedro's PathBuilder for the PathChain and to PathTable.Builder (via
+// PathCache) for the table, so the two can't drift apart when a pose moves.
+// Deceleration and braking start only go to Pedro; they don't change where
+// the path is.
+//
+//   AutoPath pickup1 = AutoPath.curve("pickup1", scorePose, pickup1Mid, pickup1Pose)
+//           .headingEndT(0.4).deceleration(0.5).brakingStart(0.4);
+//   init:  pickup1.build(follower, pathCache);
+//   loop:  follower.followPath(pickup1.chain(), true);
+//          pickup1.table().sAt(follower.getChainIndex(), follower.getCurrentTValue());
+public class AutoPath {
+
+    private final String name;
+    private final Pose[] points;           // start, control points..., end
+    private double headingEndT = 1.0;
+    private double deceleration = Double.NaN, brakingStart = Double.NaN;
+
+    private PathChain chain;
+    private PathTable table;
+
+    private AutoPath(String name, Pose... points) {
+        this.name = name;
+        this.points = points;
+    }
+
+    // Straight from a to b (Pedro BezierLine). name is the cache file's.
+    public static AutoPath line(String name, Pose a, Pose b) {
+        return new AutoPath(name, a, b);
+    }
+
+    // Bezier from the first pose to the last through the ones between (Pedro BezierCurve).
+    public static AutoPath curve(String name, Pose... points) {
+        if (points.length < 3) throw new IllegalArgumentException("curve needs a control point, use line()");
+        return new AutoPath(name, points.clone());
+    }
+
+    // Heading start -> end pose, reached at this fraction of the path and held after.
+    public AutoPath headingEndT(double t) {
+        headingEndT = t;
+        return this;
+    }
+
+    public AutoPath deceleration(double d) {
+        deceleration = d;
+        return this;
+    }
+
+    public AutoPath brakingStart(double b) {
+        brakingStart = b;
+        return this;
+    }
+
+    // ========= BUILD (init) =========
+
+    public AutoPath build(Follower follower, PathCache cache) {
+        chain = chain(follower);
+        table = cache.get(name, tableBuilder());
+        return this;
+    }
+
+    private PathChain chain(Follower follower) {
+        Pose a = start(), b = end();
+        PathBuilder pb = follower.pathBuilder()
+                .addPath(points.length == 2 ? new BezierLine(a, b) : new BezierCurve(points));
+        if (headingEndT == 1.0) pb.setLinearHeadingInterpolation(a.getHeading(), b.getHeading());
+        else pb.setLinearHeadingInterpolation(a.getHeading(), b.getHeading(), headingEndT);
+        if (!Double.isNaN(deceleration)) pb.setGlobalDeceleration(deceleration);
+        if (!Double.isNaN(brakingStart)) pb.setBrakingStart(brakingStart);
+        return pb.build();
+    }
+
+    public PathTable.Builder tableBuilder() {
+        double[] xy = new double[2 * points.length];
+        for (int i = 0; i < points.length; i++) {
+            xy[2 * i] = points[i].getX();
+            xy[2 * i + 1] = points[i].getY();
+        }
+        return new PathTable.Builder().curve(xy).heading(start().getHeading(), end().getHeading(), headingEndT);
+    }
+
+    // ========= READ =========
+
+    public String name()         { return name; }
+    public Pose start()          { return points[0]; }
+    public Pose end()            { return points[points.length - 1]; }
+    public double headingEndT()  { return headingEndT; }
+    public PathChain chain()     { return chain; }          // null before build()
+    public PathTable table()     { return table; }
+}
@@ -0,0 +1,117 @@
+package org.firstinspires.ftc.teamcode;
+
+import com.qualcomm.robotcore.hardware.DcMotor;
+
+// DcMotor wrapper that remembers the last power / mode / target it sent and
+// only talks to the hub when something actually changed. Every setPower()
+// on a real motor is a Lynx transaction, so calling setPower(0) on an idle
+// conveyor every loop costs bus time for nothing.
+//
+// Reads (getCurrentPosition etc.) are passed straight through, but counted,
+// so EncoderSnapshot can show whether anybody still reads around it.
+public class CachedMotor {
+
+    // default power change that is worth a hub write
+    public static final double DEFAULT_EPSILON = 0.005;
+
+    private final DcMotor motor;
+    private final String name;
+    private double epsilon;
+
+    // ====== LAST COMMANDED STATE ======
+    private double lastPower = Double.NaN;   // NaN = nothing sent yet
+    private DcMotor.RunMode lastMode = null;
+    private int lastTarget = 0;
+    private boolean targetSent = false;
+
+    // ====== COUNTERS ======
+    private long sent = 0;
+    private long suppressed = 0;
+    private long positionReads = 0;
+
+    public CachedMotor(DcMotor motor, String name, double epsilon) {
+        this.motor = motor;
+        this.name = name;
+        this.epsilon = epsilon;
+    }
+
+    public CachedMotor(DcMotor motor, String name) {
+        this(motor, name, DEFAULT_EPSILON);
+    }
+
+    // ========= WRITES (coalesced) =========
+
+    public void setPower(double power) {
+        // always send an exact 0 so a motor can never be left creeping
+        boolean stopping = power == 0 && lastPower != 0;
+        if (stopping || Double.isNaN(lastPower) || Math.abs(power - lastPower) > epsilon) {
+            motor.setPower(power);
+            lastPower = power;
+            sent++;
+        } else {
+            suppressed++;
+        }
+    }
+
+    public void setMode(DcMotor.RunMode mode) {
+        // STOP_AND_RESET_ENCODER is an action, not a state, so never skip it
+        if (mode != lastMode || mode == DcMotor.RunMode.STOP_AND_RESET_ENCODER) {
+            motor.setMode(mode);
+            lastMode = mode;
+            sent++;
+        } else {
+            suppressed++;
+        }
+    }
+
+    public void setTargetPosition(int target) {
+        if (!targetSent || target != lastTarget) {
+            motor.setTargetPosition(target);
+            lastTarget = target;
+            targetSent = true;
+            sent++;
+        } else {
+            suppressed++;
+        }
+    }
+
+    // init-time settings, not worth caching
+    public void setDirection(DcMotor.Direction direction) { motor.setDirection(direction); }
+
+    public void setZeroPowerBehavior(DcMotor.ZeroPowerBehavior behavior) { motor.setZeroPowerBehavior(behavior); }
+
+    // Forget what we think the motor is doing (e.g. after someone used motor() directly).
+    public void invalidate() {
+        lastPower = Double.NaN;
+        lastMode = null;
+        targetSent = false;
+    }
+
+    // ========= READS (pass-through) =========
+
+    public int getCurrentPosition() {
+        positionReads++;
+        return motor.getCurrentPosition();
+    }
+
+    public boolean isBusy() { return motor.isBusy(); }
+
+    // last power we commanded (0 if nothing was sent yet)
+    public double getPower() { return Double.isNaN(lastPower) ? 0.0 : lastPower; }
+
+    public DcMotor.RunMode getMode() { return lastMode; }
+
+    public int getTargetPosition() { return lastTarget; }
+
+    // ========= MISC =========
+
+    public DcMotor motor() { return motor; }
+
+    public String name() { return name; }
+
+    public void setEpsilon(double epsilon) { this.epsilon = epsilon; }
+
+    public long sentCount()       { return sent; }
+    public long suppressedCount() { return suppressed; }
+    public long positionReadCount() { return positionReads; }
+}
@@ -0,0 +1,138 @@
+package org.firstinspires.ftc.teamcode;
+
+// Cooperative fixed-rate scheduler for loop(). Each task has its own rate;
+// runCycle() (called once per loop) runs the tasks that are due, in the order
+// they were added, and skips the rest. So the drive can run every cycle while
+// the IMU is read at 50 Hz, vision is polled at frame rate and telemetry
+// goes out at 4 Hz, and a slow sensor only costs its own rate, not every loop.
+//
+//   int DRIVE = sched.add("drive", ControlScheduler.EVERY_CYCLE, 2.0, this::driveTask);
+//   int IMU   = sched.add("imu",   50, 3.0, this::imuTask);
+//   loop():     sched.runCycle();
+//
+// Accounting per task:
+//   overruns = runs that took longer than the task's budget (ms)
+//   missed   = whole periods that went by without a run (the loop was too
+//              slow for that rate); a late task runs once and re-syncs, it
+//              never bursts to catch up
+//
+// Rate-limited tasks start staggered over their period so they don't all land
+// in the same cycle.
+public class ControlScheduler {
+
+    public static final double EVERY_CYCLE = 0;
+
+    private static final int MAX_TASKS = 12;
+
+    private final String[] names = new String[MAX_TASKS];
+    private final Runnable[] tasks = new Runnable[MAX_TASKS];
+    private final long[] periodNanos = new long[MAX_TASKS];
+    private final long[] budgetNanos = new long[MAX_TASKS];
+    private final long[] nextDue = new long[MAX_TASKS];
+    private final boolean[] forced = new boolean[MAX_TASKS];
+    private int count = 0;
+
+    // ====== ACCOUNTING ======
+    private final long[] runs = new long[MAX_TASKS];
+    private final long[] overruns = new long[MAX_TASKS];
+    private final long[] missed = new long[MAX_TASKS];
+    private final long[] lastNanos = new long[MAX_TASKS];
+    private final long[] maxNanos = new long[MAX_TASKS];
+    private long cycles = 0;
+    private long startNanos = 0;
+
+    // ====== TELEMETRY ======
+    private TelemetryPublisher tele;
+    private final int[] lineTask = new int[MAX_TASKS];
+
+    // hz = EVERY_CYCLE or a rate; budgetMs = how long one run may take.
+    public int add(String name, double hz, double budgetMs, Runnable task) {
+        if (count == MAX_TASKS) throw new IllegalStateException("ControlScheduler: too many tasks");
+        names[count] = name;
+        tasks[count] = task;
+        periodNanos[count] = hz <= 0 ? 0 : (long) (1e9 / hz);
+        budgetNanos[count] = (long) (budgetMs * 1e6);
+        nextDue[count] = 0;
+        return count++;
+    }
+
+    // ========= RUN (every loop) =========
+
+    public void runCycle() {
+        long now = LoopClock.nanoTime();
+        if (cycles == 0) stagger(now);
+        cycles++;
+
+        for (int i = 0; i < count; i++) {
+            long period = periodNanos[i];
+            if (forced[i]) {
+                forced[i] = false;
+                nextDue[i] = now + period;
+            } else if (period > 0) {
+                if (now < nextDue[i]) continue;
+                long late = now - nextDue[i];
+                if (late >= period) missed[i] += late / period;
+                nextDue[i] += period * (1 + late / period);
+            }
+
+            long t0 = LoopClock.nanoTime();
+            tasks[i].run();
+            long took = LoopClock.nanoTime() - t0;
+
+            runs[i]++;
+            lastNanos[i] = took;
+            if (took > maxNanos[i]) maxNanos[i] = took;
+            if (took > budgetNanos[i]) overruns[i]++;
+        }
+    }
+
+    private void stagger(long now) {
+        startNanos = now;
+        int slow = 0;
+        for (int i = 0; i < count; i++) if (periodNanos[i] > 0) slow++;
+        int k = 0;
+        for (int i = 0; i < count; i++) {
+            if (periodNanos[i] == 0) continue;
+            nextDue[i] = now + periodNanos[i] * k / slow;
+            k++;
+        }
+    }
+
+    // Run a task on the next runCycle() regardless of its rate (e.g. a button
+    // press that needs fresh vision right away).
+    public void runNext(int task) { forced[task] = true; }
+
+    // ========= READOUTS =========
+
+    public long cycles()              { return cycles; }
+    public long runs(int task)        { return runs[task]; }
+    public long overruns(int task)    { return overruns[task]; }
+    public long missed(int task)      { return missed[task]; }
+    public double lastMs(int task)    { return lastNanos[task] / 1e6; }
+    public double maxMs(int task)     { return maxNanos[task] / 1e6; }
+
+    public double rateHz(int task) {
+        double s = (LoopClock.nanoTime() - startNanos) / 1e9;
+        return s <= 0 ? 0 : runs[task] / s;
+    }
+
+    // ========= TELEMETRY =========
+
+    public void addTelemetry(TelemetryPublisher tele) {
+        this.tele = tele;
+        for (int i = 0; i < count; i++) {
+            lineTask[i] = tele.addLine("  " + names[i], 1, "Hz ", "max ms ", "over ", "miss ");
+        }
+    }
+
+    // Call from the telemetry task.
+    public void updateTelemetry() {
+        if (tele == null) return;
+        for (int i = 0; i < count; i++) {
+            tele.set(lineTask[i], 0, rateHz(i));
+            tele.set(lineTask[i], 1, maxMs(i));
+            tele.set(lineTask[i], 2, overruns[i]);
+            tele.set(lineTask[i], 3, missed[i]);
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package org.firstinspires.ftc.teamcode;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Declarative encoder route. Legs are written with plain directions
+// (forward / back / strafeLeft / strafeRight / turnLeft / turnRight) and
+// positive distances; the robot's sign convention lives in ONE place
+// (Builder.signs()) instead of in every constant.
+//
+// build() compiles everything at init into flat arrays:
+//   targets[4 * leg + wheel]  cumulative encoder target (FL, FR, BL, BR)
+//   timeoutMs[leg], power[leg], label[leg]
+// so at runtime the executor just walks the arrays (see ProfiledDrive.startLegTo).
+//
+// validate() catches the usual mistakes before a match: negative distances
+// into a named direction (double negatives), bad power, timeouts shorter than
+// the motion profile, and the route not ending at the heading you expect.
+//
+// The builder also dead-reckons where the route *should* end (start = 0,0,0;
+// x forward, y left, heading + = left), so the simulator can score a run.
+public class EncoderRoute {
+
+    // ====== COMPILED ROUTE ======
+    private final int[] targets;
+    private final int[] timeoutMs;
+    private final double[] power;
+    private final String[] label;
+    private final int legCount;
+    private final double plannedS;
+    private final String[] problems;
+    private final double endX, endY, endHeadingDeg;
+
+    private EncoderRoute(int[] targets, int[] timeoutMs, double[] power, String[] label,
+                         double plannedS, String[] problems,
+                         double endX, double endY, double endHeadingDeg) {
+        this.targets = targets;
+        this.timeoutMs = timeoutMs;
+        this.power = power;
+        this.label = label;
+        this.legCount = power.length;
+        this.plannedS = plannedS;
+        this.problems = problems;
+        this.endX = endX;
+        this.endY = endY;
+        this.endHeadingDeg = endHeadingDeg;
+    }
+
+    public int legCount() { return legCount; }
+
+    // cumulative target for a wheel at the end of a leg
+    public int target(int leg, int wheel) { return targets[4 * leg + wheel]; }
+
+    // raw array for executors: 4 ints per leg, FL, FR, BL, BR
+    public int[] targets() { return targets; }
+
+    public double timeoutS(int leg) { return timeoutMs[leg] / 1000.0; }
+    public double power(int leg)    { return power[leg]; }
+    public String label(int leg)    { return label[leg]; }
+
+    // sum of the trapezoid profile times of every leg
+    public double plannedS() { return plannedS; }
+
+    // Empty when the route looks sane. Show these on init telemetry.
+    public String[] validate() { return problems; }
+
+    public boolean isValid() { return problems.length == 0; }
+
+    // nominal end pose, relative to the start (inches / degrees)
+    public double endX()          { return endX; }
+    public double endY()          { return endY; }
+    public double endHeadingDeg() { return endHeadingDeg; }
+
+    // ========= BUILDER =========
+
+    public static class Builder {
+
+        // ====== ROBOT GEOMETRY ======
+        private final double ticksPerInch;
+        private final double strafeCorrection;
+        private final double wheelbaseDiameterIn;
+
+        // which raw sign means forward / strafe left / turn left on this robot
+        private int forwardSign = +1, strafeLeftSign = +1, turnLeftSign = +1;
+
+        // ====== PROFILE LIMITS (for planned time + timeout check) ======
+        private double maxTicksPerSec = 2800, maxAccel = 3000;
+        private double timeoutSPerFoot = 2.5;
+
+        private double power = 0.6;
+        private String section = "";
+
+        private final List<int[]> deltas = new ArrayList<>();
+        private final List<Double> powers = new ArrayList<>();
+        private final List<Double> timeouts = new ArrayList<>();
+        private final List<String> labels = new ArrayList<>();
+        private final List<String> problems = new ArrayList<>();
+
+        private double headingDeg = 0;       // running total, + = left
+        private double x = 0, y = 0;         // nominal position, start frame
+        private Double expectedHeading = null;
+
+        public Builder(double ticksPerInch, double strafeCorrection, double wheelbaseDiameterIn) {
+            this.ticksPerInch = ticksPerInch;
+            this.strafeCorrection = strafeCorrection;
+            this.wheelbaseDiameterIn = wheelbaseDiameterIn;
+        }
+
+        // +1 or -1 for the raw driveInches / strafeInches / turnByEncoders sign
+        // that moves the robot forward / left / turns it left.
+        public Builder signs(int forward, int strafeLeft, int turnLeft) {
+            forwardSign = forward;
+            strafeLeftSign = strafeLeft;
+            turnLeftSign = turnLeft;
+            return this;
+        }
+
+        public Builder profile(double maxTicksPerSec, double maxAccel) {
+            this.maxTicksPerSec = maxTicksPerSec;
+            this.maxAccel = maxAccel;
+            return this;
+        }
+
+        public Builder timeoutPerFoot(double seconds) { timeoutSPerFoot = seconds; return this; }
+
+        // power for the following legs
+        public Builder power(double p) { power = p; return this; }
+
+        // label shown on telemetry for the following legs ("GPP intake" ...)
+        public Builder section(String name) { section = name; return this; }
+
+        public Builder forward(double inches)     { move(Math.abs(inches), 0);  return drive("forward", inches, +forwardSign); }
+        public Builder back(double inches)        { move(-Math.abs(inches), 0); return drive("back", inches, -forwardSign); }
+        public Builder strafeLeft(double inches)  { move(0, Math.abs(inches));  return strafe("strafeLeft", inches, +strafeLeftSign); }
+        public Builder strafeRight(double inches) { move(0, -Math.abs(inches)); return strafe("strafeRight", inches, -strafeLeftSign); }
+        public Builder turnLeft(double degrees)   { return turn("turnLeft", degrees, +1); }
+        public Builder turnRight(double degrees)  { return turn("turnRight", degrees, -1); }
+
+        public Builder expectFinalHeading(double degrees) {
+            expectedHeading = degrees;
+            return this;
+        }
+
+        // robot-frame step (forward, left) -> start frame
+        private void move(double fwd, double left) {
+            double h = Math.toRadians(headingDeg);
+            x += fwd * Math.cos(h) - left * Math.sin(h);
+            y += fwd * Math.sin(h) + left * Math.cos(h);
+        }
+
+        private Builder drive(String name, double inches, int sign) {
+            checkMagnitude(name, inches);
+            int dt = (int) Math.round(sign * Math.abs(inches) * ticksPerInch);
+            return leg(name, Math.abs(inches), dt, dt, dt, dt, timeoutFor(inches));
+        }
+
+        private Builder strafe(String name, double inches, int sign) {
+            checkMagnitude(name, inches);
+            int dt = (int) Math.round(sign * Math.abs(inches) * ticksPerInch * strafeCorrection);
+            return leg(name, Math.abs(inches), dt, -dt, -dt, dt, timeoutFor(inches));
+        }
+
+        private Builder turn(String name, double degrees, int left) {
+            checkMagnitude(name, degrees);
+            headingDeg += left * Math.abs(degrees);
+            double arcLen = (Math.abs(degrees) / 360.0) * Math.PI * wheelbaseDiameterIn;
+            int dt = (int) Math.round(left * turnLeftSign * arcLen * ticksPerInch);
+            // same wheel pattern as turnByEncoders(): left wheels -dt, right wheels +dt
+            return leg(name, Math.abs(degrees), -dt, dt, -dt, dt, timeoutFor(arcLen));
+        }
+
+        private Builder leg(String name, double amount, int fl, int fr, int bl, int br, double timeoutS) {
+            int n = deltas.size() + 1;
+            if (power <= 0 || power > 1) {
+                problems.add("leg " + n + " " + name + ": power " + power + " not in (0, 1]");
+            }
+            deltas.add(new int[]{fl, fr, bl, br});
+            powers.add(power);
+            timeouts.add(timeoutS);
+            String s = section.isEmpty() ? "" : section + ": ";
+            labels.add(s + name + " " + Math.round(amount));
+            return this;
+        }
+
+        private void checkMagnitude(String name, double amount) {
+            int n = deltas.size() + 1;
+            if (amount < 0) {
+                problems.add("leg " + n + " " + name + "(" + amount
+                        + "): negative value, direction is already in the name");
+            } else if (amount == 0) {
+                problems.add("leg " + n + " " + name + ": zero-length leg");
+            }
+        }
+
+        private double timeoutFor(double inches) {
+            return Math.max(1.0, (Math.abs(inches) / 12.0) * timeoutSPerFoot);
+        }
+
+        public EncoderRoute build() {
+            int n = deltas.size();
+            int[] targets = new int[4 * n];
+            int[] timeoutMs = new int[n];
+            double[] pw = new double[n];
+            String[] lb = new String[n];
+
+            TrapezoidProfile profile = new TrapezoidProfile();
+            int[] pos = new int[4];
+            double planned = 0;
+
+            for (int i = 0; i < n; i++) {
+                int[] d = deltas.get(i);
+                int legTicks = 0;
+                for (int w = 0; w < 4; w++) {
+                    pos[w] += d[w];
+                    targets[4 * i + w] = pos[w];
+                    legTicks = Math.max(legTicks, Math.abs(d[w]));
+                }
+                pw[i] = powers.get(i);
+                lb[i] = labels.get(i);
+                timeoutMs[i] = (int) Math.round(timeouts.get(i) * 1000);
+
+                profile.plan(legTicks, Math.min(Math.abs(pw[i]), 1.0) * maxTicksPerSec, maxAccel);
+                planned += profile.totalTime();
+                if (profile.totalTime() > timeouts.get(i)) {
+                    problems.add("leg " + (i + 1) + " " + lb[i] + ": timeout "
+                            + timeouts.get(i) + "s < profile " + Math.round(profile.totalTime() * 10) / 10.0 + "s");
+                }
+            }
+
+            if (expectedHeading != null && Math.abs(headingDeg - expectedHeading) > 0.5) {
+                problems.add("route ends at heading " + headingDeg + " deg, expected " + expectedHeading
+                        + " (left/right turn mixed up?)");
+            }
+
+            return new EncoderRoute(targets, timeoutMs, pw, lb, planned,
+                                    problems.toArray(new String[0]), x, y, headingDeg);
+        }
+    }
+}
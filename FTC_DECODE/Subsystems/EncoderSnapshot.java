@@ -0,0 +1,99 @@
+package org.firstinspires.ftc.teamcode;
+
+import com.qualcomm.hardware.lynx.LynxModule;
+import com.qualcomm.robotcore.hardware.DcMotorEx;
+import com.qualcomm.robotcore.hardware.HardwareMap;
+
+import java.util.List;
+
+// Reads every encoder once per loop and hands the same numbers to everybody
+// (motion checks, telemetry, logging) instead of each of them calling
+// getCurrentPosition() again.
+//
+// The hubs are put in MANUAL bulk caching mode, so capture() costs one bulk
+// read per hub no matter how many encoders we look at. Call capture() once at
+// the top of the loop, then only use the getters. Consumers get the snapshot
+// read-only; the arrays are reused, so nothing is allocated per cycle.
+//
+// Subsystem motors can go in too (velocity() is captured as well), so every
+// encoder in the loop comes out of the same bulk read.
+//
+// readsPerCycle() is measured, not assumed: it is every getCurrentPosition()
+// on these motors (ours or anybody else's) divided by the captures, so it sits
+// at size() unless something still reads around the snapshot.
+// Sim/EncoderReadSim shows the before/after on the sim's own read counters.
+public class EncoderSnapshot {
+
+    private final CachedMotor[] motors;
+    private final DcMotorEx[] ex;             // null where the motor isn't a DcMotorEx
+    private final LynxModule[] hubs;
+    private final int[] positions;
+    private final double[] velocities;        // ticks/s
+
+    private long timestampNanos = 0;
+
+    // ====== COUNTERS ======
+    private long cycles = 0;
+    private long readsAtFirst = -1;           // motor reads before the first capture
+
+    // Motor order is the index order for position(i); for the drive pass them
+    // as FL, FR, BL, BR so MecanumDrive.FL etc. line up.
+    public EncoderSnapshot(HardwareMap hardwareMap, CachedMotor... motors) {
+        this.motors = motors;
+        this.positions = new int[motors.length];
+        this.velocities = new double[motors.length];
+        this.ex = new DcMotorEx[motors.length];
+        for (int i = 0; i < motors.length; i++) {
+            if (motors[i].motor() instanceof DcMotorEx) ex[i] = (DcMotorEx) motors[i].motor();
+        }
+
+        List<LynxModule> all = hardwareMap.getAll(LynxModule.class);
+        hubs = all.toArray(new LynxModule[0]);
+        for (LynxModule hub : hubs) {
+            hub.setBulkCachingMode(LynxModule.BulkCachingMode.MANUAL);
+        }
+    }
+
+    // One bulk read per hub, then every position comes out of the cache.
+    public EncoderSnapshot capture() {
+        if (readsAtFirst < 0) readsAtFirst = motorReads();
+        for (LynxModule hub : hubs) {
+            hub.clearBulkCache();
+        }
+
+        for (int i = 0; i < motors.length; i++) {
+            positions[i] = motors[i].getCurrentPosition();
+            if (ex[i] != null) velocities[i] = ex[i].getVelocity();
+        }
+        timestampNanos = LoopClock.nanoTime();
+        cycles++;
+        return this;
+    }
+
+    // ========= READ-ONLY VIEW =========
+
+    public int position(int index) { return positions[index]; }
+
+    // ticks/s, same bulk read (0 for a motor that isn't a DcMotorEx)
+    public double velocity(int index) { return velocities[index]; }
+
+    public int size() { return positions.length; }
+
+    public long timestampNanos() { return timestampNanos; }
+
+    public long cycleCount() { return cycles; }
+
+    public int hubCount() { return hubs.length; }
+
+    // getCurrentPosition() calls on these motors per capture, counted on the
+    // CachedMotors since the first capture. size() = nobody reads around us.
+    public double readsPerCycle() {
+        return cycles == 0 ? 0.0 : (double) (motorReads() - readsAtFirst) / cycles;
+    }
+
+    private long motorReads() {
+        long n = 0;
+        for (CachedMotor m : motors) n += m.positionReadCount();
+        return n;
+    }
+}
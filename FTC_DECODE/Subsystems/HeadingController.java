@@ -0,0 +1,124 @@
+package org.firstinspires.ftc.teamcode;
+
+// Snap-to-angle for the TeleOps: PID from the heading error to a rotation
+// command, for "face 90" / "face the goal" buttons.
+//
+// Heading in degrees, + = CCW (IMU yaw / PoseEstimator). The output is an rx
+// for MecanumDrive.mix(), where + turns the robot clockwise, so a target to
+// the left (positive error) gives a negative rx.
+//
+// The D term uses the gyro's rate instead of differencing the error, so a new
+// target doesn't kick and the IMU's quantization doesn't show up as noise.
+// For a moving target (aiming while driving) pass its rate too: the D term
+// then damps the rate error, and kF feeds the rate forward so the PID only
+// has to clean up.
+// The I term only builds inside iZoneDeg (the last few degrees, where kP alone
+// can't beat the carpet), and is dropped when the error changes sign.
+//
+//   snap = new HeadingController(SNAP_KP, SNAP_KI, SNAP_KD, SNAP_MAX).tolerance(2, 20);
+//   snap.setTarget(90);
+//   rx = snap.update(headingDeg, imuService.yawRateDegPerS());
+//   aim = HeadingController.goalAim();
+//   rx = aim.update(headingDeg, imuService.yawRateDegPerS(), pose.lineOfSightRateDegPerS(bearing, range));
+public class HeadingController {
+
+    // ====== GOAL AIM (aim while driving; Sim/AimSim runs these) ======
+    public static final double AIM_KP  = 0.015;    // power per deg
+    public static final double AIM_KI  = 0.02;     // power per deg*s, inside the i-zone
+    public static final double AIM_KD  = 0.0008;   // power per deg/s (gyro rate)
+    public static final double AIM_MAX = 0.6;
+    public static final double AIM_KF  = 0.004;    // power per deg/s, ~1 / turn rate at full power
+    public static final double AIM_TOL_DEG = 2.0;
+
+    // ====== TUNABLES ======
+    private final double kP, kI, kD;    // power per deg, per deg*s, per deg/s
+    private final double maxOut;
+    private double kF = 0;              // power per deg/s of target rate
+    private double iZoneDeg = 10;
+    private double tolDeg = 2, tolRateDegPerS = 20;
+
+    // ====== STATE ======
+    private double targetDeg = 0;
+    private double integral = 0;
+    private double lastErr = 0, lastRate = 0, lastOut = 0;
+    private long lastNanos = 0;
+
+    public HeadingController(double kP, double kI, double kD, double maxOut) {
+        this.kP = kP;
+        this.kI = kI;
+        this.kD = kD;
+        this.maxOut = maxOut;
+    }
+
+    // Rotation onto the goal while the sticks translate.
+    public static HeadingController goalAim() {
+        return new HeadingController(AIM_KP, AIM_KI, AIM_KD, AIM_MAX)
+                .tolerance(AIM_TOL_DEG, 20).feedforward(AIM_KF);
+    }
+
+    // onTarget() = within deg and turning within degPerS of the target's rate.
+    public HeadingController tolerance(double deg, double degPerS) {
+        tolDeg = deg;
+        tolRateDegPerS = degPerS;
+        return this;
+    }
+
+    // Power per deg/s, ~ 1 / (turn rate at full power).
+    public HeadingController feedforward(double kF) {
+        this.kF = kF;
+        return this;
+    }
+
+    public HeadingController iZone(double deg) {
+        iZoneDeg = deg;
+        return this;
+    }
+
+    // Keeps the integral if the target barely moved (goal tracking calls this
+    // every loop), resets it on a real new target.
+    public void setTarget(double deg) {
+        if (Math.abs(HeadingHold.angleErrorDeg(deg, targetDeg)) > iZoneDeg) {
+            integral = 0;
+            lastNanos = 0;
+        }
+        targetDeg = deg;
+    }
+
+    public void reset() {
+        integral = 0;
+        lastNanos = 0;
+        lastOut = 0;
+    }
+
+    // Returns rx (+ = clockwise) to drive with.
+    public double update(double headingDeg, double rateDegPerS) {
+        return update(headingDeg, rateDegPerS, 0);
+    }
+
+    // Same, for a target turning at targetRateDegPerS (+ = CCW).
+    public double update(double headingDeg, double rateDegPerS, double targetRateDegPerS) {
+        long now = LoopClock.nanoTime();
+        double dt = lastNanos == 0 ? 0 : (now - lastNanos) / 1e9;
+        lastNanos = now;
+
+        double err = HeadingHold.angleErrorDeg(targetDeg, headingDeg);
+        if (Math.abs(err) > iZoneDeg || err * lastErr < 0) integral = 0;
+        else integral += err * dt;
+        lastErr = err;
+        lastRate = rateDegPerS - targetRateDegPerS;
+
+        double ccw = kP * err + kI * integral
+                + kD * (targetRateDegPerS - rateDegPerS) + kF * targetRateDegPerS;
+        if (Math.abs(ccw) > maxOut) {
+            ccw = Math.copySign(maxOut, ccw);
+            integral -= err * dt;            // don't wind up while saturated
+        }
+        lastOut = -ccw;
+        return lastOut;
+    }
+
+    public double targetDeg()   { return targetDeg; }
+    public double errorDeg()    { return lastErr; }
+    public double output()      { return lastOut; }
+    public boolean onTarget()   { return Math.abs(lastErr) <= tolDeg && Math.abs(lastRate) <= tolRateDegPerS; }
+}
@@ -0,0 +1,57 @@
+package org.firstinspires.ftc.teamcode;
+
+// IMU heading hold for the TeleOps: while the driver isn't turning, add a
+// P correction to rx that pulls the robot back to the heading it had when the
+// driver let go of the turn stick.
+//
+//   hold.reset(imuHeadingDeg);                 // init
+//   rx = hold.update(rx, imuHeadingDeg);       // every loop, before drive()
+public class HeadingHold {
+
+    // ====== TUNABLES ======
+    private final double kP;            // power per degree of error
+    private final double maxCorr;       // clamp on the correction
+    private final double rotDeadzone;   // |rx| above this = driver is turning
+
+    private double targetDeg = 0.0;
+    private double lastCorr = 0.0;
+
+    public HeadingHold(double kP, double maxCorr, double rotDeadzone) {
+        this.kP = kP;
+        this.maxCorr = maxCorr;
+        this.rotDeadzone = rotDeadzone;
+    }
+
+    public void reset(double headingDeg) {
+        targetDeg = headingDeg;
+        lastCorr = 0.0;
+    }
+
+    // Returns the rotation command to drive with.
+    public double update(double rx, double headingDeg) {
+        if (Math.abs(rx) > rotDeadzone) {
+            // driver is intentionally turning -> update target to new heading
+            targetDeg = headingDeg;
+            lastCorr = 0.0;
+            return rx;
+        }
+
+        // no manual turn -> auto-correct heading toward target
+        // (heading is CCW+, rx turns clockwise: drifted right = positive error = negative rx)
+        double corr = -kP * angleErrorDeg(targetDeg, headingDeg);
+        if (Math.abs(corr) > maxCorr) corr = Math.copySign(maxCorr, corr);
+        lastCorr = corr;
+        return rx + corr;
+    }
+
+    public double targetDeg()  { return targetDeg; }
+    public double correction() { return lastCorr; }
+
+    // Smallest signed difference between two angles (deg) in range (-180, 180]
+    public static double angleErrorDeg(double target, double current) {
+        double error = target - current;
+        while (error > 180)  error -= 360;
+        while (error <= -180) error += 360;
+        return error;
+    }
+}
@@ -0,0 +1,9 @@
+package org.firstinspires.ftc.teamcode;
+
+// Anything that knows the robot's current yaw (IMU-relative, CCW positive)
+// and how fast it is changing. ImuService on the robot; recorded data when
+// replaying a log.
+public interface HeadingSource {
+    double yawDeg();
+    double yawRateDegPerS();
+}
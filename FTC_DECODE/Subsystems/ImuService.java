@@ -0,0 +1,187 @@
+package org.firstinspires.ftc.teamcode;
+
+import com.qualcomm.robotcore.hardware.IMU;
+
+import org.firstinspires.ftc.robotcore.external.navigation.AngleUnit;
+
+// Reads the IMU on its own thread so loop() never waits on the I2C bus.
+//
+// The sampling thread publishes yaw, yaw rate and a timestamp through a
+// seqlock over volatile primitives: the writer bumps seq to odd, writes, bumps
+// it back to even; a reader retries if seq was odd or changed under it. The
+// read path is a handful of volatile loads, no locks and no objects, so
+// loop() gets the latest heading in nanoseconds.
+//
+//   imuService = new ImuService(imu, 100);   // init
+//   imuService.start();                      // start()
+//   imuService.poll();                       // top of loop(): no-op on the robot, samples in the sim
+//   double h = imuService.yawDeg();
+//   imuService.stop();                       // stop(), always
+//
+// Yaw rate is differentiated from consecutive yaw samples, so each sample is
+// one I2C transaction. All I2C (including resetYaw) happens on the sampling
+// thread.
+//
+// A read that throws (I2C hiccup, a hub that dropped off) is counted in
+// errorCount() and retried next period; the last good sample stays
+// published. healthy() is false once that sample is STALE_PERIODS old, so a
+// caller can stop trusting the heading instead of steering on a frozen one.
+public class ImuService implements HeadingSource {
+
+    public static final int STALE_PERIODS = 5;
+
+    private final IMU imu;
+    private final long periodNanos;
+
+    // ====== PUBLISHED SLOT (seqlock) ======
+    private volatile int seq = 0;
+    private volatile double yawDeg = 0;
+    private volatile double yawRateDegPerS = 0;
+    private volatile long sampleNanos = 0;
+    private volatile long samples = 0;
+
+    // ====== SAMPLER STATE (sampling thread only) ======
+    private double prevYaw = Double.NaN;
+    private long prevNanos = 0;
+    private long nextSampleNanos = 0;
+    private volatile boolean resetRequested = false;
+    private volatile long maxReadNanos = 0;
+    private volatile long errors = 0;
+
+    private Thread thread;
+    private volatile boolean running = false;
+
+    // A consistent (yaw, rate, time) triple; keep one and reuse it.
+    public static class Sample {
+        public double yawDeg;
+        public double yawRateDegPerS;
+        public long nanos;
+    }
+
+    public ImuService(IMU imu, double sampleHz) {
+        this.imu = imu;
+        this.periodNanos = (long) (1e9 / sampleHz);
+    }
+
+    // ========= LIFECYCLE =========
+
+    public void start() {
+        if (running) return;
+        running = true;
+        trySample();    // never hand out a zero heading
+        if (LoopClock.isSimulated()) return;   // the sim samples from poll() on virtual time
+
+        thread = new Thread(this::run, "ImuService");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.NORM_PRIORITY + 1);
+        thread.start();
+    }
+
+    // Must be called from OpMode.stop(): a thread left reading I2C after the
+    // OpMode ends can get the app stuck in stop.
+    public void stop() {
+        running = false;
+        if (thread != null) {
+            thread.interrupt();
+            try {
+                thread.join(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            thread = null;
+        }
+    }
+
+    // On the robot the thread does the work; without a thread (simulator),
+    // this samples when the next sample is due.
+    public void poll() {
+        if (!running || thread != null) return;
+        if (LoopClock.nanoTime() >= nextSampleNanos) trySample();
+    }
+
+    // Zero the yaw. Done by the sampling thread on its next sample.
+    public void resetYaw() {
+        resetRequested = true;
+    }
+
+    private void run() {
+        while (running && !Thread.currentThread().isInterrupted()) {
+            trySample();
+            long sleep = nextSampleNanos - LoopClock.nanoTime();
+            if (sleep > 0) {
+                try {
+                    Thread.sleep(sleep / 1_000_000, (int) (sleep % 1_000_000));
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+    }
+
+    // One sample; a read that throws is counted and tried again next period.
+    private void trySample() {
+        try {
+            sampleOnce();
+        } catch (RuntimeException e) {
+            errors++;
+            nextSampleNanos = LoopClock.nanoTime() + periodNanos;
+        }
+    }
+
+    private void sampleOnce() {
+        if (resetRequested) {
+            imu.resetYaw();
+            resetRequested = false; // only once it went through
+            prevYaw = Double.NaN;   // no rate spike across the reset
+        }
+
+        long t0 = LoopClock.nanoTime();
+        double yaw = imu.getRobotYawPitchRollAngles().getYaw(AngleUnit.DEGREES);
+        long t1 = LoopClock.nanoTime();
+        long at = t0 + (t1 - t0) / 2;
+        if (t1 - t0 > maxReadNanos) maxReadNanos = t1 - t0;
+
+        double rate = 0;
+        if (!Double.isNaN(prevYaw) && at > prevNanos) {
+            rate = HeadingHold.angleErrorDeg(yaw, prevYaw) / ((at - prevNanos) / 1e9);
+        }
+        prevYaw = yaw;
+        prevNanos = at;
+        nextSampleNanos = t0 + periodNanos;
+
+        seq++;                  // odd: write in progress
+        yawDeg = yaw;
+        yawRateDegPerS = rate;
+        sampleNanos = at;
+        samples++;
+        seq++;                  // even: consistent
+    }
+
+    // ========= READ (any thread, allocation-free) =========
+
+    @Override public double yawDeg()          { return yawDeg; }
+    @Override public double yawRateDegPerS()  { return yawRateDegPerS; }
+    public long sampleNanos()                 { return sampleNanos; }
+    public long sampleCount()                 { return samples; }
+    public double maxReadMs()                 { return maxReadNanos / 1e6; }
+    public long errorCount()                  { return errors; }
+
+    public double ageS() { return (LoopClock.nanoTime() - sampleNanos) / 1e9; }
+
+    // Running, and the published sample is recent enough to steer on.
+    public boolean healthy() {
+        return running && samples > 0 && LoopClock.nanoTime() - sampleNanos < STALE_PERIODS * periodNanos;
+    }
+
+    // Yaw, rate and time from the same sample.
+    public Sample read(Sample out) {
+        int s;
+        do {
+            s = seq;
+            out.yawDeg = yawDeg;
+            out.yawRateDegPerS = yawRateDegPerS;
+            out.nanos = sampleNanos;
+        } while ((s & 1) != 0 || s != seq);
+        return out;
+    }
+}
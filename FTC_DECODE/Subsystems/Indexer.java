@@ -0,0 +1,436 @@
+package org.firstinspires.ftc.teamcode;
+
+import com.qualcomm.robotcore.hardware.DcMotor;
+import com.qualcomm.robotcore.hardware.DcMotorEx;
+import com.qualcomm.robotcore.hardware.DcMotorSimple;
+
+import org.firstinspires.ftc.robotcore.external.navigation.CurrentUnit;
+
+import java.util.Locale;
+
+// Intake -> conveyor -> launcher feed, sequenced for the driver. Call the
+// commands from the buttons and update() every loop; nothing here waits.
+//
+//   IDLE        all off, no balls
+//   INTAKE      intake on; each ball is counted from the intake current and
+//               the conveyor pulls it up for indexS to make room
+//   HOLD        balls on board, everything stopped
+//   STAGE       conveyor for stageS (+ indexS per ball short of capacity): the
+//               top ball up to just under the wheel, while the launcher is
+//               still spinning up. After a shot the stack has followed that
+//               ball up, so it's restageS instead. A ball that still reaches
+//               the wheel here is counted as a shot.
+//   FIRE_ONE    feed while the launcher is at speed, until one shot
+//   FIRE_BURST  feed everything: after each shot STAGE the next ball while the
+//               wheel recovers, then feed once it's back within burstReadyRpm
+//               (looser than atSpeed(), for cycle time) and minGapS has passed
+//   EJECT       intake + conveyor backward while eject() is held, over
+//               anything else (unjam, spit a ball out); one ball off the count
+//               per indexS, the time one pitch takes at indexPower
+//   launcher switched off while staging / firing -> HOLD (IDLE if empty)
+//
+// Ball detection, no sensors:
+//   in:  intake current above its running baseline by ballAmps for ballMinS
+//        (current is a hub transaction, so it's sampled at CURRENT_HZ and only
+//        while intaking)
+//   out: the launcher falling out of atSpeed() (Launcher.shots()), or our own
+//        dip check when the ball went in while it wasn't at speed
+//   empty: feeding for feedTimeoutS with no shot -> count was wrong, it's 0
+//
+// This robot's feed (directions, powers, conveyor timing) is newIndexer();
+// the TeleOps and autos all build it there, so a conveyor change is retuned
+// once. It starts empty: setCount() for a preload.
+//
+//   indexer = Indexer.newIndexer(intakeHarvester, conveyor, launcher);
+//   loop:  indexer.intake(gamepad1.y);  indexer.eject(gamepad1.dpad_down);
+//          if (aPressed) indexer.fireOne();  if (bPressed) indexer.fireBurst();
+//          launcher.update();  indexer.update();
+public class Indexer {
+
+    public enum State { IDLE, INTAKE, HOLD, STAGE, FIRE_ONE, FIRE_BURST, EJECT }
+
+    // ====== THIS ROBOT'S FEED (times are for our conveyor, re-check if it changes) ======
+    public static final DcMotorSimple.Direction INTAKE_DIRECTION = DcMotorSimple.Direction.REVERSE;    // + = balls in
+    public static final DcMotorSimple.Direction CONVEYOR_DIRECTION = DcMotorSimple.Direction.FORWARD;  // + = balls up
+    public static final double INTAKE_POWER    = 1.0;
+    public static final double FEED_POWER      = 1.0;    // conveyor, feeding the launcher
+    public static final double INDEX_POWER     = 0.6;    // conveyor, moving balls up inside the robot
+    public static final int    CAPACITY        = 3;
+    public static final double BALL_AMPS       = 1.0;    // intake current rise for a ball
+    public static final double BALL_MIN_S      = 0.04;
+    public static final double INDEX_S         = 0.26;   // one ball pitch at INDEX_POWER
+    public static final double STAGE_S         = 0.10;   // top ball of a full load up to the wheel
+    public static final double RESTAGE_S       = 0.10;   // next ball up to the wheel after a shot
+    public static final double FEED_TIMEOUT_S  = 1.0;    // feeding this long with no shot = empty
+    public static final double BURST_READY_RPM = 150;    // next ball once the wheel is back within this
+    public static final double BURST_GAP_S     = 0.10;
+
+    private static final double CURRENT_HZ = 50.0;
+    private static final double INRUSH_S = 0.3;          // ignore the intake's spin-up current
+    private static final double BASELINE_SMOOTH = 0.1;
+
+    private final CachedMotor intake, conveyor;
+    private final DcMotorEx intakeEx;
+    private final Launcher launcher;
+
+    // ====== TUNABLES ======
+    private double intakePower = 1.0, feedPower = 1.0, indexPower = 0.6;
+    private int capacity = 3;
+    private double ballAmps = 1.0, ballMinS = 0.04;
+    private double indexS = 0.15, stageS = 0.20, feedTimeoutS = 1.0;
+    private double restageS = 0.15;
+    private double burstReadyRpm = 150, minGapS = 0.10;
+    private double shotDropRpm = 200;
+
+    // ====== STATE ======
+    private State state = State.IDLE;
+    private State afterStage = State.HOLD;
+    private int count = 0;
+    private boolean staged = false;
+    private boolean shotSinceStage = false;      // stack pushed up behind a shot
+    private boolean intakeHeld = false, ejectHeld = false;
+    private int countAtEject = 0;
+    private long stateNanos = 0, indexUntil = 0;
+
+    // intake current
+    private double amps = 0, baseline = Double.NaN;
+    private long lastAmpsNanos = 0, overSince = 0;
+    private boolean ballInIntake = false;
+
+    // feeding
+    private double feedingS = 0;                 // conveyor-on time since the last shot
+    private long lastNanos = 0, lastShotNanos = 0, fireNanos = 0;
+    private long shotsSeen = 0;
+    private double feedPeakRpm = 0;
+
+    // ====== STATS ======
+    private long ballsIn = 0, ballsOut = 0, empties = 0;
+    private double lastCycleS = 0;               // fire command -> last ball out
+
+    public Indexer(CachedMotor intake, CachedMotor conveyor, Launcher launcher) {
+        this.intake = intake;
+        this.conveyor = conveyor;
+        this.intakeEx = intake.motor() instanceof DcMotorEx ? (DcMotorEx) intake.motor() : null;
+        this.launcher = launcher;
+        intake.setZeroPowerBehavior(DcMotor.ZeroPowerBehavior.BRAKE);     // balls stop where we leave them
+        conveyor.setZeroPowerBehavior(DcMotor.ZeroPowerBehavior.BRAKE);
+    }
+
+    // The robot's intake + conveyor with the tune above; starts empty.
+    public static Indexer newIndexer(CachedMotor intake, CachedMotor conveyor, Launcher launcher) {
+        intake.setDirection(INTAKE_DIRECTION);
+        conveyor.setDirection(CONVEYOR_DIRECTION);
+        return new Indexer(intake, conveyor, launcher)
+                .powers(INTAKE_POWER, FEED_POWER, INDEX_POWER)
+                .capacity(CAPACITY)
+                .ballCurrent(BALL_AMPS, BALL_MIN_S)
+                .timing(INDEX_S, STAGE_S, FEED_TIMEOUT_S)
+                .restage(RESTAGE_S)
+                .burst(BURST_READY_RPM, BURST_GAP_S);
+    }
+
+    public Indexer powers(double intakePower, double feedPower, double indexPower) {
+        this.intakePower = intakePower;
+        this.feedPower = feedPower;
+        this.indexPower = indexPower;
+        return this;
+    }
+
+    public Indexer capacity(int balls) {
+        capacity = balls;
+        return this;
+    }
+
+    // A ball in the intake = current this far over the baseline for minS. 0 = don't count.
+    public Indexer ballCurrent(double amps, double minS) {
+        ballAmps = amps;
+        ballMinS = minS;
+        return this;
+    }
+
+    public Indexer timing(double indexS, double stageS, double feedTimeoutS) {
+        this.indexS = indexS;
+        this.stageS = stageS;
+        this.feedTimeoutS = feedTimeoutS;
+        return this;
+    }
+
+    // Next ball up to just under the wheel after a shot (it's one pitch below
+    // where the shot ball went in, not where a full load rests).
+    public Indexer restage(double s) {
+        restageS = s;
+        return this;
+    }
+
+    // Rapid fire: next ball once the wheel is within readyRpm and minGapS has passed.
+    public Indexer burst(double readyRpm, double minGapS) {
+        burstReadyRpm = readyRpm;
+        this.minGapS = minGapS;
+        return this;
+    }
+
+    // ========= COMMANDS =========
+
+    // Intake button state, every loop. Ignored while firing.
+    public void intake(boolean held) {
+        intakeHeld = held;
+    }
+
+    // Eject button state, every loop. Overrides everything while held.
+    public void eject(boolean held) {
+        ejectHeld = held;
+    }
+
+    // false if the launcher is off (nothing would ever be at speed) or ejecting.
+    public boolean fireOne() {
+        return fire(State.FIRE_ONE);
+    }
+
+    public boolean fireBurst() {
+        return fire(State.FIRE_BURST);
+    }
+
+    public void stop() {
+        enter(count > 0 ? State.HOLD : State.IDLE);
+    }
+
+    // Preload / correct the count (e.g. 3 at the start of the match).
+    public void setCount(int balls) {
+        count = Math.max(0, Math.min(capacity, balls));
+        if (state == State.IDLE || state == State.HOLD) state = count > 0 ? State.HOLD : State.IDLE;
+    }
+
+    private boolean fire(State mode) {
+        if (!launcher.isOn() || state == State.FIRE_BURST || state == State.EJECT) return false;
+        if (state == State.FIRE_ONE && mode == State.FIRE_ONE) return true;
+        fireNanos = LoopClock.nanoTime();
+        lastShotNanos = 0;
+        if (staged) enter(mode);
+        else {
+            afterStage = mode;
+            enter(State.STAGE);
+        }
+        return true;
+    }
+
+    // ========= UPDATE (every loop, after launcher.update()) =========
+
+    public void update() {
+        long now = LoopClock.nanoTime();
+        double dt = lastNanos == 0 ? 0 : (now - lastNanos) / 1e9;
+        lastNanos = now;
+        if (ejectHeld && state != State.EJECT) enter(State.EJECT);
+        double inState = (now - stateNanos) / 1e9;
+
+        switch (state) {
+            case IDLE:
+            case HOLD:
+                intake.setPower(0);
+                conveyor.setPower(0);
+                if (intakeHeld && count < capacity) enter(State.INTAKE);
+                break;
+
+            case INTAKE:
+                intake.setPower(intakePower);
+                conveyor.setPower(now < indexUntil ? indexPower : 0);
+                if (inState >= INRUSH_S) detectBallIn(now);
+                if (count >= capacity || !intakeHeld) {
+                    if (now < indexUntil) break;          // let the last ball clear the intake
+                    enter(count > 0 ? State.HOLD : State.IDLE);
+                }
+                break;
+
+            case STAGE:
+                intake.setPower(0);
+                if (!launcher.isOn()) {
+                    // switched off: it'd coast down through the dip check
+                    conveyor.setPower(0);
+                    enter(count > 0 ? State.HOLD : State.IDLE);
+                    break;
+                }
+                if (shotDetected()) {
+                    // staged too far: that one went in
+                    shot(now);
+                    if (afterStage == State.FIRE_BURST && count > 0) enter(State.STAGE);
+                    else enter(count > 0 ? State.HOLD : State.IDLE);
+                    break;
+                }
+                conveyor.setPower(indexPower);
+                if (inState >= stageTimeS()) {
+                    staged = true;
+                    shotSinceStage = false;
+                    enter(afterStage);
+                }
+                break;
+
+            case FIRE_ONE:
+            case FIRE_BURST:
+                updateFire(now, dt);
+                break;
+
+            case EJECT:
+                intake.setPower(-intakePower);
+                conveyor.setPower(-indexPower);
+                count = Math.max(0, countAtEject - (int) (inState / indexS));
+                if (!ejectHeld) {
+                    intake.setPower(0);
+                    conveyor.setPower(0);
+                    enter(count > 0 ? State.HOLD : State.IDLE);
+                }
+                break;
+        }
+    }
+
+    // The stack sits one index lower for every ball short of a full load,
+    // unless it was pushed up behind a shot.
+    private double stageTimeS() {
+        if (shotSinceStage) return restageS;
+        return stageS + Math.max(0, capacity - Math.max(count, 1)) * indexS;
+    }
+
+    private void shot(long now) {
+        count = Math.max(0, count - 1);
+        staged = false;
+        shotSinceStage = true;
+        ballsOut++;
+        lastShotNanos = now;
+        lastCycleS = (now - fireNanos) / 1e9;
+        conveyor.setPower(0);
+    }
+
+    private void updateFire(long now, double dt) {
+        intake.setPower(0);
+        boolean burst = state == State.FIRE_BURST;
+
+        if (!launcher.isOn()) {
+            // switched off mid-fire: nothing will ever be at speed again
+            conveyor.setPower(0);
+            enter(count > 0 ? State.HOLD : State.IDLE);
+            return;
+        }
+
+        if (shotDetected()) {
+            shot(now);
+            if (!burst || count == 0) enter(count > 0 ? State.HOLD : State.IDLE);
+            else {
+                afterStage = State.FIRE_BURST;       // bring the next one up while the wheel recovers
+                enter(State.STAGE);
+            }
+            return;
+        }
+
+        boolean gate;
+        if (!burst) gate = launcher.atSpeed();
+        else if (lastShotNanos == 0) gate = launcher.atSpeed();      // first ball: full spin-up
+        else gate = (launcher.atSpeed() || Math.abs(launcher.errorRpm()) <= burstReadyRpm)
+                && (now - lastShotNanos) / 1e9 >= minGapS;
+
+        if (!gate) {
+            conveyor.setPower(0);
+            return;
+        }
+        conveyor.setPower(feedPower);
+        feedingS += dt;
+        if (feedingS >= feedTimeoutS) {
+            // fed that long and nothing went through: we're empty
+            empties++;
+            count = 0;
+            staged = false;
+            conveyor.setPower(0);
+            enter(State.IDLE);
+        }
+    }
+
+    // The launcher counts a shot when it falls out of atSpeed(); a ball that
+    // goes in while it isn't at speed (burst gate, a ball staged into a wheel
+    // still recovering) it never sees. So also look for the dip ourselves,
+    // from the highest RPM since we started staging / feeding or since the
+    // last shot, and report it.
+    private boolean shotDetected() {
+        feedPeakRpm = Math.max(feedPeakRpm, launcher.rpm());
+        if (launcher.shots() != shotsSeen) {
+            shotsSeen = launcher.shots();
+            feedPeakRpm = launcher.rpm();
+            return true;
+        }
+        if (feedPeakRpm - launcher.rpm() > shotDropRpm) {
+            launcher.markShot();
+            shotsSeen = launcher.shots();
+            feedPeakRpm = launcher.rpm();
+            return true;
+        }
+        return false;
+    }
+
+    private void detectBallIn(long now) {
+        if (ballAmps <= 0 || intakeEx == null) return;
+        if ((now - lastAmpsNanos) / 1e9 < 1.0 / CURRENT_HZ) return;
+        lastAmpsNanos = now;
+        amps = intakeEx.getCurrent(CurrentUnit.AMPS);
+        if (Double.isNaN(baseline)) baseline = amps;
+
+        boolean over = amps > baseline + ballAmps;
+        if (!ballInIntake) {
+            if (!over) {
+                overSince = 0;
+                baseline += BASELINE_SMOOTH * (amps - baseline);
+            } else if (overSince == 0) {
+                overSince = now;
+            } else if ((now - overSince) / 1e9 >= ballMinS) {
+                ballInIntake = true;
+                count = Math.min(capacity, count + 1);
+                ballsIn++;
+                indexUntil = now + (long) (indexS * 1e9);
+            }
+        } else if (amps < baseline + ballAmps / 2) {
+            ballInIntake = false;                 // that ball is through, re-arm
+            overSince = 0;
+        }
+    }
+
+    private void enter(State s) {
+        state = s;
+        stateNanos = LoopClock.nanoTime();
+        feedingS = 0;
+        feedPeakRpm = launcher.rpm();
+        shotsSeen = launcher.shots();
+        if (s == State.EJECT) {
+            countAtEject = count;
+            staged = false;                       // the stack is going back down
+            shotSinceStage = false;
+        }
+        if (s == State.INTAKE) {
+            baseline = Double.NaN;
+            ballInIntake = false;
+            overSince = 0;
+        }
+    }
+
+    // ========= READ =========
+
+    public State state()          { return state; }
+    public int count()            { return count; }
+    public boolean staged()       { return staged; }
+    public boolean firing()       { return state == State.FIRE_ONE || state == State.FIRE_BURST; }
+    public double intakeAmps()    { return amps; }
+    public long ballsIn()         { return ballsIn; }
+    public long ballsOut()        { return ballsOut; }
+    public long empties()         { return empties; }
+    public double lastCycleS()    { return lastCycleS; }
+
+    // ========= TELEMETRY =========
+
+    private TelemetryPublisher tele;
+    private int lineState;
+
+    public void addTelemetry(TelemetryPublisher tele) {
+        this.tele = tele;
+        lineState = tele.addText("Indexer");
+    }
+
+    public void updateTelemetry() {
+        if (tele == null) return;
+        tele.setText(lineState, String.format(Locale.US, "%s, %d on board%s | in %d out %d | cycle %.2f s",
+                state, count, staged ? " (staged)" : "", ballsIn, ballsOut, lastCycleS));
+    }
+}
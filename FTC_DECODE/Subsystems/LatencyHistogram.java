@@ -0,0 +1,75 @@
+package org.firstinspires.ftc.teamcode;
+
+// Fixed-size latency histogram in microseconds, HdrHistogram style:
+// exact buckets below 16 us, then 16 linear sub-buckets per power of two, so
+// every recorded value is within ~6% of its bucket. 336 longs cover up to
+// ~16 s; record() is a couple of shifts and an increment, no allocation.
+public class LatencyHistogram {
+
+    private static final int SUB_BITS = 4;
+    private static final int SUB_COUNT = 1 << SUB_BITS;          // 16
+    private static final int MAX_EXP = 23;                       // 2^24 us ~ 16.7 s
+    private static final int BUCKETS = SUB_COUNT + (MAX_EXP - SUB_BITS + 1) * SUB_COUNT;
+    private static final long MAX_US = (1L << (MAX_EXP + 1)) - 1;
+
+    private final long[] counts = new long[BUCKETS];
+    private long count = 0;
+    private long sumUs = 0;
+    private long maxUs = 0;
+
+    public void recordNanos(long nanos) {
+        record(nanos / 1000);
+    }
+
+    public void record(long us) {
+        if (us < 0) us = 0;
+        if (us > MAX_US) us = MAX_US;
+        counts[index(us)]++;
+        count++;
+        sumUs += us;
+        if (us > maxUs) maxUs = us;
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) counts[i] = 0;
+        count = 0;
+        sumUs = 0;
+        maxUs = 0;
+    }
+
+    // ========= READOUTS (all in us) =========
+
+    public long count() { return count; }
+    public long max()   { return maxUs; }
+    public double mean() { return count == 0 ? 0 : (double) sumUs / count; }
+
+    // Upper edge of the bucket holding the p-th percentile (p in 0..100).
+    public long percentile(double p) {
+        if (count == 0) return 0;
+        long rank = (long) Math.ceil(p / 100.0 * count);
+        if (rank < 1) rank = 1;
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) return Math.min(upperEdge(i), maxUs);
+        }
+        return maxUs;
+    }
+
+    // ========= BUCKETS =========
+
+    private static int index(long us) {
+        if (us < SUB_COUNT) return (int) us;
+        int exp = 63 - Long.numberOfLeadingZeros(us);           // >= SUB_BITS
+        int sub = (int) (us >> (exp - SUB_BITS)) - SUB_COUNT;   // 0..15
+        return SUB_COUNT + (exp - SUB_BITS) * SUB_COUNT + sub;
+    }
+
+    private static long upperEdge(int index) {
+        if (index < SUB_COUNT) return index;
+        int exp = SUB_BITS + (index - SUB_COUNT) / SUB_COUNT;
+        int sub = (index - SUB_COUNT) % SUB_COUNT;
+        int shift = exp - SUB_BITS;
+        return ((long) (SUB_COUNT + sub) << shift) + (1L << shift) - 1;
+    }
+}
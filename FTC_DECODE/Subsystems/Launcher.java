@@ -0,0 +1,333 @@
+package org.firstinspires.ftc.teamcode;
+
+import com.qualcomm.robotcore.hardware.DcMotor;
+import com.qualcomm.robotcore.hardware.DcMotorEx;
+import com.qualcomm.robotcore.hardware.DcMotorSimple;
+import com.qualcomm.robotcore.hardware.HardwareMap;
+import com.qualcomm.robotcore.hardware.VoltageSensor;
+
+// Flywheel launcher held at a target RPM, with a "ready to feed" signal.
+//
+// Control, every update():
+//   power = (12 V / battery) * (kS + kV * target + PID(target - rpm))
+// kS/kV is the feedforward (what it takes to hold a speed with no error), the
+// PID only cleans up what's left, and the whole command is scaled by the
+// battery so 13.5 V and 11.8 V give the same RPM. Velocity comes from the
+// loop's EncoderSnapshot when the launcher motor is in it (velocityFrom()),
+// otherwise straight from DcMotorEx.getVelocity().
+//
+// useHubLoop(true) instead sends setVelocity() and lets the hub run its own
+// velocity PIDF at ~1 kHz; F is set from kV and re-scaled when the battery
+// moves. The hub has no kS, so this is the fallback if our loop is too slow.
+//
+// atSpeed(): on once the error has been within readyRpm for settleS, off again
+// only when it leaves dropRpm (hysteresis, so noise doesn't flicker the feed
+// gate). Falling out of atSpeed() below the target counts as a shot, however
+// slowly the ball dragged the wheel down; the time until atSpeed() comes back
+// is that shot's recovery time.
+//
+// setTargetRpm() every loop is fine: a move within readyRpm (a table target
+// following a noisy range) keeps the integral and atSpeed(). Turning on or
+// off, or a step bigger than that, starts the settle over.
+//
+// This robot's launcher (direction, encoder, tuned gains) is newLauncher();
+// every OpMode builds it there, so there is one place to flip or retune it.
+//
+//   launcher = Launcher.newLauncher(motors.get("launcher"), hardwareMap)
+//           .velocityFrom(encoders, LAUNCHER);       // optional, see above
+//   launcher.setTargetRpm(3000);
+//   loop:  encoders.capture();  launcher.update();  if (launcher.atSpeed()) feed();
+public class Launcher {
+
+    // ====== THIS ROBOT'S LAUNCHER (LauncherCalibration tunes the table, not these) ======
+    public static final DcMotorSimple.Direction DIRECTION = DcMotorSimple.Direction.FORWARD;   // flip if it spins backward
+    public static final double TICKS_PER_REV = 28;       // bare motor encoder, 1:1 to the wheel
+    public static final double KS = 0.0;                 // power to just keep it turning
+    public static final double KV = 1.0 / 6000;          // power per rpm at 12 V (1 / free rpm)
+    public static final double KP = 0.0006;              // power per rpm of error
+    public static final double KI = 0.0015;
+
+    public static final double NOMINAL_VOLTS = 12.0;
+    private static final double VOLTAGE_HZ = 5.0;          // battery read is a hub transaction
+    private static final double VOLTAGE_SMOOTH = 0.3;      // EMA weight per read
+    private static final double HUB_F_RESCALE_V = 0.2;     // re-send hub F when the battery moved this much
+
+    private final CachedMotor motor;
+    private final DcMotorEx ex;
+    private final VoltageSensor battery;      // may be null -> NOMINAL_VOLTS
+    private final double ticksPerRev;         // at the flywheel
+    private EncoderSnapshot encoders;         // null -> ex.getVelocity()
+    private int encoderIndex;
+
+    // ====== GAINS (power, rpm) ======
+    private double kS = 0, kV = 0;
+    private double kP = 0, kI = 0, kD = 0;
+    private double maxIntegral = 0.2;         // power
+    private boolean hubLoop = false;
+    private double hubP = 10, hubI = 3, hubD = 0;
+    private double hubFVolts = 0;
+    private double hubTicksSent = Double.NaN;
+
+    // ====== READY / SHOT ======
+    private double readyRpm = 50, dropRpm = 150, settleS = 0.05;
+
+    // ====== STATE ======
+    private double targetRpm = 0;
+    private double rpm = 0, power = 0;
+    private double volts = NOMINAL_VOLTS;
+    private double integral = 0, lastErr = 0;
+    private long lastNanos = 0, lastVoltNanos = 0;
+    private boolean atSpeed = false;
+    private long inBandSince = 0;
+
+    // ====== SHOT STATS ======
+    private long shots = 0;
+    private long shotNanos = 0;               // 0 = not recovering
+    private double lastRecoveryS = 0, maxRecoveryS = 0, sumRecoveryS = 0;
+    private long recovered = 0;
+    private double dipRpm = 0, lastDipRpm = 0;
+
+    public Launcher(CachedMotor motor, VoltageSensor battery, double ticksPerRev) {
+        this.motor = motor;
+        this.ex = (DcMotorEx) motor.motor();
+        this.battery = battery;
+        this.ticksPerRev = ticksPerRev;
+        motor.setMode(DcMotor.RunMode.RUN_WITHOUT_ENCODER);
+        motor.setZeroPowerBehavior(DcMotor.ZeroPowerBehavior.FLOAT);   // coast down, don't brake the wheel
+        if (battery != null) volts = battery.getVoltage();
+    }
+
+    // First voltage sensor on the robot (the Control Hub's).
+    public Launcher(CachedMotor motor, HardwareMap hardwareMap, double ticksPerRev) {
+        this(motor, firstVoltageSensor(hardwareMap), ticksPerRev);
+    }
+
+    // The robot's launcher with its tuned gains; starts off.
+    public static Launcher newLauncher(CachedMotor motor, HardwareMap hardwareMap) {
+        motor.setDirection(DIRECTION);
+        return new Launcher(motor, hardwareMap, TICKS_PER_REV)
+                .feedforward(KS, KV)
+                .pid(KP, KI, 0);
+    }
+
+    private static VoltageSensor firstVoltageSensor(HardwareMap hardwareMap) {
+        for (VoltageSensor v : hardwareMap.voltageSensor) return v;
+        return null;
+    }
+
+    // kS: power to just keep it turning; kV: power per rpm (both at 12 V).
+    public Launcher feedforward(double kS, double kV) {
+        this.kS = kS;
+        this.kV = kV;
+        hubFVolts = 0;
+        return this;
+    }
+
+    // Power per rpm of error, per rpm*s, per rpm/s.
+    public Launcher pid(double kP, double kI, double kD) {
+        this.kP = kP;
+        this.kI = kI;
+        this.kD = kD;
+        return this;
+    }
+
+    public Launcher maxIntegral(double power) {
+        maxIntegral = power;
+        return this;
+    }
+
+    // atSpeed() hysteresis: on within readyRpm for settleS, off outside dropRpm.
+    public Launcher ready(double readyRpm, double dropRpm, double settleS) {
+        this.readyRpm = readyRpm;
+        this.dropRpm = dropRpm;
+        this.settleS = settleS;
+        return this;
+    }
+
+    // Read the wheel speed from this snapshot (index of the launcher motor in
+    // it) instead of asking the motor; capture() before update().
+    public Launcher velocityFrom(EncoderSnapshot encoders, int index) {
+        this.encoders = encoders;
+        this.encoderIndex = index;
+        return this;
+    }
+
+    // Hub velocity PIDF (its own units) instead of our loop; F comes from kV.
+    public Launcher useHubLoop(boolean on, double p, double i, double d) {
+        hubLoop = on;
+        hubP = p;
+        hubI = i;
+        hubD = d;
+        hubFVolts = 0;
+        hubTicksSent = Double.NaN;
+        motor.setMode(on ? DcMotor.RunMode.RUN_USING_ENCODER : DcMotor.RunMode.RUN_WITHOUT_ENCODER);
+        return this;
+    }
+
+    // ========= COMMANDS =========
+
+    public void setTargetRpm(double rpm) {
+        boolean onOff = (rpm == 0) != (targetRpm == 0);
+        if (onOff || Math.abs(rpm - targetRpm) > readyRpm) {
+            integral = 0;
+            atSpeed = false;
+            inBandSince = 0;
+        }
+        targetRpm = rpm;
+    }
+
+    public void stop() {
+        setTargetRpm(0);
+    }
+
+    // The feeder saw a ball go (it can tell before the wheel leaves atSpeed()).
+    // The same shot isn't counted twice: while recovering, this is that shot.
+    public void markShot() {
+        if (shotNanos != 0) return;
+        shots++;
+        shotNanos = LoopClock.nanoTime();
+        dipRpm = rpm;
+    }
+
+    // ========= UPDATE (every loop, after the bulk read) =========
+
+    public void update() {
+        long now = LoopClock.nanoTime();
+        double dt = lastNanos == 0 ? 0 : (now - lastNanos) / 1e9;
+        lastNanos = now;
+
+        readBattery(now);
+        double ticksPerSec = encoders != null ? encoders.velocity(encoderIndex) : ex.getVelocity();
+        rpm = ticksPerSec * 60.0 / ticksPerRev;
+
+        if (targetRpm == 0) {
+            power = 0;
+            integral = 0;
+            atSpeed = false;
+            shotNanos = 0;
+            hubTicksSent = Double.NaN;
+            motor.setPower(0);
+            return;
+        }
+
+        double err = targetRpm - rpm;
+        updateReady(err, now);
+
+        if (hubLoop) {
+            sendHubF();
+            double ticks = targetRpm * ticksPerRev / 60.0;
+            if (ticks != hubTicksSent) {
+                ex.setVelocity(ticks);
+                hubTicksSent = ticks;
+                motor.invalidate();          // the cached power no longer matches the hub
+            }
+            power = kV * targetRpm * NOMINAL_VOLTS / volts;    // what the F term asks for
+            return;
+        }
+
+        double ff = Math.copySign(kS, targetRpm) + kV * targetRpm;
+        double deriv = dt > 0 ? (err - lastErr) / dt : 0;
+        lastErr = err;
+        double comp = NOMINAL_VOLTS / volts;
+        double out = comp * (ff + kP * err + kI * integral + kD * deriv);
+
+        // integrate only while it can still act (not saturated the same way)
+        if (dt > 0 && !(Math.abs(out) >= 1 && Math.signum(out) == Math.signum(err))) {
+            integral += err * dt;
+            if (kI > 0) integral = clip(integral, -maxIntegral / kI, maxIntegral / kI);
+        }
+        power = clip(out, -1, 1);
+        motor.setPower(power);
+    }
+
+    private void updateReady(double err, long now) {
+        double absErr = Math.abs(err);
+        if (shotNanos != 0) dipRpm = Math.min(dipRpm, rpm);
+
+        if (atSpeed) {
+            if (absErr > dropRpm) {
+                atSpeed = false;
+                inBandSince = 0;
+                // out below the target: a ball took the speed (unless the feeder already said so)
+                if (err > 0 && shotNanos == 0) {
+                    shots++;
+                    shotNanos = now;
+                    dipRpm = rpm;
+                }
+            }
+        } else if (absErr <= readyRpm) {
+            if (inBandSince == 0) inBandSince = now;
+            if ((now - inBandSince) / 1e9 >= settleS) {
+                atSpeed = true;
+                if (shotNanos != 0) {
+                    lastRecoveryS = (now - shotNanos) / 1e9;
+                    maxRecoveryS = Math.max(maxRecoveryS, lastRecoveryS);
+                    sumRecoveryS += lastRecoveryS;
+                    recovered++;
+                    lastDipRpm = dipRpm;
+                    shotNanos = 0;
+                }
+            }
+        } else {
+            inBandSince = 0;
+        }
+    }
+
+    private void readBattery(long now) {
+        if (battery == null || (now - lastVoltNanos) / 1e9 < 1.0 / VOLTAGE_HZ) return;
+        lastVoltNanos = now;
+        double v = battery.getVoltage();
+        if (v > 6) volts += VOLTAGE_SMOOTH * (v - volts);     // 0 = sensor not ready yet
+    }
+
+    // Hub F is power/32767 per tick/s; only re-sent when the battery moved.
+    private void sendHubF() {
+        if (Math.abs(volts - hubFVolts) < HUB_F_RESCALE_V) return;
+        hubFVolts = volts;
+        double f = kV * 60.0 / ticksPerRev * 32767 * NOMINAL_VOLTS / volts;
+        ex.setVelocityPIDFCoefficients(hubP, hubI, hubD, f);
+    }
+
+    private static double clip(double v, double lo, double hi) {
+        return Math.max(lo, Math.min(hi, v));
+    }
+
+    // ========= READ =========
+
+    public double rpm()              { return rpm; }
+    public double targetRpm()        { return targetRpm; }
+    public double errorRpm()         { return targetRpm - rpm; }
+    public double power()            { return power; }
+    public double batteryVolts()     { return volts; }
+    public boolean atSpeed()         { return atSpeed; }
+    public boolean isOn()            { return targetRpm != 0; }
+
+    public long shots()              { return shots; }
+    public boolean recovering()      { return shotNanos != 0; }
+    public double lastRecoveryS()    { return lastRecoveryS; }
+    public double maxRecoveryS()     { return maxRecoveryS; }
+    public double meanRecoveryS()    { return recovered == 0 ? 0 : sumRecoveryS / recovered; }
+    public double lastDipRpm()       { return lastDipRpm; }
+
+    // ========= TELEMETRY =========
+
+    private TelemetryPublisher tele;
+    private int lineSpeed, lineShots;
+
+    public void addTelemetry(TelemetryPublisher tele) {
+        this.tele = tele;
+        lineSpeed = tele.addLine("Launcher", 0, "rpm ", "target ", "pwr% ", "shots ");
+        lineShots = tele.addLine("  recovery", 2, "last s ", "max s ", "batt V ");
+    }
+
+    public void updateTelemetry() {
+        if (tele == null) return;
+        tele.set(lineSpeed, 0, rpm);
+        tele.set(lineSpeed, 1, targetRpm);
+        tele.set(lineSpeed, 2, power * 100);
+        tele.set(lineSpeed, 3, shots);
+        tele.set(lineShots, 0, lastRecoveryS);
+        tele.set(lineShots, 1, maxRecoveryS);
+        tele.set(lineShots, 2, volts);
+    }
+}
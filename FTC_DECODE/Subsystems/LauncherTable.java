@@ -0,0 +1,201 @@
+package org.firstinspires.ftc.teamcode;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Locale;
+
+// Distance to the goal -> launcher RPM, from calibrated shots.
+//
+// The points live in one sorted double[] (range, rpm, slope, range, rpm,
+// slope, ...), so a lookup is a binary search and a few multiplies over one
+// small array, nothing allocated. Between points it interpolates with a
+// monotone cubic (the slopes are set up so the curve never overshoots the
+// measured points, unlike a plain spline), or linearly with linear(true).
+// Outside the table it holds the end values rather than extrapolating.
+//
+// Range = floor distance from the robot centre to the goal tag, inches (what
+// PoseEKF.robotRangeIn() / distanceToTagIn() give).
+//
+// On the Control Hub the table is a CSV, one "range_in,rpm" per line, written
+// by the LauncherCalibration OpMode:
+//
+//   table = LauncherTable.load(LauncherTable.DEFAULT_PATH, LauncherTable.defaults());
+//   launcher.setTargetRpm(table.rpmAt(rangeIn));
+public class LauncherTable {
+
+    public static final String DEFAULT_PATH = "/sdcard/FIRST/launcher_table.csv";
+    public static final double MERGE_IN = 2.0;      // put() within this of a point replaces it
+
+    private static final int STRIDE = 3;            // range, rpm, slope
+    private double[] t;
+    private int n;
+    private boolean linear = false;
+
+    public LauncherTable(double[] rangeIn, double[] rpm) {
+        if (rangeIn.length != rpm.length) throw new IllegalArgumentException("range/rpm length mismatch");
+        t = new double[0];
+        n = 0;
+        for (int i = 0; i < rangeIn.length; i++) put(rangeIn[i], rpm[i]);
+    }
+
+    // Until the robot has been calibrated: a rough line through two spots.
+    public static LauncherTable defaults() {
+        return new LauncherTable(new double[] {36, 120}, new double[] {3400, 4800});
+    }
+
+    public LauncherTable linear(boolean on) {
+        linear = on;
+        return this;
+    }
+
+    // ========= LOOKUP =========
+
+    public double rpmAt(double rangeIn) {
+        if (n == 0) return 0;
+        if (rangeIn <= t[0]) return t[1];
+        int last = (n - 1) * STRIDE;
+        if (rangeIn >= t[last]) return t[last + 1];
+
+        // last point at or below rangeIn
+        int lo = 0, hi = n - 1;
+        while (hi - lo > 1) {
+            int mid = (lo + hi) >>> 1;
+            if (t[mid * STRIDE] <= rangeIn) lo = mid;
+            else hi = mid;
+        }
+        int a = lo * STRIDE, b = a + STRIDE;
+        double x0 = t[a], y0 = t[a + 1], x1 = t[b], y1 = t[b + 1];
+        double h = x1 - x0, s = (rangeIn - x0) / h;
+        if (linear) return y0 + s * (y1 - y0);
+
+        // cubic Hermite with the stored slopes
+        double s2 = s * s, s3 = s2 * s;
+        return (2 * s3 - 3 * s2 + 1) * y0 + (s3 - 2 * s2 + s) * h * t[a + 2]
+             + (-2 * s3 + 3 * s2) * y1 + (s3 - s2) * h * t[b + 2];
+    }
+
+    // ========= EDIT (calibration; allocates, not for the loop) =========
+
+    // Adds a point, or replaces the one within MERGE_IN of it.
+    public void put(double rangeIn, double rpm) {
+        int i = nearest(rangeIn);
+        if (i >= 0 && Math.abs(t[i * STRIDE] - rangeIn) <= MERGE_IN) {
+            t[i * STRIDE] = rangeIn;
+            t[i * STRIDE + 1] = rpm;
+        } else {
+            double[] grown = new double[(n + 1) * STRIDE];
+            int k = 0;
+            while (k < n && t[k * STRIDE] < rangeIn) k++;
+            System.arraycopy(t, 0, grown, 0, k * STRIDE);
+            grown[k * STRIDE] = rangeIn;
+            grown[k * STRIDE + 1] = rpm;
+            System.arraycopy(t, k * STRIDE, grown, (k + 1) * STRIDE, (n - k) * STRIDE);
+            t = grown;
+            n++;
+        }
+        computeSlopes();
+    }
+
+    // Drops the point nearest rangeIn (a bad shot); false if the table is empty.
+    public boolean removeNearest(double rangeIn) {
+        int i = nearest(rangeIn);
+        if (i < 0) return false;
+        double[] shrunk = new double[(n - 1) * STRIDE];
+        System.arraycopy(t, 0, shrunk, 0, i * STRIDE);
+        System.arraycopy(t, (i + 1) * STRIDE, shrunk, i * STRIDE, (n - 1 - i) * STRIDE);
+        t = shrunk;
+        n--;
+        computeSlopes();
+        return true;
+    }
+
+    private int nearest(double rangeIn) {
+        int best = -1;
+        for (int i = 0; i < n; i++) {
+            if (best < 0 || Math.abs(t[i * STRIDE] - rangeIn) < Math.abs(t[best * STRIDE] - rangeIn)) best = i;
+        }
+        return best;
+    }
+
+    // Fritsch-Carlson: secant-based slopes, zeroed at local extremes and
+    // limited so each segment stays monotone.
+    private void computeSlopes() {
+        if (n < 2) {
+            if (n == 1) t[2] = 0;
+            return;
+        }
+        for (int i = 0; i < n; i++) {
+            double m;
+            if (i == 0) m = secant(0);
+            else if (i == n - 1) m = secant(n - 2);
+            else {
+                double left = secant(i - 1), right = secant(i);
+                m = left * right <= 0 ? 0 : (left + right) / 2;
+            }
+            t[i * STRIDE + 2] = m;
+        }
+        for (int i = 0; i < n - 1; i++) {
+            double d = secant(i);
+            if (d == 0) {
+                t[i * STRIDE + 2] = 0;
+                t[(i + 1) * STRIDE + 2] = 0;
+                continue;
+            }
+            double a = t[i * STRIDE + 2] / d, b = t[(i + 1) * STRIDE + 2] / d;
+            double r = a * a + b * b;
+            if (r > 9) {
+                double k = 3 / Math.sqrt(r);
+                t[i * STRIDE + 2] = k * a * d;
+                t[(i + 1) * STRIDE + 2] = k * b * d;
+            }
+        }
+    }
+
+    private double secant(int i) {
+        int a = i * STRIDE, b = a + STRIDE;
+        return (t[b + 1] - t[a + 1]) / (t[b] - t[a]);
+    }
+
+    // ========= FILE =========
+
+    // The table in the file, or fallback if there is none / it can't be read.
+    public static LauncherTable load(String path, LauncherTable fallback) {
+        File f = new File(path);
+        if (!f.exists()) return fallback;
+        LauncherTable table = new LauncherTable(new double[0], new double[0]);
+        try (BufferedReader in = new BufferedReader(new FileReader(f))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) continue;
+                String[] parts = line.split(",");
+                table.put(Double.parseDouble(parts[0].trim()), Double.parseDouble(parts[1].trim()));
+            }
+        } catch (IOException | RuntimeException e) {
+            return fallback;
+        }
+        return table.size() > 0 ? table : fallback;
+    }
+
+    public boolean save(String path) {
+        try (PrintWriter out = new PrintWriter(new FileWriter(path))) {
+            out.println("# range_in,rpm  (LauncherCalibration)");
+            for (int i = 0; i < n; i++) {
+                out.println(String.format(Locale.US, "%.1f,%.0f", rangeIn(i), rpm(i)));
+            }
+            return !out.checkError();
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    // ========= READ =========
+
+    public int size()               { return n; }
+    public double rangeIn(int i)    { return t[i * STRIDE]; }
+    public double rpm(int i)        { return t[i * STRIDE + 1]; }
+}
@@ -0,0 +1,26 @@
+package org.firstinspires.ftc.teamcode;
+
+// The one place loop code asks "what time is it". On the robot this is just
+// System.nanoTime(); the simulator (Sim/) swaps in its own virtual clock so an
+// OpMode can be stepped faster than real time without changing its code.
+//
+// Anything that measures loop-to-loop time (EncoderSnapshot, rate limits)
+// should read LoopClock.nanoTime() instead of System.nanoTime().
+public final class LoopClock {
+
+    public interface Source {
+        long nanoTime();
+    }
+
+    private static final Source SYSTEM = System::nanoTime;
+    private static volatile Source source = SYSTEM;
+
+    private LoopClock() { }
+
+    public static long nanoTime() { return source.nanoTime(); }
+
+    // Simulator only. null puts the real clock back.
+    public static void setSource(Source s) { source = s == null ? SYSTEM : s; }
+
+    public static boolean isSimulated() { return source != SYSTEM; }
+}
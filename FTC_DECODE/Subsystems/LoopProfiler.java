@@ -0,0 +1,139 @@
+package org.firstinspires.ftc.teamcode;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+
+// Where does our loop() time go? Put a mark() after each phase and every
+// phase gets its own LatencyHistogram (preallocated, nothing per loop):
+//
+//   int STICKS = prof.phase("sticks"), IMU = prof.phase("imu"), ...;   // init
+//   prof.beginLoop();
+//   ...read sticks...   prof.mark(STICKS);
+//   ...imu read...      prof.mark(IMU);
+//   ...
+//   prof.endLoop();
+//
+// Besides the phases it keeps:
+//   loop  = beginLoop() -> endLoop(), our code only
+//   cycle = beginLoop() -> next beginLoop(), includes the SDK between loops
+//           (bulk reads, DS packets); this is the real control rate
+//
+// p50 / p95 / p99 / max go on telemetry (refreshed twice a second, it scans the
+// buckets) and writeLog() dumps a CSV summary, e.g. from stop().
+public class LoopProfiler {
+
+    private static final int MAX_PHASES = 12;
+    private static final long REPORT_PERIOD_NANOS = 500_000_000L;
+
+    private final String[] names = new String[MAX_PHASES];
+    private final LatencyHistogram[] phases = new LatencyHistogram[MAX_PHASES];
+    private int count = 0;
+
+    private final LatencyHistogram loop = new LatencyHistogram();
+    private final LatencyHistogram cycle = new LatencyHistogram();
+
+    private long loopStart = 0, lastMark = 0, prevLoopStart = 0;
+
+    // ====== TELEMETRY ======
+    private TelemetryPublisher tele;
+    private int lineLoop, lineCycle;
+    private final int[] linePhase = new int[MAX_PHASES];
+    private long lastReportNanos = 0;
+
+    // ========= DECLARE (init) =========
+
+    public int phase(String name) {
+        if (count == MAX_PHASES) throw new IllegalStateException("LoopProfiler: too many phases");
+        names[count] = name;
+        phases[count] = new LatencyHistogram();
+        return count++;
+    }
+
+    // ========= RECORD (every loop) =========
+
+    public void beginLoop() {
+        long now = LoopClock.nanoTime();
+        if (prevLoopStart != 0) cycle.recordNanos(now - prevLoopStart);
+        prevLoopStart = now;
+        loopStart = now;
+        lastMark = now;
+    }
+
+    // Time since the previous mark (or beginLoop) goes to this phase.
+    public void mark(int phase) {
+        long now = LoopClock.nanoTime();
+        phases[phase].recordNanos(now - lastMark);
+        lastMark = now;
+    }
+
+    public void endLoop() {
+        loop.recordNanos(LoopClock.nanoTime() - loopStart);
+    }
+
+    public void reset() {
+        loop.reset();
+        cycle.reset();
+        for (int i = 0; i < count; i++) phases[i].reset();
+        prevLoopStart = 0;
+    }
+
+    public LatencyHistogram loop()        { return loop; }
+    public LatencyHistogram cycle()       { return cycle; }
+    public LatencyHistogram phase(int i)  { return phases[i]; }
+
+    // ========= TELEMETRY =========
+
+    // Declare the lines once (start()); loop / cycle in ms, phases in us.
+    public void addTelemetry(TelemetryPublisher tele) {
+        this.tele = tele;
+        lineLoop  = tele.addLine("Loop ms ", 2, "p50 ", "p95 ", "p99 ", "max ");
+        lineCycle = tele.addLine("Cycle ms", 2, "p50 ", "p95 ", "p99 ", "max ");
+        for (int i = 0; i < count; i++) {
+            linePhase[i] = tele.addLine("  " + names[i] + " us", 0, "p50 ", "p99 ", "max ");
+        }
+    }
+
+    public void updateTelemetry() {
+        if (tele == null) return;
+        long now = LoopClock.nanoTime();
+        if (now - lastReportNanos < REPORT_PERIOD_NANOS) return;
+        lastReportNanos = now;
+
+        setMs(lineLoop, loop);
+        setMs(lineCycle, cycle);
+        for (int i = 0; i < count; i++) {
+            tele.set(linePhase[i], 0, phases[i].percentile(50));
+            tele.set(linePhase[i], 1, phases[i].percentile(99));
+            tele.set(linePhase[i], 2, phases[i].max());
+        }
+    }
+
+    private void setMs(int line, LatencyHistogram h) {
+        tele.set(line, 0, h.percentile(50) / 1000.0);
+        tele.set(line, 1, h.percentile(95) / 1000.0);
+        tele.set(line, 2, h.percentile(99) / 1000.0);
+        tele.set(line, 3, h.max() / 1000.0);
+    }
+
+    // ========= LOG =========
+
+    // One CSV row per histogram, all values in us. Returns false if the file
+    // couldn't be written (don't crash an OpMode over a log).
+    public boolean writeLog(String path) {
+        try (PrintWriter out = new PrintWriter(new FileWriter(path))) {
+            out.println("phase,count,mean_us,p50_us,p95_us,p99_us,max_us");
+            row(out, "loop", loop);
+            row(out, "cycle", cycle);
+            for (int i = 0; i < count; i++) row(out, names[i], phases[i]);
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static void row(PrintWriter out, String name, LatencyHistogram h) {
+        out.println(name + "," + h.count() + "," + Math.round(h.mean()) + ","
+                + h.percentile(50) + "," + h.percentile(95) + "," + h.percentile(99) + "," + h.max());
+    }
+}
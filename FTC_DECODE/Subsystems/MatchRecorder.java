@@ -0,0 +1,296 @@
+package org.firstinspires.ftc.teamcode;
+
+import com.qualcomm.robotcore.hardware.Gamepad;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Locale;
+
+// Everything the robot saw and did, one fixed-width binary record per loop,
+// so a match can be looked at (and replayed) afterwards instead of only
+// through telemetry.
+//
+// The file is sized and memory-mapped at init and every page faulted in once
+// with a read (a write would dirty the whole file for the OS to write out
+// while it's still empty), so a record is a handful of stores into the
+// mapping: no allocation, no system call, no waiting on the SD card; the
+// first store to a page is only a minor fault. The OS writes the pages out on its own;
+// they survive the app being killed, only a power cut can lose the tail.
+// close() (from stop()) flushes. Records go round a ring: a long match keeps
+// its last capacity - 1 loops. Any file problem just leaves the recorder off.
+//
+// Record (RECORD_BYTES, little-endian; Sim/MatchLogReader turns a log into CSV):
+//   t since open (ns) | state, aux (e.g. auto state, indexer state) | flags
+//   2 gamepads: 6 axes + button bits | 8 encoders | 8 motor powers
+//   yaw, yaw rate | pose x, y, heading | 4 tags: id, range, bearing, age
+//   4 free values (rpm, target...)
+// Column names (motors, states, values) are in the header.
+//
+//   rec = new MatchRecorder(MatchRecorder.DEFAULT_DIR, "teleop")
+//           .encoders(encoders, "fl", "fr", "bl", "br")     // captured on commit()
+//           .powers(intake, conveyor, launcher)
+//           .heading(imuService)
+//           .values("rpm", "target rpm")
+//           .open();
+//   loop():  rec.gamepad(0, gamepad1); rec.value(0, launcher.rpm()); ...; rec.commit();
+//   stop():  rec.close();
+public class MatchRecorder {
+
+    public static final String DEFAULT_DIR = "/sdcard/FIRST/matchlogs";
+    public static final int DEFAULT_CAPACITY = 60_000;     // ~5 min at 200 loops/s, 14 MB
+    public static final int KEEP_FILES = 20;               // older logs are deleted at open()
+
+    // ====== FORMAT ======
+    public static final int MAGIC = 0x474F4C4D;            // "MLOG"
+    public static final int VERSION = 1;
+    public static final int HEADER_BYTES = 1024;
+    public static final int RECORD_BYTES = 240;
+    public static final int ENCODERS = 8, POWERS = 8, TAGS = 4, VALUES = 4, GAMEPADS = 2;
+
+    // header
+    public static final int H_MAGIC = 0, H_VERSION = 4, H_RECORD = 8, H_CAPACITY = 12;
+    public static final int H_COUNT = 16, H_WALL_MS = 24, H_LABELS = 32;   // labels: short length + UTF-8
+
+    // record
+    public static final int R_T = 0, R_STATE = 8, R_AUX = 12, R_FLAGS = 16;
+    public static final int R_GAMEPAD = 20, GAMEPAD_BYTES = 28;            // lx ly rx ry lt rt, buttons
+    public static final int R_ENCODERS = 76, R_POWERS = 108, R_YAW = 140, R_YAW_RATE = 144;
+    public static final int R_POSE = 148;                                   // x, y, heading deg
+    public static final int R_TAGS = 160, TAG_BYTES = 16;                  // id, range, bearing, age
+    public static final int R_VALUES = 224;
+
+    // flags: which optional parts a record has
+    public static final int F_GAMEPAD0 = 1, F_GAMEPAD1 = 2, F_HEADING = 4, F_POSE = 8;
+
+    // buttons, bit i
+    public static final String[] BUTTONS = {"a", "b", "x", "y", "dpad_up", "dpad_down", "dpad_left", "dpad_right",
+            "left_bumper", "right_bumper", "left_stick_button", "right_stick_button", "back", "start", "guide"};
+
+    private final File dir;
+    private final String name;
+    private final int capacity;
+
+    // ====== SOURCES (captured on commit) ======
+    private EncoderSnapshot encoders;
+    private CachedMotor[] motors = new CachedMotor[0];
+    private HeadingSource heading;
+    private final StringBuilder labels = new StringBuilder();
+
+    // ====== RUNTIME ======
+    private MappedByteBuffer buf;
+    private File file;
+    private long count = 0;
+    private int slot = HEADER_BYTES;      // byte offset of the record being filled
+    private long openNanos = 0;
+    private static volatile byte sink;    // keeps the pre-fault reads
+
+    public MatchRecorder(String dir, String name, int capacity) {
+        this.dir = new File(dir);
+        this.name = name;
+        this.capacity = capacity;
+    }
+
+    public MatchRecorder(String dir, String name) {
+        this(dir, name, DEFAULT_CAPACITY);
+    }
+
+    // ========= SETUP (before open) =========
+
+    public MatchRecorder encoders(EncoderSnapshot snapshot, String... names) {
+        encoders = snapshot;
+        return label("enc", names);
+    }
+
+    public MatchRecorder powers(CachedMotor... motors) {
+        this.motors = Arrays.copyOf(motors, Math.min(POWERS, motors.length));
+        String[] names = new String[this.motors.length];
+        for (int i = 0; i < names.length; i++) names[i] = this.motors[i].name();
+        return label("pow", names);
+    }
+
+    public MatchRecorder heading(HeadingSource source) {
+        heading = source;
+        return this;
+    }
+
+    public MatchRecorder values(String... names)    { return label("val", names); }
+    public MatchRecorder states(String... names)    { return label("state", names); }
+    public MatchRecorder states(Enum<?>[] values)   { return label("state", enumNames(values)); }
+    public MatchRecorder aux(Enum<?>[] values)      { return label("aux", enumNames(values)); }
+
+    private MatchRecorder label(String key, String[] names) {
+        if (labels.length() > 0) labels.append(';');
+        labels.append(key).append('=');
+        for (int i = 0; i < names.length; i++) {
+            if (i > 0) labels.append(',');
+            labels.append(names[i].replace(',', ' ').replace(';', ' '));
+        }
+        return this;
+    }
+
+    private static String[] enumNames(Enum<?>[] values) {
+        String[] names = new String[values.length];
+        for (int i = 0; i < values.length; i++) names[i] = values[i].name();
+        return names;
+    }
+
+    // Creates <dir>/<name>-<date>.mlog at full size and maps it. If that
+    // fails the recorder stays off (isOpen() false) and every call is a no-op.
+    public MatchRecorder open() {
+        close();
+        if (!dir.isDirectory() && !dir.mkdirs()) return this;
+        prune();
+        String stamp = new SimpleDateFormat("yyyyMMdd-HHmmss", Locale.US).format(new Date());
+        file = new File(dir, name + "-" + stamp + ".mlog");
+        long size = HEADER_BYTES + (long) capacity * RECORD_BYTES;
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw");
+             FileChannel ch = raf.getChannel()) {
+            raf.setLength(size);
+            buf = ch.map(FileChannel.MapMode.READ_WRITE, 0, size);   // stays valid after close
+        } catch (IOException | RuntimeException e) {
+            buf = null;
+            return this;
+        }
+        buf.order(ByteOrder.LITTLE_ENDIAN);
+        byte touched = 0;
+        for (int i = 0; i < size; i += 4096) touched ^= buf.get(i);   // fault every page in now
+        sink = touched;
+
+        byte[] text = labels.toString().getBytes(StandardCharsets.UTF_8);
+        int n = Math.min(text.length, HEADER_BYTES - H_LABELS - 2);
+        buf.putInt(H_MAGIC, MAGIC);
+        buf.putInt(H_VERSION, VERSION);
+        buf.putInt(H_RECORD, RECORD_BYTES);
+        buf.putInt(H_CAPACITY, capacity);
+        buf.putLong(H_COUNT, 0);
+        buf.putLong(H_WALL_MS, System.currentTimeMillis());
+        buf.putShort(H_LABELS, (short) n);
+        for (int i = 0; i < n; i++) buf.put(H_LABELS + 2 + i, text[i]);
+
+        count = 0;
+        slot = HEADER_BYTES;
+        openNanos = LoopClock.nanoTime();
+        clearSlot();
+        return this;
+    }
+
+    // keep the newest KEEP_FILES - 1 logs, so this one makes KEEP_FILES
+    private void prune() {
+        File[] logs = dir.listFiles((d, n) -> n.endsWith(".mlog"));
+        if (logs == null || logs.length < KEEP_FILES) return;
+        Arrays.sort(logs, (a, b) -> Long.compare(a.lastModified(), b.lastModified()));
+        for (int i = 0; i <= logs.length - KEEP_FILES; i++) logs[i].delete();
+    }
+
+    // ========= ONE RECORD (fill, then commit) =========
+
+    public void state(int state)  { if (buf != null) buf.putInt(slot + R_STATE, state); }
+    public void aux(int aux)      { if (buf != null) buf.putInt(slot + R_AUX, aux); }
+
+    public void gamepad(int index, Gamepad g) {
+        if (buf == null || index < 0 || index >= GAMEPADS) return;
+        int o = slot + R_GAMEPAD + index * GAMEPAD_BYTES;
+        buf.putFloat(o, g.left_stick_x);
+        buf.putFloat(o + 4, g.left_stick_y);
+        buf.putFloat(o + 8, g.right_stick_x);
+        buf.putFloat(o + 12, g.right_stick_y);
+        buf.putFloat(o + 16, g.left_trigger);
+        buf.putFloat(o + 20, g.right_trigger);
+        int b = (g.a ? 1 : 0) | (g.b ? 1 << 1 : 0) | (g.x ? 1 << 2 : 0) | (g.y ? 1 << 3 : 0)
+                | (g.dpad_up ? 1 << 4 : 0) | (g.dpad_down ? 1 << 5 : 0)
+                | (g.dpad_left ? 1 << 6 : 0) | (g.dpad_right ? 1 << 7 : 0)
+                | (g.left_bumper ? 1 << 8 : 0) | (g.right_bumper ? 1 << 9 : 0)
+                | (g.left_stick_button ? 1 << 10 : 0) | (g.right_stick_button ? 1 << 11 : 0)
+                | (g.back ? 1 << 12 : 0) | (g.start ? 1 << 13 : 0) | (g.guide ? 1 << 14 : 0);
+        buf.putInt(o + 24, b);
+        flag(index == 0 ? F_GAMEPAD0 : F_GAMEPAD1);
+    }
+
+    public void pose(double x, double y, double headingDeg) {
+        if (buf == null) return;
+        buf.putFloat(slot + R_POSE, (float) x);
+        buf.putFloat(slot + R_POSE + 4, (float) y);
+        buf.putFloat(slot + R_POSE + 8, (float) headingDeg);
+        flag(F_POSE);
+    }
+
+    // Tag slot i (0..TAGS-1); id 0 = nothing in that slot.
+    public void tag(int i, int id, double rangeIn, double bearingDeg, double ageS) {
+        if (buf == null || i < 0 || i >= TAGS) return;
+        int o = slot + R_TAGS + i * TAG_BYTES;
+        buf.putInt(o, id);
+        buf.putFloat(o + 4, (float) rangeIn);
+        buf.putFloat(o + 8, (float) bearingDeg);
+        buf.putFloat(o + 12, (float) ageS);
+    }
+
+    public void value(int i, double v) {
+        if (buf == null || i < 0 || i >= VALUES) return;
+        buf.putFloat(slot + R_VALUES + 4 * i, (float) v);
+    }
+
+    private void flag(int f) {
+        buf.putInt(slot + R_FLAGS, buf.getInt(slot + R_FLAGS) | f);
+    }
+
+    // Stamp the time, take the registered sources, move on to the next slot.
+    public void commit() {
+        if (buf == null) return;
+        buf.putLong(slot + R_T, LoopClock.nanoTime() - openNanos);
+        if (encoders != null) {
+            int n = Math.min(ENCODERS, encoders.size());
+            for (int i = 0; i < n; i++) buf.putInt(slot + R_ENCODERS + 4 * i, encoders.position(i));
+        }
+        for (int i = 0; i < motors.length; i++) {
+            buf.putFloat(slot + R_POWERS + 4 * i, (float) motors[i].getPower());
+        }
+        if (heading != null) {
+            buf.putFloat(slot + R_YAW, (float) heading.yawDeg());
+            buf.putFloat(slot + R_YAW_RATE, (float) heading.yawRateDegPerS());
+            flag(F_HEADING);
+        }
+        count++;
+        buf.putLong(H_COUNT, count);
+        slot = HEADER_BYTES + (int) (count % capacity) * RECORD_BYTES;
+        clearSlot();
+    }
+
+    private void clearSlot() {
+        for (int i = 0; i < RECORD_BYTES; i += 8) buf.putLong(slot + i, 0);
+    }
+
+    // Flush to the card and trim the unused end (stop()). Safe to call twice.
+    public void close() {
+        if (buf == null) return;
+        buf.putLong(H_COUNT, count);
+        buf.force();
+        buf = null;
+        if (!wrapped()) {
+            try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                raf.setLength(HEADER_BYTES + count * RECORD_BYTES);
+            } catch (IOException | RuntimeException e) {
+                // full-size file, still readable
+            }
+        }
+    }
+
+    // ========= READ =========
+
+    public boolean isOpen()       { return buf != null; }
+    public long count()           { return count; }
+    public boolean wrapped()      { return count >= capacity; }
+    public String path()          { return file == null ? "" : file.getPath(); }
+
+    public String summary() {
+        if (buf == null) return "off";
+        return String.format(Locale.US, "%d records%s -> %s", count, wrapped() ? " (wrapped)" : "", file.getName());
+    }
+}
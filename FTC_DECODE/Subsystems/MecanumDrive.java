@@ -0,0 +1,154 @@
+package org.firstinspires.ftc.teamcode;
+
+import com.qualcomm.robotcore.hardware.DcMotor;
+import com.qualcomm.robotcore.hardware.HardwareMap;
+
+// Shared mecanum drive used by every TeleOp.
+// mix() writes into one reused double[4] (FL, FR, BL, BR), so a loop() that
+// drives the robot allocates nothing. setPowers() skips motors whose power
+// did not change since the last write (each write is a hub transaction);
+// the wheels are CachedMotors, so "changed" means beyond the cache epsilon.
+public class MecanumDrive {
+
+    // ====== WHEEL INDEXES (for every double[4] / int[4] drive buffer) ======
+    public static final int FL = 0;
+    public static final int FR = 1;
+    public static final int BL = 2;
+    public static final int BR = 3;
+
+    // ====== HARDWARE ======
+    private final CachedMotor[] motors = new CachedMotor[4];
+
+    // ====== TUNABLES ======
+    // per-wheel trim, BL is the reference wheel on our robot
+    private final double[] gains = {1.0, 1.0, 1.0, 1.0};
+    private double speedMult = 1.0;
+
+    // ====== BUFFERS (reused every cycle) ======
+    private final double[] out = new double[4];
+
+    public MecanumDrive(HardwareMap hardwareMap) {
+        this(new MotorCache(hardwareMap));
+    }
+
+    public MecanumDrive(MotorCache cache) {
+        this(cache.get("front_left"),
+             cache.get("front_right"),
+             cache.get("back_left"),
+             cache.get("back_right"));
+    }
+
+    public MecanumDrive(CachedMotor fl, CachedMotor fr, CachedMotor bl, CachedMotor br) {
+        motors[FL] = fl;
+        motors[FR] = fr;
+        motors[BL] = bl;
+        motors[BR] = br;
+
+        // directions (so +power = forward)
+        fl.setDirection(DcMotor.Direction.FORWARD);
+        bl.setDirection(DcMotor.Direction.FORWARD);
+        fr.setDirection(DcMotor.Direction.REVERSE);
+        br.setDirection(DcMotor.Direction.REVERSE);
+
+        for (CachedMotor m : motors) {
+            m.setZeroPowerBehavior(DcMotor.ZeroPowerBehavior.BRAKE);
+        }
+    }
+
+    // ========= SETTINGS =========
+
+    public void setGains(double fl, double fr, double bl, double br) {
+        gains[FL] = fl;
+        gains[FR] = fr;
+        gains[BL] = bl;
+        gains[BR] = br;
+    }
+
+    public void setSpeedMultiplier(double mult) { speedMult = mult; }
+
+    public double getSpeedMultiplier() { return speedMult; }
+
+    // ========= KERNEL =========
+
+    // Robot-centric mix. y = forward, x = strafe, rx = rotation (same signs the
+    // TeleOps always used). Result is normalized, trimmed, scaled and clipped.
+    // The returned array is owned by the drive and overwritten on the next call.
+    public double[] mix(double y, double x, double rx) {
+        double fl = y - x - rx;
+        double fr = y + x + rx;
+        double bl = y + x - rx;
+        double br = y - x + rx;
+
+        // normalize to keep max |power| <= 1
+        double max = Math.max(Math.max(Math.abs(fl), Math.abs(fr)),
+                              Math.max(Math.abs(bl), Math.abs(br)));
+        if (max > 1.0) { fl /= max; fr /= max; bl /= max; br /= max; }
+
+        out[FL] = clip(fl * gains[FL] * speedMult, -1, 1);
+        out[FR] = clip(fr * gains[FR] * speedMult, -1, 1);
+        out[BL] = clip(bl * gains[BL] * speedMult, -1, 1);
+        out[BR] = clip(br * gains[BR] * speedMult, -1, 1);
+        return out;
+    }
+
+    // Field-centric mix. y, x are the stick in the driver's frame (same signs
+    // as mix()); headingDeg is how far the robot has turned CCW from facing
+    // away from the driver. The stick vector is rotated into the robot frame,
+    // so pushing up always drives away from the driver.
+    public double[] mixFieldCentric(double y, double x, double rx, double headingDeg) {
+        double h = Math.toRadians(headingDeg);
+        double c = Math.cos(h), s = Math.sin(h);
+        return mix(y * c + x * s, x * c - y * s, rx);
+    }
+
+    public void drive(double y, double x, double rx) {
+        setPowers(mix(y, x, rx));
+    }
+
+    // Spin in place: left side +p, right side -p.
+    public void turn(double p) {
+        p = clip(p, -1, 1);
+        out[FL] = +p;
+        out[BL] = +p;
+        out[FR] = -p;
+        out[BR] = -p;
+        setPowers(out);
+    }
+
+    public void stop() {
+        out[FL] = 0; out[FR] = 0; out[BL] = 0; out[BR] = 0;
+        setPowers(out);
+    }
+
+    // ========= OUTPUT =========
+
+    // Batch write in FL, FR, BL, BR order. Unchanged values are not re-sent.
+    public void setPowers(double[] powers) {
+        motors[FL].setPower(powers[FL]);
+        motors[FR].setPower(powers[FR]);
+        motors[BL].setPower(powers[BL]);
+        motors[BR].setPower(powers[BR]);
+    }
+
+    // last power actually sent to a wheel (use FL/FR/BL/BR)
+    public double power(int wheel) { return motors[wheel].getPower(); }
+
+    public CachedMotor motor(int wheel) { return motors[wheel]; }
+
+    public long writeCount() {
+        long n = 0;
+        for (CachedMotor m : motors) n += m.sentCount();
+        return n;
+    }
+
+    public long skippedCount() {
+        long n = 0;
+        for (CachedMotor m : motors) n += m.suppressedCount();
+        return n;
+    }
+
+    // ========= UTILS =========
+    private static double clip(double v, double lo, double hi) {
+        return Math.max(lo, Math.min(hi, v));
+    }
+}
@@ -0,0 +1,62 @@
+package org.firstinspires.ftc.teamcode;
+
+import com.qualcomm.robotcore.hardware.DcMotor;
+import com.qualcomm.robotcore.hardware.HardwareMap;
+
+// One registry per OpMode: hands out a single CachedMotor per config name and
+// adds up how many hub writes were sent vs. suppressed across all of them.
+//
+//   MotorCache motors = new MotorCache(hardwareMap);
+//   conveyor = motors.get("conveyor");
+public class MotorCache {
+
+    private static final int MAX_MOTORS = 12; // 2 hubs x 4 ports, plus slack
+
+    private final HardwareMap hardwareMap;
+    private final CachedMotor[] motors = new CachedMotor[MAX_MOTORS];
+    private int count = 0;
+    private double epsilon;
+
+    public MotorCache(HardwareMap hardwareMap, double epsilon) {
+        this.hardwareMap = hardwareMap;
+        this.epsilon = epsilon;
+    }
+
+    public MotorCache(HardwareMap hardwareMap) {
+        this(hardwareMap, CachedMotor.DEFAULT_EPSILON);
+    }
+
+    // Same name -> same CachedMotor, so two users of one motor share its cache.
+    public CachedMotor get(String name) {
+        for (int i = 0; i < count; i++) {
+            if (motors[i].name().equals(name)) return motors[i];
+        }
+        if (count == MAX_MOTORS) {
+            throw new IllegalStateException("MotorCache full, cannot add " + name);
+        }
+        CachedMotor m = new CachedMotor(hardwareMap.get(DcMotor.class, name), name, epsilon);
+        motors[count++] = m;
+        return m;
+    }
+
+    public void setEpsilon(double epsilon) {
+        this.epsilon = epsilon;
+        for (int i = 0; i < count; i++) motors[i].setEpsilon(epsilon);
+    }
+
+    public void invalidateAll() {
+        for (int i = 0; i < count; i++) motors[i].invalidate();
+    }
+
+    public long sentCount() {
+        long n = 0;
+        for (int i = 0; i < count; i++) n += motors[i].sentCount();
+        return n;
+    }
+
+    public long suppressedCount() {
+        long n = 0;
+        for (int i = 0; i < count; i++) n += motors[i].suppressedCount();
+        return n;
+    }
+}
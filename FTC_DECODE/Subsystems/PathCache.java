@@ -0,0 +1,108 @@
+package org.firstinspires.ftc.teamcode;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Locale;
+
+// PathTables kept on the hub between inits. Each table is a file named after
+// the path and the hash of everything that shaped it (PathTable.Builder.key()),
+// so moving a pose gives a new key; the path's files under any other key (and
+// temp files a crash left behind) are deleted on that get(). A hit memory-maps the file read-only and the table reads straight
+// out of the mapping; a miss builds the table and writes it for next time.
+// Any file problem just means a rebuild: the cache can't make init fail.
+//
+//   PathCache cache = new PathCache(PathCache.DEFAULT_DIR);
+//   PathTable toScore = cache.get("scorePreload", new PathTable.Builder()
+//           .line(...).heading(...));
+//   telemetry.addData("Paths", cache.summary());
+public class PathCache {
+
+    public static final String DEFAULT_DIR = "/sdcard/FIRST/paths";
+
+    private final File dir;
+
+    // ====== STATS ======
+    private int hits = 0, misses = 0, writeFailures = 0, pruned = 0;
+    private long nanos = 0;
+
+    public PathCache(String dir) {
+        this.dir = new File(dir);
+    }
+
+    public PathTable get(String name, PathTable.Builder path) {
+        long start = System.nanoTime();
+        long key = path.key();
+        File f = new File(dir, String.format(Locale.US, "%s-%016x.bin", name, key));
+
+        PathTable table = map(f, key);
+        if (table != null) hits++;
+        else {
+            misses++;
+            table = path.build();
+            if (!write(f, table)) writeFailures++;
+        }
+        pruned += prune(name, f);
+        nanos += System.nanoTime() - start;
+        return table;
+    }
+
+    private static PathTable map(File f, long key) {
+        if (!f.isFile()) return null;
+        try (RandomAccessFile raf = new RandomAccessFile(f, "r");
+             FileChannel ch = raf.getChannel()) {
+            MappedByteBuffer mapped = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());   // stays valid after close
+            return PathTable.valid(mapped, key) ? new PathTable(mapped) : null;
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    // Written to a temp name and renamed, so a half-written file is never mapped.
+    private boolean write(File f, PathTable table) {
+        if (!dir.isDirectory() && !dir.mkdirs()) return false;
+        File tmp = new File(dir, f.getName() + ".tmp");
+        try (RandomAccessFile raf = new RandomAccessFile(tmp, "rw");
+             FileChannel ch = raf.getChannel()) {
+            ByteBuffer b = table.buffer().duplicate();
+            b.clear();
+            ch.truncate(0);
+            while (b.hasRemaining()) ch.write(b);
+        } catch (IOException e) {
+            tmp.delete();
+            return false;
+        }
+        return tmp.renameTo(f);
+    }
+
+    // Files of this path under another key, or a temp file never renamed.
+    private int prune(String name, File keep) {
+        File[] files = dir.listFiles();
+        if (files == null) return 0;
+        String prefix = name + "-";
+        int n = 0;
+        for (File f : files) {
+            String fn = f.getName();
+            if (f.equals(keep) || !fn.startsWith(prefix)) continue;
+            if (fn.substring(prefix.length()).matches("[0-9a-f]{16}\\.bin(\\.tmp)?") && f.delete()) n++;
+        }
+        return n;
+    }
+
+    // ========= READ =========
+
+    public int hits()             { return hits; }
+    public int misses()           { return misses; }
+    public int writeFailures()    { return writeFailures; }
+    public int pruned()           { return pruned; }
+    public double totalMs()       { return nanos / 1e6; }
+
+    public String summary() {
+        return String.format(Locale.US, "%d mapped, %d built%s%s, %.1f ms",
+                hits, misses, writeFailures > 0 ? " (" + writeFailures + " not saved)" : "",
+                pruned > 0 ? ", " + pruned + " stale deleted" : "", totalMs());
+    }
+}
@@ -0,0 +1,236 @@
+package org.firstinspires.ftc.teamcode;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+
+// Precomputed geometry of one auto path: the same chain of Bezier segments we
+// hand Pedro, sampled once so that "how far along is the robot" and "where is
+// 60% of the way" are table lookups instead of arc-length integrals.
+//
+// Per segment, SAMPLES + 1 points at even t, each (x, y, s, heading):
+//   s        arc length from the start of the chain, inches
+//   heading  Pedro's linear heading interpolation (shortest way round, done
+//            at endT of the segment and held after), radians
+//
+// Where the robot is on the path comes from Pedro, which already finds its
+// closest point every update: sAt(follower.getChainIndex(),
+// follower.getCurrentTValue()) turns that into inches.
+//
+// Everything lives in one ByteBuffer with a fixed layout, which is also the
+// cache file format: PathCache writes it to the hub and maps it back in on
+// the next init (see PathCache). Nothing is copied out of the buffer.
+//
+//   PathTable t = new PathTable.Builder()
+//           .line(x0, y0, x1, y1).heading(h0, h1)
+//           .curve(x1, y1, cx, cy, x2, y2).heading(h1, h2, 0.4)
+//           .build();
+//   double s = t.sAt(follower.getChainIndex(), follower.getCurrentTValue());   // inches along
+//   double toGo = t.length() - s;
+public class PathTable {
+
+    public static final int SAMPLES = 256;           // per segment
+
+    // ====== LAYOUT (little-endian) ======
+    static final int MAGIC = 0x50544231;             // "PTB1"
+    static final int VERSION = 2;                    // 2: no closest-point grid
+    static final int HEADER = 32;
+    private static final int O_MAGIC = 0, O_VERSION = 4, O_KEY = 8, O_SEGMENTS = 16, O_PER_SEG = 20,
+            O_LENGTH = 24;
+    private static final int FIELDS = 4;             // x, y, s, heading
+
+    private final ByteBuffer buf;
+    private final int segments, perSeg, points;
+    private final double length;
+    private final long key;
+
+    // Wraps a buffer in the layout above (built, or mapped from a cache file).
+    PathTable(ByteBuffer buf) {
+        this.buf = buf.order(ByteOrder.LITTLE_ENDIAN);
+        key = buf.getLong(O_KEY);
+        segments = buf.getInt(O_SEGMENTS);
+        perSeg = buf.getInt(O_PER_SEG);
+        points = segments * perSeg;
+        length = buf.getDouble(O_LENGTH);
+    }
+
+    // Does this buffer hold a table for key, and is it all there?
+    static boolean valid(ByteBuffer b, long key) {
+        b.order(ByteOrder.LITTLE_ENDIAN);
+        if (b.capacity() < HEADER || b.getInt(O_MAGIC) != MAGIC || b.getInt(O_VERSION) != VERSION
+                || b.getLong(O_KEY) != key) return false;
+        long pts = (long) b.getInt(O_SEGMENTS) * b.getInt(O_PER_SEG);
+        long size = HEADER + pts * FIELDS * 8;
+        return b.capacity() == size;
+    }
+
+    // ========= LOOKUP (no allocation) =========
+
+    // Arc length at Pedro's (segment, t).
+    public double sAt(int segment, double t) {
+        segment = clampIndex(segment, segments);
+        double f = Math.max(0, Math.min(1, t)) * (perSeg - 1);
+        int i = Math.min((int) f, perSeg - 2);
+        int a = segment * perSeg + i;
+        return s(a) + (f - i) * (s(a + 1) - s(a));
+    }
+
+    // Segment that arc length s falls in.
+    public int segmentAt(double s) {
+        return sampleAt(s) / perSeg;
+    }
+
+    // Pedro's t within segmentAt(s).
+    public double tAt(double s) {
+        int i = sampleAt(s);
+        int seg = i / perSeg, k = i % perSeg;
+        if (k == perSeg - 1) return 1.0;
+        double s0 = s(i), s1 = s(i + 1);
+        double u = s1 > s0 ? (Math.max(s0, Math.min(s1, s)) - s0) / (s1 - s0) : 0;
+        return (k + u) / (perSeg - 1);
+    }
+
+    // Heading the path asks for at arc length s (radians).
+    public double headingAt(double s) {
+        int i = sampleAt(s);
+        if (i % perSeg == perSeg - 1) return heading(i);
+        double s0 = s(i), s1 = s(i + 1);
+        double u = s1 > s0 ? (Math.max(s0, Math.min(s1, s)) - s0) / (s1 - s0) : 0;
+        double h0 = heading(i);
+        return h0 + u * angleDiff(heading(i + 1), h0);
+    }
+
+    // Last sample at or before s (binary search on the s column).
+    private int sampleAt(double s) {
+        int lo = 0, hi = points - 1;
+        if (s <= s(0)) return 0;
+        if (s >= s(hi)) return hi;
+        while (hi - lo > 1) {
+            int mid = (lo + hi) >>> 1;
+            if (s(mid) <= s) lo = mid;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    private double s(int i)       { return buf.getDouble(HEADER + (i * FIELDS + 2) * 8); }
+    private double heading(int i) { return buf.getDouble(HEADER + (i * FIELDS + 3) * 8); }
+
+    private static int clampIndex(int i, int n) {
+        return i < 0 ? 0 : i >= n ? n - 1 : i;
+    }
+
+    static double angleDiff(double to, double from) {
+        double d = to - from;
+        while (d > Math.PI)   d -= 2 * Math.PI;
+        while (d <= -Math.PI) d += 2 * Math.PI;
+        return d;
+    }
+
+    // ========= READ =========
+
+    public double length()    { return length; }
+    public int segments()     { return segments; }
+    public long key()         { return key; }
+    public int sizeBytes()    { return buf.capacity(); }
+    ByteBuffer buffer()       { return buf; }
+
+    // ========= BUILD =========
+
+    public static class Builder {
+        private final List<double[]> ctrl = new ArrayList<>();     // x0, y0, x1, y1, ...
+        private final List<double[]> head = new ArrayList<>();     // start, end, endT
+
+        // Straight segment (Pedro BezierLine).
+        public Builder line(double x0, double y0, double x1, double y1) {
+            return curve(x0, y0, x1, y1);
+        }
+
+        // Bezier through control points x0, y0, x1, y1, ... (Pedro BezierCurve).
+        public Builder curve(double... xy) {
+            if (xy.length < 4 || xy.length % 2 != 0) throw new IllegalArgumentException("curve needs x,y pairs, at least 2 points");
+            ctrl.add(xy.clone());
+            head.add(new double[] {Double.NaN, Double.NaN, 1.0});
+            return this;
+        }
+
+        // Heading for the last segment: start -> end, reached at t = endT.
+        public Builder heading(double startRad, double endRad, double endT) {
+            if (head.isEmpty()) throw new IllegalStateException("heading() before any segment");
+            head.set(head.size() - 1, new double[] {startRad, endRad, endT});
+            return this;
+        }
+
+        public Builder heading(double startRad, double endRad) {
+            return heading(startRad, endRad, 1.0);
+        }
+
+        // 64-bit FNV-1a of everything that shapes the table; names the cache file.
+        public long key() {
+            long h = 0xcbf29ce484222325L;
+            h = mix(h, Double.doubleToLongBits(VERSION));
+            h = mix(h, Double.doubleToLongBits(SAMPLES));
+            for (int k = 0; k < ctrl.size(); k++) {
+                h = mix(h, ctrl.get(k).length);
+                for (double v : ctrl.get(k)) h = mix(h, Double.doubleToLongBits(v));
+                for (double v : head.get(k)) h = mix(h, Double.doubleToLongBits(v));
+            }
+            return h;
+        }
+
+        private static long mix(long h, long v) {
+            for (int i = 0; i < 8; i++) {
+                h ^= (v >>> (8 * i)) & 0xff;
+                h *= 0x100000001b3L;
+            }
+            return h;
+        }
+
+        public PathTable build() {
+            if (ctrl.isEmpty()) throw new IllegalStateException("empty path");
+            int segs = ctrl.size(), perSeg = SAMPLES + 1, pts = segs * perSeg;
+            double[] xs = new double[pts], ys = new double[pts], ss = new double[pts], hs = new double[pts];
+
+            double s = 0;
+            double[] p = new double[2];
+            for (int k = 0; k < segs; k++) {
+                double[] c = ctrl.get(k), hd = head.get(k);
+                for (int j = 0; j < perSeg; j++) {
+                    int i = k * perSeg + j;
+                    double t = (double) j / SAMPLES;
+                    bezier(c, t, p);
+                    if (i > 0) s += Math.hypot(p[0] - xs[i - 1], p[1] - ys[i - 1]);
+                    xs[i] = p[0];
+                    ys[i] = p[1];
+                    ss[i] = s;
+                    hs[i] = Double.isNaN(hd[0]) ? 0
+                            : hd[0] + angleDiff(hd[1], hd[0]) * (hd[2] <= 0 ? 1 : Math.min(1, t / hd[2]));
+                }
+            }
+
+            ByteBuffer b = ByteBuffer.allocate(HEADER + pts * FIELDS * 8).order(ByteOrder.LITTLE_ENDIAN);
+            b.putInt(O_MAGIC, MAGIC).putInt(O_VERSION, VERSION).putLong(O_KEY, key())
+                    .putInt(O_SEGMENTS, segs).putInt(O_PER_SEG, perSeg).putDouble(O_LENGTH, s);
+            for (int i = 0; i < pts; i++) {
+                int o = HEADER + i * FIELDS * 8;
+                b.putDouble(o, xs[i]).putDouble(o + 8, ys[i]).putDouble(o + 16, ss[i]).putDouble(o + 24, hs[i]);
+            }
+            return new PathTable(b);
+        }
+    }
+
+    // de Casteljau on x,y pairs; out = point at t.
+    static void bezier(double[] c, double t, double[] out) {
+        int n = c.length / 2;
+        double[] w = c.clone();
+        for (int r = n - 1; r > 0; r--) {
+            for (int i = 0; i < r; i++) {
+                w[2 * i]     += t * (w[2 * i + 2] - w[2 * i]);
+                w[2 * i + 1] += t * (w[2 * i + 3] - w[2 * i + 1]);
+            }
+        }
+        out[0] = w[0];
+        out[1] = w[1];
+    }
+}
@@ -0,0 +1,109 @@
+package org.firstinspires.ftc.teamcode;
+
+import java.util.Arrays;
+
+// Actions tied to places on a path instead of to states: "spin the launcher
+// up at 60% of the way to the goal", "intake on for the last 24 in of the
+// pickup". Each trigger is turned into an arc length once, through the path's
+// PathTable, and kept sorted, so a loop is one sAt() lookup from the
+// follower's (segment, t) and a compare against the next trigger; each one
+// fires once, in path order, even if a slow loop skips past several.
+//
+// One PathTriggers per path. reset() when the path is (re)started, finish()
+// when it's left early (timeout, abort) to run whatever was still pending.
+//
+//   PathTriggers toGoal = new PathTriggers(scorePreloadT)
+//           .atFraction(0.6, () -> launcher.setTargetRpm(RPM))
+//           .fromEnd(12, () -> indexer.stop());
+//   follow:  follower.followPath(scorePreload, true); toGoal.reset();
+//   loop():  follower.update();
+//            toGoal.update(follower.getChainIndex(), follower.getCurrentTValue());
+public class PathTriggers {
+
+    private final PathTable table;
+
+    // sorted by s; equal s keep the order they were added in
+    private double[] at = new double[4];
+    private Runnable[] actions = new Runnable[4];
+    private int size = 0;
+    private int next = 0;                 // first one not fired yet
+    private double along = 0;
+
+    public PathTriggers(PathTable table) {
+        this.table = table;
+    }
+
+    // ========= TRIGGERS =========
+
+    // inches from the start of the path
+    public PathTriggers atDistance(double inches, Runnable action) {
+        add(Math.max(0, Math.min(table.length(), inches)), action);
+        return this;
+    }
+
+    // inches before the end of the path
+    public PathTriggers fromEnd(double inches, Runnable action) {
+        return atDistance(table.length() - inches, action);
+    }
+
+    // fraction of the path's length (0.6 = 60% of the way)
+    public PathTriggers atFraction(double fraction, Runnable action) {
+        return atDistance(fraction * table.length(), action);
+    }
+
+    // Pedro's t on one segment of the chain (segment 0 = the first addPath)
+    public PathTriggers atT(int segment, double t, Runnable action) {
+        return atDistance(table.sAt(segment, t), action);
+    }
+
+    private void add(double s, Runnable action) {
+        if (size == at.length) {
+            at = Arrays.copyOf(at, size * 2);
+            actions = Arrays.copyOf(actions, size * 2);
+        }
+        int i = size++;
+        while (i > 0 && at[i - 1] > s) {
+            at[i] = at[i - 1];
+            actions[i] = actions[i - 1];
+            i--;
+        }
+        at[i] = s;
+        actions[i] = action;
+    }
+
+    // ========= RUN =========
+
+    // Re-arm everything (start of a followPath).
+    public void reset() {
+        next = 0;
+        along = 0;
+    }
+
+    // Every loop, after follower.update().
+    public void update(int segment, double t) {
+        updateAlong(table.sAt(segment, t));
+    }
+
+    // Same, from arc length directly.
+    public void updateAlong(double s) {
+        along = s;
+        while (next < size && at[next] <= s) actions[next++].run();
+    }
+
+    // Fire whatever hasn't fired yet (path cut short, or done before t = 1).
+    public void finish() {
+        while (next < size) actions[next++].run();
+        along = table.length();
+    }
+
+    // ========= READ =========
+
+    public PathTable table()      { return table; }
+    public double along()         { return along; }
+    public int fired()            { return next; }
+    public int size()             { return size; }
+    public boolean done()         { return next == size; }
+
+    // inches until the next trigger, or -1 if none are left
+    public double toNext()        { return next < size ? Math.max(0, at[next] - along) : -1; }
+}
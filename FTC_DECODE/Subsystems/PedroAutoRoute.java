@@ -0,0 +1,77 @@
+package org.firstinspires.ftc.teamcode;
+
+import com.pedropathing.geometry.Pose;
+
+// PedroPathingAutoTest's route: the poses and how each path between them is
+// driven, kept here so the auto and the laptop tools (sim/PathCacheBench,
+// sim/RouteOptimizer) all read the same numbers. RouteOptimizer checks the
+// pickups line up with their spikes and prints a block to paste over ROUTE
+// SHAPE that does.
+//
+//   AutoPath pickup1 = PedroAutoRoute.pickup1();
+//   init:  pickup1.build(follower, pathCache);
+public final class PedroAutoRoute {
+
+    private PedroAutoRoute() {}
+
+    /* ------ Poses --------
+    Pedro is based on a 0-144 grid, the same size as the FTC field in inches.
+    0,0 is bottom left corner. each coordinate is 1 inch over.
+    remember, pedro assumes you start at 0,0 CENTRE of your ROBOT
+    initial heading (0) is facing towards goals
+    */
+    // measured in cm on the field; Pedro wants inches
+    public static final Pose START   = new Pose(0, 0, Math.toRadians(-135));
+    public static final Pose SCORE   = new Pose(cm(80), cm(110), Math.toRadians(-135));
+    public static final Pose PICKUP1 = new Pose(cm(90), 0, Math.toRadians(-90));
+    public static final Pose PICKUP2 = new Pose(cm(150), 0, Math.toRadians(-90));
+
+    // ====== ROUTE SHAPE (sim/RouteOptimizer prints this block) ======
+    public static final Pose PICKUP1_MID = new Pose(cm(90), cm(60), Math.toRadians(-90));
+    public static final Pose PICKUP2_MID = new Pose(cm(150), cm(60), Math.toRadians(-90));
+    public static final double PICKUP_HEADING_END_T = 0.4;   // get angle sooner
+    public static final double SCORE_HEADING_END_T  = 0.8;   // 0.8 is suggested
+
+    // ====== PICKUPS ======
+    // Pedro's braking on pickup1, tuned on the field (RouteOptimizer doesn't model it)
+    public static final double PICKUP_DECELERATION  = 0.5;
+    public static final double PICKUP_BRAKING_START = 0.4;
+    public static final double PICKUP_POWER   = 0.5;   // slow over the spike so the intake keeps up
+    public static final double PICKUP_SLOW_IN = 24;    // last inches of a pickup: PICKUP_POWER + intake on
+
+    public static double cm(double v) { return v / 2.54; }
+
+    // ========= PATHS =========
+
+    public static AutoPath startPoint() {          // returns the robot to start
+        return AutoPath.line("startPoint", SCORE, START);
+    }
+
+    public static AutoPath scorePreload() {        // start > scoring position
+        return AutoPath.line("scorePreload", START, SCORE);
+    }
+
+    public static AutoPath pickup1() {             // scoring position > pickup 1, slowing down
+        return AutoPath.curve("pickup1", SCORE, PICKUP1_MID, PICKUP1)
+                .headingEndT(PICKUP_HEADING_END_T)
+                .deceleration(PICKUP_DECELERATION)
+                .brakingStart(PICKUP_BRAKING_START);
+    }
+
+    public static AutoPath score1() {              // pickup 1 > scoring position
+        return AutoPath.line("score1", PICKUP1, SCORE).headingEndT(SCORE_HEADING_END_T);
+    }
+
+    public static AutoPath pickup2() {             // use a curve so we can line up better for the balls
+        return AutoPath.curve("pickup2", SCORE, PICKUP2_MID, PICKUP2).headingEndT(PICKUP_HEADING_END_T);
+    }
+
+    public static AutoPath score2() {              // pickup 2 > scoring position
+        return AutoPath.line("score2", PICKUP2, SCORE).headingEndT(SCORE_HEADING_END_T);
+    }
+
+    // all six, in the order PathCacheBench reports them
+    public static AutoPath[] all() {
+        return new AutoPath[] {startPoint(), scorePreload(), pickup1(), score1(), pickup2(), score2()};
+    }
+}
@@ -0,0 +1,369 @@
+package org.firstinspires.ftc.teamcode;
+
+import org.firstinspires.ftc.robotcore.external.navigation.AngleUnit;
+
+// Field pose from wheel odometry, corrected by AprilTag sightings of the goal
+// tags (extended Kalman filter).
+//
+// State: x, y (field inches, FTC field frame, origin at the centre) and
+// heading (rad, CCW), with a 3x3 covariance.
+//   predict  every PoseEstimator step: the robot-frame motion (forward, left,
+//            turn) moves the state; uncertainty grows with distance travelled
+//            (wheel slip) and a little with turning
+//   update   each tag sighting: floor range + bearing from the camera to a tag
+//            at a known field position. Sightings that disagree too much with
+//            the estimate (Mahalanobis gate) are dropped, not averaged in.
+//
+// Camera frames are old by the time they arrive (exposure -> processing), and
+// two tags' frames don't arrive in time order. So the filter keeps a ring of
+// its last HISTORY states: each slot holds the odometry step that led to it,
+// the state before any sightings, and the sightings taken at that time. A
+// sighting goes into the slot at its frame time, and everything after it is
+// replayed. Sightings older than the ring are counted and dropped.
+//
+// A robot that doesn't know where it is (TeleOp) still has to know which way
+// it faces: one range + bearing only puts it on a circle round the tag, the
+// heading picks the point. setHeading() gives it that; until the heading is
+// within PLACE_HEADING_SIGMA_DEG no sighting places the robot (counted in
+// unplaced()).
+//
+//   ekf = new PoseEKF().setPose(START_X, START_Y, START_HEADING_DEG, 2, 2);
+//   ekf = new PoseEKF().setHeading(START_HEADING_DEG, 5);      // position unknown
+//   loop:  pose.update();  ekf.predict(pose);  ekf.addSightings(tags);
+//          ekf.x(), ekf.y(), ekf.headingDeg()
+//
+// Arrays only, nothing allocated after construction; a replay over the whole
+// ring is ~HISTORY small matrix updates.
+public class PoseEKF {
+
+    // ====== FIELD (DECODE goal tags, FTC field frame, inches) ======
+    public static final int[]    GOAL_TAG_IDS = {20, 24};
+    public static final double[] GOAL_TAG_X   = {-58.37, -58.37};
+    public static final double[] GOAL_TAG_Y   = {-55.64,  55.64};
+
+    // ====== CAMERA ON THE ROBOT ======
+    public static final double CAMERA_FWD_IN  = 6.0;    // ahead of the robot centre
+    public static final double CAMERA_LEFT_IN = 0.0;
+    public static final double CAMERA_YAW_DEG = 0.0;    // 0 = looks straight ahead
+
+    // ====== NOISE (1 sigma) ======
+    private static final double FWD_NOISE_PER_IN    = 0.02;   // in per in driven
+    private static final double STRAFE_NOISE_PER_IN = 0.05;   // strafing slips more
+    private static final double TURN_NOISE_PER_RAD  = 0.01;   // IMU scale error
+    private static final double HEADING_DRIFT_RAD_S = Math.toRadians(0.02);
+    private static final double RANGE_NOISE_FRAC    = 0.03;   // of the range
+    private static final double RANGE_NOISE_IN      = 0.5;
+    private static final double BEARING_NOISE_RAD   = Math.toRadians(1.5);
+    private static final double GATE_CHI2           = 9.21;   // 99%, 2 dof
+    private static final double REFIX_SIGMA_IN      = 24;     // above this, the first sighting places the robot
+    private static final double UNKNOWN_SIGMA_IN    = 100;
+    public  static final double PLACE_HEADING_SIGMA_DEG = 15; // worse than this, a sighting can't place it
+
+    // ====== HISTORY RING ======
+    public static final int HISTORY = 64;               // ~0.6 s at 100 Hz
+    private static final int MAX_SIGHTINGS = 2;         // per slot
+
+    private final long[] slotNanos = new long[HISTORY];
+    private final double[] stepF = new double[HISTORY], stepL = new double[HISTORY], stepT = new double[HISTORY];
+    private final double[] priorS = new double[HISTORY * 3];        // state before that slot's sightings
+    private final double[] priorP = new double[HISTORY * 9];
+    private final int[] sightCount = new int[HISTORY];
+    private final int[] sightTag = new int[HISTORY * MAX_SIGHTINGS];   // index into GOAL_TAG_*
+    private final double[] sightRange = new double[HISTORY * MAX_SIGHTINGS];
+    private final double[] sightBearing = new double[HISTORY * MAX_SIGHTINGS];
+    private int head = 0, filled = 0;
+
+    // ====== CURRENT ESTIMATE (posterior at head) ======
+    private final double[] s = new double[3];
+    private final double[] P = new double[9];
+
+    // scratch, so update() allocates nothing
+    private final double[] H = new double[6], K = new double[6], PHt = new double[6];
+    private final double[] tmpP = new double[9];
+
+    // ====== COUNTERS ======
+    private long accepted = 0, gated = 0, tooOld = 0, unplaced = 0;
+    private long lastSteps = -1;
+    private final long[] lastTagNanos = new long[GOAL_TAG_IDS.length];
+    private final double[] meas = new double[2];
+    private boolean fixed = true;
+
+    // Nothing known, not even the heading: no sighting is used until
+    // setHeading() or setPose().
+    public PoseEKF() {
+        setPose(0, 0, 0, UNKNOWN_SIGMA_IN, 180);
+    }
+
+    // Known start pose with its uncertainty (in, deg). A large sigmaIn lets
+    // the first tag sighting place the robot outright.
+    public PoseEKF setPose(double xIn, double yIn, double headingDeg, double sigmaIn, double sigmaDeg) {
+        s[0] = xIn;
+        s[1] = yIn;
+        s[2] = Math.toRadians(headingDeg);
+        for (int i = 0; i < 9; i++) P[i] = 0;
+        P[0] = P[4] = sigmaIn * sigmaIn;
+        P[8] = Math.toRadians(sigmaDeg) * Math.toRadians(sigmaDeg);
+        fixed = sigmaIn <= REFIX_SIGMA_IN;
+        filled = 0;
+        return this;
+    }
+
+    // Heading known (deg, field frame, with its sigma), position not: the
+    // first goal tag seen places the robot.
+    public PoseEKF setHeading(double headingDeg, double sigmaDeg) {
+        return setPose(0, 0, headingDeg, UNKNOWN_SIGMA_IN, sigmaDeg);
+    }
+
+    // ========= PREDICT (every loop) =========
+
+    // Take the PoseEstimator's latest step, if it made a new one.
+    public void predict(PoseEstimator odo) {
+        if (odo.steps() == lastSteps) return;
+        lastSteps = odo.steps();
+        predict(odo.stepForwardIn(), odo.stepLeftIn(), odo.stepTurnRad(), odo.stepNanos());
+    }
+
+    public void predict(double fwdIn, double leftIn, double turnRad, long nanos) {
+        long prevNanos = filled == 0 ? nanos : slotNanos[head];
+        head = (head + 1) % HISTORY;
+        if (filled < HISTORY) filled++;
+        slotNanos[head] = nanos;
+        stepF[head] = fwdIn;
+        stepL[head] = leftIn;
+        stepT[head] = turnRad;
+        sightCount[head] = 0;
+
+        propagate(s, P, fwdIn, leftIn, turnRad, (nanos - prevNanos) / 1e9);
+        System.arraycopy(s, 0, priorS, head * 3, 3);
+        System.arraycopy(P, 0, priorP, head * 9, 9);
+    }
+
+    private void propagate(double[] st, double[] cov, double f, double l, double dTh, double dt) {
+        double mid = st[2] + dTh / 2;
+        double c = Math.cos(mid), sn = Math.sin(mid);
+        st[0] += f * c - l * sn;
+        st[1] += f * sn + l * c;
+        st[2] = AngleUnit.normalizeRadians(st[2] + dTh);
+
+        // F = I + d(step)/d(heading) in the last column
+        double a = -f * sn - l * c, b = f * c - l * sn;
+        // F P F^T
+        double p00 = cov[0] + a * cov[6] + a * (cov[2] + a * cov[8]);
+        double p01 = cov[1] + a * cov[7] + b * (cov[2] + a * cov[8]);
+        double p02 = cov[2] + a * cov[8];
+        double p11 = cov[4] + b * cov[7] + b * (cov[5] + b * cov[8]);
+        double p12 = cov[5] + b * cov[8];
+        double p22 = cov[8];
+
+        // Q: robot-frame noise rotated into the field
+        double qf = FWD_NOISE_PER_IN * Math.abs(f), ql = STRAFE_NOISE_PER_IN * Math.abs(l);
+        double qt = TURN_NOISE_PER_RAD * Math.abs(dTh) + HEADING_DRIFT_RAD_S * dt;
+        qf *= qf;
+        ql *= ql;
+        p00 += c * c * qf + sn * sn * ql;
+        p01 += c * sn * (qf - ql);
+        p11 += sn * sn * qf + c * c * ql;
+        p22 += qt * qt;
+
+        cov[0] = p00; cov[1] = p01; cov[2] = p02;
+        cov[3] = p01; cov[4] = p11; cov[5] = p12;
+        cov[6] = p02; cov[7] = p12; cov[8] = p22;
+    }
+
+    // ========= SIGHTINGS =========
+
+    // New goal-tag frames from the tracker, each at its own frame time.
+    public void addSightings(TagTracker tags) {
+        for (int t = 0; t < GOAL_TAG_IDS.length; t++) {
+            long at = tags.measurement(GOAL_TAG_IDS[t], meas);
+            if (at == 0 || at == lastTagNanos[t]) continue;
+            lastTagNanos[t] = at;
+            addSighting(GOAL_TAG_IDS[t], meas[0], meas[1], at);
+        }
+    }
+
+    // One tag: floor range (in) and bearing (deg, + = left) seen at frameNanos.
+    // Returns false if it was not used (unknown tag, older than the ring, gated).
+    public boolean addSighting(int tagId, double floorRangeIn, double bearingDeg, long frameNanos) {
+        int tag = tagIndex(tagId);
+        if (tag < 0 || filled == 0) return false;
+
+        // newest slot at or before the frame
+        int k = head, back = 0;
+        while (slotNanos[k] > frameNanos) {
+            if (++back >= filled) {
+                tooOld++;
+                return false;
+            }
+            k = (k - 1 + HISTORY) % HISTORY;
+        }
+
+        double bearing = Math.toRadians(bearingDeg);
+        if (!fixed) {
+            if (sigmaHeadingDeg() > PLACE_HEADING_SIGMA_DEG) {
+                unplaced++;
+                return false;
+            }
+            place(tag, floorRangeIn, bearing);
+            return true;
+        }
+        if (sightCount[k] == MAX_SIGHTINGS) return false;
+        int n = k * MAX_SIGHTINGS + sightCount[k];
+        sightTag[n] = tag;
+        sightRange[n] = floorRangeIn;
+        sightBearing[n] = bearing;
+        sightCount[k]++;
+
+        long gatedBefore = gated;
+        replayFrom(k);
+        if (gated > gatedBefore) {
+            sightCount[k]--;    // don't let the outlier replay again later
+            return false;
+        }
+        accepted++;
+        return true;
+    }
+
+    // Re-run slot k's sightings on its prior, then odometry + sightings up to head.
+    private void replayFrom(int k) {
+        System.arraycopy(priorS, k * 3, s, 0, 3);
+        System.arraycopy(priorP, k * 9, P, 0, 9);
+        while (true) {
+            for (int i = 0; i < sightCount[k]; i++) {
+                int n = k * MAX_SIGHTINGS + i;
+                correct(sightTag[n], sightRange[n], sightBearing[n]);
+            }
+            if (k == head) return;
+            int next = (k + 1) % HISTORY;
+            propagate(s, P, stepF[next], stepL[next], stepT[next], (slotNanos[next] - slotNanos[k]) / 1e9);
+            System.arraycopy(s, 0, priorS, next * 3, 3);
+            System.arraycopy(P, 0, priorP, next * 9, 9);
+            k = next;
+        }
+    }
+
+    // EKF update with one range + bearing sighting.
+    private void correct(int tag, double range, double bearing) {
+        double c = Math.cos(s[2]), sn = Math.sin(s[2]);
+        double ox = CAMERA_FWD_IN * c - CAMERA_LEFT_IN * sn;
+        double oy = CAMERA_FWD_IN * sn + CAMERA_LEFT_IN * c;
+        double dx = GOAL_TAG_X[tag] - (s[0] + ox);
+        double dy = GOAL_TAG_Y[tag] - (s[1] + oy);
+        double q = dx * dx + dy * dy;
+        if (q < 1) return;
+        double r = Math.sqrt(q);
+
+        double vr = range - r;
+        double vb = AngleUnit.normalizeRadians(
+                bearing - (Math.atan2(dy, dx) - s[2] - Math.toRadians(CAMERA_YAW_DEG)));
+
+        // H rows: d(range), d(bearing) by x, y, heading
+        H[0] = -dx / r;  H[1] = -dy / r;  H[2] = (dx * oy - dy * ox) / r;
+        H[3] = dy / q;   H[4] = -dx / q;  H[5] = -(dx * ox + dy * oy) / q - 1;
+
+        // P H^T (3x2)
+        for (int i = 0; i < 3; i++) {
+            PHt[i * 2]     = P[i * 3] * H[0] + P[i * 3 + 1] * H[1] + P[i * 3 + 2] * H[2];
+            PHt[i * 2 + 1] = P[i * 3] * H[3] + P[i * 3 + 1] * H[4] + P[i * 3 + 2] * H[5];
+        }
+        // S = H P H^T + R
+        double sr = RANGE_NOISE_FRAC * range + RANGE_NOISE_IN;
+        double s00 = H[0] * PHt[0] + H[1] * PHt[2] + H[2] * PHt[4] + sr * sr;
+        double s01 = H[0] * PHt[1] + H[1] * PHt[3] + H[2] * PHt[5];
+        double s11 = H[3] * PHt[1] + H[4] * PHt[3] + H[5] * PHt[5] + BEARING_NOISE_RAD * BEARING_NOISE_RAD;
+        double det = s00 * s11 - s01 * s01;
+        if (det <= 0) return;
+        double i00 = s11 / det, i01 = -s01 / det, i11 = s00 / det;
+
+        double d2 = vr * (i00 * vr + i01 * vb) + vb * (i01 * vr + i11 * vb);
+        if (d2 > GATE_CHI2) {
+            gated++;
+            return;
+        }
+
+        // K = P H^T S^-1 (3x2); state += K v
+        for (int i = 0; i < 3; i++) {
+            K[i * 2]     = PHt[i * 2] * i00 + PHt[i * 2 + 1] * i01;
+            K[i * 2 + 1] = PHt[i * 2] * i01 + PHt[i * 2 + 1] * i11;
+            s[i] += K[i * 2] * vr + K[i * 2 + 1] * vb;
+        }
+        s[2] = AngleUnit.normalizeRadians(s[2]);
+
+        // P = P - K (H P) = P - K PHt^T, then symmetrize
+        for (int i = 0; i < 3; i++) {
+            for (int j = 0; j < 3; j++) {
+                tmpP[i * 3 + j] = P[i * 3 + j] - (K[i * 2] * PHt[j * 2] + K[i * 2 + 1] * PHt[j * 2 + 1]);
+            }
+        }
+        for (int i = 0; i < 3; i++) {
+            for (int j = 0; j < 3; j++) P[i * 3 + j] = (tmpP[i * 3 + j] + tmpP[j * 3 + i]) / 2;
+        }
+    }
+
+    // No usable prior position: put the robot where this sighting says, keeping
+    // the heading, and start filtering from there.
+    private void place(int tag, double range, double bearing) {
+        double dir = s[2] + Math.toRadians(CAMERA_YAW_DEG) + bearing;
+        double c = Math.cos(s[2]), sn = Math.sin(s[2]);
+        s[0] = GOAL_TAG_X[tag] - range * Math.cos(dir) - (CAMERA_FWD_IN * c - CAMERA_LEFT_IN * sn);
+        s[1] = GOAL_TAG_Y[tag] - range * Math.sin(dir) - (CAMERA_FWD_IN * sn + CAMERA_LEFT_IN * c);
+        double sr = RANGE_NOISE_FRAC * range + RANGE_NOISE_IN + range * BEARING_NOISE_RAD;
+        P[0] = P[4] = sr * sr;
+        P[1] = P[2] = P[3] = P[5] = P[6] = P[7] = 0;
+        filled = 0;   // history was relative to the wrong position
+        fixed = true;
+        accepted++;
+    }
+
+    private static int tagIndex(int id) {
+        for (int i = 0; i < GOAL_TAG_IDS.length; i++) if (GOAL_TAG_IDS[i] == id) return i;
+        return -1;
+    }
+
+    // ========= READ =========
+
+    public double x()              { return s[0]; }
+    public double y()              { return s[1]; }
+    public double headingDeg()     { return Math.toDegrees(s[2]); }
+    public double sigmaXIn()       { return Math.sqrt(P[0]); }
+    public double sigmaYIn()       { return Math.sqrt(P[4]); }
+    public double sigmaHeadingDeg() { return Math.toDegrees(Math.sqrt(P[8])); }
+    public boolean isFixed()       { return fixed; }
+
+    // Bearing from the robot centre to a goal tag, relative to the estimated
+    // heading (deg, + = left); NaN if it isn't a goal tag. For aiming when the
+    // camera can't see the tag.
+    public double bearingToTagDeg(int tagId) {
+        int t = tagIndex(tagId);
+        if (t < 0) return Double.NaN;
+        double field = Math.atan2(GOAL_TAG_Y[t] - s[1], GOAL_TAG_X[t] - s[0]);
+        return Math.toDegrees(AngleUnit.normalizeRadians(field - s[2]));
+    }
+
+    // ========= CAMERA -> ROBOT CENTRE =========
+
+    // A tag seen at camera floor range / bearing, as seen from the robot centre.
+    public static double robotBearingDeg(double cameraRangeIn, double cameraBearingDeg) {
+        double b = Math.toRadians(cameraBearingDeg + CAMERA_YAW_DEG);
+        return Math.toDegrees(Math.atan2(CAMERA_LEFT_IN + cameraRangeIn * Math.sin(b),
+                                         CAMERA_FWD_IN  + cameraRangeIn * Math.cos(b)));
+    }
+
+    public static double robotRangeIn(double cameraRangeIn, double cameraBearingDeg) {
+        double b = Math.toRadians(cameraBearingDeg + CAMERA_YAW_DEG);
+        return Math.hypot(CAMERA_LEFT_IN + cameraRangeIn * Math.sin(b),
+                          CAMERA_FWD_IN  + cameraRangeIn * Math.cos(b));
+    }
+
+    // Floor distance from the robot centre to a goal tag; NaN if it isn't one.
+    public double distanceToTagIn(int tagId) {
+        int t = tagIndex(tagId);
+        if (t < 0) return Double.NaN;
+        return Math.hypot(GOAL_TAG_X[t] - s[0], GOAL_TAG_Y[t] - s[1]);
+    }
+
+    public long accepted()         { return accepted; }
+    public long gated()            { return gated; }
+    public long tooOld()           { return tooOld; }
+    public long unplaced()         { return unplaced; }
+}
@@ -0,0 +1,195 @@
+package org.firstinspires.ftc.teamcode;
+
+import org.firstinspires.ftc.robotcore.external.navigation.AngleUnit;
+
+// Where the robot is, from the four drive encoders + the IMU.
+//
+// Field frame: x forward from the start pose, y left, heading + = CCW (same as
+// EncoderRoute's nominal pose and the simulator). Each update() takes the
+// encoder deltas since the last snapshot and splits them into the three
+// mecanum wheel patterns EncoderRoute drives with:
+//
+//   forward   FL+ FR+ BL+ BR+
+//   strafe    FL+ FR- BL- BR+     (/ strafeCorrection, strafing slips)
+//   turn      FL- FR+ BL- BR+
+//
+// (each times the robot's sign from signs()). The heading comes from the IMU
+// when there is one (wheels scrub in turns, the gyro doesn't), otherwise from
+// the turn pattern. The step is rotated into the field frame at the mid
+// heading and added up.
+//
+//   pose = new PoseEstimator(encoders, imuService, ticksPerInch, STRAFE_CORRECTION, WHEELBASE_DIAMETER_IN)
+//           .signs(FORWARD_SIGN, STRAFE_LEFT_SIGN, TURN_LEFT_SIGN);
+//   loop:  encoders.capture();  pose.update();  pose.x() ...
+//
+// Primitive fields only; update() is a few multiplies and one sin/cos pair.
+// Call it every loop, after the snapshot is captured (it skips a snapshot it
+// has already seen).
+public class PoseEstimator {
+
+    private final EncoderSnapshot encoders;   // FL, FR, BL, BR
+    private final HeadingSource imu;          // may be null
+    private final double ticksPerInch;
+    private final double strafeCorrection;
+    private final double turnRadiusIn;
+
+    private int forwardSign = +1, strafeLeftSign = +1, turnLeftSign = +1;
+
+    // ====== STATE ======
+    private double x = 0, y = 0, heading = 0;           // in, in, rad
+    private double vx = 0, vy = 0, omega = 0;           // field frame, in/s, rad/s
+    private double encHeading = 0;                      // wheels-only heading, rad
+    private double imuOffset = 0;                       // heading - imu yaw, rad
+    private double stepFwd = 0, stepLeft = 0, stepTurn = 0;   // last update(), robot frame
+    private long steps = 0;
+    private final int[] last = new int[4];
+    private long lastCycle = -1, lastNanos = 0;
+    private boolean primed = false;                     // first update() only takes the baseline
+
+    // ====== HANDOFF (auto -> TeleOp; statics survive between OpModes) ======
+    public static final double MAX_HANDOFF_S = 60;      // auto end -> TeleOp start, with margin
+    private static boolean saved = false;
+    private static double savedX, savedY, savedHeadingDeg;
+    private static long savedNanos;
+
+    public PoseEstimator(EncoderSnapshot encoders, HeadingSource imu,
+                         double ticksPerInch, double strafeCorrection, double wheelbaseDiameterIn) {
+        this.encoders = encoders;
+        this.imu = imu;
+        this.ticksPerInch = ticksPerInch;
+        this.strafeCorrection = strafeCorrection;
+        this.turnRadiusIn = wheelbaseDiameterIn / 2;
+        setPose(0, 0, 0);
+    }
+
+    // Same meaning as EncoderRoute.Builder.signs(): the raw encoder sign that
+    // moves the robot forward / left / turns it left.
+    public PoseEstimator signs(int forward, int strafeLeft, int turnLeft) {
+        forwardSign = forward;
+        strafeLeftSign = strafeLeft;
+        turnLeftSign = turnLeft;
+        return this;
+    }
+
+    public void setPose(double xIn, double yIn, double headingDeg) {
+        x = xIn;
+        y = yIn;
+        heading = Math.toRadians(headingDeg);
+        encHeading = heading;
+        if (imu != null) imuOffset = heading - Math.toRadians(imu.yawDeg());
+    }
+
+    // ========= UPDATE (every loop, after encoders.capture()) =========
+
+    public void update() {
+        long cycle = encoders.cycleCount();
+        if (cycle == lastCycle) return;
+        lastCycle = cycle;
+
+        int fl = encoders.position(MecanumDrive.FL), fr = encoders.position(MecanumDrive.FR);
+        int bl = encoders.position(MecanumDrive.BL), br = encoders.position(MecanumDrive.BR);
+        long now = encoders.timestampNanos();
+        if (!primed) {
+            remember(fl, fr, bl, br, now);
+            primed = true;
+            return;
+        }
+
+        double dFL = fl - last[0], dFR = fr - last[1], dBL = bl - last[2], dBR = br - last[3];
+        double dt = (now - lastNanos) / 1e9;
+        remember(fl, fr, bl, br, now);
+
+        // robot-frame step
+        double fwd  = forwardSign    * (dFL + dFR + dBL + dBR) / 4 / ticksPerInch;
+        double left = strafeLeftSign * (dFL - dFR - dBL + dBR) / 4 / ticksPerInch / strafeCorrection;
+        double dEnc = turnLeftSign   * (-dFL + dFR - dBL + dBR) / 4 / ticksPerInch / turnRadiusIn;
+
+        encHeading += dEnc;
+        double newHeading = imu != null
+                ? AngleUnit.normalizeRadians(Math.toRadians(imu.yawDeg()) + imuOffset)
+                : encHeading;
+        double dHeading = AngleUnit.normalizeRadians(newHeading - heading);
+
+        double mid = heading + dHeading / 2;
+        double c = Math.cos(mid), s = Math.sin(mid);
+        double dx = fwd * c - left * s;
+        double dy = fwd * s + left * c;
+        x += dx;
+        y += dy;
+        heading = AngleUnit.normalizeRadians(newHeading);
+        stepFwd = fwd;
+        stepLeft = left;
+        stepTurn = dHeading;
+        steps++;
+
+        if (dt > 0) {
+            vx = dx / dt;
+            vy = dy / dt;
+            omega = dHeading / dt;
+        }
+    }
+
+    private void remember(int fl, int fr, int bl, int br, long now) {
+        last[0] = fl;
+        last[1] = fr;
+        last[2] = bl;
+        last[3] = br;
+        lastNanos = now;
+    }
+
+    // ========= READ =========
+
+    public double x()                  { return x; }
+    public double y()                  { return y; }
+    public double headingDeg()         { return Math.toDegrees(heading); }
+    public double headingRad()         { return heading; }
+    public double vx()                 { return vx; }
+    public double vy()                 { return vy; }
+    public double omegaDegPerS()       { return Math.toDegrees(omega); }
+
+    // The last update()'s motion in the robot frame (in, in, rad), for filters
+    // that keep their own pose (PoseEKF); steps() counts updates that moved.
+    public double stepForwardIn()      { return stepFwd; }
+    public double stepLeftIn()         { return stepLeft; }
+    public double stepTurnRad()        { return stepTurn; }
+    public long steps()                { return steps; }
+    public long stepNanos()            { return lastNanos; }
+
+    // How fast a point at bearingDeg (+ = left) / rangeIn from the robot swings
+    // by as we drive (deg/s, CCW): its robot-frame position x our velocity,
+    // / range^2. The target rate for aiming at the goal while driving.
+    public double lineOfSightRateDegPerS(double bearingDeg, double rangeIn) {
+        if (!(rangeIn > 1)) return 0;
+        double vFwd  =  vx * Math.cos(heading) + vy * Math.sin(heading);
+        double vLeft = -vx * Math.sin(heading) + vy * Math.cos(heading);
+        double b = Math.toRadians(bearingDeg);
+        double px = rangeIn * Math.cos(b), py = rangeIn * Math.sin(b);
+        return Math.toDegrees((py * vFwd - px * vLeft) / (rangeIn * rangeIn));
+    }
+
+    // Heading from the wheels alone; drifts from headingDeg() by the turn scrub.
+    public double encoderHeadingDeg()  { return Math.toDegrees(AngleUnit.normalizeRadians(encHeading)); }
+
+    // ========= HANDOFF =========
+
+    // End of auto: keep the pose for the next OpMode (TeleOp field-centric).
+    public void save() {
+        savedX = x;
+        savedY = y;
+        savedHeadingDeg = headingDeg();
+        savedNanos = LoopClock.nanoTime();
+        saved = true;
+    }
+
+    // Start of TeleOp: pick up where auto left off. A save is used once, and
+    // only within MAX_HANDOFF_S of the auto ending; otherwise false (pose
+    // untouched), so a practice TeleOp an hour later doesn't start from it.
+    public boolean restore() {
+        double ageS = (LoopClock.nanoTime() - savedNanos) / 1e9;
+        boolean use = saved && ageS >= 0 && ageS <= MAX_HANDOFF_S;
+        saved = false;
+        if (!use) return false;
+        setPose(savedX, savedY, savedHeadingDeg);
+        return true;
+    }
+}
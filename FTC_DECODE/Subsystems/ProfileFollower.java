@@ -0,0 +1,57 @@
+package org.firstinspires.ftc.teamcode;
+
+// Turns a profile setpoint (position, velocity, acceleration) into motor power
+// for one wheel:
+//
+//   power = kS*sign(v) + kV*v + kA*a  +  kP*e + kI*integral(e) + kD*de/dt
+//
+// The feedforward does almost all the work; the PID only cleans up the
+// position error e = setpoint - measured. No allocation; keep one per wheel.
+public class ProfileFollower {
+
+    private final double kS, kV, kA;
+    private final double kP, kI, kD;
+
+    private double integral = 0;
+    private double lastError = 0;
+    private double lastTimeS = Double.NaN;
+
+    public ProfileFollower(double kS, double kV, double kA, double kP, double kI, double kD) {
+        this.kS = kS;
+        this.kV = kV;
+        this.kA = kA;
+        this.kP = kP;
+        this.kI = kI;
+        this.kD = kD;
+    }
+
+    public void reset() {
+        integral = 0;
+        lastError = 0;
+        lastTimeS = Double.NaN;
+    }
+
+    // Keeps the PID state; use between chained legs so there is no bump.
+    public double update(double targetPos, double targetVel, double targetAccel,
+                         double measuredPos, double timeS) {
+        double error = targetPos - measuredPos;
+
+        double deriv = 0;
+        if (!Double.isNaN(lastTimeS)) {
+            double dt = timeS - lastTimeS;
+            if (dt > 0) {
+                integral += error * dt;
+                deriv = (error - lastError) / dt;
+            }
+        }
+        lastError = error;
+        lastTimeS = timeS;
+
+        double ff = kV * targetVel + kA * targetAccel;
+        if (targetVel != 0) ff += kS * Math.signum(targetVel);
+
+        return ff + kP * error + kI * integral + kD * deriv;
+    }
+
+    public double lastError() { return lastError; }
+}
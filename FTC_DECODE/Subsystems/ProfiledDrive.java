@@ -0,0 +1,203 @@
+package org.firstinspires.ftc.teamcode;
+
+// Runs encoder "legs" (drive / strafe / turn) for the encoder autos with a
+// trapezoidal profile and a feedforward + PID follower per wheel, instead of
+// slamming RUN_TO_POSITION at MAX_POWER.
+//
+// Motors stay in RUN_USING_ENCODER the whole time, so setPower(p) asks the hub
+// for p * maxTicksPerSec. That makes kV = 1 / maxTicksPerSec and the
+// feedforward is almost exact; the PID only trims position error.
+//
+// Leg targets are cumulative (each leg starts from where the previous one was
+// *supposed* to end), so legs chain back to back with no stop, no mode switch
+// and no settle sleep, and small errors don't pile up over a route.
+//
+// A leg that times out is different: something stopped the robot. Its wheels
+// are set to 0 and the next leg starts from where the wheels really are, so
+// it doesn't lunge after the miss.
+//
+//   legs.startLeg(dt, dt, dt, dt, power, timeoutS);
+//   while (opModeIsActive() && legs.update()) { ...telemetry... }
+public class ProfiledDrive {
+
+    private final CachedMotor[] wheels = new CachedMotor[4];
+    private final EncoderSnapshot encoders;   // must hold the drive as FL, FR, BL, BR
+    private final ProfileFollower[] followers = new ProfileFollower[4];
+    private final TrapezoidProfile profile = new TrapezoidProfile();
+
+    // ====== TUNABLES ======
+    private final double maxTicksPerSec;  // wheel speed at power 1.0 (RUN_USING_ENCODER)
+    private final double maxAccel;        // ticks/s^2
+    private final int tolTicks;           // "arrived" band at the end of a leg
+
+    // ====== LEG STATE (reused, no allocation per leg) ======
+    private final int[] origin   = new int[4];  // encoder positions when the first leg started
+    private final int[] legStart = new int[4];
+    private final int[] delta    = new int[4];
+    private final int[] target   = new int[4];
+    private final double[] setpoint = new double[4];
+    private final double[] out      = new double[4];
+    private int legTicks = 0;            // largest |delta| this leg, the profile runs on this
+    private long legStartNanos = 0;
+    private double legTimeoutS = 0;
+    private boolean targetsInitialized = false;
+    private boolean running = false;
+    private boolean timedOut = false;     // last leg ended on its timeout
+
+    // ====== ROUTE STATS ======
+    private double plannedS = 0;
+    private long firstLegNanos = 0;
+    private long lastDoneNanos = 0;
+    private int legs = 0;
+    private int timeouts = 0;
+
+    public ProfiledDrive(MecanumDrive drive, EncoderSnapshot encoders,
+                         double maxTicksPerSec, double maxAccel, int tolTicks,
+                         double kA, double kP, double kI, double kD) {
+        this(drive.motor(MecanumDrive.FL), drive.motor(MecanumDrive.FR),
+             drive.motor(MecanumDrive.BL), drive.motor(MecanumDrive.BR),
+             encoders, maxTicksPerSec, maxAccel, tolTicks, kA, kP, kI, kD);
+    }
+
+    public ProfiledDrive(CachedMotor fl, CachedMotor fr, CachedMotor bl, CachedMotor br,
+                         EncoderSnapshot encoders,
+                         double maxTicksPerSec, double maxAccel, int tolTicks,
+                         double kA, double kP, double kI, double kD) {
+        wheels[MecanumDrive.FL] = fl;
+        wheels[MecanumDrive.FR] = fr;
+        wheels[MecanumDrive.BL] = bl;
+        wheels[MecanumDrive.BR] = br;
+        this.encoders = encoders;
+        this.maxTicksPerSec = maxTicksPerSec;
+        this.maxAccel = maxAccel;
+        this.tolTicks = tolTicks;
+
+        // kS = 0: the hub's velocity loop already overcomes static friction
+        for (int i = 0; i < 4; i++) {
+            followers[i] = new ProfileFollower(0.0, 1.0 / maxTicksPerSec, kA, kP, kI, kD);
+        }
+    }
+
+    // ========= LEGS =========
+
+    // Per-wheel tick deltas (FL, FR, BL, BR). power (0..1] sets the cruise speed.
+    public void startLeg(int dFL, int dFR, int dBL, int dBR, double power, double timeoutS) {
+        initTargets();
+        delta[MecanumDrive.FL] = dFL;
+        delta[MecanumDrive.FR] = dFR;
+        delta[MecanumDrive.BL] = dBL;
+        delta[MecanumDrive.BR] = dBR;
+        beginLeg(power, timeoutS);
+    }
+
+    // Leg to precompiled targets (4 ints FL, FR, BL, BR starting at offset),
+    // measured from where the first leg started. See EncoderRoute.
+    public void startLegTo(int[] targets, int offset, double power, double timeoutS) {
+        initTargets();
+        for (int i = 0; i < 4; i++) {
+            delta[i] = origin[i] + targets[offset + i] - target[i];
+        }
+        beginLeg(power, timeoutS);
+    }
+
+    private void initTargets() {
+        encoders.capture();
+        if (targetsInitialized) return;
+        for (int i = 0; i < 4; i++) {
+            origin[i] = encoders.position(i);
+            target[i] = origin[i];
+        }
+        targetsInitialized = true;
+    }
+
+    private void beginLeg(double power, double timeoutS) {
+        legTicks = 0;
+        for (int i = 0; i < 4; i++) {
+            legStart[i] = target[i];
+            target[i] += delta[i];
+            legTicks = Math.max(legTicks, Math.abs(delta[i]));
+        }
+
+        double cruise = Math.min(Math.abs(power), 1.0) * maxTicksPerSec;
+        profile.plan(legTicks, cruise, maxAccel);
+
+        legStartNanos = encoders.timestampNanos();
+        legTimeoutS = timeoutS;
+        running = true;
+        timedOut = false;
+
+        if (legs == 0) firstLegNanos = legStartNanos;
+        plannedS += profile.totalTime();
+        legs++;
+    }
+
+    // One control step. Returns true while the leg is still running.
+    public boolean update() {
+        if (!running) return false;
+
+        encoders.capture();
+        long now = encoders.timestampNanos();
+        double t = (now - legStartNanos) / 1e9;
+        double nowS = now / 1e9;
+
+        double pos = profile.position(t);
+        double vel = profile.velocity(t);
+        double acc = profile.acceleration(t);
+
+        boolean settled = true;
+        for (int i = 0; i < 4; i++) {
+            // every wheel follows the same profile, scaled to its own delta
+            double scale = legTicks == 0 ? 0.0 : (double) delta[i] / legTicks;
+            setpoint[i] = legStart[i] + scale * pos;
+            double p = followers[i].update(setpoint[i], scale * vel, scale * acc,
+                                           encoders.position(i), nowS);
+            out[i] = Math.max(-1.0, Math.min(1.0, p));
+            if (Math.abs(target[i] - encoders.position(i)) > tolTicks) settled = false;
+        }
+
+        boolean arrived = t >= profile.totalTime() && settled;
+        if (arrived || t >= legTimeoutS) {
+            running = false;
+            lastDoneNanos = now;
+            if (!arrived) {
+                // stop here, and don't carry the miss into the next leg
+                timedOut = true;
+                timeouts++;
+                for (int i = 0; i < 4; i++) {
+                    wheels[i].setPower(0);
+                    out[i] = 0;
+                    target[i] = encoders.position(i);
+                }
+            }
+            // arrived: leave the motors as they are, the next leg takes over on its first update()
+            return false;
+        }
+
+        for (int i = 0; i < 4; i++) wheels[i].setPower(out[i]);
+        return true;
+    }
+
+    public void stop() {
+        running = false;
+        for (int i = 0; i < 4; i++) wheels[i].setPower(0);
+    }
+
+    // ========= READOUTS =========
+
+    public int target(int wheel)         { return target[wheel]; }
+    public double setpoint(int wheel)    { return setpoint[wheel]; }
+    public double power(int wheel)       { return out[wheel]; }
+    public double legTimeS()             { return (encoders.timestampNanos() - legStartNanos) / 1e9; }
+    public double legPlannedS()          { return profile.totalTime(); }
+    public boolean isRunning()           { return running; }
+    public boolean timedOut()            { return timedOut; }
+    public int timeoutCount()            { return timeouts; }
+
+    // sum of the profile times of every leg started so far
+    public double plannedRouteS()        { return plannedS; }
+
+    // first leg start -> last leg finished
+    public double actualRouteS()         { return legs == 0 ? 0 : (lastDoneNanos - firstLegNanos) / 1e9; }
+
+    public int legCount()                { return legs; }
+}
@@ -0,0 +1,27 @@
+package org.firstinspires.ftc.teamcode;
+
+import org.firstinspires.ftc.vision.apriltag.AprilTagDetection;
+
+import java.util.List;
+
+// Picks one tag out of an AprilTagProcessor detection list. Index loop, no
+// iterator, so a scan per loop() allocates nothing.
+public final class TagFinder {
+
+    private TagFinder() { }
+
+    // The detection of `id` with a pose and the smallest |bearing|, or null.
+    public static AprilTagDetection find(List<AprilTagDetection> detections, int id) {
+        if (detections == null) return null;
+        AprilTagDetection best = null;
+        double bestAbs = Double.MAX_VALUE;
+        for (int i = 0, n = detections.size(); i < n; i++) {
+            AprilTagDetection d = detections.get(i);
+            if (d.id == id && d.ftcPose != null) {
+                double ab = Math.abs(d.ftcPose.bearing);
+                if (ab < bestAbs) { bestAbs = ab; best = d; }
+            }
+        }
+        return best;
+    }
+}
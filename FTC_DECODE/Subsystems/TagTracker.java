@@ -0,0 +1,262 @@
+package org.firstinspires.ftc.teamcode;
+
+import org.firstinspires.ftc.vision.apriltag.AprilTagDetection;
+import org.firstinspires.ftc.vision.apriltag.AprilTagProcessor;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// AprilTag detections, consumed off the control thread, kept per tag ID.
+//
+// A worker thread takes each new frame from the processor (getFreshDetections
+// copies the list, so that copy and the scan happen here, not in loop()) and
+// stores, per tag ID: bearing, range, frame time, and the robot yaw at that
+// frame. Readers get the bearing *predicted to now*: the robot turning by d
+// degrees CCW moves the tag d degrees clockwise in the camera, so
+//
+//   bearing(now) = bearing(frame) - (yaw(now) - yaw(frame))
+//
+// and a frame that drops out or arrives late doesn't turn into a zero turn
+// command. The yaw at the frame is the IMU yaw when the frame was processed,
+// walked back to the frame's acquisition time with the yaw rate.
+// Ranges are kept both as the camera reports them (3D) and along the floor
+// (hypot of ftcPose x, y), which is what a field localizer wants. A frame
+// older than the one already stored for a tag is ignored.
+// Only rotation is predicted; driving sideways also moves the bearing, by
+// about (lateral inches / range) radians, which is small at align speeds.
+//
+//   tags = new TagTracker(imuService);  tags.start(aprilTag);    // init
+//   tags.poll();                                                // top of loop(): no-op on the robot
+//   if (tags.fresh(24, 0.5)) turn = kP * tags.bearingDeg(24);
+//   tags.stop();                                                // stop()
+//
+// Values live in an AtomicLongArray (doubles as raw bits) behind a seqlock,
+// so reads from loop() take no lock and allocate nothing. offer() is also the
+// entry point for replaying frames: record(path) logs every frame plus the
+// IMU at arrival, and Sim/TagReplay plays such a log back.
+public class TagTracker {
+
+    public static final int MAX_ID = 600;                 // 36h11 library IDs are 0..586
+
+    private static final int BEARING = 0, RANGE = 1, YAW_AT_FRAME = 2, FRAME_NANOS = 3, FLOOR_RANGE = 4, FIELDS = 5;
+    private static final long IDLE_SLEEP_MS = 2;          // between polls when no new frame
+    private static final long MAX_FRAME_AGE_NANOS = 500_000_000L;   // trust acquisition times up to this old
+
+    private final HeadingSource heading;
+    private final AtomicLongArray slots = new AtomicLongArray(MAX_ID * FIELDS);
+    private volatile int seq = 0;
+    private volatile long frames = 0;
+    private volatile long lastLatencyNanos = 0;
+    private volatile boolean clearRequested = false;
+
+    private PrintWriter log;                              // worker thread only
+    private AprilTagProcessor processor;
+    private Thread thread;
+    private volatile boolean running = false;
+
+    // heading may be null: then the last bearing is held as seen (no prediction).
+    public TagTracker(HeadingSource heading) {
+        this.heading = heading;
+        for (int id = 0; id < MAX_ID; id++) slots.set(id * FIELDS + FRAME_NANOS, Long.MIN_VALUE);
+    }
+
+    // ========= LIFECYCLE =========
+
+    public void start(AprilTagProcessor processor) {
+        if (running) return;
+        this.processor = processor;
+        running = true;
+        if (LoopClock.isSimulated()) return;   // the sim consumes frames from poll()
+
+        thread = new Thread(this::run, "TagTracker");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public void stop() {
+        running = false;
+        if (thread != null) {
+            thread.interrupt();
+            try {
+                thread.join(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            thread = null;
+        } else {
+            closeLog();
+        }
+    }
+
+    private void closeLog() {
+        if (log != null) {
+            log.close();
+            log = null;
+        }
+    }
+
+    // Log frames to a CSV for TagReplay (call before start()). Rows:
+    //   imu,<t_ms>,<yaw_deg>,<yaw_rate_dps>
+    //   tag,<t_ms>,<frame_ms>,<id>,<range_in>,<bearing_deg>
+    // Written by the worker thread. Returns false if the file can't be opened.
+    public boolean record(String path) {
+        try {
+            log = new PrintWriter(new FileWriter(path));
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    // No thread (simulator): take the newest frame, if any, on the caller's thread.
+    public void poll() {
+        if (!running || thread != null || processor == null) return;
+        List<AprilTagDetection> fresh = processor.getFreshDetections();
+        if (fresh != null) offer(fresh, LoopClock.nanoTime());
+    }
+
+    private void run() {
+        try {
+            while (running && !Thread.currentThread().isInterrupted()) {
+                if (clearRequested) {
+                    clearRequested = false;
+                    wipe();
+                }
+                List<AprilTagDetection> fresh = processor.getFreshDetections();
+                if (fresh != null) {
+                    offer(fresh, LoopClock.nanoTime());
+                    continue;
+                }
+                Thread.sleep(IDLE_SLEEP_MS);
+            }
+        } catch (InterruptedException e) {
+            // stop()
+        } finally {
+            closeLog();
+        }
+    }
+
+    // ========= INGEST (worker thread, or a replay) =========
+
+    // One camera frame. nowNanos = when it reached us; each detection's
+    // frameAcquisitionNanoTime is used when it's plausible.
+    public void offer(List<AprilTagDetection> detections, long nowNanos) {
+        double yawNow = heading == null ? 0 : heading.yawDeg();
+        double rate   = heading == null ? 0 : heading.yawRateDegPerS();
+
+        seq++;
+        for (int i = 0, n = detections.size(); i < n; i++) {
+            AprilTagDetection d = detections.get(i);
+            if (d.ftcPose == null || d.id < 0 || d.id >= MAX_ID) continue;
+
+            long at = d.frameAcquisitionNanoTime;
+            if (at <= 0 || at > nowNanos || nowNanos - at > MAX_FRAME_AGE_NANOS) at = nowNanos;
+            double yawAtFrame = yawNow - rate * (nowNanos - at) / 1e9;
+
+            int base = d.id * FIELDS;
+            if (at < slots.get(base + FRAME_NANOS)) continue;   // late frame, already have newer
+            slots.set(base + BEARING, Double.doubleToRawLongBits(d.ftcPose.bearing));
+            slots.set(base + RANGE, Double.doubleToRawLongBits(d.ftcPose.range));
+            slots.set(base + FLOOR_RANGE, Double.doubleToRawLongBits(Math.hypot(d.ftcPose.x, d.ftcPose.y)));
+            slots.set(base + YAW_AT_FRAME, Double.doubleToRawLongBits(yawAtFrame));
+            slots.set(base + FRAME_NANOS, at);
+            if (at != nowNanos) lastLatencyNanos = nowNanos - at;
+        }
+        frames++;
+        seq++;
+
+        if (log != null) writeFrame(detections, nowNanos, yawNow, rate);
+    }
+
+    private void writeFrame(List<AprilTagDetection> detections, long nowNanos, double yaw, double rate) {
+        log.println("imu," + nowNanos / 1e6 + "," + yaw + "," + rate);
+        for (int i = 0, n = detections.size(); i < n; i++) {
+            AprilTagDetection d = detections.get(i);
+            if (d.ftcPose == null) continue;
+            log.println("tag," + nowNanos / 1e6 + "," + d.frameAcquisitionNanoTime / 1e6 + ","
+                    + d.id + "," + d.ftcPose.range + "," + d.ftcPose.bearing);
+        }
+    }
+
+    // Forget everything (e.g. after the IMU yaw is reset). With a worker thread
+    // running, the worker does it on its next pass (within a frame or
+    // IDLE_SLEEP_MS): the slots and seq have one writer.
+    public void clear() {
+        if (thread == null) wipe();
+        else clearRequested = true;
+    }
+
+    private void wipe() {
+        seq++;
+        for (int id = 0; id < MAX_ID; id++) slots.set(id * FIELDS + FRAME_NANOS, Long.MIN_VALUE);
+        seq++;
+    }
+
+    // ========= READ (any thread, allocation-free) =========
+
+    public boolean seen(int id) {
+        return inRange(id) && slots.get(id * FIELDS + FRAME_NANOS) != Long.MIN_VALUE;
+    }
+
+    // Seconds since the frame the tag was last seen in; +inf if never.
+    public double ageS(int id) {
+        if (!seen(id)) return Double.POSITIVE_INFINITY;
+        return (LoopClock.nanoTime() - slots.get(id * FIELDS + FRAME_NANOS)) / 1e9;
+    }
+
+    public boolean fresh(int id, double maxAgeS) {
+        return ageS(id) < maxAgeS;
+    }
+
+    // Bearing as of now (deg, + = tag to the left), predicted from the IMU.
+    public double bearingDeg(int id) {
+        if (!seen(id)) return 0;
+        int base = id * FIELDS;
+        double bearing, yawAtFrame;
+        int s;
+        do {
+            s = seq;
+            bearing = Double.longBitsToDouble(slots.get(base + BEARING));
+            yawAtFrame = Double.longBitsToDouble(slots.get(base + YAW_AT_FRAME));
+        } while ((s & 1) != 0 || s != seq);
+        if (heading == null) return bearing;
+        return bearing - HeadingHold.angleErrorDeg(heading.yawDeg(), yawAtFrame);
+    }
+
+    // Bearing exactly as the last frame saw it.
+    public double rawBearingDeg(int id) {
+        return seen(id) ? Double.longBitsToDouble(slots.get(id * FIELDS + BEARING)) : 0;
+    }
+
+    public double rangeIn(int id) {
+        return seen(id) ? Double.longBitsToDouble(slots.get(id * FIELDS + RANGE)) : 0;
+    }
+
+    // Frame time of the last sighting, and floor range + raw bearing from that
+    // same frame (out[0], out[1]); 0 if never seen. For localizers.
+    public long measurement(int id, double[] out) {
+        if (!seen(id)) return 0;
+        int base = id * FIELDS;
+        long at;
+        int s;
+        do {
+            s = seq;
+            at = slots.get(base + FRAME_NANOS);
+            out[0] = Double.longBitsToDouble(slots.get(base + FLOOR_RANGE));
+            out[1] = Double.longBitsToDouble(slots.get(base + BEARING));
+        } while ((s & 1) != 0 || s != seq);
+        return at;
+    }
+
+    public long frames() { return frames; }
+
+    // Exposure -> here, for the newest frame that had a usable acquisition time.
+    public long lastFrameLatencyNanos() { return lastLatencyNanos; }
+
+    private static boolean inRange(int id) {
+        return id >= 0 && id < MAX_ID;
+    }
+}
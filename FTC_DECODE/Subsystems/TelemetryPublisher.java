@@ -0,0 +1,255 @@
+package org.firstinspires.ftc.teamcode;
+
+import org.firstinspires.ftc.robotcore.external.Telemetry;
+
+import java.util.concurrent.locks.LockSupport;
+
+// Rate-limited telemetry that does not String.format every loop, and does not
+// render or send on the loop thread.
+//
+// Lines are declared once (init/start). Each loop the OpMode just hands in the
+// raw numbers with set(); that is a compare + store. publish() only does work
+// when the publish period has passed, and then all the loop thread does is
+// copy the changed lines' numbers into a hand-off slot and wake the publisher
+// thread. That thread re-renders those lines into StringBuilders that are
+// allocated once and calls telemetry.update() (the SDK's Telemetry is
+// synchronized, so this is safe off the OpMode thread).
+//
+// Each line has two StringBuilders: the item points at the one last sent
+// while the thread renders into the other, so a Driver Station send can never
+// read a half-rendered line. If the thread is still busy with the last
+// publish, publish() leaves the lines dirty and tries again next loop; the
+// loop never waits on it.
+//
+// In the simulator (LoopClock.isSimulated()) and after stop() there is no
+// thread and publish() renders and sends inline, as before.
+//
+//   tele = new TelemetryPublisher(telemetry, 4);              // 4 Hz
+//   int DRIVE = tele.addLine("Drive", 2, "FL ", "FR ", "BL ", "BR ");
+//   ...
+//   tele.set(DRIVE, 0, pfl); ... tele.publish();
+//   tele.stop();                                              // stop(), always
+public class TelemetryPublisher {
+
+    private static final int MAX_LINES = 24;
+    private static final String FIELD_GAP = "  ";
+    private static final long[] POW10 = {1, 10, 100, 1000, 10000, 100000, 1000000};
+
+    private final Telemetry telemetry;
+    private final long periodNanos;
+    private long lastPublishNanos = 0;
+
+    private final Line[] lines = new Line[MAX_LINES];
+    private int count = 0;
+
+    private volatile long publishes = 0;
+    private volatile long renders = 0;
+
+    // ====== HAND-OFF ======
+    // The loop thread writes the shown* copies only while pending is false;
+    // the publisher thread reads them only while it is true.
+    private volatile boolean pending = false;
+    private Thread thread;
+    private volatile boolean running = false;
+    private boolean stopped = false;
+
+    private static class Line {
+        Telemetry.Item item;
+        String[] labels;      // null for a text-only line
+        double[] values;
+        int decimals;
+        String text;          // text-only lines
+        boolean dirty = true;
+
+        // publisher side
+        double[] shown;
+        String shownText;
+        boolean handed;       // copied in the last hand-off, not rendered yet
+        final StringBuilder[] sb = {new StringBuilder(64), new StringBuilder(64)};
+        int front = 0;        // the one the item points at
+    }
+
+    public TelemetryPublisher(Telemetry telemetry, double publishHz) {
+        this.telemetry = telemetry;
+        this.periodNanos = (long) (1e9 / publishHz);
+
+        // we own the items now; don't let update() wipe them
+        telemetry.setAutoClear(false);
+        telemetry.clearAll();
+        telemetry.setMsTransmissionInterval((int) (1000 / publishHz));
+    }
+
+    // ========= DECLARE (init only, allocates) =========
+
+    // A line of numbers: "label0 v0  label1 v1 ..." with a fixed number of decimals.
+    public int addLine(String caption, int decimals, String... labels) {
+        Line l = newLine(caption);
+        l.labels = labels;
+        l.values = new double[labels.length];
+        l.shown = new double[labels.length];
+        l.decimals = Math.max(0, Math.min(decimals, POW10.length - 1));
+        return count++;
+    }
+
+    // A line that shows a (usually constant) string, e.g. "SLOW" / "NORMAL".
+    public int addText(String caption) {
+        Line l = newLine(caption);
+        l.text = "";
+        return count++;
+    }
+
+    private Line newLine(String caption) {
+        if (count == MAX_LINES) throw new IllegalStateException("TelemetryPublisher: too many lines");
+        Line l = new Line();
+        l.item = telemetry.addData(caption, "");
+        l.item.setRetained(true);
+        lines[count] = l;
+        return l;
+    }
+
+    // ========= UPDATE (every loop, allocation-free) =========
+
+    public void set(int line, int field, double value) {
+        Line l = lines[line];
+        if (l.values[field] != value) {
+            l.values[field] = value;
+            l.dirty = true;
+        }
+    }
+
+    public void setText(int line, String text) {
+        Line l = lines[line];
+        if (!l.text.equals(text)) {
+            l.text = text;
+            l.dirty = true;
+        }
+    }
+
+    // Sends to the driver station if the publish period has passed.
+    // Returns true if it actually published (handed off, on the robot).
+    public boolean publish() {
+        long now = LoopClock.nanoTime();
+        if (now - lastPublishNanos < periodNanos) return false;
+        if (!handOff()) return false;   // thread still busy: try next loop
+        lastPublishNanos = now;
+        return true;
+    }
+
+    // Publish right now, ignoring the rate (init screens, end of auto).
+    // Dropped, lines left dirty, if the thread is still sending the last one.
+    public void forcePublish() {
+        handOff();
+    }
+
+    // Must be called from OpMode.stop() (or the end of runOpMode()). Lets the
+    // thread finish the publish it has; later publishes run inline.
+    public void stop() {
+        stopped = true;
+        running = false;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+            try {
+                thread.join(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            thread = null;
+        }
+    }
+
+    // ========= HAND-OFF (loop thread) =========
+
+    private boolean handOff() {
+        if (pending) return false;
+        for (int i = 0; i < count; i++) {
+            Line l = lines[i];
+            if (!l.dirty) continue;
+            if (l.labels == null) l.shownText = l.text;
+            else System.arraycopy(l.values, 0, l.shown, 0, l.values.length);
+            l.handed = true;
+            l.dirty = false;
+        }
+
+        if (thread == null && !stopped && !LoopClock.isSimulated()) startThread();
+        if (thread == null) {
+            send();
+            return true;
+        }
+        pending = true;
+        LockSupport.unpark(thread);
+        return true;
+    }
+
+    private void startThread() {
+        running = true;
+        thread = new Thread(this::run, "TelemetryPublisher");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.NORM_PRIORITY - 1);   // below the loop
+        thread.start();
+    }
+
+    // ========= PUBLISHER THREAD =========
+
+    private void run() {
+        while (true) {
+            if (pending) {
+                send();
+                pending = false;
+            }
+            if (!running) return;
+            LockSupport.park(this);
+        }
+    }
+
+    // Renders the handed-off lines into their back buffers and sends.
+    private void send() {
+        for (int i = 0; i < count; i++) {
+            Line l = lines[i];
+            if (!l.handed) continue;
+            int back = l.front ^ 1;
+            render(l, l.sb[back]);
+            l.item.setValue(l.sb[back]);
+            l.front = back;
+            l.handed = false;
+            renders++;
+        }
+        telemetry.update();
+        publishes++;
+    }
+
+    public long publishCount() { return publishes; }
+    public long renderCount()  { return renders; }
+
+    // ========= RENDER =========
+
+    private static void render(Line l, StringBuilder sb) {
+        sb.setLength(0);
+        if (l.labels == null) {
+            sb.append(l.shownText);
+            return;
+        }
+        for (int f = 0; f < l.labels.length; f++) {
+            if (f > 0) sb.append(FIELD_GAP);
+            sb.append(l.labels[f]);
+            appendFixed(sb, l.shown[f], l.decimals);
+        }
+    }
+
+    // Like String.format("%.Nf") (minus the "-0.00"), without the Formatter garbage.
+    static void appendFixed(StringBuilder sb, double v, int decimals) {
+        if (Double.isNaN(v) || Double.isInfinite(v)) { sb.append(v); return; }
+
+        long scale = POW10[decimals];
+        long scaled = Math.round(Math.abs(v) * scale);
+        if (v < 0 && scaled != 0) sb.append('-');
+
+        sb.append(scaled / scale);
+        if (decimals == 0) return;
+
+        sb.append('.');
+        long frac = scaled % scale;
+        for (long d = scale / 10; d > 0; d /= 10) {
+            sb.append((char) ('0' + (frac / d) % 10));
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package org.firstinspires.ftc.teamcode;
+
+// Rest-to-rest trapezoidal motion profile: accelerate at maxAccel, cruise at
+// maxVel, decelerate at maxAccel. If the move is too short to reach maxVel it
+// becomes a triangle. Units are whatever you plan in (we use encoder ticks).
+//
+// plan() only sets a handful of doubles, so one instance is reused for every
+// leg of an autonomous.
+public class TrapezoidProfile {
+
+    private double distance;   // signed
+    private double sign;
+    private double vPeak;      // cruise (or triangle peak) velocity, >= 0
+    private double accel;
+    private double tAccel, tCruise, tTotal;
+    private double dAccel;     // distance covered while accelerating
+
+    public TrapezoidProfile() { }
+
+    public TrapezoidProfile(double distance, double maxVel, double maxAccel) {
+        plan(distance, maxVel, maxAccel);
+    }
+
+    public TrapezoidProfile plan(double distance, double maxVel, double maxAccel) {
+        this.distance = distance;
+        this.sign = Math.signum(distance);
+        this.accel = maxAccel;
+
+        double d = Math.abs(distance);
+        double dToCruise = maxVel * maxVel / maxAccel; // accel + decel distance at full speed
+
+        if (d >= dToCruise) {
+            vPeak   = maxVel;
+            tAccel  = maxVel / maxAccel;
+            tCruise = (d - dToCruise) / maxVel;
+        } else {
+            // triangle: never reaches maxVel
+            vPeak   = Math.sqrt(d * maxAccel);
+            tAccel  = vPeak / maxAccel;
+            tCruise = 0;
+        }
+        dAccel = 0.5 * maxAccel * tAccel * tAccel;
+        tTotal = 2 * tAccel + tCruise;
+        return this;
+    }
+
+    // ========= SAMPLING (t in seconds since start of the move) =========
+
+    public double position(double t) {
+        if (t <= 0) return 0;
+        if (t >= tTotal) return distance;
+        double p;
+        if (t < tAccel) {
+            p = 0.5 * accel * t * t;
+        } else if (t < tAccel + tCruise) {
+            p = dAccel + vPeak * (t - tAccel);
+        } else {
+            double td = tTotal - t; // time left, mirror of the accel phase
+            p = Math.abs(distance) - 0.5 * accel * td * td;
+        }
+        return sign * p;
+    }
+
+    public double velocity(double t) {
+        if (t <= 0 || t >= tTotal) return 0;
+        double v;
+        if (t < tAccel)                 v = accel * t;
+        else if (t < tAccel + tCruise)  v = vPeak;
+        else                            v = accel * (tTotal - t);
+        return sign * v;
+    }
+
+    public double acceleration(double t) {
+        if (t <= 0 || t >= tTotal) return 0;
+        if (t < tAccel)                return sign * accel;
+        if (t < tAccel + tCruise)      return 0;
+        return -sign * accel;
+    }
+
+    public double totalTime()  { return tTotal; }
+    public double distance()   { return distance; }
+    public double peakVelocity() { return vPeak; }
+}
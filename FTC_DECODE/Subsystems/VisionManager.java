@@ -0,0 +1,301 @@
+package org.firstinspires.ftc.teamcode;
+
+import android.util.Size;
+
+import com.qualcomm.robotcore.hardware.HardwareMap;
+
+import org.firstinspires.ftc.robotcore.external.hardware.camera.WebcamName;
+import org.firstinspires.ftc.robotcore.external.hardware.camera.controls.ExposureControl;
+import org.firstinspires.ftc.robotcore.external.hardware.camera.controls.GainControl;
+import org.firstinspires.ftc.vision.VisionPortal;
+import org.firstinspires.ftc.vision.apriltag.AprilTagProcessor;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+// Owns the webcam + AprilTag processor and runs them in one of a few named
+// profiles, switched at runtime:
+//
+//   IDLE      processor off (camera keeps streaming, so coming back is one frame)
+//   ALIGN     high decimation + short exposure: fast, less motion blur, fine
+//             for bearing to a close tag
+//   LOCALIZE  decimation 1 + auto exposure: slower, full-range pose accuracy
+//
+//   vision = new VisionManager(hardwareMap, "Webcam 1");   // init
+//   tags.start(vision.aprilTag());
+//   vision.setTracker(tags);                              // frame latency stats
+//   vision.use(VisionManager.ALIGN);                      // any time, returns at once
+//   vision.update();                                      // every loop, cheap
+//
+// Camera controls (exposure, gain) are slow USB transactions and only work
+// once the camera is streaming, so use() only records the request and a
+// worker thread applies it (retrying until the camera is up). Drawing and
+// the live view are off: annotating frames costs CPU nobody on the field
+// looks at.
+//
+// Resolution and stream format are fixed when the portal is built (the SDK
+// can't change them while running), so they aren't per profile. The
+// AprilTag processor has no region-of-interest option either; decimation is
+// the runtime knob.
+//
+// Per profile it reports: time in it, camera fps, frame latency (exposure ->
+// TagTracker, p50/p95), process CPU % (/proc/self/stat, sampled once a second)
+// and the processor's average pose-solve time.
+public class VisionManager {
+
+    public static final int IDLE = 0, ALIGN = 1, LOCALIZE = 2;
+
+    public static final Size DEFAULT_RESOLUTION = new Size(640, 480);
+
+    // ====== PROFILES ======
+    public static class Profile {
+        final String name;
+        final boolean processorOn;
+        final float decimation;
+        final int exposureMs;    // 0 = auto exposure
+        final int gain;          // < 0 = leave as is
+
+        public Profile(String name, boolean processorOn, float decimation, int exposureMs, int gain) {
+            this.name = name;
+            this.processorOn = processorOn;
+            this.decimation = decimation;
+            this.exposureMs = exposureMs;
+            this.gain = gain;
+        }
+    }
+
+    private static final int MAX_PROFILES = 6;
+    private final Profile[] profiles = new Profile[MAX_PROFILES];
+    private int count = 0;
+
+    private final VisionPortal portal;
+    private final AprilTagProcessor aprilTag;
+
+    // ====== SWITCHING ======
+    private volatile int requested = IDLE;
+    private volatile int applied = -1;
+    private final Object wake = new Object();
+    private Thread worker;
+    private volatile boolean running = true;
+    private static final long CAMERA_RETRY_MS = 100;
+
+    // ====== STATS (per profile) ======
+    private static final long CPU_PERIOD_NANOS = 1_000_000_000L;
+    private static final double CLOCK_TICKS_PER_S = 100.0;   // USER_HZ on Android/Linux
+    private final LatencyHistogram[] latency = new LatencyHistogram[MAX_PROFILES];
+    private final long[] activeNanos = new long[MAX_PROFILES];
+    private final double[] fpsSum = new double[MAX_PROFILES];
+    private final long[] fpsSamples = new long[MAX_PROFILES];
+    private final double[] cpuPct = new double[MAX_PROFILES];
+    private TagTracker tracker;
+    private long lastFrames = 0, lastUpdateNanos = 0, lastCpuNanos = 0, lastCpuTicks = -1;
+
+    // ====== TELEMETRY ======
+    private TelemetryPublisher tele;
+    private int lineActive;
+    private final int[] lineProfile = new int[MAX_PROFILES];
+
+    public VisionManager(HardwareMap hardwareMap, String webcamName) {
+        this(hardwareMap, webcamName, DEFAULT_RESOLUTION);
+    }
+
+    // 320x240 makes every profile faster but halves the range tags are found at.
+    public VisionManager(HardwareMap hardwareMap, String webcamName, Size resolution) {
+        aprilTag = new AprilTagProcessor.Builder()
+                .setTagFamily(AprilTagProcessor.TagFamily.TAG_36h11)
+                .setDrawTagID(false)
+                .setDrawTagOutline(false)
+                .setDrawAxes(false)
+                .setDrawCubeProjection(false)
+                .build();
+
+        portal = new VisionPortal.Builder()
+                .setCamera(hardwareMap.get(WebcamName.class, webcamName))
+                .setCameraResolution(resolution)
+                .setStreamFormat(VisionPortal.StreamFormat.MJPEG)   // less USB bandwidth than YUY2
+                .enableLiveView(false)
+                .addProcessor(aprilTag)
+                .build();
+
+        add(new Profile("idle",     false, 3.0f, 0, -1));
+        add(new Profile("align",    true,  3.0f, 6, 250));
+        add(new Profile("localize", true,  1.0f, 0, -1));
+
+        if (!LoopClock.isSimulated()) {
+            worker = new Thread(this::run, "VisionManager");
+            worker.setDaemon(true);
+            worker.start();
+        }
+        use(IDLE);
+    }
+
+    // More profiles after the three built in ones; returns the id for use().
+    public int add(Profile p) {
+        if (count == MAX_PROFILES) throw new IllegalStateException("VisionManager: too many profiles");
+        profiles[count] = p;
+        latency[count] = new LatencyHistogram();
+        return count++;
+    }
+
+    public AprilTagProcessor aprilTag() { return aprilTag; }
+    public VisionPortal portal()        { return portal; }
+
+    public void setTracker(TagTracker tracker) {
+        this.tracker = tracker;
+        lastFrames = tracker.frames();
+    }
+
+    // ========= SWITCH =========
+
+    public void use(int profile) {
+        if (profile == requested && applied == profile) return;
+        requested = profile;
+        if (worker == null) {
+            apply(profile);
+            return;
+        }
+        synchronized (wake) {
+            wake.notify();
+        }
+    }
+
+    public int active()          { return applied; }
+    public String activeName()   { return applied < 0 ? "-" : profiles[applied].name; }
+
+    private void run() {
+        try {
+            while (running) {
+                int want = requested;
+                if (want != applied && !apply(want)) {
+                    Thread.sleep(CAMERA_RETRY_MS);   // camera not streaming yet
+                    continue;
+                }
+                synchronized (wake) {
+                    if (requested == applied && running) wake.wait();
+                }
+            }
+        } catch (InterruptedException e) {
+            // close()
+        }
+    }
+
+    // false = the camera settings couldn't be applied yet (not streaming).
+    private boolean apply(int id) {
+        Profile p = profiles[id];
+        aprilTag.setDecimation(p.decimation);
+        portal.setProcessorEnabled(aprilTag, p.processorOn);
+        if (p.processorOn && !setCamera(p) && worker != null) return false;   // the worker retries
+        applied = id;
+        return true;
+    }
+
+    private boolean setCamera(Profile p) {
+        if (portal.getCameraState() != VisionPortal.CameraState.STREAMING) return false;
+        ExposureControl exposure = portal.getCameraControl(ExposureControl.class);
+        if (exposure != null) {
+            if (p.exposureMs <= 0) {
+                exposure.setMode(ExposureControl.Mode.Auto);
+            } else {
+                exposure.setMode(ExposureControl.Mode.Manual);
+                exposure.setExposure(p.exposureMs, TimeUnit.MILLISECONDS);
+            }
+        }
+        GainControl gain = portal.getCameraControl(GainControl.class);
+        if (gain != null && p.gain >= 0) {
+            gain.setGain(Math.max(gain.getMinGain(), Math.min(gain.getMaxGain(), p.gain)));
+        }
+        return true;
+    }
+
+    // ========= STATS (every loop) =========
+
+    public void update() {
+        long now = LoopClock.nanoTime();
+        int cur = applied;
+        if (cur < 0) return;
+        if (lastUpdateNanos != 0) activeNanos[cur] += now - lastUpdateNanos;
+        lastUpdateNanos = now;
+
+        if (tracker != null && tracker.frames() != lastFrames) {
+            lastFrames = tracker.frames();
+            long lat = tracker.lastFrameLatencyNanos();
+            if (lat > 0) latency[cur].recordNanos(lat);
+        }
+
+        if (now - lastCpuNanos >= CPU_PERIOD_NANOS) {
+            fpsSum[cur] += portal.getFps();
+            fpsSamples[cur]++;
+            long ticks = cpuTicks();
+            if (lastCpuTicks >= 0 && ticks >= 0 && lastCpuNanos != 0) {
+                double cpuS = (ticks - lastCpuTicks) / CLOCK_TICKS_PER_S;
+                double wallS = (now - lastCpuNanos) / 1e9;
+                cpuPct[cur] = 100.0 * cpuS / wallS / Runtime.getRuntime().availableProcessors();
+            }
+            lastCpuTicks = ticks;
+            lastCpuNanos = now;
+        }
+    }
+
+    public double activeS(int profile)       { return activeNanos[profile] / 1e9; }
+    public double fps(int profile)           { return fpsSamples[profile] == 0 ? 0 : fpsSum[profile] / fpsSamples[profile]; }
+    public double cpuPercent(int profile)    { return cpuPct[profile]; }
+    public LatencyHistogram latency(int profile) { return latency[profile]; }
+
+    // Average AprilTag pose-solve time of the current frames, ms.
+    public int poseSolveMs()                 { return aprilTag.getPerTagAvgPoseSolveTime(); }
+
+    // Whole-process CPU (utime + stime), in clock ticks; -1 if unavailable.
+    // Allocates (file read), which is why update() only does it once a second.
+    private static long cpuTicks() {
+        try (BufferedReader in = new BufferedReader(new FileReader("/proc/self/stat"))) {
+            String stat = in.readLine();
+            String[] f = stat.substring(stat.lastIndexOf(')') + 2).split(" ");
+            return Long.parseLong(f[11]) + Long.parseLong(f[12]);   // fields 14, 15
+        } catch (IOException | RuntimeException e) {
+            return -1;
+        }
+    }
+
+    // ========= TELEMETRY =========
+
+    public void addTelemetry(TelemetryPublisher tele) {
+        this.tele = tele;
+        lineActive = tele.addText("Vision");
+        for (int i = 0; i < count; i++) {
+            lineProfile[i] = tele.addLine("  " + profiles[i].name, 1, "s ", "fps ", "lat p50 ms ", "p95 ", "cpu% ");
+        }
+    }
+
+    public void updateTelemetry() {
+        if (tele == null) return;
+        tele.setText(lineActive, activeName());
+        for (int i = 0; i < count; i++) {
+            tele.set(lineProfile[i], 0, activeS(i));
+            tele.set(lineProfile[i], 1, fps(i));
+            tele.set(lineProfile[i], 2, latency[i].percentile(50) / 1000.0);
+            tele.set(lineProfile[i], 3, latency[i].percentile(95) / 1000.0);
+            tele.set(lineProfile[i], 4, cpuPct[i]);
+        }
+    }
+
+    // ========= SHUTDOWN =========
+
+    public void close() {
+        running = false;
+        if (worker != null) {
+            synchronized (wake) {
+                wake.notify();
+            }
+            worker.interrupt();
+            try {
+                worker.join(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            worker = null;
+        }
+        portal.close();
+    }
+}
@@ -2,17 +2,26 @@ package org.firstinspires.ftc.teamcode.teleop;
 
 import com.qualcomm.robotcore.eventloop.opmode.TeleOp;
 import com.qualcomm.robotcore.eventloop.opmode.OpMode;
-import com.qualcomm.robotcore.hardware.DcMotor;
+
+import org.firstinspires.ftc.teamcode.CachedMotor;
+import org.firstinspires.ftc.teamcode.Indexer;
+import org.firstinspires.ftc.teamcode.Launcher;
+import org.firstinspires.ftc.teamcode.MecanumDrive;
+import org.firstinspires.ftc.teamcode.MotorCache;
+import org.firstinspires.ftc.teamcode.TelemetryPublisher;
 
 @TeleOp(name = "MAIN_EXE", group = "TeleOp")
 public class MAIN_EXE extends OpMode {
 
-    // ===== Drive motors =====
-    private DcMotor front_left, front_right, back_left, back_right;
+    // ===== Drive =====
+    private MotorCache motors;
+    private MecanumDrive drive;
 
-    // ===== Subsystem motors =====
-    private DcMotor intakeHarvester; // A = forward (hold), Y = reverse (hold, also drives conveyor)
-    private DcMotor conveyor;        // X/B toggle when Y is not held
+    // ===== Subsystems =====
+    private CachedMotor intakeHarvester;
+    private CachedMotor conveyor;
+    private Launcher launcher;           // X toggles
+    private Indexer indexer;             // sequences intake -> conveyor -> launcher
 
     // ===== Tunables =====
     private static final float OTHER_GAIN    = 0.94f;  // tiny trim for FR/BR
@@ -21,8 +30,16 @@ public class MAIN_EXE extends OpMode {
     private static final float SLOW_MULT     = 0.60f;
     private static final float NORM_MULT     = 1.00f;
 
-    // Conveyor speed cap you requested
-    private static final double CONVEYOR_SPEED = 0.60; // 60% max in either direction
+    // ===== Feed (powers and conveyor timing: Indexer.newIndexer) =====
+    // Y hold = intake (balls counted, conveyor makes room), A = fire one,
+    // B = fire all, right bumper = stop feeding, d-pad down hold = eject
+    // (intake + conveyor backward, over everything else). Starts empty: the
+    // auto fires its balls, and a leftover one still goes with A (the feed
+    // runs until a shot or its timeout).
+    private static final double LAUNCHER_RPM    = 4200;
+
+    // Driver station refresh (loop runs much faster than this)
+    private static final double TELEMETRY_HZ = 4.0;
 
     // ===== State =====
     private float leftStickX, leftStickY, rightStickX;
@@ -31,46 +48,41 @@ public class MAIN_EXE extends OpMode {
     private boolean leftStickDownPrev = false;
     private float speedMultiplier = NORM_MULT;
 
-    // Toggle state for conveyor (used when Y is NOT held)
-    private boolean xPrev = false;
-    private boolean bPrev = false;
-    private double  conveyorPowerToggled = 0.0; // +0.6, -0.6, or 0.0 when using X/B
+    private boolean xPrev = false, aPrev = false, bPrev = false;
+    private boolean launcherOn = false;
+
+    // ===== Telemetry (lines declared once in start()) =====
+    private TelemetryPublisher tele;
+    private int lineMode, lineDrive, lineLauncher;
 
     @Override
     public void init() {
-        telemetry.addData("Status", "Initialized (Intake+Conveyor linked on Y)");
+        telemetry.addData("Status", "Initialized: Y(intake) X(launcher) A(fire one) B(fire all) RB(stop) DPAD DOWN(eject)");
 
-        // Map drive
-        front_left  = hardwareMap.get(DcMotor.class, "front_left");
-        front_right = hardwareMap.get(DcMotor.class, "front_right");
-        back_left   = hardwareMap.get(DcMotor.class, "back_left");
-        back_right  = hardwareMap.get(DcMotor.class, "back_right");
+        // Map drive (directions + BRAKE handled by MecanumDrive)
+        motors = new MotorCache(hardwareMap); // skips repeated setPower/setMode writes
+        drive = new MecanumDrive(motors);
+        drive.setGains(OTHER_GAIN, OTHER_GAIN, BL_GAIN, OTHER_GAIN);
 
         // Map subsystems
-        intakeHarvester = hardwareMap.get(DcMotor.class, "intakeHarvester");
-        conveyor        = hardwareMap.get(DcMotor.class, "conveyor");
-
-        // Standard mecanum directions (POS power moves robot forward)
-        front_left.setDirection(DcMotor.Direction.FORWARD);
-        back_left.setDirection(DcMotor.Direction.FORWARD);
-        front_right.setDirection(DcMotor.Direction.REVERSE);
-        back_right.setDirection(DcMotor.Direction.REVERSE);
-
-        // Subsystems (flip if needed)
-        intakeHarvester.setDirection(DcMotor.Direction.FORWARD);
-        conveyor.setDirection(DcMotor.Direction.FORWARD);
-
-        // Brake at zero
-        front_left.setZeroPowerBehavior(DcMotor.ZeroPowerBehavior.BRAKE);
-        front_right.setZeroPowerBehavior(DcMotor.ZeroPowerBehavior.BRAKE);
-        back_left.setZeroPowerBehavior(DcMotor.ZeroPowerBehavior.BRAKE);
-        back_right.setZeroPowerBehavior(DcMotor.ZeroPowerBehavior.BRAKE);
-        intakeHarvester.setZeroPowerBehavior(DcMotor.ZeroPowerBehavior.BRAKE);
-        conveyor.setZeroPowerBehavior(DcMotor.ZeroPowerBehavior.BRAKE);
-
-        // Start off
-        intakeHarvester.setPower(0);
-        conveyor.setPower(0);
+        intakeHarvester = motors.get("intakeHarvester");
+        conveyor        = motors.get("conveyor");
+
+        launcher = Launcher.newLauncher(motors.get("launcher"), hardwareMap);
+        // + = balls in / up (the intake took -1 to pull in here before); BRAKE at zero, starts off
+        indexer = Indexer.newIndexer(intakeHarvester, conveyor, launcher);
+    }
+
+    @Override
+    public void start() {
+        tele = new TelemetryPublisher(telemetry, TELEMETRY_HZ);
+        lineMode     = tele.addText("Mode");
+        lineDrive    = tele.addLine("Drive", 2, "FL ", "FR ", "BL ", "BR ");
+        lineLauncher = tele.addText("Launcher");
+        launcher.addTelemetry(tele);
+        indexer.addTelemetry(tele);
+        int keys     = tele.addText("Keys");
+        tele.setText(keys, "Y hold intake, X launcher on/off, A fire one, B fire all, RB stop feeding, d-pad down eject");
     }
 
     @Override
@@ -90,71 +102,41 @@ public class MAIN_EXE extends OpMode {
         leftStickDownPrev = leftStickDown;
         speedMultiplier = slowMode ? SLOW_MULT : NORM_MULT;
 
-        // ===== Mecanum drive math =====
-        float fl = leftStickY - leftStickX - rightStickX;
-        float fr = leftStickY + leftStickX + rightStickX;
-        float bl = leftStickY + leftStickX - rightStickX;
-        float br = leftStickY - leftStickX + rightStickX;
-
-        float max = Math.max(Math.max(Math.abs(fl), Math.abs(fr)),
-                             Math.max(Math.abs(bl), Math.abs(br)));
-        if (max > 1.0f) { fl /= max; fr /= max; bl /= max; br /= max; }
-
-        double pfl = clip(fl * OTHER_GAIN * speedMultiplier, -1, 1);
-        double pfr = clip(fr * OTHER_GAIN * speedMultiplier, -1, 1);
-        double pbl = clip(bl * BL_GAIN    * speedMultiplier, -1, 1);
-        double pbr = clip(br * OTHER_GAIN * speedMultiplier, -1, 1);
-
-        front_left.setPower(pfl);
-        front_right.setPower(pfr);
-        back_left.setPower(pbl);
-        back_right.setPower(pbr);
-
-        // ===== Intake & Conveyor control =====
-        // A = intake forward (hold)
-        // Y = reverse (hold) AND also run the conveyor at 0.6 in the same (reverse) direction
-        // X/B = conveyor toggle +0.6 / -0.6 (only when Y is NOT held)
-
-        boolean holdA = gamepad1.a;
-        boolean holdY = gamepad1.y;
-
-        // Intake power (hold-to-run)
-        double intakePower = 0.0;
-        if (holdA) intakePower = -1.0;
-        else if (holdY) intakePower = 1.0;
-        intakeHarvester.setPower(intakePower);
-
-        // Conveyor logic
-        if (holdY) {
-            // While Y is held, conveyor follows Y direction at capped speed
-            conveyor.setPower(-CONVEYOR_SPEED); // reverse to match Y behavior (flip sign if needed)
-        } else {
-            // Use X/B toggles when Y is NOT held
-            boolean xNow = gamepad1.x;
-            if (xNow && !xPrev) {
-                conveyorPowerToggled = (conveyorPowerToggled == CONVEYOR_SPEED) ? 0.0 : CONVEYOR_SPEED;
-            }
-            xPrev = xNow;
-
-            boolean bNow = gamepad1.b;
-            if (bNow && !bPrev) {
-                conveyorPowerToggled = (conveyorPowerToggled == -CONVEYOR_SPEED) ? 0.0 : -CONVEYOR_SPEED;
-            }
-            bPrev = bNow;
-
-            conveyor.setPower(conveyorPowerToggled);
-        }
+        // ===== Mecanum drive =====
+        drive.setSpeedMultiplier(speedMultiplier);
+        drive.drive(leftStickY, leftStickX, rightStickX);
+
+        // ===== Launcher toggle (X) =====
+        boolean xNow = gamepad1.x;
+        if (xNow && !xPrev) launcherOn = !launcherOn;
+        xPrev = xNow;
+        launcher.setTargetRpm(launcherOn ? LAUNCHER_RPM : 0);
+        launcher.update();
+
+        // ===== Feed (Y hold intake, A one, B all, RB stop, d-pad down eject) =====
+        indexer.intake(gamepad1.y);
+        indexer.eject(gamepad1.dpad_down);
+        if (gamepad1.a && !aPrev) indexer.fireOne();
+        if (gamepad1.b && !bPrev) indexer.fireBurst();
+        if (gamepad1.right_bumper) indexer.stop();
+        aPrev = gamepad1.a;
+        bPrev = gamepad1.b;
+        indexer.update();                        // after launcher.update(): reads its rpm
 
         // ===== Telemetry =====
-        telemetry.addData("Mode", slowMode ? "SLOW (0.6x)" : "NORMAL (1.0x)");
-        telemetry.addData("Drive", "FL %.2f  FR %.2f  BL %.2f  BR %.2f", pfl, pfr, pbl, pbr);
-        telemetry.addData("Intake", "%.1f  (A=+1 hold, Y=-1 hold)", intakePower);
-        telemetry.addData("Conveyor", "%.2f  (Y overrides @±0.60; X:+0.60 toggle, B:-0.60 toggle)", 
-                          holdY ? -CONVEYOR_SPEED : conveyorPowerToggled);
-        telemetry.update();
+        tele.setText(lineMode, slowMode ? "SLOW (0.6x)" : "NORMAL (1.0x)");
+        tele.set(lineDrive, 0, drive.power(MecanumDrive.FL));
+        tele.set(lineDrive, 1, drive.power(MecanumDrive.FR));
+        tele.set(lineDrive, 2, drive.power(MecanumDrive.BL));
+        tele.set(lineDrive, 3, drive.power(MecanumDrive.BR));
+        tele.setText(lineLauncher, !launcherOn ? "OFF" : launcher.atSpeed() ? "READY" : "SPINNING UP");
+        launcher.updateTelemetry();
+        indexer.updateTelemetry();
+        tele.publish();
     }
 
-    private static double clip(double v, double lo, double hi) {
-        return Math.max(lo, Math.min(hi, v));
+    @Override
+    public void stop() {
+        if (tele != null) tele.stop();
     }
 }
@@ -9,6 +9,9 @@ public class DriveDebug extends OpMode {
 
     private DcMotor front_left, front_right, back_left, back_right;
 
+    private TelemetryPublisher tele;
+    private int lineSpinning;
+
     @Override
     public void init() {
         front_left  = hardwareMap.get(DcMotor.class, "front_left");
@@ -29,9 +32,18 @@ public class DriveDebug extends OpMode {
         telemetry.update();
     }
 
+    @Override
+    public void start() {
+        tele = new TelemetryPublisher(telemetry, 4.0);
+        lineSpinning = tele.addText("Spinning");
+        int keys = tele.addText("Keys");
+        tele.setText(keys, "dpad up FL | right FR | down BR | left BL");
+    }
+
     @Override
     public void loop() {
         double p = 0.3;
+        String spinning = "-";
 
         front_left.setPower(0);
         front_right.setPower(0);
@@ -40,18 +52,24 @@ public class DriveDebug extends OpMode {
 
         if (gamepad1.dpad_up) {
             front_left.setPower(p);
-            telemetry.addLine("Spinning: front_left");
+            spinning = "front_left";
         } else if (gamepad1.dpad_right) {
             front_right.setPower(p);
-            telemetry.addLine("Spinning: front_right");
+            spinning = "front_right";
         } else if (gamepad1.dpad_down) {
             back_right.setPower(p);
-            telemetry.addLine("Spinning: back_right");
+            spinning = "back_right";
         } else if (gamepad1.dpad_left) {
             back_left.setPower(p);
-            telemetry.addLine("Spinning: back_left");
+            spinning = "back_left";
         }
 
-        telemetry.update();
+        tele.setText(lineSpinning, spinning);
+        tele.publish();
+    }
+
+    @Override
+    public void stop() {
+        if (tele != null) tele.stop();
     }
 }
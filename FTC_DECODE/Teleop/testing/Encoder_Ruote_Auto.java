@@ -3,64 +3,101 @@ package org.firstinspires.ftc.teamcode;
 import com.qualcomm.robotcore.eventloop.opmode.Autonomous;
 import com.qualcomm.robotcore.eventloop.opmode.LinearOpMode;
 import com.qualcomm.robotcore.hardware.DcMotor;
-import com.qualcomm.robotcore.hardware.DcMotorEx;
 import com.qualcomm.robotcore.hardware.DcMotorSimple;
+import com.qualcomm.robotcore.hardware.IMU;
+
+import static org.firstinspires.ftc.teamcode.MecanumDrive.BL;
+import static org.firstinspires.ftc.teamcode.MecanumDrive.BR;
+import static org.firstinspires.ftc.teamcode.MecanumDrive.FL;
+import static org.firstinspires.ftc.teamcode.MecanumDrive.FR;
 
 @Autonomous(name="Encoder_Route_Auto", group="Test")
 public class Encoder_Route_Auto extends LinearOpMode {
 
-    private DcMotor front_left, front_right, back_left, back_right;
+    private MotorCache motors; // coalesces repeated setPower/setMode/setTargetPosition writes
+    private CachedMotor front_left, front_right, back_left, back_right;
+    private EncoderSnapshot encoders; // one bulk read per loop, shared by checks + telemetry
+
+    // telemetry lines (declared once after start, then only numbers change)
+    private TelemetryPublisher tele;
+    private int lineMove, lineProfile, lineTargets, lineNow, lineReads, lineWrites, linePose;
+
+    private ProfiledDrive legs; // trapezoid profile + feedforward/PID per wheel
+
+    private ImuService imuService;  // heading on its own thread
+    private PoseEstimator pose;     // encoders + IMU -> x, y, heading (start = 0, 0, 0)
 
     // === Robot constants (calibrated so your inches/degrees feel correct) ===
     private static final double TICKS_PER_REV         = 560.0;   // NeveRest 20 / REV HD Hex 20:1
-    private static final double WHEEL_DIAMETER_IN     = 3.54;    // effective dia (scaled from 2.95 by ~1.20)
+    public  static final double WHEEL_DIAMETER_IN     = 3.54;    // effective dia (scaled from 2.95 by ~1.20)
     private static final double EXTERNAL_GEAR_RATIO   = 1.0;
-    private static final double STRAFE_CORRECTION     = 1.10;    // strafing fudge (tune only if strafe is off)
-    private static final double WHEELBASE_DIAMETER_IN = 16.8;    // effective track (scaled from 14.0 by ~1.20)
+    public  static final double STRAFE_CORRECTION     = 1.10;    // strafing fudge (tune only if strafe is off)
+    public  static final double WHEELBASE_DIAMETER_IN = 16.8;    // effective track (scaled from 14.0 by ~1.20)
 
     private static final double MAX_POWER           = 0.6;
     private static final double TIMEOUT_S_PER_FOOT  = 2.5;
+    private static final double TELEMETRY_HZ        = 4.0;  // loop runs much faster; DS doesn't need it
 
     // stop when we’re “close enough” to target (ticks)
-    private static final int POS_TOL_TICKS = 10;
+    public  static final int POS_TOL_TICKS = 10;
 
-    // === Sign convention for THIS robot (your field truth) ===
-    // driveInches(negative)   -> FORWARD
-    // driveInches(positive)   -> BACKWARD
-    // strafeInches(negative)  -> RIGHT
-    // strafeInches(positive)  -> LEFT
-    // turnByEncoders(negative)-> RIGHT turn
+    // === Motion profile (ticks) ===
+    private static final double MAX_TICKS_PER_SEC = 2800.0;  // wheel speed at power 1.0 (300 rpm x 560)
+    private static final double MAX_ACCEL_TICKS   = 8000.0;  // ticks/s^2; raise until the wheels slip (sim: ~12000)
+    private static final double PROFILE_KA        = 0.0;     // power per tick/s^2 (optional)
+    private static final double PROFILE_KP        = 0.02;    // power per tick of position error
+    private static final double PROFILE_KI        = 0.0;
+    private static final double PROFILE_KD        = 0.0001;
 
-    // === Route constants (like your RR plan) ===
+    // === Sign convention for THIS robot (your field truth) ===
+    // Raw encoder sign that moves the robot FORWARD / LEFT / turns it LEFT.
+    // The route below only uses names + positive numbers; these are the only
+    // place the signs live.
+    //   drive:  negative -> FORWARD
+    //   strafe: positive -> LEFT
+    //   turn:   negative -> LEFT (the field-tested route used TURN_LEFT_DEG = -85;
+    //           the old "negative = RIGHT turn" note disagreed with it)
+    private static final int FORWARD_SIGN     = -1;
+    private static final int STRAFE_LEFT_SIGN = +1;
+    private static final int TURN_LEFT_SIGN   = -1;
+
+    // === Route constants (like your RR plan), all positive ===
     // One common left / right turn magnitude:
-    private static final double TURN_LEFT_DEG   = -85.0;   // CCW
-    private static final double TURN_RIGHT_DEG  = 85.0;  // CW
+    private static final double TURN_DEG           = 85.0;
 
-    // Leg distances (inches). Positive/negative per convention above.
     private static final double BACK_PRELOAD_IN    = 36.0;
 
     private static final double STRAFE_LEFT_1_IN   = 15.0;
-    private static final double FWD_1_IN           = -36.0;     // forward is NEGATIVE; we’ll pass -14 below
-    private static final double BACK_1_IN          = -36.0;    // back is POSITIVE; we’ll pass +12 below (see calls)
-    private static final double STRAFE_RIGHT_1_IN  = -15.0;
+    private static final double FWD_1_IN           = 36.0;
+    private static final double BACK_1_IN          = 36.0;
+    private static final double STRAFE_RIGHT_1_IN  = 15.0;
 
     private static final double STRAFE_LEFT_2_IN   = 35.0;
-    private static final double FWD_2_IN           = -36.0;
-    private static final double BACK_2_IN          = -36.0;
-    private static final double STRAFE_RIGHT_2_IN  = -30.0;
+    private static final double FWD_2_IN           = 36.0;
+    private static final double BACK_2_IN          = 36.0;
+    private static final double STRAFE_RIGHT_2_IN  = 30.0;
 
     private static final double STRAFE_LEFT_3_IN   = 55.0;
-    private static final double FWD_3_IN           = -36.0;
-    private static final double BACK_3_IN          = -36.0;
-    private static final double STRAFE_RIGHT_3_IN  = -55.0;
+    private static final double FWD_3_IN           = 36.0;
+    private static final double BACK_3_IN          = 36.0;
+    private static final double STRAFE_RIGHT_3_IN  = 55.0;
 
     @Override
     public void runOpMode() {
         // map hardware
-        front_left  = hardwareMap.get(DcMotor.class, "front_left");
-        front_right = hardwareMap.get(DcMotor.class, "front_right");
-        back_left   = hardwareMap.get(DcMotor.class, "back_left");
-        back_right  = hardwareMap.get(DcMotor.class, "back_right");
+        motors = new MotorCache(hardwareMap);
+        front_left  = motors.get("front_left");
+        front_right = motors.get("front_right");
+        back_left   = motors.get("back_left");
+        back_right  = motors.get("back_right");
+        encoders    = new EncoderSnapshot(hardwareMap, front_left, front_right, back_left, back_right);
+        legs        = newLegs(front_left, front_right, back_left, back_right, encoders);
+
+        IMU imu = hardwareMap.get(IMU.class, "imu");
+        imu.initialize(new IMU.Parameters());
+        imuService = new ImuService(imu, 100);
+        imuService.start();
+        pose = newPoseEstimator(encoders, imuService);
 
         // directions (so POSITIVE POWER drives robot forward in teleop sense)
         front_left.setDirection(DcMotorSimple.Direction.FORWARD);
@@ -68,247 +105,142 @@ public class Encoder_Route_Auto extends LinearOpMode {
         front_right.setDirection(DcMotorSimple.Direction.REVERSE);
         back_right.setDirection(DcMotorSimple.Direction.REVERSE);
 
-        for (DcMotor m : new DcMotor[]{front_left, front_right, back_left, back_right}) {
+        for (CachedMotor m : new CachedMotor[]{front_left, front_right, back_left, back_right}) {
             m.setZeroPowerBehavior(DcMotor.ZeroPowerBehavior.BRAKE);
             m.setMode(DcMotor.RunMode.STOP_AND_RESET_ENCODER);
             m.setMode(DcMotor.RunMode.RUN_USING_ENCODER);
         }
 
-        // Optional: set built-in target tolerance if DcMotorEx is available
-        setBuiltInToleranceIfSupported(POS_TOL_TICKS);
+        // compile the whole route now, so the loop only walks arrays
+        EncoderRoute route = buildRoute(STRAFE_CORRECTION, WHEELBASE_DIAMETER_IN);
 
         telemetry.addLine("Encoder_Route_Auto READY");
         telemetry.addData("Ticks/in", "%.2f", ticksPerInch());
-        telemetry.addData("Sign", "FWD=neg, RIGHT strafe=neg, RIGHT turn=neg");
+        telemetry.addData("Route", "%d legs, %.1f s planned", route.legCount(), route.plannedS());
+        for (String problem : route.validate()) {
+            telemetry.addLine("ROUTE ERROR: " + problem);
+        }
+        if (!route.isValid()) telemetry.addLine("Route will NOT run until fixed");
         telemetry.update();
 
         waitForStart();
-        if (isStopRequested()) return;
+        if (isStopRequested() || !route.isValid()) {
+            imuService.stop();
+            return;
+        }
+
+        setupTelemetry();
+        encoders.capture();
+        pose.update();           // baseline before the first leg moves
 
         // === Route sequence (no Road Runner; pure encoders) ===
-        final double p = MAX_POWER;
-
-        // -------- PRELOAD BACKUP --------
-        driveInches(BACK_PRELOAD_IN, p, getTimeout(BACK_PRELOAD_IN));
-        sleep(200);
-        // Preload end
-        // GPP Intake start
-        turnByEncoders(TURN_LEFT_DEG, p, getTurnTimeout(TURN_LEFT_DEG));
-        sleep(200);
-        strafeInches(STRAFE_LEFT_1_IN, p, getTimeout(STRAFE_LEFT_1_IN));
-        sleep(200);
-        driveInches(FWD_1_IN, p, getTimeout(FWD_1_IN));
-        sleep(200);
-        driveInches(-BACK_1_IN, p, getTimeout(BACK_1_IN)); // back is positive -> pass negative to go backward
-        sleep(200);
-        // GPP Intake done
-
-        // Go to Shoting position
-        strafeInches(STRAFE_RIGHT_1_IN, p, getTimeout(STRAFE_RIGHT_1_IN));
-        sleep(200);
-        turnByEncoders(TURN_RIGHT_DEG, p, getTurnTimeout(TURN_RIGHT_DEG));
-        sleep(200);
-        // GPP Shoot out
-        
-        // PGP Intake start
-        turnByEncoders(TURN_LEFT_DEG, p, getTurnTimeout(TURN_LEFT_DEG));
-        sleep(200);
-        strafeInches(STRAFE_LEFT_2_IN, p, getTimeout(STRAFE_LEFT_2_IN));
-        sleep(200);
-        driveInches(FWD_2_IN, p, getTimeout(FWD_2_IN));
-        sleep(200);
-        driveInches(-BACK_2_IN, p, getTimeout(BACK_2_IN)); // back is positive -> pass negative to go backward
-        sleep(200);
-        // PGP Intake done
-
-        // Go to Shoting position
-        strafeInches(STRAFE_RIGHT_2_IN, p, getTimeout(STRAFE_RIGHT_2_IN));
-        sleep(200);
-        turnByEncoders(TURN_RIGHT_DEG, p, getTurnTimeout(TURN_RIGHT_DEG));
-        sleep(200);
-        // PGP Shoot out
-
-        // PPG Intake start
-        turnByEncoders(TURN_LEFT_DEG, p, getTurnTimeout(TURN_LEFT_DEG));
-        sleep(200);
-        strafeInches(STRAFE_LEFT_3_IN, p, getTimeout(STRAFE_LEFT_3_IN));
-        sleep(200);
-        driveInches(FWD_3_IN, p, getTimeout(FWD_3_IN));
-        sleep(200);
-        driveInches(-BACK_3_IN, p, getTimeout(BACK_3_IN)); // back is positive -> pass negative to go backward
-        sleep(200);
-        // PPG Intake done
-
-        // Go to Shoting position
-        strafeInches(STRAFE_RIGHT_3_IN, p, getTimeout(STRAFE_RIGHT_3_IN));
-        sleep(200);
-        turnByEncoders(TURN_RIGHT_DEG, p, getTurnTimeout(TURN_RIGHT_DEG));
-        sleep(200);
-
-        driveInches(FWD_1_IN, p, getTimeout(FWD_1_IN));
+        for (int leg = 0; leg < route.legCount() && opModeIsActive(); leg++) {
+            legs.startLegTo(route.targets(), 4 * leg, route.power(leg), route.timeoutS(leg));
+            while (opModeIsActive() && legs.update()) {
+                pose.update();   // legs.update() just captured the encoders
+                showTelemetry(route.label(leg));
+            }
+        }
+        legs.stop();
+        pose.save();             // TeleOp starts from here
+        imuService.stop();
+        tele.stop();             // the lines below go out on this thread
         // TODO: preload action
         telemetry.addLine("Route complete ✅");
+        telemetry.addData("Route time", "%.1f s  (profiles alone: %.1f s)", legs.actualRouteS(), legs.plannedRouteS());
+        telemetry.addData("End pose", "x=%.1f y=%.1f h=%.1f  (planned %.1f, %.1f, %.1f)",
+                pose.x(), pose.y(), pose.headingDeg(), route.endX(), route.endY(), route.endHeadingDeg());
         telemetry.update();
         sleep(500);
     }
 
-    // === Movement functions ===
-
-    private void driveInches(double inches, double power, double timeoutS) {
-        // NEGATIVE inches = forward on this robot (kept intentionally)
-        final int dt = ticksFromInches(inches);
-        final int flT = front_left.getCurrentPosition()  + dt;
-        final int frT = front_right.getCurrentPosition() + dt;
-        final int blT = back_left.getCurrentPosition()   + dt;
-        final int brT = back_right.getCurrentPosition()  + dt;
-
-        setRunToPosition(flT, frT, blT, brT);
-
-        long start = now();
-        final double requested = clipAbs(power, 1.0);
-        while (opModeIsActive()
-                && !allWithin(flT, frT, blT, brT, POS_TOL_TICKS)
-                && elapsedS(start) < timeoutS) {
-            setAllPower(requested);
-            showTelemetry("Drive(FWD=neg)", flT, frT, blT, brT, requested);
-        }
-        stopAll();
-        setRunUsingEncoder();
-    }
-
-    private void strafeInches(double inches, double power, double timeoutS) {
-        // NEGATIVE inches = strafe right on this robot (kept intentionally)
-        final int dt  = (int)Math.round(ticksFromInches(inches) * STRAFE_CORRECTION);
-        final int flT = front_left.getCurrentPosition()  + dt;
-        final int frT = front_right.getCurrentPosition() - dt;
-        final int blT = back_left.getCurrentPosition()   - dt;
-        final int brT = back_right.getCurrentPosition()  + dt;
-
-        setRunToPosition(flT, frT, blT, brT);
-
-        long start = now();
-        final double requested = clipAbs(power, 1.0);
-        while (opModeIsActive()
-                && !allWithin(flT, frT, blT, brT, POS_TOL_TICKS)
-                && elapsedS(start) < timeoutS) {
-            setAllPower(requested);
-            showTelemetry("Strafe(RIGHT=neg)", flT, frT, blT, brT, requested);
-        }
-        stopAll();
-        setRunUsingEncoder();
-    }
-
-    private void turnByEncoders(double deltaDeg, double power, double timeoutS) {
-        // NEGATIVE = turn right; POSITIVE = turn left (your convention)
-        final double turnCirc = Math.PI * WHEELBASE_DIAMETER_IN;
-        final double arcLen   = (deltaDeg / 360.0) * turnCirc;
-        final int dt = ticksFromInches(arcLen);
-
-        // Right turn: left wheels backward, right wheels forward (signs handled by -dt/+dt)
-        final int flT = front_left.getCurrentPosition()  - dt;
-        final int frT = front_right.getCurrentPosition() + dt;
-        final int blT = back_left.getCurrentPosition()   - dt;
-        final int brT = back_right.getCurrentPosition()  + dt;
-
-        setRunToPosition(flT, frT, blT, brT);
-
-        long start = now();
-        final double requested = clipAbs(power, 1.0);
-        while (opModeIsActive()
-                && !allWithin(flT, frT, blT, brT, POS_TOL_TICKS)
-                && elapsedS(start) < timeoutS) {
-            setAllPower(requested);
-            showTelemetry("Turn(RIGHT=neg)", flT, frT, blT, brT, requested);
-        }
-        stopAll();
-        setRunUsingEncoder();
-    }
-
-    // === Utilities ===
-
-    private void setBuiltInToleranceIfSupported(int tolTicks) {
-        try {
-            if (front_left  instanceof DcMotorEx) ((DcMotorEx) front_left ).setTargetPositionTolerance(tolTicks);
-            if (front_right instanceof DcMotorEx) ((DcMotorEx) front_right).setTargetPositionTolerance(tolTicks);
-            if (back_left   instanceof DcMotorEx) ((DcMotorEx) back_left  ).setTargetPositionTolerance(tolTicks);
-            if (back_right  instanceof DcMotorEx) ((DcMotorEx) back_right ).setTargetPositionTolerance(tolTicks);
-        } catch (Exception ignored) { }
-    }
-
-    private double ticksPerInch() {
-        return (TICKS_PER_REV * EXTERNAL_GEAR_RATIO) / (Math.PI * WHEEL_DIAMETER_IN);
-    }
+    // === Route ===
+    // Static so the simulator (Sim/RouteSim) runs exactly this route and leg
+    // follower, with the two geometry fudges passed in.
 
-    private int ticksFromInches(double inches) {
-        return (int)Math.round(inches * ticksPerInch());
+    public static EncoderRoute.Builder newRouteBuilder(double strafeCorrection, double wheelbaseDiameterIn) {
+        return new EncoderRoute.Builder(ticksPerInch(), strafeCorrection, wheelbaseDiameterIn)
+                .signs(FORWARD_SIGN, STRAFE_LEFT_SIGN, TURN_LEFT_SIGN)
+                .profile(MAX_TICKS_PER_SEC, MAX_ACCEL_TICKS)
+                .timeoutPerFoot(TIMEOUT_S_PER_FOOT)
+                .power(MAX_POWER);
     }
 
-    private void setRunToPosition(int flT, int frT, int blT, int brT) {
-        front_left.setTargetPosition(flT);
-        front_right.setTargetPosition(frT);
-        back_left.setTargetPosition(blT);
-        back_right.setTargetPosition(brT);
+    public static EncoderRoute buildRoute(double strafeCorrection, double wheelbaseDiameterIn) {
+        return newRouteBuilder(strafeCorrection, wheelbaseDiameterIn)
+                .section("Preload").back(BACK_PRELOAD_IN)
 
-        front_left.setMode(DcMotor.RunMode.RUN_TO_POSITION);
-        front_right.setMode(DcMotor.RunMode.RUN_TO_POSITION);
-        back_left.setMode(DcMotor.RunMode.RUN_TO_POSITION);
-        back_right.setMode(DcMotor.RunMode.RUN_TO_POSITION);
-    }
+                .section("GPP intake")
+                .turnLeft(TURN_DEG).strafeLeft(STRAFE_LEFT_1_IN).forward(FWD_1_IN).back(BACK_1_IN)
+                .section("GPP to shoot")
+                .strafeRight(STRAFE_RIGHT_1_IN).turnRight(TURN_DEG)
+                // GPP Shoot out
 
-    private void setRunUsingEncoder() {
-        front_left.setMode(DcMotor.RunMode.RUN_USING_ENCODER);
-        front_right.setMode(DcMotor.RunMode.RUN_USING_ENCODER);
-        back_left.setMode(DcMotor.RunMode.RUN_USING_ENCODER);
-        back_right.setMode(DcMotor.RunMode.RUN_USING_ENCODER);
-    }
+                .section("PGP intake")
+                .turnLeft(TURN_DEG).strafeLeft(STRAFE_LEFT_2_IN).forward(FWD_2_IN).back(BACK_2_IN)
+                .section("PGP to shoot")
+                .strafeRight(STRAFE_RIGHT_2_IN).turnRight(TURN_DEG)
+                // PGP Shoot out
 
-    private void setAllPower(double requested) {
-        double p = Math.min(Math.abs(requested), MAX_POWER);
-        front_left.setPower(p);
-        front_right.setPower(p);
-        back_left.setPower(p);
-        back_right.setPower(p);
-    }
+                .section("PPG intake")
+                .turnLeft(TURN_DEG).strafeLeft(STRAFE_LEFT_3_IN).forward(FWD_3_IN).back(BACK_3_IN)
+                .section("PPG to shoot")
+                .strafeRight(STRAFE_RIGHT_3_IN).turnRight(TURN_DEG)
 
-    private void stopAll() { setAllPower(0); }
+                .section("Park").forward(FWD_1_IN)
 
-    private boolean allWithin(int flT, int frT, int blT, int brT, int tol) {
-        return withinTolerance(flT, front_left.getCurrentPosition(), tol)
-            && withinTolerance(frT, front_right.getCurrentPosition(), tol)
-            && withinTolerance(blT, back_left.getCurrentPosition(), tol)
-            && withinTolerance(brT, back_right.getCurrentPosition(), tol);
+                .expectFinalHeading(0)
+                .build();
     }
 
-    private boolean withinTolerance(int target, int current, int tolTicks) {
-        return Math.abs(target - current) <= tolTicks;
+    public static ProfiledDrive newLegs(CachedMotor fl, CachedMotor fr, CachedMotor bl, CachedMotor br,
+                                        EncoderSnapshot encoders) {
+        return new ProfiledDrive(fl, fr, bl, br, encoders,
+                                 MAX_TICKS_PER_SEC, MAX_ACCEL_TICKS, POS_TOL_TICKS,
+                                 PROFILE_KA, PROFILE_KP, PROFILE_KI, PROFILE_KD);
     }
 
-    // distance-based timeout helper
-    private double getTimeout(double inches) {
-        return Math.max(1.0, (Math.abs(inches) / 12.0) * TIMEOUT_S_PER_FOOT);
+    public static PoseEstimator newPoseEstimator(EncoderSnapshot encoders, HeadingSource heading) {
+        return new PoseEstimator(encoders, heading, ticksPerInch(), STRAFE_CORRECTION, WHEELBASE_DIAMETER_IN)
+                .signs(FORWARD_SIGN, STRAFE_LEFT_SIGN, TURN_LEFT_SIGN);
     }
 
-    // turn timeout scaled from arc length
-    private double getTurnTimeout(double degrees) {
-        double arcLen = (Math.abs(degrees) / 360.0) * (Math.PI * WHEELBASE_DIAMETER_IN);
-        return Math.max(1.0, (arcLen / 12.0) * TIMEOUT_S_PER_FOOT);
-    }
+    // === Utilities ===
 
-    private long now() { return System.currentTimeMillis(); }
-    private double elapsedS(long startMs) { return (now() - startMs) / 1000.0; }
-
-    private void showTelemetry(String label, int flT, int frT, int blT, int brT, double requestedPower) {
-        telemetry.addData(label, "Req=%.2f  (cap=%.2f)", requestedPower, MAX_POWER);
-        telemetry.addData("Targets", "FL:%d  FR:%d  BL:%d  BR:%d", flT, frT, blT, brT);
-        telemetry.addData("Now    ", "FL:%d  FR:%d  BL:%d  BR:%d",
-                front_left.getCurrentPosition(),
-                front_right.getCurrentPosition(),
-                back_left.getCurrentPosition(),
-                back_right.getCurrentPosition());
-        telemetry.update();
+    public static double ticksPerInch() {
+        return (TICKS_PER_REV * EXTERNAL_GEAR_RATIO) / (Math.PI * WHEEL_DIAMETER_IN);
     }
 
-    private static double clipAbs(double v, double max) {
-        return Math.copySign(Math.min(Math.abs(v), max), v);
+    private void setupTelemetry() {
+        tele        = new TelemetryPublisher(telemetry, TELEMETRY_HZ);
+        lineMove    = tele.addText("Move   ");
+        lineProfile = tele.addLine("Profile", 2, "t=", "of ");
+        lineTargets = tele.addLine("Targets", 0, "FL:", "FR:", "BL:", "BR:");
+        lineNow     = tele.addLine("Now    ", 0, "FL:", "FR:", "BL:", "BR:");
+        lineReads   = tele.addLine("Reads  ", 1, "encoder reads/loop ");
+        lineWrites  = tele.addLine("Writes ", 0, "sent:", "skipped:");
+        linePose    = tele.addLine("Pose   ", 1, "x=", "y=", "h=");
+    }
+
+    // cheap to call every spin: only stores numbers, publishes at TELEMETRY_HZ
+    private void showTelemetry(String label) {
+        tele.setText(lineMove, label);
+        tele.set(lineProfile, 0, legs.legTimeS());
+        tele.set(lineProfile, 1, legs.legPlannedS());
+        tele.set(lineTargets, 0, legs.target(FL));
+        tele.set(lineTargets, 1, legs.target(FR));
+        tele.set(lineTargets, 2, legs.target(BL));
+        tele.set(lineTargets, 3, legs.target(BR));
+        tele.set(lineNow, 0, encoders.position(FL));
+        tele.set(lineNow, 1, encoders.position(FR));
+        tele.set(lineNow, 2, encoders.position(BL));
+        tele.set(lineNow, 3, encoders.position(BR));
+        tele.set(lineReads, 0, encoders.readsPerCycle());
+        tele.set(lineWrites, 0, motors.sentCount());
+        tele.set(lineWrites, 1, motors.suppressedCount());
+        tele.set(linePose, 0, pose.x());
+        tele.set(linePose, 1, pose.y());
+        tele.set(linePose, 2, pose.headingDeg());
+        tele.publish();
     }
 }
@@ -0,0 +1,205 @@
+package org.firstinspires.ftc.teamcode;
+
+import com.qualcomm.robotcore.eventloop.opmode.OpMode;
+import com.qualcomm.robotcore.eventloop.opmode.TeleOp;
+import com.qualcomm.robotcore.hardware.DcMotor;
+import com.qualcomm.robotcore.hardware.DcMotorSimple;
+import com.qualcomm.robotcore.hardware.IMU;
+
+import java.util.Locale;
+
+// Builds the range -> RPM table (LauncherTable) on the field, one spot at a time:
+//   drive to a spot, hold A to face the goal tag, set the RPM with the dpad /
+//   bumpers, feed with the right trigger until the shots go in, then B to
+//   record (range from the tag, robot centre, current target RPM). X drops the
+//   point nearest the current range, BACK saves; stop() saves too.
+// The table loads from LauncherTable.DEFAULT_PATH, so a session can pick up
+// where the last one left off.
+@TeleOp(name = "LauncherCalibration", group = "Test")
+public class LauncherCalibration extends OpMode {
+
+    // ====== SETTINGS ======
+    private static final int TARGET_TAG_ID = 24;
+    private static final String WEBCAM_NAME = "Webcam 1";
+    private static final double TAG_MAX_AGE_S = 0.5;
+    private static final double IMU_HZ = 100.0;
+    private static final float DEADZONE = 0.10f;
+    private static final double DRIVE_MULT = 0.5;        // slow, for placing the robot
+    private static final double START_RPM = 3800;
+    private static final double FINE_RPM = 50, COARSE_RPM = 200;
+    private static final double MAX_RPM = 6000;
+    private static final double INTAKE_POWER = 1.0, CONVEYOR_POWER = 0.60;
+    private static final double TELEMETRY_HZ = 4.0;
+    private static final int LAUNCHER_ENC = 4;           // in the snapshot, after FL, FR, BL, BR
+
+    private final HeadingController aim =
+            new HeadingController(0.015, 0.02, 0.0008, 0.6).tolerance(2.0, 20);
+
+    // ====== HARDWARE ======
+    private MotorCache motors;
+    private MecanumDrive drive;
+    private CachedMotor intakeHarvester, conveyor;
+    private Launcher launcher;
+    private ImuService imuService;
+    private VisionManager vision;
+    private TagTracker tags;
+    private EncoderSnapshot encoders;
+
+    // ====== STATE ======
+    private LauncherTable table;
+    private double targetRpm = START_RPM;
+    private double rangeIn = Double.NaN;             // robot centre -> goal, NaN = no tag
+    private final double[] tagMeas = new double[2];
+    private boolean saved = true;
+    private String status = "";
+    private boolean upPrev, downPrev, lbPrev, rbPrev, bPrev, xPrev, backPrev;
+
+    // ====== TELEMETRY ======
+    private TelemetryPublisher tele;
+    private int lineRange, lineTable, lineStatus;
+
+    @Override
+    public void init() {
+        motors = new MotorCache(hardwareMap);
+        drive = new MecanumDrive(motors);
+        intakeHarvester = motors.get("intakeHarvester");
+        conveyor        = motors.get("conveyor");
+        intakeHarvester.setDirection(DcMotorSimple.Direction.REVERSE);
+        intakeHarvester.setZeroPowerBehavior(DcMotor.ZeroPowerBehavior.BRAKE);
+        conveyor.setZeroPowerBehavior(DcMotor.ZeroPowerBehavior.BRAKE);
+        launcher = Launcher.newLauncher(motors.get("launcher"), hardwareMap);
+
+        // launcher velocity comes from the bulk read
+        encoders = new EncoderSnapshot(hardwareMap,
+                drive.motor(MecanumDrive.FL), drive.motor(MecanumDrive.FR),
+                drive.motor(MecanumDrive.BL), drive.motor(MecanumDrive.BR), motors.get("launcher"));
+        launcher.velocityFrom(encoders, LAUNCHER_ENC);
+
+        vision = new VisionManager(hardwareMap, WEBCAM_NAME);
+        IMU imu = hardwareMap.get(IMU.class, "imu");
+        imu.initialize(new IMU.Parameters());
+        imuService = new ImuService(imu, IMU_HZ);
+        imuService.start();
+        tags = new TagTracker(imuService);
+        tags.start(vision.aprilTag());
+        vision.setTracker(tags);
+        vision.use(VisionManager.LOCALIZE);              // full-res range
+
+        table = LauncherTable.load(LauncherTable.DEFAULT_PATH, new LauncherTable(new double[0], new double[0]));
+        status = table.size() + " points loaded";
+
+        telemetry.addLine("A = aim | dpad +-50 | bumpers +-200 rpm | RT = feed");
+        telemetry.addLine("B = record | X = drop nearest | BACK = save");
+        telemetry.update();
+    }
+
+    @Override
+    public void start() {
+        tele = new TelemetryPublisher(telemetry, TELEMETRY_HZ);
+        lineRange  = tele.addLine("Goal", 1, "range in ", "bearing ");
+        launcher.addTelemetry(tele);
+        lineTable  = tele.addLine("Table", 0, "points ", "rpm here ");
+        lineStatus = tele.addText("Status");
+        launcher.setTargetRpm(targetRpm);
+    }
+
+    @Override
+    public void loop() {
+        imuService.poll();                       // both no-ops unless simulated
+        tags.poll();
+        encoders.capture();
+
+        // ---- goal range + bearing from the robot centre ----
+        double bearing = 0;
+        if (tags.fresh(TARGET_TAG_ID, TAG_MAX_AGE_S)) {
+            tags.measurement(TARGET_TAG_ID, tagMeas);
+            double camBearing = tags.bearingDeg(TARGET_TAG_ID);
+            bearing = PoseEKF.robotBearingDeg(tagMeas[0], camBearing);
+            rangeIn = PoseEKF.robotRangeIn(tagMeas[0], camBearing);
+        } else {
+            rangeIn = Double.NaN;
+        }
+
+        // ---- drive (robot-centric, slow) + aim ----
+        double rx = dead(gamepad1.right_stick_x);
+        if (gamepad1.a && rx == 0 && !Double.isNaN(rangeIn)) {
+            double heading = imuService.yawDeg();
+            aim.setTarget(heading + bearing);
+            rx = aim.update(heading, imuService.yawRateDegPerS());
+        } else {
+            aim.reset();
+        }
+        drive.setSpeedMultiplier(DRIVE_MULT);
+        drive.drive(dead(gamepad1.left_stick_y), dead(gamepad1.left_stick_x), rx);
+
+        // ---- RPM ----
+        if (gamepad1.dpad_up && !upPrev)          targetRpm += FINE_RPM;
+        if (gamepad1.dpad_down && !downPrev)      targetRpm -= FINE_RPM;
+        if (gamepad1.right_bumper && !rbPrev)     targetRpm += COARSE_RPM;
+        if (gamepad1.left_bumper && !lbPrev)      targetRpm -= COARSE_RPM;
+        targetRpm = Math.max(0, Math.min(MAX_RPM, targetRpm));
+        upPrev = gamepad1.dpad_up;
+        downPrev = gamepad1.dpad_down;
+        rbPrev = gamepad1.right_bumper;
+        lbPrev = gamepad1.left_bumper;
+        launcher.setTargetRpm(targetRpm);
+        launcher.update();
+
+        // ---- feed, only at speed so every shot is at the RPM being recorded ----
+        boolean feed = gamepad1.right_trigger > 0.5;
+        intakeHarvester.setPower(feed ? INTAKE_POWER : 0);
+        conveyor.setPower(feed && launcher.atSpeed() ? CONVEYOR_POWER : 0);
+
+        // ---- table edits ----
+        if (gamepad1.b && !bPrev) {
+            if (Double.isNaN(rangeIn)) {
+                status = "no tag - not recorded";
+            } else {
+                table.put(rangeIn, targetRpm);
+                saved = false;
+                status = String.format(Locale.US, "recorded %.0f in -> %.0f rpm", rangeIn, targetRpm);
+            }
+        }
+        if (gamepad1.x && !xPrev && !Double.isNaN(rangeIn) && table.removeNearest(rangeIn)) {
+            saved = false;
+            status = String.format(Locale.US, "dropped point near %.0f in", rangeIn);
+        }
+        if (gamepad1.back && !backPrev) save();
+        bPrev = gamepad1.b;
+        xPrev = gamepad1.x;
+        backPrev = gamepad1.back;
+
+        // ---- telemetry ----
+        tele.set(lineRange, 0, Double.isNaN(rangeIn) ? 0 : rangeIn);
+        tele.set(lineRange, 1, bearing);
+        tele.set(lineTable, 0, table.size());
+        tele.set(lineTable, 1, Double.isNaN(rangeIn) ? 0 : table.rpmAt(rangeIn));
+        tele.setText(lineStatus, status + (saved ? "" : " (unsaved)"));
+        launcher.updateTelemetry();
+        tele.publish();
+        vision.update();
+    }
+
+    private void save() {
+        if (table.save(LauncherTable.DEFAULT_PATH)) {
+            saved = true;
+            status = "saved " + table.size() + " points";
+        } else {
+            status = "SAVE FAILED: " + LauncherTable.DEFAULT_PATH;
+        }
+    }
+
+    private float dead(float v) { return (Math.abs(v) < DEADZONE) ? 0f : v; }
+
+    @Override
+    public void stop() {
+        if (table != null && !saved) save();
+        if (tags != null) tags.stop();
+        if (imuService != null) imuService.stop();
+        if (tele != null) tele.stop();
+        if (vision != null) {
+            vision.close();
+            vision = null;
+        }
+    }
+}
@@ -24,6 +24,11 @@ public class MAIN_EXE extends OpMode {
     // Deadzone
     private static final float DEADZONE = 0.1f;
 
+    // Telemetry (lines declared once in start(), sent at TELEMETRY_HZ)
+    private static final double TELEMETRY_HZ = 4.0;
+    private TelemetryPublisher tele;
+    private int lineTrim, lineMode;
+
     @Override
     public void init() {
         telemetry.addData("Status", "Initialized (Trim Test)");
@@ -52,6 +57,13 @@ public class MAIN_EXE extends OpMode {
         // back_right.setMode(DcMotor.RunMode.RUN_WITHOUT_ENCODER);
     }
 
+    @Override
+    public void start() {
+        tele = new TelemetryPublisher(telemetry, TELEMETRY_HZ);
+        lineTrim = tele.addLine("Trim otherGain (FL/FR/BR)", 2, "");
+        lineMode = tele.addText("Mode");
+    }
+
     @Override
     public void loop() {
         // read sticks
@@ -106,5 +118,17 @@ public class MAIN_EXE extends OpMode {
         back_left.setPower(pbl);
         back_right.setPower(pbr);
 
-        telemetry.addData("Trim otherGain (FL/FR/BR)", "%.2f", otherGain);
-        telemetry.addData("Mode", slowMode ? "SLOW (0.6x)"
+        tele.set(lineTrim, 0, otherGain);
+        tele.setText(lineMode, slowMode ? "SLOW (0.6x)" : "NORMAL (1.0x)");
+        tele.publish();
+    }
+
+    @Override
+    public void stop() {
+        if (tele != null) tele.stop();
+    }
+
+    private double clip(double v, double lo, double hi) {
+        return Math.max(lo, Math.min(hi, v));
+    }
+}
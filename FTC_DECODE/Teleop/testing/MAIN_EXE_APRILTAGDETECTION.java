@@ -4,23 +4,21 @@ import com.qualcomm.robotcore.eventloop.opmode.TeleOp;
 import com.qualcomm.robotcore.eventloop.opmode.OpMode;
 import com.qualcomm.robotcore.hardware.DcMotor;
 import com.qualcomm.robotcore.hardware.DcMotorSimple;
-import org.firstinspires.ftc.robotcore.external.hardware.camera.WebcamName;
-import org.firstinspires.ftc.vision.VisionPortal;
-import org.firstinspires.ftc.vision.apriltag.AprilTagDetection;
-import org.firstinspires.ftc.vision.apriltag.AprilTagProcessor;
-import org.firstinspires.ftc.vision.apriltag.AprilTagProcessor.TagFamily;
+import com.qualcomm.robotcore.hardware.IMU;
 
-import java.util.List;
+import java.util.Locale;
 
 @TeleOp(name = "MAIN_EXE", group = "TeleOp")
 public class MAIN_EXE extends OpMode {
 
     // ====== DRIVETRAIN ======
-    private DcMotor front_left, front_right, back_left, back_right;
+    private MotorCache motors;
+    private MecanumDrive drive;
 
     // ====== SUBSYSTEMS ======
-    private DcMotor intakeHarvester; 
-    private DcMotor conveyor;
+    private CachedMotor intakeHarvester; 
+    private CachedMotor conveyor;
+    private Launcher launcher;              // X toggles; RPM from the range table
 
     // ====== DRIVE SETTINGS ======
     private static final float DEADZONE = 0.10f;
@@ -34,76 +32,233 @@ public class MAIN_EXE extends OpMode {
     private static final double INTAKE_POWER = 1.0;
     private static final double CONVEYOR_POWER = 0.60;
 
+    // ====== LAUNCHER (RPM from distance to the goal) ======
+    // Table written by LauncherCalibration; until the goal has been seen the
+    // wheel idles at the table's value for NO_RANGE_IN.
+    private static final double NO_RANGE_IN = 72;
+    private static final int LAUNCHER_ENC = 4;          // in the snapshot, after FL, FR, BL, BR
+    private LauncherTable launcherTable;
+    private boolean xPrev = false, launcherOn = false;
+
+    // ====== ALLIANCE (D-PAD LEFT / RIGHT IN INIT) ======
+    // Which goal we aim at, and the field heading we start at: the autos start
+    // nose against our goal (and back away to shoot the preload).
+    private static final int BLUE = 0, RED = 1;
+    private static final String[] ALLIANCE_NAMES = {"BLUE", "RED"};
+    private static final int[] GOAL_TAG_ID = {20, 24};
+    private static final double[] START_HEADING_DEG = {-135, 135};
+    private static final double START_HEADING_SIGMA_DEG = 5;     // squared up against the goal by hand
+    private static final double AUTO_HEADING_SIGMA_DEG = 2;      // + what the IMU drifted through auto
+    private int alliance = RED;
+    private int targetTagId = GOAL_TAG_ID[RED];
+
     // ====== APRILTAG SETTINGS ======
-    private static final int TARGET_TAG_ID = 24;
     private static final String WEBCAM_NAME = "Webcam 1";
-    private static final double BEARING_TOL_DEG = 2.0;
-    private static final double KP_TURN = 0.02;
-    private static final double MIN_TURN = 0.12;
-    private static final double MAX_TURN = 0.50;
 
-    private VisionPortal visionPortal;
-    private AprilTagProcessor aprilTag;
+    // ====== AIM WHILE DRIVING (A HOLD) ======
+    // Sticks still translate; rotation is servoed onto the goal. The bearing
+    // comes from the tag (IMU-predicted) while it's fresh, else from the field
+    // pose. Turning the right stick overrides. Gains in HeadingController.goalAim()
+    // (Sim/AimSim drives with the same ones).
+    private static final double ROT_DEADZONE = 0.05;
+    private final HeadingController aim = HeadingController.goalAim();
+    private static final int AIM_NONE = 0, AIM_TAG = 1, AIM_POSE = 2;
+    private static final String[] AIM_NAMES = {"no goal bearing", "on tag", "on field pose"};
+    private int aimSource = AIM_NONE;
+    private final double[] tagMeas = new double[2];   // floor range, raw bearing
+
+    // goal from the robot centre, refreshed every pose update
+    private double goalBearing = 0, goalRange = NO_RANGE_IN;
+
+    // Camera localizes (full-res tags for the pose filter) until A is held;
+    // then the fast align profile. LOCALIZE_WHEN_IDLE = false turns the
+    // processor off instead, to save CPU when the field pose isn't needed.
+    private static final boolean LOCALIZE_WHEN_IDLE = true;
+    private VisionManager vision;
+
+    // Detections are consumed on the tracker's thread; the bearing it hands
+    // back is predicted with the IMU, so short dropouts don't stall the align.
+    private static final double TAG_MAX_AGE_S = 0.5;      // older than this = not visible
+    private static final double IMU_HZ = 100.0;
+    private static final boolean RECORD_TAGS = false;     // log frames for Sim/TagReplay
+    private static final String TAG_LOG = "/sdcard/FIRST/tag_frames.csv";
+    private ImuService imuService;
+    private TagTracker tags;
+    private double alignCmd = 0;    // rx the aim asked for
+
+    // ====== FIELD POSE ======
+    // Wheel odometry corrected by goal-tag sightings. The heading is seeded in
+    // start() (where auto left it, else the alliance start); the position
+    // starts unknown, the first goal tag seen places the robot, later ones
+    // keep it from drifting.
+    private EncoderSnapshot encoders;
+    private PoseEstimator odometry;
+    private final PoseEKF fieldPose = new PoseEKF();
+
+    // ====== MATCH LOG ======
+    // Every loop to /sdcard/FIRST/matchlogs; Sim/MatchLogReader makes a CSV.
+    private static final boolean RECORD_MATCH = true;
+    private MatchRecorder recorder;
+
+    // ====== SCHEDULER ======
+    private static final double TELEMETRY_HZ = 4.0;
+    private final ControlScheduler sched = new ControlScheduler();
+
+    // ====== TELEMETRY ======
+    private TelemetryPublisher tele;
+    private int lineMode, lineAlign, lineBearing, lineField, lineFilter, lineShot;
 
     @Override
     public void init() {
 
         // ---- Map hardware ----
-        front_left  = hardwareMap.get(DcMotor.class, "front_left");
-        front_right = hardwareMap.get(DcMotor.class, "front_right");
-        back_left   = hardwareMap.get(DcMotor.class, "back_left");
-        back_right  = hardwareMap.get(DcMotor.class, "back_right");
-
-        intakeHarvester = hardwareMap.get(DcMotor.class, "intakeHarvester");
-        conveyor        = hardwareMap.get(DcMotor.class, "conveyor");
+        motors = new MotorCache(hardwareMap); // skips repeated setPower/setMode writes
+        drive = new MecanumDrive(motors); // drive directions + BRAKE
 
-        // ---- Drivetrain Directions ----
-        front_left.setDirection(DcMotor.Direction.FORWARD);
-        back_left.setDirection(DcMotor.Direction.FORWARD);
-        front_right.setDirection(DcMotor.Direction.REVERSE);
-        back_right.setDirection(DcMotor.Direction.REVERSE);
+        intakeHarvester = motors.get("intakeHarvester");
+        conveyor        = motors.get("conveyor");
 
         // Reverse intake as you requested
         intakeHarvester.setDirection(DcMotorSimple.Direction.REVERSE);
         conveyor.setDirection(DcMotorSimple.Direction.FORWARD);
 
-        for (DcMotor m : new DcMotor[]{front_left, front_right, back_left, back_right}) {
-            m.setZeroPowerBehavior(DcMotor.ZeroPowerBehavior.BRAKE);
-        }
         intakeHarvester.setZeroPowerBehavior(DcMotor.ZeroPowerBehavior.BRAKE);
         conveyor.setZeroPowerBehavior(DcMotor.ZeroPowerBehavior.BRAKE);
 
+        // ==== Launcher + range table (from the Control Hub, else a rough default) ====
+        launcher = Launcher.newLauncher(motors.get("launcher"), hardwareMap);
+        launcherTable = LauncherTable.load(LauncherTable.DEFAULT_PATH, LauncherTable.defaults());
+
         // ==== AprilTag Vision ====
-        aprilTag = new AprilTagProcessor.Builder()
-                .setTagFamily(TagFamily.TAG_36h11)
-                .setDrawTagID(true)
-                .setDrawTagOutline(true)
-                .build();
+        vision = new VisionManager(hardwareMap, WEBCAM_NAME);
+
+        // ---- IMU + tag tracker (both on their own threads) ----
+        IMU imu = hardwareMap.get(IMU.class, "imu");
+        imu.initialize(new IMU.Parameters());
+        imuService = new ImuService(imu, IMU_HZ);
+        imuService.start();
+        tags = new TagTracker(imuService);
+        if (RECORD_TAGS) tags.record(TAG_LOG);
+        tags.start(vision.aprilTag());
+        vision.setTracker(tags);
+
+        // ---- Odometry (same geometry + signs as the encoder auto) ----
+        // (launcher last: its speed comes out of the same bulk read)
+        encoders = new EncoderSnapshot(hardwareMap,
+                drive.motor(MecanumDrive.FL), drive.motor(MecanumDrive.FR),
+                drive.motor(MecanumDrive.BL), drive.motor(MecanumDrive.BR), motors.get("launcher"));
+        launcher.velocityFrom(encoders, LAUNCHER_ENC);
+        odometry = Encoder_Route_Auto.newPoseEstimator(encoders, imuService);
+
+        // ---- Match log (file sized + mapped now, nothing to do in the loop) ----
+        if (RECORD_MATCH) {
+            recorder = new MatchRecorder(MatchRecorder.DEFAULT_DIR, "teleop")
+                    .encoders(encoders, "fl", "fr", "bl", "br", "launcher")
+                    .powers(drive.motor(MecanumDrive.FL), drive.motor(MecanumDrive.FR),
+                            drive.motor(MecanumDrive.BL), drive.motor(MecanumDrive.BR),
+                            intakeHarvester, conveyor, motors.get("launcher"))
+                    .heading(imuService)
+                    .states(AIM_NAMES)
+                    .values("goal bearing", "goal range", "rpm", "target rpm")
+                    .open();
+        }
 
-        WebcamName cam = hardwareMap.get(WebcamName.class, WEBCAM_NAME);
+        // ---- Tasks, in run order (budget ms = overrun threshold) ----
+        sched.add("pose",      ControlScheduler.EVERY_CYCLE, 3.0, this::updatePose);
+        sched.add("drive",     ControlScheduler.EVERY_CYCLE, 2.0, this::updateDrive);
+        if (recorder != null) sched.add("record", ControlScheduler.EVERY_CYCLE, 0.5, this::record);
+        sched.add("telemetry", TELEMETRY_HZ,                 5.0, this::updateTelemetry);
 
-        visionPortal = new VisionPortal.Builder()
-                .addProcessor(aprilTag)
-                .setCamera(cam)
-                .build();
+    }
 
-        telemetry.addLine("Ready: Hold A to align with Tag 24");
+    @Override
+    public void init_loop() {
+        if (gamepad1.dpad_left)  alliance = BLUE;
+        if (gamepad1.dpad_right) alliance = RED;
+        telemetry.addData("Alliance", "%s  (d-pad left = blue, right = red)", ALLIANCE_NAMES[alliance]);
+        telemetry.addLine("Ready: Hold A to aim at our goal while driving");
+        telemetry.addLine("X = launcher (RPM from range, " + launcherTable.size() + " table points)");
+        if (recorder != null) telemetry.addLine("Match log: " + recorder.summary());
         telemetry.update();
     }
 
+    @Override
+    public void start() {
+        targetTagId = GOAL_TAG_ID[alliance];
+
+        // ---- Field heading: the alliance start + what the IMU turned since ----
+        // restore() puts the odometry where auto left it (heading from its start
+        // pose); without an auto it reads 0, i.e. still at the start.
+        boolean fromAuto = odometry.restore();
+        fieldPose.setHeading(START_HEADING_DEG[alliance] + odometry.headingDeg(),
+                fromAuto ? AUTO_HEADING_SIGMA_DEG : START_HEADING_SIGMA_DEG);
+
+        tele = new TelemetryPublisher(telemetry, TELEMETRY_HZ);
+        lineMode    = tele.addText("Mode");
+        lineAlign   = tele.addText("ALIGN");
+        lineBearing = tele.addLine("Goal tag " + targetTagId, 1, "bearing=", "cmd=", "age ms=");
+        lineShot    = tele.addText("Shot");
+        launcher.addTelemetry(tele);
+        lineField   = tele.addLine("Field", 1, "x=", "y=", "h=", "sigma=");
+        lineFilter  = tele.addLine("Tags", 0, "used=", "gated=", "late=", "unplaced=");
+        vision.addTelemetry(tele);
+        sched.addTelemetry(tele);
+    }
+
     @Override
     public void loop() {
+        imuService.poll();                       // both no-ops unless simulated
+        tags.poll();
+        sched.runCycle();
+        vision.update();
+    }
+
+    // ========== TASKS ==========
 
-        // ========== AUTO-ALIGN (A HOLD) ==========
-        if (gamepad1.a) {
-            alignToTag24();
-            return;
+    // Odometry step, then any tag frames the tracker has taken since last loop.
+    private void updatePose() {
+        encoders.capture();
+        odometry.update();
+        fieldPose.predict(odometry);
+        fieldPose.addSightings(tags);
+        updateGoal();
+    }
+
+    // Bearing + floor range from the robot centre to the goal: from the tag
+    // (IMU-predicted) while it's fresh, else from the field pose.
+    private void updateGoal() {
+        if (tagVisible()) {
+            tags.measurement(targetTagId, tagMeas);
+            double bearing = tags.bearingDeg(targetTagId);
+            goalBearing = PoseEKF.robotBearingDeg(tagMeas[0], bearing);
+            goalRange = PoseEKF.robotRangeIn(tagMeas[0], bearing);
+            aimSource = AIM_TAG;
+        } else if (fieldPose.isFixed()) {
+            goalBearing = fieldPose.bearingToTagDeg(targetTagId);
+            goalRange = fieldPose.distanceToTagIn(targetTagId);
+            aimSource = AIM_POSE;
+        } else {
+            aimSource = AIM_NONE;      // goalRange keeps its last value
         }
+    }
 
-        // ========== NORMAL DRIVE ==========
+    private void updateDrive() {
+
+        // ========== CAMERA PROFILE ==========
+        vision.use(gamepad1.a ? VisionManager.ALIGN
+                : LOCALIZE_WHEN_IDLE ? VisionManager.LOCALIZE : VisionManager.IDLE);
+
+        // ========== DRIVE (+ AIM WHILE A HELD) ==========
         float y = dead(gamepad1.left_stick_y);
         float x = dead(gamepad1.left_stick_x);
-        float rx = dead(gamepad1.right_stick_x);
+        double rx = dead(gamepad1.right_stick_x);
+        alignCmd = 0;
+        if (gamepad1.a && Math.abs(rx) <= ROT_DEADZONE) {
+            alignCmd = aimAtGoal();
+            rx = alignCmd;
+        } else {
+            aim.reset();
+        }
 
         boolean stickBtn = gamepad1.left_stick_button;
         if (stickBtn && !leftStickPrev) slowMode = !slowMode;
@@ -111,93 +266,100 @@ public class MAIN_EXE extends OpMode {
 
         speedMult = slowMode ? SLOW_MULT : NORM_MULT;
 
-        float fl = y - x - rx;
-        float fr = y + x + rx;
-        float bl = y + x - rx;
-        float br = y - x + rx;
+        drive.setSpeedMultiplier(speedMult);
+        drive.drive(y, x, rx);
 
-        float max = Math.max(Math.max(Math.abs(fl), Math.abs(fr)), Math.max(Math.abs(bl), Math.abs(br)));
-        if (max > 1f) { fl /= max; fr /= max; bl /= max; br /= max; }
+        // ========== LAUNCHER (X TOGGLE), RPM FOR THE CURRENT RANGE ==========
+        boolean xNow = gamepad1.x;
+        if (xNow && !xPrev) launcherOn = !launcherOn;
+        xPrev = xNow;
+        launcher.setTargetRpm(launcherOn ? launcherTable.rpmAt(goalRange) : 0);
+        launcher.update();                       // velocity is in this loop's bulk read
 
-        front_left.setPower(clip(fl * speedMult, -1, 1));
-        front_right.setPower(clip(fr * speedMult, -1, 1));
-        back_left.setPower(clip(bl * speedMult, -1, 1));
-        back_right.setPower(clip(br * speedMult, -1, 1));
-
-        // ========== INTAKE + CONVEYOR (Y HOLD) ==========
+        // ========== INTAKE + CONVEYOR (Y HOLD; feeds only at speed) ==========
         if (gamepad1.y) {
             intakeHarvester.setPower(INTAKE_POWER);
-            conveyor.setPower(CONVEYOR_POWER);
+            conveyor.setPower(launcherOn && !launcher.atSpeed() ? 0 : CONVEYOR_POWER);
         } else {
             intakeHarvester.setPower(0);
             conveyor.setPower(0);
         }
-
-        telemetry.addData("Mode", slowMode ? "SLOW" : "NORMAL");
-        telemetry.update();
     }
 
-    // ========== ALIGNMENT FUNCTIONS ==========
-    private void alignToTag24() {
-        intakeHarvester.setPower(0);
-        conveyor.setPower(0);
-
-        AprilTagDetection tag = findTag(TARGET_TAG_ID);
-        if (tag == null || tag.ftcPose == null) {
-            setTurn(0);
-            telemetry.addLine("ALIGN: Tag 24 not visible");
-            telemetry.update();
-            return;
-        }
-
-        double bearing = tag.ftcPose.bearing;
-        double cmd = 0;
+    // Already at TELEMETRY_HZ, so publish every run.
+    private void updateTelemetry() {
+        tele.setText(lineMode, slowMode ? "SLOW" : "NORMAL");
+        if (!gamepad1.a)          tele.setText(lineAlign, "off (hold A)");
+        else                      tele.setText(lineAlign, AIM_NAMES[aimSource]
+                                          + (aim.onTarget() ? ", locked" : ""));
+        tele.set(lineBearing, 0, goalBearing);
+        tele.setText(lineShot, String.format(Locale.US, "range %.0f in -> %.0f rpm, %s",
+                goalRange, launcherTable.rpmAt(goalRange),
+                !launcherOn ? "launcher off" : launcher.atSpeed() ? "READY" : "spinning up"));
+        launcher.updateTelemetry();
+        tele.set(lineBearing, 1, alignCmd);
+        tele.set(lineBearing, 2, tags.seen(targetTagId) ? tags.ageS(targetTagId) * 1000 : 0);
+        tele.set(lineField, 0, fieldPose.x());
+        tele.set(lineField, 1, fieldPose.y());
+        tele.set(lineField, 2, fieldPose.headingDeg());
+        tele.set(lineField, 3, Math.max(fieldPose.sigmaXIn(), fieldPose.sigmaYIn()));
+        tele.set(lineFilter, 0, fieldPose.accepted());
+        tele.set(lineFilter, 1, fieldPose.gated());
+        tele.set(lineFilter, 2, fieldPose.tooOld());
+        tele.set(lineFilter, 3, fieldPose.unplaced());
+        vision.updateTelemetry();
+        sched.updateTelemetry();
+        tele.forcePublish();
+    }
 
-        if (Math.abs(bearing) > BEARING_TOL_DEG) {
-            cmd = KP_TURN * bearing;
-            if (Math.abs(cmd) < MIN_TURN) cmd = Math.copySign(MIN_TURN, cmd);
-            cmd = clip(cmd, -MAX_TURN, MAX_TURN);
+    // What this loop saw and did: sticks, aim source, field pose, goal tags.
+    private void record() {
+        recorder.gamepad(0, gamepad1);
+        recorder.gamepad(1, gamepad2);
+        recorder.state(aimSource);
+        if (fieldPose.isFixed()) recorder.pose(fieldPose.x(), fieldPose.y(), fieldPose.headingDeg());
+        for (int i = 0; i < PoseEKF.GOAL_TAG_IDS.length; i++) {
+            int id = PoseEKF.GOAL_TAG_IDS[i];
+            if (tags.seen(id)) recorder.tag(i, id, tags.rangeIn(id), tags.rawBearingDeg(id), tags.ageS(id));
         }
-
-        setTurn(cmd);
-
-        telemetry.addData("ALIGN", "bearing=%.1f cmd=%.2f", bearing, cmd);
-        telemetry.update();
+        recorder.value(0, goalBearing);
+        recorder.value(1, goalRange);
+        recorder.value(2, launcher.rpm());
+        recorder.value(3, launcher.targetRpm());
+        recorder.commit();                       // + encoders, motor powers, IMU
     }
 
-    private AprilTagDetection findTag(int id) {
-        List<AprilTagDetection> list = aprilTag.getDetections();
-        if (list == null) return null;
-        AprilTagDetection best = null;
-        double bestAbs = 9999;
-        for (AprilTagDetection d : list) {
-            if (d.id == id && d.ftcPose != null) {
-                double ab = Math.abs(d.ftcPose.bearing);
-                if (ab < bestAbs) { bestAbs = ab; best = d; }
-            }
+    // ========== AIM ==========
+
+    // rx that turns the robot centre onto the goal, or 0 with no bearing.
+    private double aimAtGoal() {
+        if (aimSource == AIM_NONE) {
+            aim.reset();
+            return 0;
         }
-        return best;
+        // target in the odometry's (IMU) heading, which the gyro rate matches
+        double heading = odometry.headingDeg();
+        aim.setTarget(heading + goalBearing);
+        return aim.update(heading, imuService.yawRateDegPerS(),
+                odometry.lineOfSightRateDegPerS(goalBearing, goalRange));
     }
 
-    private void setTurn(double p) {
-        p = clip(p, -1, 1);
-        front_left.setPower(+p);
-        back_left.setPower(+p);
-        front_right.setPower(-p);
-        back_right.setPower(-p);
+    private boolean tagVisible() {
+        return tags.fresh(targetTagId, TAG_MAX_AGE_S);
     }
 
     // ========== UTILS ==========
     private float dead(float v) { return (Math.abs(v) < DEADZONE) ? 0f : v; }
-    private double clip(double v, double lo, double hi) {
-        return Math.max(lo, Math.min(hi, v));
-    }
 
     @Override
     public void stop() {
-        if (visionPortal != null) {
-            visionPortal.close();
-            visionPortal = null;
+        if (recorder != null) recorder.close();
+        if (tags != null) tags.stop();
+        if (imuService != null) imuService.stop();
+        if (tele != null) tele.stop();
+        if (vision != null) {
+            vision.close();
+            vision = null;
         }
     }
 }
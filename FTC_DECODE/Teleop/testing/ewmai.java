@@ -2,18 +2,19 @@ package org.firstinspires.ftc.teamcode;
 
 import com.qualcomm.robotcore.eventloop.opmode.TeleOp;
 import com.qualcomm.robotcore.eventloop.opmode.OpMode;
-import com.qualcomm.robotcore.hardware.DcMotor;
-import com.qualcomm.robotcore.hardware.DcMotorSimple;
 
 @TeleOp(name = "MAIN_EXE", group = "TeleOp")
 public class MAIN_EXE extends OpMode {
 
     // ====== DRIVETRAIN ======
-    private DcMotor front_left, front_right, back_left, back_right;
+    private MotorCache motors;
+    private MecanumDrive drive;
 
     // ====== SUBSYSTEMS ======
-    private DcMotor intakeHarvester;
-    private DcMotor conveyor;
+    private CachedMotor intakeHarvester;
+    private CachedMotor conveyor;
+    private Launcher launcher;              // X toggles
+    private Indexer indexer;                // sequences intake -> conveyor -> launcher
 
     // ====== DRIVE SETTINGS ======
     private static final float DEADZONE   = 0.10f;
@@ -24,44 +25,47 @@ public class MAIN_EXE extends OpMode {
     private boolean leftStickPrev = false;
     private float speedMult = NORM_MULT;
 
-    // ====== INTAKE / CONVEYOR SPEEDS ======
-    private static final double INTAKE_POWER   = 1.0;   // full power
-    private static final double CONVEYOR_POWER = 1.0;   // changed from 0.6 to 1.0
+    // ====== FEED (powers and conveyor timing: Indexer.newIndexer) ======
+    // Y hold = intake (balls counted, conveyor makes room), A = fire one,
+    // B = fire all, right bumper = stop feeding, d-pad down hold = eject.
+    // Starts empty: the auto fires its balls, a leftover one still goes with A.
+    private static final double LAUNCHER_RPM   = 4200;
+
+    private boolean xPrev = false, aPrev = false, bPrev = false;
+    private boolean launcherOn = false;
+
+    // ====== TELEMETRY ======
+    private static final double TELEMETRY_HZ = 4.0;        // DS refresh, independent of loop rate
+    private TelemetryPublisher tele;
+    private int lineMode, lineLauncher;
 
     @Override
     public void init() {
 
         // ---- Map hardware (names must match configuration) ----
-        front_left  = hardwareMap.get(DcMotor.class, "front_left");
-        front_right = hardwareMap.get(DcMotor.class, "front_right");
-        back_left   = hardwareMap.get(DcMotor.class, "back_left");
-        back_right  = hardwareMap.get(DcMotor.class, "back_right");
-
-        intakeHarvester = hardwareMap.get(DcMotor.class, "intakeHarvester");
-        conveyor        = hardwareMap.get(DcMotor.class, "conveyor");
-
-        // ---- Drivetrain directions ----
-        front_left.setDirection(DcMotor.Direction.FORWARD);
-        back_left.setDirection(DcMotor.Direction.FORWARD);
-        front_right.setDirection(DcMotor.Direction.REVERSE);
-        back_right.setDirection(DcMotor.Direction.REVERSE);
-
-        // Intake reversed (from earlier fix)
-        intakeHarvester.setDirection(DcMotorSimple.Direction.REVERSE);
-        conveyor.setDirection(DcMotorSimple.Direction.FORWARD);
-
-        // Brake when zero power
-        front_left.setZeroPowerBehavior(DcMotor.ZeroPowerBehavior.BRAKE);
-        front_right.setZeroPowerBehavior(DcMotor.ZeroPowerBehavior.BRAKE);
-        back_left.setZeroPowerBehavior(DcMotor.ZeroPowerBehavior.BRAKE);
-        back_right.setZeroPowerBehavior(DcMotor.ZeroPowerBehavior.BRAKE);
-        intakeHarvester.setZeroPowerBehavior(DcMotor.ZeroPowerBehavior.BRAKE);
-        conveyor.setZeroPowerBehavior(DcMotor.ZeroPowerBehavior.BRAKE);
-
-        telemetry.addLine("TeleOp READY: drive + Y(intake+conveyor)");
+        motors = new MotorCache(hardwareMap); // skips repeated setPower/setMode writes
+        drive = new MecanumDrive(motors); // drive directions + BRAKE
+
+        intakeHarvester = motors.get("intakeHarvester");
+        conveyor        = motors.get("conveyor");
+
+        launcher = Launcher.newLauncher(motors.get("launcher"), hardwareMap);
+        // intake reversed (from earlier fix), brake when zero power: Indexer.newIndexer
+        indexer = Indexer.newIndexer(intakeHarvester, conveyor, launcher);
+
+        telemetry.addLine("TeleOp READY: drive + Y(intake) X(launcher) A(fire one) B(fire all) DPAD DOWN(eject)");
         telemetry.update();
     }
 
+    @Override
+    public void start() {
+        tele = new TelemetryPublisher(telemetry, TELEMETRY_HZ);
+        lineMode     = tele.addText("Mode");
+        lineLauncher = tele.addText("Launcher");
+        launcher.addTelemetry(tele);
+        indexer.addTelemetry(tele);
+    }
+
     @Override
     public void loop() {
 
@@ -78,44 +82,41 @@ public class MAIN_EXE extends OpMode {
         speedMult = slowMode ? SLOW_MULT : NORM_MULT;
 
         // Mecanum math
-        float fl = y - x - rx;
-        float fr = y + x + rx;
-        float bl = y + x - rx;
-        float br = y - x + rx;
-
-        float max = Math.max(Math.max(Math.abs(fl), Math.abs(fr)),
-                             Math.max(Math.abs(bl), Math.abs(br)));
-        if (max > 1f) {
-            fl /= max;
-            fr /= max;
-            bl /= max;
-            br /= max;
-        }
-
-        front_left.setPower(clip(fl * speedMult, -1, 1));
-        front_right.setPower(clip(fr * speedMult, -1, 1));
-        back_left.setPower(clip(bl * speedMult, -1, 1));
-        back_right.setPower(clip(br * speedMult, -1, 1));
-
-        // ========= INTAKE + CONVEYOR (HOLD Y) =========
-        if (gamepad1.y) {
-            intakeHarvester.setPower(INTAKE_POWER);
-            conveyor.setPower(CONVEYOR_POWER);
-        } else {
-            intakeHarvester.setPower(0);
-            conveyor.setPower(0);
-        }
-
-        telemetry.addData("Mode", slowMode ? "SLOW" : "NORMAL");
-        telemetry.update();
+        drive.setSpeedMultiplier(speedMult);
+        drive.drive(y, x, rx);
+
+        // ========= LAUNCHER TOGGLE (PRESS X) =========
+        boolean xNow = gamepad1.x;
+        if (xNow && !xPrev) launcherOn = !launcherOn;
+        xPrev = xNow;
+        launcher.setTargetRpm(launcherOn ? LAUNCHER_RPM : 0);
+        launcher.update();
+
+        // ========= FEED (Y hold intake, A one, B all, RB stop, d-pad down eject) =========
+        indexer.intake(gamepad1.y);
+        indexer.eject(gamepad1.dpad_down);
+        if (gamepad1.a && !aPrev) indexer.fireOne();
+        if (gamepad1.b && !bPrev) indexer.fireBurst();
+        if (gamepad1.right_bumper) indexer.stop();
+        aPrev = gamepad1.a;
+        bPrev = gamepad1.b;
+        indexer.update();                        // after launcher.update(): reads its rpm
+
+        // ========= TELEMETRY =========
+        tele.setText(lineMode, slowMode ? "SLOW" : "NORMAL");
+        tele.setText(lineLauncher, !launcherOn ? "OFF" : launcher.atSpeed() ? "READY" : "SPINNING UP");
+        launcher.updateTelemetry();
+        indexer.updateTelemetry();
+        tele.publish();
+    }
+
+    @Override
+    public void stop() {
+        if (tele != null) tele.stop();
     }
 
     // ========= UTILS =========
     private float dead(float v) {
         return (Math.abs(v) < DEADZONE) ? 0f : v;
     }
-
-    private double clip(double v, double lo, double hi) {
-        return Math.max(lo, Math.min(hi, v));
-    }
 }
@@ -6,19 +6,19 @@ import com.qualcomm.robotcore.hardware.DcMotor;
 import com.qualcomm.robotcore.hardware.DcMotorSimple;
 import com.qualcomm.robotcore.hardware.IMU;
 
-import org.firstinspires.ftc.robotcore.external.navigation.AngleUnit;
-import org.firstinspires.ftc.robotcore.external.navigation.YawPitchRollAngles;
-
 @TeleOp(name = "MAIN_EXE", group = "TeleOp")
 public class MAIN_EXE extends OpMode {
 
     // ====== DRIVETRAIN ======
-    private DcMotor front_left, front_right, back_left, back_right;
+    private MotorCache motors;
+    private MecanumDrive drive;
+    private EncoderSnapshot encoders;       // one bulk read per loop
+    private PoseEstimator pose;             // x, y, heading; picks up where auto ended
 
     // ====== SUBSYSTEMS ======
-    private DcMotor intakeHarvester;
-    private DcMotor conveyor;
-    private DcMotor launcher;
+    private CachedMotor intakeHarvester;
+    private CachedMotor conveyor;
+    private Launcher launcher;              // closed-loop flywheel
 
     // ====== DRIVE SETTINGS ======
     private static final float DEADZONE   = 0.10f;
@@ -32,7 +32,11 @@ public class MAIN_EXE extends OpMode {
     // ====== INTAKE / CONVEYOR / LAUNCHER SPEEDS ======
     private static final double INTAKE_POWER    = 1.0;   // full power
     private static final double CONVEYOR_POWER  = 1.0;   // full power
-    private static final double LAUNCHER_POWER  = 1.0;   // launcher power
+
+    // ====== LAUNCHER (flywheel RPM, see Launcher) ======
+    // The conveyor only feeds while the wheel is at speed.
+    private static final double LAUNCHER_RPM = 4200;           // gains: Launcher.newLauncher
+    private static final int LAUNCHER_ENC = 4;                 // in the snapshot, after FL, FR, BL, BR
 
     // ====== LAUNCHER TOGGLE STATE ======
     private boolean xPrev = false;
@@ -40,7 +44,9 @@ public class MAIN_EXE extends OpMode {
 
     // ====== IMU HEADING HOLD ======
     private IMU imu;
-    private double targetHeadingDeg = 0.0;
+    private ImuService imuService;          // IMU read on its own thread
+    private HeadingHold headingHold;
+    private static final double IMU_HZ = 100.0;             // sampling thread rate
 
     // when |rx| > this, we assume driver is intentionally turning
     private static final double ROT_DEADZONE     = 0.05;
@@ -48,117 +54,217 @@ public class MAIN_EXE extends OpMode {
     private static final double HEADING_KP       = 0.02;   // tune 0.015–0.03
     private static final double MAX_HEADING_CORR = 0.4;    // clamp correction
 
+    // ====== FIELD-CENTRIC + SNAP ======
+    // Right stick button toggles field-centric; BACK = "robot now faces away
+    // from me". Dpad snaps to 0/90/180/270 (driver frame: up = away, left = 90
+    // CCW), right bumper turns to and tracks the goal. Any turn-stick input
+    // cancels a snap.
+    private static final boolean FIELD_CENTRIC_AT_START = true;
+    private static final double DRIVER_FORWARD_DEG = 0.0;   // pose heading that faces away from the driver
+    // goal, in the pose frame (encoder auto's start = 0,0 facing +x); measure on the field
+    private static final double GOAL_X_IN = -48.0;
+    private static final double GOAL_Y_IN = -24.0;
+    private static final double SNAP_KP  = 0.012;   // power per deg
+    private static final double SNAP_KI  = 0.02;    // power per deg*s, only inside the i-zone
+    private static final double SNAP_KD  = 0.0008;  // power per deg/s (gyro rate)
+    private static final double SNAP_MAX = 0.7;
+    private static final double SNAP_TOL_DEG = 2.0;
+    private static final int SNAP_NONE = -1, SNAP_GOAL = -2;
+
+    private HeadingController snap;
+    private boolean fieldCentric = FIELD_CENTRIC_AT_START;
+    private double driverZeroDeg = DRIVER_FORWARD_DEG;
+    private int snapDeg = SNAP_NONE;          // driver-frame angle, SNAP_GOAL, or SNAP_NONE
+    private boolean rsbPrev = false, backPrev = false, dpadPrev = false, rbPrev = false;
+
+    // ====== TELEMETRY ======
+    private static final double TELEMETRY_HZ = 4.0;        // DS refresh, independent of loop rate
+    private TelemetryPublisher tele;
+    private int lineMode, lineHeading, lineLauncher, linePose, lineSnap;
+
+    // ====== SCHEDULER (each task at its own rate) ======
+    private final ControlScheduler sched = new ControlScheduler();
+
+    // stick / heading state shared between tasks
+    private float y, x, rx;
+    private double currentHeading = 0.0;
+
+    // ====== LOOP TIMING ======
+    private static final String LOOP_LOG = "/sdcard/FIRST/imumaiexe_looptimes.csv";
+    private final LoopProfiler prof = new LoopProfiler();
+    private final int P_STICKS   = prof.phase("sticks");
+    private final int P_POSE     = prof.phase("encoders + pose");
+    private final int P_IMU      = prof.phase("imu read");
+    private final int P_HOLD     = prof.phase("heading hold");
+    private final int P_MIX      = prof.phase("mix");
+    private final int P_DRIVE    = prof.phase("drive writes");
+    private final int P_SUBSYS   = prof.phase("subsystem writes");
+    private final int P_TELE     = prof.phase("telemetry");
+
     @Override
     public void init() {
 
         // ---- Map hardware (names must match configuration) ----
-        front_left  = hardwareMap.get(DcMotor.class, "front_left");
-        front_right = hardwareMap.get(DcMotor.class, "front_right");
-        back_left   = hardwareMap.get(DcMotor.class, "back_left");
-        back_right  = hardwareMap.get(DcMotor.class, "back_right");
-
-        intakeHarvester = hardwareMap.get(DcMotor.class, "intakeHarvester");
-        conveyor        = hardwareMap.get(DcMotor.class, "conveyor");
-        launcher        = hardwareMap.get(DcMotor.class, "launcher");
+        motors = new MotorCache(hardwareMap); // skips repeated setPower/setMode writes
+        drive = new MecanumDrive(motors); // drive directions + BRAKE
 
-        // ---- Drivetrain directions ----
-        front_left.setDirection(DcMotor.Direction.FORWARD);
-        back_left.setDirection(DcMotor.Direction.FORWARD);
-        front_right.setDirection(DcMotor.Direction.REVERSE);
-        back_right.setDirection(DcMotor.Direction.REVERSE);
+        intakeHarvester = motors.get("intakeHarvester");
+        conveyor        = motors.get("conveyor");
+        CachedMotor launcherMotor = motors.get("launcher");
 
         // Intake reversed (you wanted this), others normal
         intakeHarvester.setDirection(DcMotorSimple.Direction.REVERSE);
         conveyor.setDirection(DcMotorSimple.Direction.FORWARD);
-        launcher.setDirection(DcMotorSimple.Direction.FORWARD); // flip if needed
 
         // Brake when zero power
-        front_left.setZeroPowerBehavior(DcMotor.ZeroPowerBehavior.BRAKE);
-        front_right.setZeroPowerBehavior(DcMotor.ZeroPowerBehavior.BRAKE);
-        back_left.setZeroPowerBehavior(DcMotor.ZeroPowerBehavior.BRAKE);
-        back_right.setZeroPowerBehavior(DcMotor.ZeroPowerBehavior.BRAKE);
         intakeHarvester.setZeroPowerBehavior(DcMotor.ZeroPowerBehavior.BRAKE);
         conveyor.setZeroPowerBehavior(DcMotor.ZeroPowerBehavior.BRAKE);
-        launcher.setZeroPowerBehavior(DcMotor.ZeroPowerBehavior.BRAKE);
 
         // Start subsystems off
         intakeHarvester.setPower(0);
         conveyor.setPower(0);
-        launcher.setPower(0);
+        launcher = Launcher.newLauncher(launcherMotor, hardwareMap);   // coasts, starts off
 
         // ---- IMU ----
         imu = hardwareMap.get(IMU.class, "imu"); // make sure name matches config
         imu.initialize(new IMU.Parameters());
-        targetHeadingDeg = getHeadingDeg();      // lock current heading as target
+        imuService = new ImuService(imu, IMU_HZ);
+        imuService.start();                      // first sample is taken here
+        headingHold = new HeadingHold(HEADING_KP, MAX_HEADING_CORR, ROT_DEADZONE);
+        headingHold.reset(imuService.yawDeg());  // lock current heading as target
+        currentHeading = headingHold.targetDeg();
+        snap = new HeadingController(SNAP_KP, SNAP_KI, SNAP_KD, SNAP_MAX).tolerance(SNAP_TOL_DEG, 20);
+
+        // ---- Pose (same geometry + signs as the encoder auto) ----
+        // (launcher last: its speed comes out of the same bulk read)
+        encoders = new EncoderSnapshot(hardwareMap,
+                drive.motor(MecanumDrive.FL), drive.motor(MecanumDrive.FR),
+                drive.motor(MecanumDrive.BL), drive.motor(MecanumDrive.BR), launcherMotor);
+        launcher.velocityFrom(encoders, LAUNCHER_ENC);
+        pose = Encoder_Route_Auto.newPoseEstimator(encoders, imuService);
+        pose.restore();
+        headingHold.reset(pose.headingDeg());    // hold + snap run on the pose heading
+        currentHeading = pose.headingDeg();
+
+        // ---- Tasks, in run order (budget ms = overrun threshold) ----
+        sched.add("sticks",    ControlScheduler.EVERY_CYCLE, 0.5, this::readSticks);
+        sched.add("pose",      ControlScheduler.EVERY_CYCLE, 3.0, this::updatePose);
+        sched.add("heading",   ControlScheduler.EVERY_CYCLE, 0.5, this::updateHeading);
+        sched.add("drive",     ControlScheduler.EVERY_CYCLE, 2.0, this::updateDrive);
+        sched.add("mechanisms", ControlScheduler.EVERY_CYCLE, 1.0, this::updateMechanisms);
+        sched.add("telemetry", TELEMETRY_HZ,                 5.0, this::updateTelemetry);
 
         telemetry.addLine("TeleOp READY");
         telemetry.addLine("Y = intake+conveyor | X = launcher toggle");
         telemetry.addLine("IMU heading hold active when not turning");
+        telemetry.addLine("RS click = field-centric | BACK = reset | dpad/RB = snap");
         telemetry.update();
     }
 
+    @Override
+    public void start() {
+        tele = new TelemetryPublisher(telemetry, TELEMETRY_HZ);
+        lineMode     = tele.addText("Mode");
+        lineHeading  = tele.addLine("Heading", 1, "", "target=");
+        lineSnap     = tele.addLine("Snap", 1, "to=", "err=", "field=");
+        lineLauncher = tele.addText("Launcher");
+        launcher.addTelemetry(tele);
+        linePose     = tele.addLine("Pose", 1, "x=", "y=", "h=");
+        prof.addTelemetry(tele);
+        sched.addTelemetry(tele);
+    }
+
     @Override
     public void loop() {
+        prof.beginLoop();
+        imuService.poll();                       // no-op unless simulated
+        sched.runCycle();
+        prof.endLoop();
+    }
+
+    // ========= TASKS =========
 
-        // ========= READ STICKS =========
-        // minus sign so pushing stick forward = robot forward
+    private void readSticks() {
+        // raw stick signs = MecanumDrive.mix() signs (stick up is negative = forward)
         float yRaw  = gamepad1.left_stick_y;
         float xRaw  = gamepad1.left_stick_x;
         float rxRaw = gamepad1.right_stick_x;
 
-        float y  = -dead(yRaw);          // forward/back
-        float x  =  dead(xRaw);          // strafe
-        float rx =  dead(rxRaw);         // rotation command
-
-        // ========= IMU HEADING HOLD (modify rx) =========
-        double currentHeading = getHeadingDeg();
-
-        if (Math.abs(rx) > ROT_DEADZONE) {
-            // driver is intentionally turning -> update target to new heading
-            targetHeadingDeg = currentHeading;
-        } else {
-            // no manual turn -> auto-correct heading toward target
-            double errorDeg = angleErrorDeg(targetHeadingDeg, currentHeading);
-            double corr = HEADING_KP * errorDeg;
-
-            // clamp correction
-            if (Math.abs(corr) > MAX_HEADING_CORR) {
-                corr = Math.copySign(MAX_HEADING_CORR, corr);
-            }
-
-            rx += (float)corr;  // inject correction into rotation
+        y  = dead(yRaw);           // forward/back
+        x  = dead(xRaw);           // strafe
+        rx = dead(rxRaw);          // rotation command
+
+        // ========= FIELD-CENTRIC TOGGLE / RESET =========
+        boolean rsb = gamepad1.right_stick_button;
+        if (rsb && !rsbPrev) fieldCentric = !fieldCentric;
+        rsbPrev = rsb;
+        boolean back = gamepad1.back;
+        if (back && !backPrev) driverZeroDeg = pose.headingDeg();
+        backPrev = back;
+
+        // ========= SNAP (dpad / right bumper; turn stick cancels) =========
+        boolean dpad = gamepad1.dpad_up || gamepad1.dpad_left || gamepad1.dpad_down || gamepad1.dpad_right;
+        if (dpad && !dpadPrev) {
+            snapDeg = gamepad1.dpad_up ? 0 : gamepad1.dpad_left ? 90 : gamepad1.dpad_down ? 180 : 270;
         }
+        dpadPrev = dpad;
+        boolean rb = gamepad1.right_bumper;
+        if (rb && !rbPrev) snapDeg = SNAP_GOAL;
+        rbPrev = rb;
+        if (Math.abs(rx) > ROT_DEADZONE) snapDeg = SNAP_NONE;
 
         // ========= SPEED MODE (normal / slow) =========
         boolean stickBtn = gamepad1.left_stick_button;
         if (stickBtn && !leftStickPrev) slowMode = !slowMode;
         leftStickPrev = stickBtn;
         speedMult = slowMode ? SLOW_MULT : NORM_MULT;
+        prof.mark(P_STICKS);
+    }
+
+    private void updatePose() {
+        encoders.capture();
+        pose.update();
+        prof.mark(P_POSE);
+    }
 
-        // ========= MECANUM DRIVE =========
-        float fl = y - x - rx;
-        float fr = y + x + rx;
-        float bl = y + x - rx;
-        float br = y - x + rx;
-
-        float max = Math.max(Math.max(Math.abs(fl), Math.abs(fr)),
-                             Math.max(Math.abs(bl), Math.abs(br)));
-        if (max > 1f) {
-            fl /= max;
-            fr /= max;
-            bl /= max;
-            br /= max;
+    // Pose heading (IMU thread, no I2C here, so every cycle) + heading hold or snap.
+    private void updateHeading() {
+        currentHeading = pose.headingDeg();
+        prof.mark(P_IMU);
+        if (snapDeg == SNAP_NONE) {
+            headingHold.update(rx, currentHeading);
+        } else {
+            snap.setTarget(snapDeg == SNAP_GOAL
+                    ? Math.toDegrees(Math.atan2(GOAL_Y_IN - pose.y(), GOAL_X_IN - pose.x()))
+                    : driverZeroDeg + snapDeg);
+            snap.update(currentHeading, imuService.yawRateDegPerS());
+            headingHold.reset(snap.targetDeg());     // hold where the snap was going
         }
+        prof.mark(P_HOLD);
+    }
 
-        front_left.setPower(clip(fl * speedMult, -1, 1));
-        front_right.setPower(clip(fr * speedMult, -1, 1));
-        back_left.setPower(clip(bl * speedMult, -1, 1));
-        back_right.setPower(clip(br * speedMult, -1, 1));
+    private void updateDrive() {
+        // driver turning -> no correction (don't wait for the next heading run);
+        // IMU stale -> no correction either, a frozen heading would spin us
+        double turn = Math.abs(rx) > ROT_DEADZONE || !imuService.healthy() ? rx
+                : snapDeg != SNAP_NONE ? snap.output()
+                : rx + headingHold.correction();
+
+        drive.setSpeedMultiplier(speedMult);
+        double[] powers = fieldCentric
+                ? drive.mixFieldCentric(y, x, turn, currentHeading - driverZeroDeg)
+                : drive.mix(y, x, turn);
+        prof.mark(P_MIX);
+        drive.setPowers(powers);
+        prof.mark(P_DRIVE);
+    }
 
+    private void updateMechanisms() {
         // ========= INTAKE + CONVEYOR (HOLD Y) =========
+        // (with the launcher on, the conveyor waits for the wheel to be at speed)
         if (gamepad1.y) {
             intakeHarvester.setPower(INTAKE_POWER);
-            conveyor.setPower(CONVEYOR_POWER);
+            conveyor.setPower(launcherOn && !launcher.atSpeed() ? 0 : CONVEYOR_POWER);
         } else {
             intakeHarvester.setPower(0);
             conveyor.setPower(0);
@@ -171,41 +277,40 @@ public class MAIN_EXE extends OpMode {
         }
         xPrev = xNow;
 
-        if (launcherOn) {
-            launcher.setPower(LAUNCHER_POWER);
-        } else {
-            launcher.setPower(0);
-        }
-
-        // ========= TELEMETRY =========
-        telemetry.addData("Mode", slowMode ? "SLOW" : "NORMAL");
-        telemetry.addData("Heading", "%.1f°  (target=%.1f°)", currentHeading, targetHeadingDeg);
-        telemetry.addData("Launcher", launcherOn ? "ON" : "OFF");
-        telemetry.update();
+        launcher.setTargetRpm(launcherOn ? LAUNCHER_RPM : 0);
+        launcher.update();                 // velocity is in this loop's bulk read
+        prof.mark(P_SUBSYS);
     }
 
-    // ========= IMU HELPERS =========
-
-    private double getHeadingDeg() {
-        if (imu == null) return 0.0;
-        YawPitchRollAngles ypr = imu.getRobotYawPitchRollAngles();
-        return ypr.getYaw(AngleUnit.DEGREES);
+    // Already at TELEMETRY_HZ, so publish every run.
+    private void updateTelemetry() {
+        tele.setText(lineMode, (fieldCentric ? "FIELD " : "ROBOT ") + (slowMode ? "SLOW" : "NORMAL")
+                + (imuService.healthy() ? "" : "  IMU STALE (" + imuService.errorCount() + " errors)"));
+        tele.set(lineHeading, 0, currentHeading);
+        tele.set(lineHeading, 1, headingHold.targetDeg());
+        tele.set(lineSnap, 0, snapDeg == SNAP_NONE ? Double.NaN : snap.targetDeg());
+        tele.set(lineSnap, 1, snapDeg == SNAP_NONE ? 0 : snap.errorDeg());
+        tele.set(lineSnap, 2, HeadingHold.angleErrorDeg(currentHeading, driverZeroDeg));
+        tele.setText(lineLauncher, !launcherOn ? "OFF" : launcher.atSpeed() ? "READY" : "SPINNING UP");
+        launcher.updateTelemetry();
+        tele.set(linePose, 0, pose.x());
+        tele.set(linePose, 1, pose.y());
+        tele.set(linePose, 2, pose.headingDeg());
+        prof.updateTelemetry();
+        sched.updateTelemetry();
+        tele.forcePublish();
+        prof.mark(P_TELE);
     }
 
-    // Smallest signed difference between two angles (deg) in range (-180, 180]
-    private double angleErrorDeg(double target, double current) {
-        double error = target - current;
-        while (error > 180)  error -= 360;
-        while (error <= -180) error += 360;
-        return error;
+    @Override
+    public void stop() {
+        if (imuService != null) imuService.stop();
+        if (tele != null) tele.stop();
+        prof.writeLog(LOOP_LOG);
     }
 
     // ========= UTILS =========
     private float dead(float v) {
         return (Math.abs(v) < DEADZONE) ? 0f : v;
     }
-
-    private double clip(double v, double lo, double hi) {
-        return Math.max(lo, Math.min(hi, v));
-    }
 }
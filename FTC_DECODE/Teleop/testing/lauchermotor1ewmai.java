@@ -14,7 +14,7 @@ public class MAIN_EXE extends OpMode {
     // ====== SUBSYSTEMS ======
     private DcMotor intakeHarvester;
     private DcMotor conveyor;
-    private DcMotor launcher;   // NEW
+    private Launcher launcher;  // closed-loop flywheel (RPM + at-speed)
 
     // ====== DRIVE SETTINGS ======
     private static final float DEADZONE   = 0.10f;
@@ -28,12 +28,19 @@ public class MAIN_EXE extends OpMode {
     // ====== INTAKE / CONVEYOR / LAUNCHER SPEEDS ======
     private static final double INTAKE_POWER    = 1.0;   // full power
     private static final double CONVEYOR_POWER  = 1.0;   // full power
-    private static final double LAUNCHER_POWER  = 1.0;   // launcher power
+
+    // ====== LAUNCHER ======
+    private static final double LAUNCHER_RPM = 4200;           // gains + direction: Launcher.newLauncher
 
     // ====== LAUNCHER TOGGLE STATE ======
     private boolean xPrev = false;
     private boolean launcherOn = false;
 
+    // ====== TELEMETRY ======
+    private static final double TELEMETRY_HZ = 4.0;        // DS refresh, independent of loop rate
+    private TelemetryPublisher tele;
+    private int lineMode, lineLauncher;
+
     @Override
     public void init() {
 
@@ -45,7 +52,7 @@ public class MAIN_EXE extends OpMode {
 
         intakeHarvester = hardwareMap.get(DcMotor.class, "intakeHarvester");
         conveyor        = hardwareMap.get(DcMotor.class, "conveyor");
-        launcher        = hardwareMap.get(DcMotor.class, "launcher"); // NEW: make sure this name matches RC config
+        DcMotor launcherMotor = hardwareMap.get(DcMotor.class, "launcher"); // make sure this name matches RC config
 
         // ---- Drivetrain directions ----
         front_left.setDirection(DcMotor.Direction.FORWARD);
@@ -56,7 +63,6 @@ public class MAIN_EXE extends OpMode {
         // Intake reversed (from earlier fix), others normal
         intakeHarvester.setDirection(DcMotorSimple.Direction.REVERSE);
         conveyor.setDirection(DcMotorSimple.Direction.REVERSE);
-        launcher.setDirection(DcMotorSimple.Direction.REVERSE); // flip if it spins the wrong way
 
         // Brake when zero power
         front_left.setZeroPowerBehavior(DcMotor.ZeroPowerBehavior.BRAKE);
@@ -65,17 +71,24 @@ public class MAIN_EXE extends OpMode {
         back_right.setZeroPowerBehavior(DcMotor.ZeroPowerBehavior.BRAKE);
         intakeHarvester.setZeroPowerBehavior(DcMotor.ZeroPowerBehavior.BRAKE);
         conveyor.setZeroPowerBehavior(DcMotor.ZeroPowerBehavior.BRAKE);
-        launcher.setZeroPowerBehavior(DcMotor.ZeroPowerBehavior.BRAKE);
 
         // Start subsystems off
         intakeHarvester.setPower(0);
         conveyor.setPower(0);
-        launcher.setPower(0);
+        launcher = Launcher.newLauncher(new CachedMotor(launcherMotor, "launcher"), hardwareMap);
 
         telemetry.addLine("TeleOp READY: drive + Y(intake+conveyor) + X(launcher toggle)");
         telemetry.update();
     }
 
+    @Override
+    public void start() {
+        tele = new TelemetryPublisher(telemetry, TELEMETRY_HZ);
+        lineMode     = tele.addText("Mode");
+        lineLauncher = tele.addText("Launcher");
+        launcher.addTelemetry(tele);
+    }
+
     @Override
     public void loop() {
 
@@ -112,9 +125,10 @@ public class MAIN_EXE extends OpMode {
         back_right.setPower(clip(br * speedMult, -1, 1));
 
         // ========= INTAKE + CONVEYOR (HOLD Y) =========
+        // (with the launcher on, the conveyor waits for the wheel to be at speed)
         if (gamepad1.y) {
             intakeHarvester.setPower(INTAKE_POWER);
-            conveyor.setPower(CONVEYOR_POWER);
+            conveyor.setPower(launcherOn && !launcher.atSpeed() ? 0 : CONVEYOR_POWER);
         } else {
             intakeHarvester.setPower(0);
             conveyor.setPower(0);
@@ -127,16 +141,19 @@ public class MAIN_EXE extends OpMode {
         }
         xPrev = xNow;
 
-        if (launcherOn) {
-            launcher.setPower(LAUNCHER_POWER);
-        } else {
-            launcher.setPower(0);
-        }
+        launcher.setTargetRpm(launcherOn ? LAUNCHER_RPM : 0);
+        launcher.update();
 
         // ========= TELEMETRY =========
-        telemetry.addData("Mode", slowMode ? "SLOW" : "NORMAL");
-        telemetry.addData("Launcher", launcherOn ? "ON" : "OFF");
-        telemetry.update();
+        tele.setText(lineMode, slowMode ? "SLOW" : "NORMAL");
+        tele.setText(lineLauncher, !launcherOn ? "OFF" : launcher.atSpeed() ? "READY" : "SPINNING UP");
+        launcher.updateTelemetry();
+        tele.publish();
+    }
+
+    @Override
+    public void stop() {
+        if (tele != null) tele.stop();
     }
 
     // ========= UTILS =========